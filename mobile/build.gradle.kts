@@ -33,6 +33,12 @@ android {
     kotlinOptions {
         jvmTarget = "1.8"
     }
+    testOptions {
+        // Pipeline stages log through android.util.Log; let JVM unit tests run them
+        unitTests.isReturnDefaultValues = true
+        // CPU benchmarks are skipped unless asked for: ./gradlew test -Pbenchmark
+        unitTests.all { it.systemProperty("benchmark", project.hasProperty("benchmark")) }
+    }
 }
 
 dependencies {
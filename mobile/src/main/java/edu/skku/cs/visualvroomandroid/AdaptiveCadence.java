@@ -0,0 +1,111 @@
+package edu.skku.cs.visualvroomandroid;
+
+import android.Manifest;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.BatteryManager;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import edu.skku.cs.visualvroomandroid.pipeline.CadenceController;
+
+/**
+ * Feeds the app's one {@link CadenceController} from battery broadcasts and GPS speed.
+ * Round-trip times come from whoever talks to the backend.
+ *
+ * Inputs are only collected between {@link #start} and the matching {@link #stop}; the
+ * service and the recorder screen can both hold it. Every decision is logged.
+ */
+public class AdaptiveCadence {
+    private static final String TAG = "AdaptiveCadence";
+    private static final long LOCATION_INTERVAL_MS = 5000;
+
+    private static AdaptiveCadence instance;
+
+    private final Context context;
+    private final CadenceController controller = new CadenceController();
+    private int users = 0;
+
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            onBatteryChanged(intent);
+        }
+    };
+
+    private final LocationListener locationListener = location -> {
+        if (location.hasSpeed()) {
+            controller.onSpeed(System.currentTimeMillis(), location.getSpeed());
+        }
+    };
+
+    private AdaptiveCadence(Context context) {
+        this.context = context.getApplicationContext();
+        controller.addListener(decision -> {
+            if (decision.isChanged()) {
+                Log.i(TAG, decision.toString());
+            } else {
+                Log.d(TAG, decision.toString());
+            }
+        });
+    }
+
+    public static synchronized AdaptiveCadence getInstance(Context context) {
+        if (instance == null) {
+            instance = new AdaptiveCadence(context);
+        }
+        return instance;
+    }
+
+    public CadenceController getController() {
+        return controller;
+    }
+
+    public synchronized void start() {
+        if (users++ > 0) return;
+
+        // Sticky, so the current level arrives straight away
+        Intent battery = context.registerReceiver(batteryReceiver,
+                new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        if (battery != null) {
+            onBatteryChanged(battery);
+        }
+
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED) {
+            LocationManager locationManager = context.getSystemService(LocationManager.class);
+            try {
+                locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER,
+                        LOCATION_INTERVAL_MS, 0f, locationListener, Looper.getMainLooper());
+            } catch (SecurityException | IllegalArgumentException e) {
+                Log.e(TAG, "No speed updates: " + e.getMessage());
+            }
+        } else {
+            Log.i(TAG, "Location permission not granted; treating the user as stationary");
+        }
+    }
+
+    public synchronized void stop() {
+        if (users == 0 || --users > 0) return;
+        context.unregisterReceiver(batteryReceiver);
+        context.getSystemService(LocationManager.class).removeUpdates(locationListener);
+    }
+
+    private void onBatteryChanged(Intent intent) {
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, 100);
+        if (level < 0 || scale <= 0) return;
+        int status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        boolean charging = status == BatteryManager.BATTERY_STATUS_CHARGING
+                || status == BatteryManager.BATTERY_STATUS_FULL;
+        controller.onBattery(System.currentTimeMillis(), level * 100 / scale, charging);
+    }
+}
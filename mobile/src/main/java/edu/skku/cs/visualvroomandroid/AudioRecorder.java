@@ -3,26 +3,36 @@ package edu.skku.cs.visualvroomandroid;
 import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
-import android.media.MediaRecorder;
-import android.os.Build;
 import android.util.Log;
 import androidx.core.content.ContextCompat;
+import edu.skku.cs.visualvroomandroid.capture.CaptureFormat;
+import edu.skku.cs.visualvroomandroid.capture.CaptureHub;
+import edu.skku.cs.visualvroomandroid.capture.SpillingAudioBuffer;
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponseDecoder;
+import edu.skku.cs.visualvroomandroid.pipeline.AudioBlock;
+import io.reactivex.rxjava3.disposables.Disposable;
 import okhttp3.*;
-import org.json.JSONObject;
+import okio.BufferedSink;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
 public class AudioRecorder {
     private static final String TAG = "AudioRecorder";
-    private static final int SAMPLE_RATE = 48000;
-    private static final int ENCODING_BIT_RATE = 256000;
+    // What the backend classifies; higher rates would only add upload bytes
+    private static final CaptureFormat FORMAT = CaptureFormat.STEREO_16K;
     private static final String TEST_ENDPOINT = "http://211.211.177.45:8017/test";
+    private static final MediaType WAV = MediaType.parse("audio/wav");
+    // About 5 s of 16 kHz stereo stays on the heap; older audio is spilled to cacheDir
+    private static final int MEMORY_BYTES = 5 * 16000 * 2 * 2;
 
     private final Context context;
-    private MediaRecorder mediaRecorder;
-    private File outputFile;
+    private Disposable captureSubscription;
+    // Created by the first block after a start or snapshot; guarded by this
+    private SpillingAudioBuffer pcm;
+    private boolean capturing;
+    private SpillingAudioBuffer recording;
     private final OkHttpClient client;
 
     // Track recording start time for snapshots
@@ -72,54 +82,40 @@ public class AudioRecorder {
                 == PackageManager.PERMISSION_GRANTED;
     }
 
-    private MediaRecorder createMediaRecorder() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            return new MediaRecorder(context);
-        } else {
-            return new MediaRecorder();
-        }
-    }
-
     public void startRecording() throws SecurityException, IOException {
         if (!checkPermission()) {
             throw new SecurityException("Recording permission not granted");
         }
+        if (captureSubscription != null) return;
 
-        try {
-            // Create output file
-            outputFile = File.createTempFile("audio_recording", ".m4a", context.getCacheDir());
-            outputFile.deleteOnExit();
-
-            mediaRecorder = createMediaRecorder();
-            mediaRecorder.setAudioSource(MediaRecorder.AudioSource.MIC); // Uses raw audio
-            mediaRecorder.setOutputFormat(MediaRecorder.OutputFormat.MPEG_4); // M4A format
-            mediaRecorder.setAudioEncoder(MediaRecorder.AudioEncoder.HE_AAC);
-            mediaRecorder.setAudioChannels(2); // Stereo
-            mediaRecorder.setAudioSamplingRate(SAMPLE_RATE);
-            mediaRecorder.setAudioEncodingBitRate(ENCODING_BIT_RATE);
-            mediaRecorder.setOutputFile(outputFile.getAbsolutePath());
-
-            mediaRecorder.prepare();
-            mediaRecorder.start();
-            recordingStartTime = System.currentTimeMillis();
-            Log.d(TAG, "Started recording to: " + outputFile.getAbsolutePath());
-        } catch (Exception e) {
-            Log.e(TAG, "Error starting recording: " + e.getMessage());
-            stopRecording();
-            throw e;
+        synchronized (this) {
+            discard(pcm);
+            pcm = null;
+            capturing = true;
         }
+        // The mic is shared with the detection service; take 16 kHz stereo from the hub
+        captureSubscription = CaptureHub.getInstance(context)
+                .blocks(FORMAT)
+                .subscribe(this::append, e -> Log.e(TAG, "Audio capture failed: " + e.getMessage()));
+        recordingStartTime = System.currentTimeMillis();
+        Log.d(TAG, "Started recording from capture hub (" + FORMAT + ")");
     }
 
+    /**
+     * Stops capturing and keeps what was recorded since the last snapshot for
+     * {@link #sendToBackend} to upload.
+     */
     public void stopRecording() {
-        if (mediaRecorder != null) {
-            try {
-                mediaRecorder.stop();
-            } catch (Exception e) {
-                Log.e(TAG, "Error stopping recording: " + e.getMessage());
-            } finally {
-                mediaRecorder.release();
-                mediaRecorder = null;
-            }
+        if (captureSubscription == null) return;
+
+        captureSubscription.dispose();
+        captureSubscription = null;
+        discard(recording);
+        synchronized (this) {
+            // A block already on its way from the hub must not start a new buffer
+            capturing = false;
+            recording = pcm;
+            pcm = null;
         }
     }
 
@@ -127,82 +123,83 @@ public class AudioRecorder {
      * Creates a snapshot of the current recording for processing without stopping the ongoing recording
      */
     public void createSnapshot(final AudioRecorderCallback callback) {
-        // We need to stop and restart the current recorder to get a snapshot
-        // This might create a small gap in the recording
-        if (mediaRecorder == null) {
+        if (captureSubscription == null) {
             callback.onError("No active recording");
             return;
         }
 
-        File snapshotFile = null;
-
-        try {
-            // Stop current recording to save the file
-            mediaRecorder.stop();
-
-            // Make a copy of the current output file
-            snapshotFile = new File(outputFile.getAbsolutePath());
-
-            // Start a new recording immediately
-            MediaRecorder newRecorder = createMediaRecorder();
-
-            // Create a new output file for the continuing recording
-            File newOutputFile = File.createTempFile("audio_recording", ".m4a", context.getCacheDir());
-            newOutputFile.deleteOnExit();
-
-            newRecorder.setAudioSource(MediaRecorder.AudioSource.MIC);
-            newRecorder.setOutputFormat(MediaRecorder.OutputFormat.MPEG_4);
-            newRecorder.setAudioEncoder(MediaRecorder.AudioEncoder.HE_AAC);
-            newRecorder.setAudioChannels(2);
-            newRecorder.setAudioSamplingRate(SAMPLE_RATE);
-            newRecorder.setAudioEncodingBitRate(ENCODING_BIT_RATE);
-            newRecorder.setOutputFile(newOutputFile.getAbsolutePath());
+        // Capture keeps running; only the buffered audio is swapped out
+        processSnapshot(takeSnapshot(), callback);
+    }
 
-            newRecorder.prepare();
-            newRecorder.start();
+    private SpillingAudioBuffer newBuffer() {
+        return new SpillingAudioBuffer(context.getCacheDir(), FORMAT, MEMORY_BYTES);
+    }
 
-            // Replace the old recorder with the new one
-            mediaRecorder.release();
-            mediaRecorder = newRecorder;
-            outputFile = newOutputFile;
+    private void append(AudioBlock block) {
+        synchronized (this) {
+            if (!capturing) return;
+            try {
+                if (pcm == null) {
+                    pcm = newBuffer();
+                }
+                pcm.write(block.getSamples(), block.getLength());
+            } catch (IOException e) {
+                Log.e(TAG, "Error spilling audio, block dropped: " + e.getMessage());
+            }
+        }
+    }
 
-            // Process the snapshot file
-            processSnapshotFile(snapshotFile, callback);
+    // Hands over the audio captured so far, or null if none; the next block starts a fresh buffer
+    private synchronized SpillingAudioBuffer takeSnapshot() {
+        SpillingAudioBuffer captured = pcm;
+        pcm = null;
+        return captured;
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error creating snapshot: " + e.getMessage());
-            callback.onError("Error creating snapshot: " + e.getMessage());
+    // Streams the buffer as a WAV file part, straight from its mapped spill file
+    private static RequestBody wavBody(final SpillingAudioBuffer buffer) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return WAV;
+            }
 
-            // If there was an error, try to restart recording
-            try {
-                if (mediaRecorder != null) {
-                    mediaRecorder.release();
-                }
+            @Override
+            public long contentLength() {
+                return buffer.wavLength();
+            }
 
-                startRecording();
-            } catch (Exception restartError) {
-                Log.e(TAG, "Error restarting recording after snapshot failure: " + restartError.getMessage());
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                buffer.writeWavTo(sink);
             }
+        };
+    }
+
+    private static void discard(SpillingAudioBuffer buffer) {
+        if (buffer == null) return;
+        try {
+            buffer.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Error deleting spill file: " + e.getMessage());
         }
     }
 
-    private void processSnapshotFile(File snapshotFile, final AudioRecorderCallback callback) {
+    private void processSnapshot(final SpillingAudioBuffer snapshot, final AudioRecorderCallback callback) {
         try {
-            if (snapshotFile == null || !snapshotFile.exists()) {
-                callback.onError("No snapshot file available");
+            if (snapshot == null || snapshot.size() == 0) {
+                callback.onError("No snapshot audio available");
+                discard(snapshot);
                 return;
             }
 
-            Log.d(TAG, "Processing snapshot file: " + snapshotFile.getAbsolutePath() +
-                    " (Size: " + snapshotFile.length() + " bytes)");
+            Log.d(TAG, "Processing snapshot (Size: " + snapshot.wavLength() + " bytes, "
+                    + snapshot.getSpilledBytes() + " spilled to disk)");
 
             RequestBody requestBody = new MultipartBody.Builder()
                     .setType(MultipartBody.FORM)
-                    .addFormDataPart(
-                            "audio_file",
-                            snapshotFile.getName(),
-                            RequestBody.create(snapshotFile, MediaType.parse("audio/mp4"))
-                    )
+                    .addFormDataPart("audio_file", "audio_recording.wav", wavBody(snapshot))
                     .build();
 
             Request request = new Request.Builder()
@@ -217,10 +214,8 @@ public class AudioRecorder {
                     Log.e(TAG, error);
                     callback.onError(error);
 
-                    // Clean up the snapshot file
-                    if (snapshotFile != null) {
-                        snapshotFile.delete();
-                    }
+                    // Clean up the spill file
+                    discard(snapshot);
                 }
 
                 @Override
@@ -234,96 +229,88 @@ public class AudioRecorder {
                             return;
                         }
 
-                        String responseString = responseBody.string();
-                        Log.d(TAG, "Server response for snapshot: " + responseString);
-
-                        try {
-                            JSONObject json = new JSONObject(responseString);
-
-                            if ("error".equals(json.getString("status"))) {
-                                String errorMsg = json.getString("error");
-                                Log.e(TAG, "Server returned error for snapshot: " + errorMsg);
-                                callback.onError(errorMsg);
-                                return;
-                            }
-
-                            JSONObject inferenceJson = json.getJSONObject("inference_result");
-
-                            // Check if audio was too quiet
-                            boolean tooQuiet = inferenceJson.optBoolean("too_quiet", false);
-                            if (tooQuiet) {
-                                Log.d(TAG, "Audio too quiet for processing");
-                                callback.onQuietAudio();
-                                return;
-                            }
-
-                            // Get the vehicle type, direction, and confidence
-                            String vehicleType = inferenceJson.getString("vehicle_type");
-                            String direction = inferenceJson.getString("direction");
-                            double confidence = inferenceJson.getDouble("confidence");
-
-                            // Calculate shouldNotify - either use server value or determine based on confidence
-                            boolean shouldNotify = inferenceJson.optBoolean("should_notify", false);
-
-                            // Force shouldNotify to true if confidence is high enough
-                            if (!shouldNotify && confidence > 0.97) {
-                                shouldNotify = true;
-                                Log.d(TAG, "Forcing shouldNotify to true based on high confidence: " + confidence);
-                            }
-
-                            InferenceResult result = new InferenceResult(
-                                    vehicleType,
-                                    direction,
-                                    confidence,
-                                    shouldNotify,
-                                    false  // Not too quiet
-                            );
-
-                            Log.d(TAG, String.format("Created inference result: %s from %s (confidence: %.2f, shouldNotify: %b)",
-                                    result.getVehicleType(), result.getDirection(),
-                                    result.getConfidence(), result.getShouldNotify()));
-
-                            callback.onSuccess(result);
-                        } catch (Exception e) {
-                            String error = "Error parsing snapshot response: " + e.getMessage();
-                            Log.e(TAG, error);
-                            callback.onError(error);
-                        }
+                        deliverResult(responseBody, callback);
                     } finally {
-                        // Clean up the snapshot file
-                        if (snapshotFile != null) {
-                            snapshotFile.delete();
-                        }
+                        // Clean up the spill file
+                        discard(snapshot);
                     }
                 }
             });
         } catch (Exception e) {
-            String error = "Error processing snapshot file: " + e.getMessage();
+            String error = "Error processing snapshot: " + e.getMessage();
             Log.e(TAG, error);
             callback.onError(error);
 
-            if (snapshotFile != null) {
-                snapshotFile.delete();
-            }
+            discard(snapshot);
         }
     }
+
+    /**
+     * Decodes an inference response straight from the body stream and reports it to the callback.
+     */
+    private void deliverResult(ResponseBody responseBody, AudioRecorderCallback callback) {
+        PredictionResponse response = new PredictionResponse();
+        try {
+            PredictionResponseDecoder.decode(responseBody.charStream(), response);
+        } catch (IOException e) {
+            String error = "Error parsing response: " + e.getMessage();
+            Log.e(TAG, error);
+            callback.onError(error);
+            return;
+        }
+
+        if (response.isError()) {
+            Log.e(TAG, "Server returned error: " + response.getError());
+            callback.onError(response.getError());
+            return;
+        }
+
+        // Check if audio was too quiet
+        if (response.isTooQuiet()) {
+            Log.d(TAG, "Audio too quiet for processing");
+            callback.onQuietAudio();
+            return;
+        }
+
+        if (!response.hasPrediction()) {
+            String error = "Error parsing response: missing prediction fields";
+            Log.e(TAG, error);
+            callback.onError(error);
+            return;
+        }
+
+        // Alert decisions for continuous snapshots are made by AlertDecisionEngine, not per response
+        InferenceResult result = new InferenceResult(
+                response.getVehicleType(),
+                response.getDirection(),
+                response.getConfidence(),
+                response.isShouldNotify(),
+                false  // Not too quiet
+        );
+
+        Log.d(TAG, String.format("Created inference result: %s from %s (confidence: %.2f, shouldNotify: %b)",
+                result.getVehicleType(), result.getDirection(),
+                result.getConfidence(), result.getShouldNotify()));
+
+        callback.onSuccess(result);
+    }
+
     public void sendToBackend(final AudioRecorderCallback callback) {
-        if (outputFile == null || !outputFile.exists()) {
-            callback.onError("No recording file available");
+        final SpillingAudioBuffer sent = recording;
+        recording = null;
+        if (sent == null || sent.size() == 0) {
+            callback.onError("No recording available");
+            discard(sent);
             return;
         }
 
         try {
-            Log.d(TAG, "Sending file: " + outputFile.getAbsolutePath() +
-                    " (Size: " + outputFile.length() + " bytes)");
+            Log.d(TAG, "Sending recording (Size: " + sent.wavLength() + " bytes, "
+                    + sent.getSpilledBytes() + " spilled to disk)");
 
             RequestBody requestBody = new MultipartBody.Builder()
                     .setType(MultipartBody.FORM)
-                    .addFormDataPart(
-                            "audio_file",
-                            outputFile.getName(),
-                            RequestBody.create(outputFile, MediaType.parse("audio/mp4"))
-                    )
+                    .addFormDataPart("audio_file", "audio_recording.wav", wavBody(sent))
                     .build();
 
             Request request = new Request.Builder()
@@ -337,6 +324,7 @@ public class AudioRecorder {
                     String error = "Network error: " + e.getMessage();
                     Log.e(TAG, error);
                     callback.onError(error);
+                    discard(sent);
                 }
 
                 @Override
@@ -350,59 +338,18 @@ public class AudioRecorder {
                             return;
                         }
 
-                        String responseString = responseBody.string();
-                        Log.d(TAG, "Server response: " + responseString);
-
-                        try {
-                            JSONObject json = new JSONObject(responseString);
-
-                            if ("error".equals(json.getString("status"))) {
-                                String errorMsg = json.getString("error");
-                                Log.e(TAG, "Server returned error: " + errorMsg);
-                                callback.onError(errorMsg);
-                                return;
-                            }
-
-                            JSONObject inferenceJson = json.getJSONObject("inference_result");
-
-                            // Check if audio was too quiet
-                            boolean tooQuiet = inferenceJson.optBoolean("too_quiet", false);
-                            if (tooQuiet) {
-                                Log.d(TAG, "Audio too quiet for processing");
-                                callback.onQuietAudio();
-                                return;
-                            }
-
-                            InferenceResult result = new InferenceResult(
-                                    inferenceJson.getString("vehicle_type"),
-                                    inferenceJson.getString("direction"),
-                                    inferenceJson.getDouble("confidence"),
-                                    inferenceJson.getBoolean("should_notify"),
-                                    false  // Not too quiet
-                            );
-                            callback.onSuccess(result);
-                        } catch (Exception e) {
-                            String error = "Error parsing response: " + e.getMessage();
-                            Log.e(TAG, error);
-                            callback.onError(error);
-                        }
+                        deliverResult(responseBody, callback);
                     } finally {
-                        if (outputFile != null) {
-                            outputFile.delete();
-                            outputFile = null;
-                        }
+                        discard(sent);
                     }
                 }
             });
         } catch (Exception e) {
-            String error = "Error sending file: " + e.getMessage();
+            String error = "Error sending recording: " + e.getMessage();
             Log.e(TAG, error);
             callback.onError(error);
 
-            if (outputFile != null) {
-                outputFile.delete();
-                outputFile = null;
-            }
+            discard(sent);
         }
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.CompoundButton;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
@@ -16,9 +17,23 @@ import androidx.fragment.app.Fragment;
 import com.airbnb.lottie.LottieAnimationView;
 import com.airbnb.lottie.LottieDrawable;
 
+import edu.skku.cs.visualvroomandroid.capture.BlackBoxRecorder;
+import edu.skku.cs.visualvroomandroid.capture.CaptureFormat;
+import edu.skku.cs.visualvroomandroid.capture.CaptureHub;
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+import edu.skku.cs.visualvroomandroid.event.DetectionEventBus;
+import edu.skku.cs.visualvroomandroid.meter.AudioMeter;
+import edu.skku.cs.visualvroomandroid.meter.AudioScopeView;
+import edu.skku.cs.visualvroomandroid.pipeline.AlertDecisionEngine;
+import edu.skku.cs.visualvroomandroid.pipeline.CadenceController;
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+import java.util.concurrent.TimeUnit;
+
 public class AudioRecorderFragment extends Fragment {
     private static final String TAG = "AudioRecorderFragment";
-    private static final int PROCESSING_INTERVAL_MS = 3000; // 3 seconds
 
     // UI Components
     private LottieAnimationView micButton;
@@ -27,6 +42,8 @@ public class AudioRecorderFragment extends Fragment {
     private LottieAnimationView vehicleAnimation;
     private View leftDirectionPanel;
     private View rightDirectionPanel;
+    private AudioScopeView audioScope;
+    private CompoundButton noiseSwitch;
     private static final float DIRECTION_PANEL_ALPHA = 0.3f;
 
     // State Management
@@ -40,8 +57,15 @@ public class AudioRecorderFragment extends Fragment {
     // Core Components
     private AudioRecorder audioRecorder;
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
-    private Runnable processingIntervalRunnable;
-    private boolean isContinuousProcessing = false;
+    private Disposable processingTicks;
+    private AdaptiveCadence adaptiveCadence;
+    private final AlertDecisionEngine alertDecisionEngine = new AlertDecisionEngine();
+    private Disposable detectionSubscription;
+    private Disposable meterSubscription;
+    private VehicleAnimationCache animationCache;
+    private RecordingSettings settings;
+    // Set while this screen's recording is what keeps the black box running
+    private boolean ownsBlackBox = false;
 
     // Animation control
     private Runnable hideAnimationRunnable;
@@ -65,6 +89,12 @@ public class AudioRecorderFragment extends Fragment {
         initializeViews(view);
         initializeComponents();
         setupClickListeners();
+
+        // Detections from this screen and from the background service
+        detectionSubscription = DetectionEventBus.getInstance()
+                .events(AndroidSchedulers.mainThread())
+                .subscribe(this::showDetection,
+                        error -> Log.e(TAG, "Detection updates stopped: " + error.getMessage()));
     }
 
     private void initializeViews(View view) {
@@ -74,6 +104,8 @@ public class AudioRecorderFragment extends Fragment {
         vehicleAnimation = view.findViewById(R.id.vehicleAnimation);
         leftDirectionPanel = view.findViewById(R.id.leftDirectionPanel);
         rightDirectionPanel = view.findViewById(R.id.rightDirectionPanel);
+        audioScope = view.findViewById(R.id.audioScope);
+        noiseSwitch = view.findViewById(R.id.noiseSwitch);
 
         // Set initial UI state
         updateUIState(RecordingState.IDLE);
@@ -93,21 +125,17 @@ public class AudioRecorderFragment extends Fragment {
 
     private void initializeComponents() {
         audioRecorder = new AudioRecorder(requireContext());
-
-        // Create a runnable for periodic processing
-        processingIntervalRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (currentState == RecordingState.RECORDING && isContinuousProcessing) {
-                    processCurrentRecording();
-                    // Schedule next processing
-                    mainHandler.postDelayed(this, PROCESSING_INTERVAL_MS);
-                }
-            }
-        };
+        adaptiveCadence = AdaptiveCadence.getInstance(requireContext());
+        animationCache = VehicleAnimationCache.getInstance(requireContext());
+        animationCache.preload();
+        settings = new RecordingSettings(requireContext());
+        noiseSwitch.setChecked(settings.isNoiseSuppression());
     }
 
     private void setupClickListeners() {
+        // Shared with the background service; takes effect from the next recording
+        noiseSwitch.setOnCheckedChangeListener((button, checked) -> settings.setNoiseSuppression(checked));
+
         micButton.setOnClickListener(v -> {
             switch (currentState) {
                 case IDLE:
@@ -127,6 +155,9 @@ public class AudioRecorderFragment extends Fragment {
         try {
             // Reset the quiet samples counter
             consecutiveQuietSamples = 0;
+            synchronized (this) {
+                alertDecisionEngine.reset();
+            }
 
             // Cancel any existing vehicle animation
             cancelCurrentAnimation();
@@ -139,9 +170,19 @@ public class AudioRecorderFragment extends Fragment {
             audioRecorder.startRecording();
             updateUIState(RecordingState.RECORDING);
 
-            // Start continuous processing
-            isContinuousProcessing = true;
-            mainHandler.postDelayed(processingIntervalRunnable, PROCESSING_INTERVAL_MS);
+            // Start continuous processing; a tick that arrives while the main thread is busy is dropped.
+            // Each wait re-reads the hop, so cadence changes apply from the next snapshot.
+            adaptiveCadence.start();
+            CadenceController cadence = adaptiveCadence.getController();
+            processingTicks = Flowable.defer(() -> Flowable.timer(cadence.getCadence().getHopMs(), TimeUnit.MILLISECONDS))
+                    .repeat()
+                    .onBackpressureDrop()
+                    .observeOn(AndroidSchedulers.mainThread(), false, 1)
+                    .filter(tick -> currentState == RecordingState.RECORDING)
+                    .subscribe(tick -> processCurrentRecording(),
+                            error -> Log.e(TAG, "Continuous processing stopped: " + error.getMessage()));
+            startMeter();
+            startBlackBox();
 
             Log.d(TAG, "Recording started successfully with continuous processing");
         } catch (SecurityException e) {
@@ -156,8 +197,9 @@ public class AudioRecorderFragment extends Fragment {
     private void stopRecording() {
         try {
             // Stop continuous processing
-            isContinuousProcessing = false;
-            mainHandler.removeCallbacks(processingIntervalRunnable);
+            disposeProcessingTicks();
+            stopMeter();
+            stopBlackBox();
             mainHandler.removeCallbacks(hideAnimationRunnable);
 
             // Stop the recording
@@ -178,6 +220,52 @@ public class AudioRecorderFragment extends Fragment {
         }
     }
 
+    private void disposeProcessingTicks() {
+        if (processingTicks != null) {
+            processingTicks.dispose();
+            processingTicks = null;
+            adaptiveCadence.stop();
+        }
+    }
+
+    // The meter analyzes on its own hub subscription's thread; the view only reads its results
+    private void startMeter() {
+        // The landscape layout has no room for the scope
+        if (audioScope == null) return;
+        AudioMeter meter = new AudioMeter(settings.isNoiseSuppression());
+        meterSubscription = CaptureHub.getInstance(requireContext())
+                .blocks(CaptureFormat.STEREO_16K)
+                .subscribe(meter, error -> Log.e(TAG, "Level meter stopped: " + error.getMessage()));
+        audioScope.setMeter(meter);
+        audioScope.setVisibility(View.VISIBLE);
+    }
+
+    private void stopMeter() {
+        if (meterSubscription != null) {
+            meterSubscription.dispose();
+            meterSubscription = null;
+        }
+        if (audioScope != null) {
+            audioScope.setMeter(null);
+            audioScope.setVisibility(View.GONE);
+        }
+    }
+
+    // Turned on from the History tab; keeps audio only while this screen records
+    private void startBlackBox() {
+        int minutes = settings.getBlackBoxMinutes();
+        if (minutes > 0) {
+            ownsBlackBox = BlackBoxRecorder.getInstance(requireContext()).start(minutes);
+        }
+    }
+
+    private void stopBlackBox() {
+        if (ownsBlackBox) {
+            BlackBoxRecorder.getInstance(requireContext()).stop();
+            ownsBlackBox = false;
+        }
+    }
+
     private void cancelCurrentAnimation() {
         // Cancel animation
         if (vehicleAnimation != null) {
@@ -197,49 +285,18 @@ public class AudioRecorderFragment extends Fragment {
                     mainHandler.post(() -> {
                         // Reset quiet samples counter
                         consecutiveQuietSamples = 0;
+                    });
 
-                        // Log inference details
-                        Log.d(TAG, String.format("Inference result (continuous) - %s from %s (confidence: %.2f, shouldNotify: %b)",
-                                result.getVehicleType(),
-                                result.getDirection(),
-                                result.getConfidence(),
-                                result.getShouldNotify()));
-
-                        // Force notification if confidence is high enough, regardless of shouldNotify flag
-                        boolean shouldShow = result.getShouldNotify() || result.getConfidence() > 0.97;
-
-                        if (shouldShow) {
-                            String message = String.format("%s detected from %s (%.2f)",
-                                    result.getVehicleType(),
-                                    result.getDirection(),
-                                    result.getConfidence());
-
-                            // Show toast notification
-                            showToast(message);
-
-                            // Update status text to provide additional feedback
-                            statusText.setText("Detected: " + result.getVehicleType() + " from " + result.getDirection());
-
-                            // Always update animations when confidence is high
-                            Log.d(TAG, "Showing animation for high confidence detection: " + result.getConfidence());
-                            showVehicleAnimation(result.getVehicleType(), true);
-                            updateDirectionIndicator(result.getDirection());
-
-                            // Also send to watch through MainActivity if possible
-                            try {
-                                MainActivity activity = (MainActivity) getActivity();
-                                if (activity != null) {
-                                    activity.sendAlertToWatch(result.getVehicleType(), result.getDirection());
-                                    Log.d(TAG, "Sent alert to watch via MainActivity");
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Failed to send alert to watch: " + e.getMessage());
-                            }
-                        }
+                    DetectionEvent event = new DetectionEvent(
+                            DetectionEvent.Source.RECORDER,
+                            result.getVehicleType(),
+                            result.getDirection(),
+                            result.getConfidence(),
+                            result.getShouldNotify(),
+                            System.currentTimeMillis());
 
-                        // Remain in recording state
-                        // We don't change the UI state since we're still recording
-                    });
+                    // The UI, watch bridge and logger all pick this up from the bus
+                    DetectionEventBus.getInstance().publish(decideAlert(event));
                 }
 
                 @Override
@@ -269,10 +326,42 @@ public class AudioRecorderFragment extends Fragment {
         }
     }
 
+    // Snapshot callbacks arrive on OkHttp threads, one request at a time per recorder
+    private synchronized DetectionEvent decideAlert(DetectionEvent event) {
+        return alertDecisionEngine.smooth(event);
+    }
+
+    private void showDetection(DetectionEvent event) {
+        if (!isAdded()) return;
+
+        // Log inference details
+        Log.d(TAG, "Inference result (continuous) - " + event);
+
+        // shouldNotify already reflects AlertDecisionEngine's smoothing and refractory period
+        if (event.getShouldNotify()) {
+            String message = String.format("%s detected from %s (%.2f)",
+                    event.getVehicleType(),
+                    event.getDirection(),
+                    event.getConfidence());
+
+            // Show toast notification
+            showToast(message);
+
+            // Update status text to provide additional feedback
+            statusText.setText("Detected: " + event.getVehicleType() + " from " + event.getDirection());
+
+            // Always update animations when confidence is high
+            Log.d(TAG, "Showing animation for high confidence detection: " + event.getConfidence());
+            showVehicleAnimation(event.getVehicleType(), true, event.getTimestampMs());
+            updateDirectionIndicator(event.getDirection());
+        }
+    }
+
     private void processRecording() {
         audioRecorder.sendToBackend(new AudioRecorder.AudioRecorderCallback() {
             @Override
             public void onSuccess(AudioRecorder.InferenceResult result) {
+                final long receivedAt = System.currentTimeMillis();
                 mainHandler.post(() -> {
                     // Log inference details
                     Log.d(TAG, String.format("Inference result - %s from %s (confidence: %.2f)",
@@ -289,7 +378,7 @@ public class AudioRecorderFragment extends Fragment {
                     // Handle high-confidence detection
                     if (result.getShouldNotify()) {
                         Log.d(TAG, "High confidence detection: " + message);
-                        showVehicleAnimation(result.getVehicleType(), false);
+                        showVehicleAnimation(result.getVehicleType(), false, receivedAt);
                         updateDirectionIndicator(result.getDirection());
                     } else {
                         cancelCurrentAnimation();
@@ -319,7 +408,7 @@ public class AudioRecorderFragment extends Fragment {
         });
     }
 
-    private void showVehicleAnimation(String vehicleType, boolean isDuringRecording) {
+    private void showVehicleAnimation(String vehicleType, boolean isDuringRecording, long receivedAtMs) {
         if (!isAdded()) return;
 
         // Remove any pending animation hide callbacks
@@ -346,8 +435,9 @@ public class AudioRecorderFragment extends Fragment {
         vehicleAnimation.clearAnimation();
         vehicleAnimation.removeAllAnimatorListeners();
 
-        // Set up new animation
-        vehicleAnimation.setAnimation(animationResource);
+        // Set up new animation from the preloaded composition
+        animationCache.apply(vehicleAnimation, animationResource);
+        animationCache.measureFirstFrame(vehicleAnimation, receivedAtMs);
         vehicleAnimation.setVisibility(View.VISIBLE);
 
         if (isDuringRecording) {
@@ -488,8 +578,14 @@ public class AudioRecorderFragment extends Fragment {
 
     @Override
     public void onDestroyView() {
+        if (detectionSubscription != null) {
+            detectionSubscription.dispose();
+        }
+
         // Clean up our continuous processing timer
-        mainHandler.removeCallbacks(processingIntervalRunnable);
+        disposeProcessingTicks();
+        stopMeter();
+        stopBlackBox();
         mainHandler.removeCallbacks(hideAnimationRunnable);
 
         if (currentState == RecordingState.RECORDING) {
@@ -7,61 +7,98 @@ import android.app.NotificationManager;
 import android.app.Service;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.media.AudioFormat;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.Process;
 import android.util.Log;
 import androidx.core.app.NotificationCompat;
 import androidx.core.content.ContextCompat;
 
-import okhttp3.*;
-import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.ArrayList;
+import edu.skku.cs.visualvroomandroid.capture.BlackBoxRecorder;
+import edu.skku.cs.visualvroomandroid.capture.CaptureFormat;
+import edu.skku.cs.visualvroomandroid.capture.CaptureHub;
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+import edu.skku.cs.visualvroomandroid.event.DetectionEventBus;
+import edu.skku.cs.visualvroomandroid.history.DetectionHistory;
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import edu.skku.cs.visualvroomandroid.pipeline.AlertDecisionEngine;
+import edu.skku.cs.visualvroomandroid.pipeline.BatchInferenceStage;
+import edu.skku.cs.visualvroomandroid.pipeline.Cadence;
+import edu.skku.cs.visualvroomandroid.pipeline.CadenceController;
+import edu.skku.cs.visualvroomandroid.pipeline.DetectionPipeline;
+import edu.skku.cs.visualvroomandroid.pipeline.DutyCycleController;
+import edu.skku.cs.visualvroomandroid.pipeline.EncodedWindow;
+import edu.skku.cs.visualvroomandroid.pipeline.InferenceBatcher;
+import edu.skku.cs.visualvroomandroid.pipeline.PrerollBuffer;
+import edu.skku.cs.visualvroomandroid.pipeline.SentinelDetector;
+import edu.skku.cs.visualvroomandroid.pipeline.ServerInferenceStage;
+import edu.skku.cs.visualvroomandroid.pipeline.SilenceGate;
+import edu.skku.cs.visualvroomandroid.pipeline.StandInInferenceStage;
+import edu.skku.cs.visualvroomandroid.pipeline.StereoWindowStage;
+import edu.skku.cs.visualvroomandroid.trace.Tracer;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import okhttp3.OkHttpClient;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AudioRecordingService extends Service {
     private static final String TAG = "AudioRecordingService";
     private static final int SAMPLE_RATE = 16000;
-    private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_STEREO;
-    private static final int AUDIO_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
-    private static final int BYTES_PER_SAMPLE = 2;
-    private static final int BUFFER_SIZE = AudioRecord.getMinBufferSize(
-            SAMPLE_RATE, CHANNEL_CONFIG, AUDIO_FORMAT) * 4; // Increased buffer size
     private static final String NOTIFICATION_CHANNEL_ID = "audio_service_channel";
     private static final int NOTIFICATION_ID = 1;
 
     // Buffer for 5 seconds of audio (increased from 3)
     private static final int SECONDS_TO_BUFFER = 5;
     private static final int SAMPLES_PER_BUFFER = SAMPLE_RATE * SECONDS_TO_BUFFER;
+    // Start a new window every 3 seconds until AdaptiveCadence says otherwise
+    private static final int SAMPLES_PER_HOP = SAMPLE_RATE * 3;
+    // Windows quieter than this on both channels are not uploaded. Windows carry the limiter's
+    // full 48 dB for quiet input, so this is 0.001 of the old 50x window level
+    private static final double SILENCE_RMS = 0.005;
+
+    // Low-power mode: a cheap detector on 8 kHz mono decides when the full pipeline runs
+    private static final CaptureFormat SENTINEL_FORMAT = new CaptureFormat(8000, 1);
+    private static final double SENTINEL_MIN_RMS = 0.002;
+    // Classifier results at least this confident keep the full pipeline awake
+    private static final double ACTIVITY_CONFIDENCE = 0.5;
+    // A failed pipeline is rebuilt after a pause; this many failures without a result in between stop recording
+    private static final int MAX_PIPELINE_RESTARTS = 3;
+    private static final long PIPELINE_RESTART_DELAY_MS = 2000;
 
-    private AudioRecord audioRecord;
     private AtomicBoolean isRecording;
-    private Thread recordingThread;
+    private Disposable pipelineSubscription;
+    private DetectionPipeline pipeline;
+    // Tells a failure of the running pipeline from one it has already replaced
+    private int pipelineGeneration = 0;
+    private final AtomicInteger pipelineFailures = new AtomicInteger();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // A pipeline that stopped capturing and is waiting on its last requests
+    private Disposable finishingSubscription;
+    private Disposable sentinelSubscription;
+    // In SENTINEL the last window of 16 kHz stereo is kept, so an escalation starts classifying at once
+    private PrerollBuffer preroll;
+    private Disposable prerollSubscription;
+    private DutyCycleController dutyCycle;
+    // Applies cadence changes to the running pipeline; null while it's stopped
+    private CadenceController.Listener cadenceListener;
+    private boolean useLocalInference = false;
+    private boolean lowPowerMode = false;
+    private boolean batchInference = false;
+    private int blackBoxMinutes = 0;
+    // Only the owner of the black box stops it; the recorder screen may have started it first
+    private boolean ownsBlackBox = false;
+    private boolean noiseSuppression = false;
     private final OkHttpClient client;
+    private Disposable detectionSubscription;
     private static final String SERVER_URL = "http://211.211.177.45:8017/predict";
+    private static final String SERVER_BATCH_URL = "http://211.211.177.45:8017/predict_batch";
 
-    // Buffers for left and right channels
-    private final ArrayDeque<Short> leftBuffer = new ArrayDeque<>(SAMPLES_PER_BUFFER);
-    private final ArrayDeque<Short> rightBuffer = new ArrayDeque<>(SAMPLES_PER_BUFFER);
-
-    // Audio level monitoring
-    private float leftMicLevel = 0;
-    private float rightMicLevel = 0;
-    private static final int LEVEL_MONITOR_INTERVAL = 100;
-
-    // RMS level tracking for auto-gain
-    private double leftRmsSum = 0;
-    private double rightRmsSum = 0;
-    private int rmsSampleCount = 0;
-    private static final int RMS_WINDOW_SIZE = SAMPLE_RATE; // 1 second window
-    private static final double BASE_GAIN = 50.0;  // Increased from 25.0f
-    private static final double MAX_GAIN = 100.0;    // Increased from 15.0
-    private static final double TARGET_RMS = 0.95;  // Increased from 0.9
     public AudioRecordingService() {
         client = new OkHttpClient.Builder()
                 .build();
@@ -72,6 +109,18 @@ public class AudioRecordingService extends Service {
     public void onCreate() {
         super.onCreate();
         createNotificationChannel();
+        Tracer.getInstance().start(Tracer.defaultDirectory(this));
+        DetectionHistory.getInstance(this).start();
+
+        // Keep the foreground notification showing the latest alert-worthy detection
+        detectionSubscription = DetectionEventBus.getInstance()
+                .events(Schedulers.single())
+                .filter(DetectionEvent::getShouldNotify)
+                .subscribe(event -> {
+                    NotificationManager notificationManager = getSystemService(NotificationManager.class);
+                    notificationManager.notify(NOTIFICATION_ID, createNotification(
+                            "Last alert: " + event.getVehicleType() + " from " + event.getDirection()));
+                }, error -> Log.e(TAG, "Alert notifications stopped: " + error.getMessage()));
     }
 
     @Override
@@ -83,9 +132,20 @@ public class AudioRecordingService extends Service {
                 return START_NOT_STICKY;
             }
 
+            // Inference backend is swappable; the local stand-in needs no network
+            useLocalInference = intent.getBooleanExtra("use_local_inference", false);
+            // Duty-cycled monitoring for all-day use; see DutyCycleController
+            lowPowerMode = intent.getBooleanExtra("low_power_mode", false);
+            // Pack queued windows into one request on a congested uplink; see InferenceBatcher
+            batchInference = intent.getBooleanExtra("batch_inference", false);
+            // Minutes of audio to keep for saving clips later, 0 to keep none; see BlackBoxRecorder
+            RecordingSettings settings = new RecordingSettings(this);
+            blackBoxMinutes = intent.getIntExtra("black_box_minutes", settings.getBlackBoxMinutes());
+            // Strip steady wind and road noise before windows are levelled and uploaded; see NoiseSuppressor
+            noiseSuppression = intent.getBooleanExtra("noise_suppression", settings.isNoiseSuppression());
+
             try {
                 startForeground(NOTIFICATION_ID, createNotification());
-                initializeAudioRecorder();
                 startRecording();
             } catch (SecurityException e) {
                 Log.e(TAG, "Security Exception in onStartCommand: " + e.getMessage());
@@ -120,62 +180,18 @@ public class AudioRecordingService extends Service {
     }
 
     private Notification createNotification() {
+        return createNotification("Recording in progress...");
+    }
+
+    private Notification createNotification(String contentText) {
         return new NotificationCompat.Builder(this, NOTIFICATION_CHANNEL_ID)
                 .setContentTitle("Audio Recording Service")
-                .setContentText("Recording in progress...")
+                .setContentText(contentText)
                 .setSmallIcon(R.drawable.ic_notification)
                 .setPriority(NotificationCompat.PRIORITY_LOW)
                 .build();
     }
 
-    private void initializeAudioRecorder() {
-        if (!checkPermission()) {
-            Log.e(TAG, "Recording permission not granted");
-            throw new SecurityException("Recording permission not granted");
-        }
-
-        try {
-            // Configure for stereo recording with higher quality settings
-            AudioFormat audioFormat = new AudioFormat.Builder()
-                    .setEncoding(AUDIO_FORMAT)
-                    .setSampleRate(SAMPLE_RATE)
-                    .setChannelMask(CHANNEL_CONFIG)
-                    .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
-                    .build();
-
-            // Try to use UNPROCESSED source first for raw audio
-            try {
-                audioRecord = new AudioRecord.Builder()
-                        .setAudioSource(MediaRecorder.AudioSource.MIC)
-                        .setAudioFormat(audioFormat)
-                        .setBufferSizeInBytes(BUFFER_SIZE)
-                        .build();
-            } catch (Exception e) {
-                // Fall back to DEFAULT if UNPROCESSED is not supported
-                Log.w(TAG, "UNPROCESSED source not supported, falling back to DEFAULT");
-                audioRecord = new AudioRecord.Builder()
-                        .setAudioSource(MediaRecorder.AudioSource.DEFAULT)
-                        .setAudioFormat(audioFormat)
-                        .setBufferSizeInBytes(BUFFER_SIZE)
-                        .build();
-            }
-
-            if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
-                throw new IllegalStateException("Failed to initialize AudioRecord");
-            }
-
-            Log.i(TAG, "AudioRecord initialized successfully");
-            Log.i(TAG, "Channel count: " + audioFormat.getChannelCount());
-            Log.i(TAG, "Channel mask: " + audioFormat.getChannelMask());
-            Log.i(TAG, "Sample rate: " + audioFormat.getSampleRate());
-            Log.i(TAG, "Encoding: " + audioFormat.getEncoding());
-            Log.i(TAG, "Buffer size: " + BUFFER_SIZE);
-        } catch (Exception e) {
-            Log.e(TAG, "Error initializing AudioRecord: " + e.getMessage());
-            throw e;
-        }
-    }
-
     private void startRecording() {
         if (!checkPermission()) {
             Log.e(TAG, "Recording permission not granted");
@@ -186,288 +202,227 @@ public class AudioRecordingService extends Service {
         if (isRecording.get()) return;
 
         isRecording.set(true);
-        recordingThread = new Thread(() -> {
-            short[] readBuffer = new short[BUFFER_SIZE / 2]; // Convert bytes to shorts
-
-            try {
-                audioRecord.startRecording();
-
-                while (isRecording.get()) {
-                    int shortsRead = audioRecord.read(readBuffer, 0, readBuffer.length);
-
-                    if (shortsRead > 0) {
-                        processAudioData(readBuffer, shortsRead);
-                    }
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error during recording: " + e.getMessage());
-            } finally {
-                stopRecording();
-            }
-        });
-        recordingThread.start();
-    }
+        AdaptiveCadence.getInstance(this).start();
+        if (blackBoxMinutes > 0) {
+            ownsBlackBox = BlackBoxRecorder.getInstance(this).start(blackBoxMinutes);
+        }
 
-    private double calculateOptimalGain(short[] buffer, int shortsRead) {
-        double maxAmplitude = 0;
-        for (int i = 0; i < shortsRead; i++) {
-            maxAmplitude = Math.max(maxAmplitude, Math.abs(buffer[i]));
+        if (!lowPowerMode) {
+            startPipeline();
+            return;
         }
 
-        // Target amplitude around 50-70% of max (32767)
-        double targetAmplitude = 20000;  // About 60% of max
-        return Math.min(targetAmplitude / (maxAmplitude + 1e-6), MAX_GAIN);  // Use MAX_GAIN constant
+        // Only the sentinel runs until it triggers or an audit is due
+        dutyCycle = new DutyCycleController(DutyCycleController.Config.defaults(),
+                Process::getElapsedCpuTime, this::onDutyCycleChanged);
+        SentinelDetector sentinel = new SentinelDetector(SENTINEL_FORMAT.getSampleRate(), SENTINEL_MIN_RMS);
+        final DutyCycleController controller = dutyCycle;
+        preroll = new PrerollBuffer(SAMPLES_PER_BUFFER * CaptureFormat.STEREO_16K.getChannels());
+        startPreroll();
+        sentinelSubscription = CaptureHub.getInstance(this)
+                .blocks(SENTINEL_FORMAT)
+                .subscribe(block -> controller.update(System.currentTimeMillis(), sentinel.test(block)),
+                        error -> Log.e(TAG, "Sentinel capture failed: " + error.getMessage()));
+        Log.i(TAG, "Low-power monitoring started");
     }
 
+    private synchronized void startPreroll() {
+        if (prerollSubscription != null || preroll == null || !isRecording.get()) return;
+        prerollSubscription = CaptureHub.getInstance(this)
+                .blocks(CaptureFormat.STEREO_16K)
+                .subscribe(preroll, error -> Log.e(TAG, "Pre-roll capture failed: " + error.getMessage()));
+    }
 
-    private synchronized void processAudioData(short[] buffer, int shortsRead) {
-        // Log original signal values
-        for (int i = 0; i < Math.min(10, shortsRead); i += 2) {
-            Log.d(TAG, String.format("Original Signal - Left: %d, Right: %d",
-                    buffer[i], buffer[i + 1]));
+    // The running pipeline takes over capture; anything held after its replay is stale by the next one
+    private synchronized void stopPreroll() {
+        if (prerollSubscription != null) {
+            prerollSubscription.dispose();
+            prerollSubscription = null;
         }
+        if (preroll != null) {
+            preroll.drain();
+        }
+    }
 
-        int sampleCounter = 0;
-        float leftSum = 0;
-        float rightSum = 0;
-
-        // Process interleaved stereo data
-        for (int i = 0; i < shortsRead; i += 2) {
-            // Apply BASE_GAIN
-            double leftAmplified = buffer[i] * BASE_GAIN;
-            double rightAmplified = buffer[i + 1] * BASE_GAIN;
-
-            short leftSample = (short)Math.max(Math.min(leftAmplified, 32767), -32768);
-            short rightSample = (short)Math.max(Math.min(rightAmplified, 32767), -32768);
-
-            // Log amplified values for first few samples
-            if (i < 10) {
-                Log.d(TAG, String.format("After BASE_GAIN - Left: %d (raw: %.2f), Right: %d (raw: %.2f)",
-                        leftSample, leftAmplified, rightSample, rightAmplified));
+    private synchronized void startPipeline() {
+        if (pipelineSubscription != null || !isRecording.get()) return;
+
+        final DutyCycleController controller = dutyCycle;
+        final CadenceController cadence = AdaptiveCadence.getInstance(this).getController();
+        // Only /predict round trips pace the cadence; the stand-in answers locally
+        final CadenceController rttSink = useLocalInference ? null : cadence;
+        BatchInferenceStage server = useLocalInference
+                ? new StandInInferenceStage("siren", SILENCE_RMS)
+                : new ServerInferenceStage(client, SERVER_URL, SERVER_BATCH_URL);
+        // Upload volume is reported per duty-cycle state, round trips to the cadence controller
+        BatchInferenceStage inference = new BatchInferenceStage() {
+            @Override
+            public Maybe<PredictionResponse> infer(EncodedWindow window) {
+                addUploadedBytes(controller, window);
+                long sentAt = System.currentTimeMillis();
+                return server.infer(window).doOnEvent((result, error) -> reportRoundTrip(rttSink, sentAt));
             }
 
-            // Update RMS calculation
-            leftRmsSum += (leftSample * leftSample) / 32768.0 / 32768.0;
-            rightRmsSum += (rightSample * rightSample) / 32768.0 / 32768.0;
-            rmsSampleCount++;
-
-            // Apply auto-gain if we have enough samples
-            if (rmsSampleCount >= RMS_WINDOW_SIZE) {
-                double leftRms = Math.sqrt(leftRmsSum / rmsSampleCount);
-                double rightRms = Math.sqrt(rightRmsSum / rmsSampleCount);
-
-                Log.d(TAG, String.format("RMS Values - Left: %.4f, Right: %.4f", leftRms, rightRms));
-
-                // Calculate gain adjustments
-                double leftGain = TARGET_RMS / Math.max(leftRms, 1e-9);
-                double rightGain = TARGET_RMS / Math.max(rightRms, 1e-9);
-
-                // Limit to MAX_GAIN
-                leftGain = Math.min(leftGain, MAX_GAIN);
-                rightGain = Math.min(rightGain, MAX_GAIN);
-
-                Log.d(TAG, String.format("Auto Gains - Left: %.2f, Right: %.2f", leftGain, rightGain));
-
-                // Apply gain (with limiting)
-                double leftFinal = leftSample * leftGain;
-                double rightFinal = rightSample * rightGain;
-
-                leftSample = (short) Math.max(Math.min(leftFinal, 32767), -32768);
-                rightSample = (short) Math.max(Math.min(rightFinal, 32767), -32768);
-
-                if (i < 10) {
-                    Log.d(TAG, String.format("Final Values - Left: %d (raw: %.2f), Right: %d (raw: %.2f)",
-                            leftSample, leftFinal, rightSample, rightFinal));
+            @Override
+            public Single<List<PredictionResponse>> inferBatch(List<EncodedWindow> windows) {
+                for (EncodedWindow window : windows) {
+                    addUploadedBytes(controller, window);
                 }
-
-                // Reset RMS tracking
-                leftRmsSum = 0;
-                rightRmsSum = 0;
-                rmsSampleCount = 0;
+                long sentAt = System.currentTimeMillis();
+                return server.inferBatch(windows).doOnEvent((results, error) -> reportRoundTrip(rttSink, sentAt));
             }
-
-            // Maintain buffer size
-            if (leftBuffer.size() >= SAMPLES_PER_BUFFER) {
-                leftBuffer.removeFirst();
-                rightBuffer.removeFirst();
+        };
+
+        // The ring holds the longest window the cadence controller can pick
+        StereoWindowStage windowStage = new StereoWindowStage(SAMPLE_RATE, SAMPLES_PER_BUFFER, SAMPLES_PER_HOP,
+                noiseSuppression);
+        applyCadence(cadence.getCadence(), windowStage);
+        cadenceListener = decision -> {
+            if (decision.isChanged()) {
+                applyCadence(decision.getCadence(), windowStage);
             }
+        };
+        cadence.addListener(cadenceListener);
+
+        // The mic is shared; the hub hands this pipeline its own 16 kHz stereo copy
+        DetectionPipeline.Builder builder = new DetectionPipeline.Builder(
+                CaptureHub.getInstance(this).stage(CaptureFormat.STEREO_16K),
+                windowStage,
+                inference)
+                .gate(new SilenceGate(SILENCE_RMS))
+                .smoothing(new AlertDecisionEngine())
+                .alert(event -> {
+                    pipelineFailures.set(0);
+                    DetectionEventBus.getInstance().publish(event);
+                    if (controller != null && event.getConfidence() >= ACTIVITY_CONFIDENCE) {
+                        controller.onDetection(System.currentTimeMillis());
+                    }
+                });
+        if (batchInference) {
+            builder.batching(InferenceBatcher.Config.defaults());
+        }
+        if (preroll != null) {
+            builder.preroll(preroll);
+        }
 
-            // Add new samples
-            leftBuffer.addLast(leftSample);
-            rightBuffer.addLast(rightSample);
-
-            // Calculate audio levels
-            sampleCounter++;
-            leftSum += Math.abs(leftSample);
-            rightSum += Math.abs(rightSample);
-
-            // Monitor levels periodically
-            if (sampleCounter >= LEVEL_MONITOR_INTERVAL) {
-                leftMicLevel = leftSum / LEVEL_MONITOR_INTERVAL;
-                rightMicLevel = rightSum / LEVEL_MONITOR_INTERVAL;
+        final int generation = ++pipelineGeneration;
+        builder.onError(error -> onPipelineFailed(generation));
 
-                // Log mic levels for verification
-                Log.d(TAG, String.format("Mic Levels - Left: %.2f, Right: %.2f",
-                        leftMicLevel, rightMicLevel));
+        pipeline = builder.build();
+        pipelineSubscription = pipeline.start();
+        stopPreroll();
+    }
 
-                // Reset counters
-                sampleCounter = 0;
-                leftSum = 0;
-                rightSum = 0;
-            }
+    // Capture or a stage failed and the pipeline ended; rebuild it rather than record nothing
+    private synchronized void onPipelineFailed(int generation) {
+        if (generation != pipelineGeneration || pipelineSubscription == null) return;
+        stopPipeline(false);
+        if (pipelineFailures.incrementAndGet() > MAX_PIPELINE_RESTARTS) {
+            Log.e(TAG, "Detection pipeline failed " + MAX_PIPELINE_RESTARTS + " times in a row, stopping");
+            handler.post(() -> {
+                stopRecording();
+                stopSelf();
+            });
+            return;
         }
+        Log.w(TAG, "Restarting detection pipeline in " + PIPELINE_RESTART_DELAY_MS + " ms");
+        handler.postDelayed(this::restartPipeline, PIPELINE_RESTART_DELAY_MS);
+    }
 
-        // Check if we have enough data to send
-        if (leftBuffer.size() >= SAMPLES_PER_BUFFER) {
-            sendBufferedData();
+    private synchronized void restartPipeline() {
+        // In low-power mode the duty cycle may have dropped back to the sentinel meanwhile
+        DutyCycleController controller = dutyCycle;
+        if (controller != null && controller.getState() == DutyCycleController.State.SENTINEL) return;
+        startPipeline();
+    }
+
+    private static void addUploadedBytes(DutyCycleController controller, EncodedWindow window) {
+        if (controller != null) {
+            controller.addUploadedBytes(window.getLeftData().length + window.getRightData().length);
         }
     }
 
-    private byte[] normalizeAudioData(byte[] rawData) {
-        // Convert bytes to shorts
-        short[] shorts = new short[rawData.length / 2];
-        ByteBuffer.wrap(rawData).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(shorts);
+    private static void reportRoundTrip(CadenceController cadence, long sentAt) {
+        if (cadence == null) return;
+        long now = System.currentTimeMillis();
+        cadence.onRoundTrip(now, now - sentAt);
+    }
 
-        // Pre-amplification (add this)
-        float preAmpGain = 5.0f;
-        for (int i = 0; i < shorts.length; i++) {
-            shorts[i] = (short)Math.max(Math.min(shorts[i] * preAmpGain, 32767), -32768);
+    /**
+     * Cancelling the pipeline unsubscribes from the capture hub and stops any in-flight
+     * requests. Finishing it instead stops capture only, so the windows it already took are
+     * still classified; a detection among them escalates the duty cycle again.
+     */
+    private synchronized void stopPipeline(boolean finish) {
+        if (finishingSubscription != null) {
+            finishingSubscription.dispose();
+            finishingSubscription = null;
         }
-
-        // Convert back to bytes without normalization
-        byte[] amplified = new byte[rawData.length];
-        for (int i = 0; i < shorts.length; i++) {
-            amplified[i*2] = (byte)(shorts[i] & 0xff);
-            amplified[i*2 + 1] = (byte)((shorts[i] >> 8) & 0xff);
+        if (pipelineSubscription != null) {
+            if (finish) {
+                pipeline.finish();
+                finishingSubscription = pipelineSubscription;
+            } else {
+                pipelineSubscription.dispose();
+            }
+            pipelineSubscription = null;
+            pipeline = null;
         }
+        if (cadenceListener != null) {
+            AdaptiveCadence.getInstance(this).getController().removeListener(cadenceListener);
+            cadenceListener = null;
+        }
+    }
 
-        return amplified;
+    private static void applyCadence(Cadence cadence, StereoWindowStage windowStage) {
+        windowStage.setCadence((int) (cadence.getWindowMs() * SAMPLE_RATE / 1000),
+                (int) (cadence.getHopMs() * SAMPLE_RATE / 1000));
     }
-    private void sendBufferedData() {
-        try {
-            // Convert buffers to byte arrays
-            byte[] leftData = normalizeAudioData(shortArrayToByteArray(new ArrayList<>(leftBuffer)));
-            byte[] rightData = normalizeAudioData(shortArrayToByteArray(new ArrayList<>(rightBuffer)));
-
-            // Create request parts
-            MultipartBody.Builder builder = new MultipartBody.Builder()
-                    .setType(MultipartBody.FORM)
-                    .addFormDataPart("sample_rate", String.valueOf(SAMPLE_RATE));
-
-            // Add parts to the request
-            MediaType audioType = MediaType.parse("application/octet-stream");
-
-            // Add left channel
-            RequestBody leftBody = RequestBody.create(audioType, leftData);
-            builder.addFormDataPart("left_channel", "left.raw", leftBody);
-
-            // Add right channel
-            RequestBody rightBody = RequestBody.create(audioType, rightData);
-            builder.addFormDataPart("right_channel", "right.raw", rightBody);
-
-            // Build and send the request
-            Request request = new Request.Builder()
-                    .url(SERVER_URL)
-                    .post(builder.build())
-                    .build();
-
-            // Log the request details
-            Log.d(TAG, String.format("Sending request to %s", SERVER_URL));
-            Log.d(TAG, String.format("Left channel size: %d bytes, Right channel size: %d bytes",
-                    leftData.length, rightData.length));
-
-            // Send request asynchronously
-            client.newCall(request).enqueue(new Callback() {
-                @Override
-                public void onFailure(Call call, IOException e) {
-                    Log.e(TAG, "Failed to send audio data: " + e.getMessage());
-                }
 
-                @Override
-                public void onResponse(Call call, Response response) throws IOException {
-                    try (ResponseBody responseBody = response.body()) {
-                        if (!response.isSuccessful()) {
-                            String errorBody = responseBody != null ? responseBody.string() : "No error body";
-                            Log.e(TAG, String.format("Server error %d: %s", response.code(), errorBody));
-                            return;
-                        }
-
-                        if (responseBody != null) {
-                            String result = responseBody.string();
-                            Log.d(TAG, "Server response: " + result);
-
-                            // Broadcast result to activity
-                            Intent intent = new Intent("AUDIO_INFERENCE_RESULT");
-                            intent.putExtra("result", result);
-                            sendBroadcast(intent);
-                        }
-                    }
-                }
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "Error sending audio data: " + e.getMessage());
-            e.printStackTrace();
+    private void onDutyCycleChanged(DutyCycleController.State from, DutyCycleController.State to,
+                                    String reason) {
+        if (to == DutyCycleController.State.SENTINEL) {
+            stopPipeline(true);
+            startPreroll();
+        } else if (from == DutyCycleController.State.SENTINEL) {
+            startPipeline();
         }
-    }
-    private byte[] shortArrayToByteArray(ArrayList<Short> shorts) {
-        byte[] bytes = new byte[shorts.size() * 2];
-        for (int i = 0; i < shorts.size(); i++) {
-            short value = shorts.get(i);
-            // Convert to little-endian
-            bytes[i * 2] = (byte) (value & 0xff);
-            bytes[i * 2 + 1] = (byte) ((value >> 8) & 0xff);
+
+        Log.i(TAG, "Monitoring " + from + " -> " + to + " (" + reason + ")");
+        DutyCycleController controller = dutyCycle;
+        if (controller != null) {
+            Log.i(TAG, controller.report(System.currentTimeMillis()));
         }
-        return bytes;
+        NotificationManager notificationManager = getSystemService(NotificationManager.class);
+        notificationManager.notify(NOTIFICATION_ID, createNotification(
+                to == DutyCycleController.State.SENTINEL ? "Low-power monitoring" : "Listening closely (" + reason + ")"));
     }
 
-
     private synchronized void stopRecording() {
         if (!isRecording.get()) {
             return;
         }
 
         isRecording.set(false);
+        handler.removeCallbacksAndMessages(null);
+        pipelineFailures.set(0);
 
-        if (recordingThread != null) {
-            try {
-                recordingThread.join(1000);
-                if (recordingThread.isAlive()) {
-                    recordingThread.interrupt();
-                }
-            } catch (InterruptedException e) {
-                Log.e(TAG, "Error stopping recording thread: " + e.getMessage());
-            }
-            recordingThread = null;
-        }
-
-        if (audioRecord != null) {
-            try {
-                if (audioRecord.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
-                    audioRecord.stop();
-                }
-            } catch (IllegalStateException e) {
-                Log.e(TAG, "Error stopping AudioRecord: " + e.getMessage());
-            } finally {
-                try {
-                    audioRecord.release();
-                } catch (Exception e) {
-                    Log.e(TAG, "Error releasing AudioRecord: " + e.getMessage());
-                }
-                audioRecord = null;
-            }
+        if (sentinelSubscription != null) {
+            sentinelSubscription.dispose();
+            sentinelSubscription = null;
         }
-
-        // Clear buffers
-        synchronized (leftBuffer) {
-            leftBuffer.clear();
+        stopPipeline(false);
+        stopPreroll();
+        preroll = null;
+        AdaptiveCadence.getInstance(this).stop();
+        if (ownsBlackBox) {
+            BlackBoxRecorder.getInstance(this).stop();
+            ownsBlackBox = false;
         }
-        synchronized (rightBuffer) {
-            rightBuffer.clear();
+        if (dutyCycle != null) {
+            Log.i(TAG, dutyCycle.report(System.currentTimeMillis()));
+            dutyCycle = null;
         }
-
-        // Reset mic levels
-        leftMicLevel = 0;
-        rightMicLevel = 0;
     }
 
     @Override
@@ -480,9 +435,15 @@ public class AudioRecordingService extends Service {
         try {
             stopRecording();
 
+            if (detectionSubscription != null) {
+                detectionSubscription.dispose();
+            }
+
             if (client != null) {
                 client.dispatcher().cancelAll();
             }
+            Tracer.getInstance().flush();
+            DetectionHistory.getInstance(this).flush();
 
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
                 stopForeground(STOP_FOREGROUND_REMOVE);
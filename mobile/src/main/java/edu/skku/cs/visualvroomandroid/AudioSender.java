@@ -1,8 +1,9 @@
 package edu.skku.cs.visualvroomandroid;
 
 import android.util.Log;
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponseDecoder;
 import okhttp3.*;
-import org.json.JSONObject;
 import java.io.IOException;
 
 public class AudioSender {
@@ -58,21 +59,22 @@ public class AudioSender {
                         return;
                     }
 
-                    String jsonStr = responseBody.string();
-                    JSONObject json = new JSONObject(jsonStr);
+                    PredictionResponse prediction = PredictionResponseDecoder.decode(
+                            responseBody.charStream(), new PredictionResponse());
 
-                    if (json.has("message")) {
+                    if (prediction.getMessage() != null) {
                         // No confident prediction
-                        callback.onError(json.getString("message"));
+                        callback.onError(prediction.getMessage());
                         return;
                     }
 
-                    // Parse successful response
-                    String vehicleType = json.getString("vehicle_type");
-                    String direction = json.getString("direction");
-                    double confidence = json.getDouble("confidence");
+                    if (!prediction.hasPrediction()) {
+                        callback.onError("Incomplete response from server");
+                        return;
+                    }
 
-                    callback.onSuccess(vehicleType, direction, confidence);
+                    callback.onSuccess(prediction.getVehicleType(), prediction.getDirection(),
+                            prediction.getConfidence());
                 } catch (Exception e) {
                     Log.e(TAG, "Error processing response", e);
                     callback.onError("Error processing response: " + e.getMessage());
@@ -0,0 +1,342 @@
+package edu.skku.cs.visualvroomandroid;
+
+import android.location.Location;
+import android.os.Bundle;
+import android.text.format.DateFormat;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.BaseAdapter;
+import android.widget.CompoundButton;
+import android.widget.ListView;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import edu.skku.cs.visualvroomandroid.capture.BlackBoxRecorder;
+import edu.skku.cs.visualvroomandroid.event.DetectionEventBus;
+import edu.skku.cs.visualvroomandroid.geo.HotspotIndex;
+import edu.skku.cs.visualvroomandroid.geo.PositionTracker;
+import edu.skku.cs.visualvroomandroid.history.DetectionHistory;
+import edu.skku.cs.visualvroomandroid.history.HistoryReader;
+import edu.skku.cs.visualvroomandroid.history.HistoryRecord;
+import edu.skku.cs.visualvroomandroid.watch.AlertFrame;
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.disposables.SerialDisposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Pages through the detection history, newest first.
+ *
+ * Rows are decoded from the memory-mapped log as the list binds them, so only the
+ * visible ones are ever on the heap. Picking up new records and summarizing the selected
+ * range happen off the main thread. New detections refresh the list while it's open. The black box is
+ * switched on here and runs while recording; long-pressing a row saves its audio around
+ * that detection, and freezing it keeps what it holds from being overwritten. When the
+ * phone's position is known, the busiest nearby places over the whole history are listed.
+ */
+public class HistoryFragment extends Fragment {
+    private static final String TAG = "HistoryFragment";
+
+    private static final String[] RANGE_LABELS = {"Last hour", "Last 24 hours", "Last 7 days", "All"};
+    private static final long[] RANGE_MS = {3_600_000L, 86_400_000L, 7 * 86_400_000L, Long.MAX_VALUE};
+    // Black-box clip around a detection: the lead-up matters more than the aftermath
+    private static final long CLIP_BEFORE_MS = 15_000;
+    private static final long CLIP_AFTER_MS = 5_000;
+    private static final int BLACK_BOX_MINUTES = 5;
+    // Hotspots within about 2 km, as at most 64 cells, of which the busiest few are shown
+    private static final double NEARBY_DEGREES = 0.02;
+    private static final int NEARBY_CELLS = 64;
+    private static final int HOTSPOTS_SHOWN = 3;
+    private static final long MAX_FIX_AGE_MS = 10 * 60_000;
+
+    private ListView historyList;
+    private TextView summaryText;
+    private TextView hotspotText;
+    private TextView emptyText;
+    private CompoundButton freezeSwitch;
+
+    private HistoryReader reader;
+    private final HistoryAdapter adapter = new HistoryAdapter();
+    private final CompositeDisposable subscriptions = new CompositeDisposable();
+    // Only the latest reload is applied; an older one finishing late would show a stale range
+    private final SerialDisposable reloading = new SerialDisposable();
+    private int selectedRange = 1;
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
+                             @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_history, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        historyList = view.findViewById(R.id.historyList);
+        summaryText = view.findViewById(R.id.summaryText);
+        hotspotText = view.findViewById(R.id.hotspotText);
+        emptyText = view.findViewById(R.id.emptyText);
+        historyList.setAdapter(adapter);
+        historyList.setEmptyView(emptyText);
+        historyList.setOnItemLongClickListener((parent, v, position, id) -> {
+            HistoryRecord record = reader != null ? reader.read(id, new HistoryRecord()) : null;
+            if (record == null) return false;
+            exportClip(record.getTimestampMs());
+            return true;
+        });
+
+        RecordingSettings settings = new RecordingSettings(requireContext());
+        BlackBoxRecorder blackBox = BlackBoxRecorder.getInstance(requireContext());
+        CompoundButton blackBoxSwitch = view.findViewById(R.id.blackBoxSwitch);
+        blackBoxSwitch.setText("Black box (last " + BLACK_BOX_MINUTES + " min while recording)");
+        blackBoxSwitch.setChecked(settings.getBlackBoxMinutes() > 0);
+        blackBoxSwitch.setOnCheckedChangeListener((button, checked) -> {
+            settings.setBlackBoxMinutes(checked ? BLACK_BOX_MINUTES : 0);
+            // Turning it on applies from the next recording; turning it off stops it now
+            if (!checked) {
+                blackBox.stop();
+                freezeSwitch.setChecked(false);
+            }
+        });
+        freezeSwitch = view.findViewById(R.id.freezeSwitch);
+        freezeSwitch.setOnCheckedChangeListener((button, checked) -> {
+            if (checked == blackBox.isFrozen()) return;
+            if (checked && !blackBox.isRunning()) {
+                Toast.makeText(requireContext(), "Black box is off", Toast.LENGTH_SHORT).show();
+                button.setChecked(false);
+                return;
+            }
+            if (checked) {
+                blackBox.freeze();
+            } else {
+                blackBox.unfreeze();
+            }
+        });
+
+        Spinner rangeSpinner = view.findViewById(R.id.rangeSpinner);
+        ArrayAdapter<String> ranges = new ArrayAdapter<>(requireContext(),
+                android.R.layout.simple_spinner_item, RANGE_LABELS);
+        ranges.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        rangeSpinner.setAdapter(ranges);
+        rangeSpinner.setSelection(selectedRange);
+        rangeSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View v, int position, long id) {
+                selectedRange = position;
+                reload();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+
+        try {
+            reader = new HistoryReader(DetectionHistory.getInstance(requireContext()).getDirectory());
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot read detection history: " + e.getMessage());
+            summaryText.setText("Detection history unavailable");
+            return;
+        }
+
+        subscriptions.add(DetectionEventBus.getInstance()
+                .events(AndroidSchedulers.mainThread())
+                .subscribe(event -> reload(),
+                        error -> Log.e(TAG, "History updates stopped: " + error.getMessage())));
+        reload();
+    }
+
+    private void reload() {
+        if (reader == null) return;
+        long now = System.currentTimeMillis();
+        long from = RANGE_MS[selectedRange] == Long.MAX_VALUE ? Long.MIN_VALUE : now - RANGE_MS[selectedRange];
+
+        HistoryReader source = reader;
+        reloading.set(Single.fromCallable(() -> {
+                    try {
+                        source.refresh();
+                    } catch (IOException e) {
+                        Log.e(TAG, "Failed to refresh detection history: " + e.getMessage());
+                    }
+                    return new Page(source.lowerBound(from), source.size(), source.summarize(from, Long.MAX_VALUE));
+                })
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(this::showPage,
+                        error -> Log.e(TAG, "Failed to summarize history: " + error.getMessage())));
+
+        Location fix = PositionTracker.getInstance(requireContext()).getFix(MAX_FIX_AGE_MS);
+        if (fix == null) {
+            hotspotText.setText("");
+            return;
+        }
+        HotspotIndex hotspots = DetectionHistory.getInstance(requireContext()).getHotspots();
+        double latitude = fix.getLatitude();
+        double longitude = fix.getLongitude();
+        // Keep the box roughly square on the ground
+        double halfWidth = NEARBY_DEGREES / Math.max(Math.cos(Math.toRadians(latitude)), 0.1);
+        subscriptions.add(Single.fromCallable(() -> hotspots.query(latitude - NEARBY_DEGREES, longitude - halfWidth,
+                        latitude + NEARBY_DEGREES, longitude + halfWidth, NEARBY_CELLS))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(this::showHotspots,
+                        error -> Log.e(TAG, "Failed to query hotspots: " + error.getMessage())));
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        // Stopping a recording ends a freeze
+        if (freezeSwitch != null) {
+            freezeSwitch.setChecked(BlackBoxRecorder.getInstance(requireContext()).isFrozen());
+        }
+    }
+
+    private void showHotspots(List<HotspotIndex.Cell> cells) {
+        if (hotspotText == null) return;
+        if (cells.isEmpty()) {
+            hotspotText.setText("No detections recorded nearby");
+            return;
+        }
+        Collections.sort(cells, (a, b) -> Integer.compare(b.getTotal(), a.getTotal()));
+        StringBuilder text = new StringBuilder("Busiest nearby:");
+        for (int i = 0; i < Math.min(HOTSPOTS_SHOWN, cells.size()); i++) {
+            HotspotIndex.Cell cell = cells.get(i);
+            text.append(String.format(Locale.US, "\n%s (%.4f, %.4f): %d siren, %d horn, %d bike",
+                    cell.getGeohash(), cell.getCenterLatitude(), cell.getCenterLongitude(),
+                    cell.getSirens(), cell.getHorns(), cell.getBikes()));
+        }
+        hotspotText.setText(text);
+    }
+
+    private void exportClip(long timestampMs) {
+        BlackBoxRecorder blackBox = BlackBoxRecorder.getInstance(requireContext());
+        if (!blackBox.isRunning()) {
+            Toast.makeText(requireContext(), "Black box is off", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        subscriptions.add(Maybe.fromCallable(() -> blackBox.exportClip(timestampMs, CLIP_BEFORE_MS, CLIP_AFTER_MS))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(
+                        (File clip) -> Toast.makeText(requireContext(), "Saved " + clip.getName(), Toast.LENGTH_LONG).show(),
+                        error -> Log.e(TAG, "Failed to save clip: " + error.getMessage()),
+                        () -> Toast.makeText(requireContext(), "No audio kept for that moment", Toast.LENGTH_SHORT).show()));
+    }
+
+    private void showPage(Page page) {
+        adapter.setRange(page.start, page.end);
+        showSummary(page.summary);
+    }
+
+    private void showSummary(HistoryReader.Summary summary) {
+        if (summaryText == null) return;
+        summaryText.setText(String.format(Locale.US,
+                "%d detections (%d alerts): %d siren, %d horn, %d bike\n"
+                        + "Left %d, right %d, avg confidence %.2f, avg latency %.0f ms",
+                summary.getTotal(), summary.getNotified(),
+                summary.count(AlertFrame.TYPE_SIREN), summary.count(AlertFrame.TYPE_HORN),
+                summary.count(AlertFrame.TYPE_BIKE),
+                summary.countDirection(AlertFrame.DIRECTION_LEFT), summary.countDirection(AlertFrame.DIRECTION_RIGHT),
+                summary.getAverageConfidence(), summary.getAverageLatencyMs()));
+    }
+
+    @Override
+    public void onDestroyView() {
+        subscriptions.clear();
+        reloading.set(null);
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing history: " + e.getMessage());
+            }
+            reader = null;
+        }
+        summaryText = null;
+        hotspotText = null;
+        freezeSwitch = null;
+        super.onDestroyView();
+    }
+
+    // The records in the selected range after a refresh, and their summary
+    private static class Page {
+        final long start;
+        final long end;
+        final HistoryReader.Summary summary;
+
+        Page(long start, long end, HistoryReader.Summary summary) {
+            this.start = start;
+            this.end = end;
+            this.summary = summary;
+        }
+    }
+
+    // Newest first over records [start, end) of the reader's current snapshot
+    private class HistoryAdapter extends BaseAdapter {
+        private final HistoryRecord record = new HistoryRecord();
+        private long start;
+        private long end;
+
+        void setRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public int getCount() {
+            return (int) Math.min(end - start, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return end - 1 - position;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return end - 1 - position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View row = convertView != null ? convertView
+                    : LayoutInflater.from(parent.getContext()).inflate(R.layout.item_history, parent, false);
+            TextView detection = row.findViewById(R.id.detectionText);
+            TextView detail = row.findViewById(R.id.detailText);
+
+            if (reader == null || reader.read(end - 1 - position, record) == null) {
+                detection.setText("");
+                detail.setText("");
+                return row;
+            }
+            detection.setText(String.format(Locale.US, "%s  %s from %s%s",
+                    DateFormat.format("MM-dd HH:mm:ss", record.getTimestampMs()),
+                    HistoryRecord.typeName(record.getType()), HistoryRecord.directionName(record.getDirection()),
+                    record.isNotified() ? "  (alert)" : ""));
+            detail.setText(String.format(Locale.US, "confidence %.2f, %s, %s",
+                    record.getConfidence(),
+                    record.getLatencyMs() >= 0 ? record.getLatencyMs() + " ms after capture" : "latency unknown",
+                    record.getSource() != null ? record.getSource().name().toLowerCase(Locale.US) : "unknown source"));
+            return row;
+        }
+    }
+}
@@ -1,16 +1,10 @@
 package edu.skku.cs.visualvroomandroid;
 
 import android.Manifest;
-import android.content.BroadcastReceiver;
-import android.content.ComponentName;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.ServiceConnection;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.IBinder;
 import android.util.Log;
 import android.widget.Button;
 import android.widget.Toast;
@@ -23,31 +17,30 @@ import androidx.fragment.app.FragmentActivity;
 import androidx.viewpager2.adapter.FragmentStateAdapter;
 import androidx.viewpager2.widget.ViewPager2;
 
-import com.google.android.gms.tasks.Task;
-import com.google.android.gms.tasks.Tasks;
-import com.google.android.gms.wearable.Node;
-import com.google.android.gms.wearable.Wearable;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+import edu.skku.cs.visualvroomandroid.event.DetectionEventBus;
+import edu.skku.cs.visualvroomandroid.history.DetectionHistory;
+import edu.skku.cs.visualvroomandroid.trace.TraceSpan;
+import edu.skku.cs.visualvroomandroid.trace.Tracer;
+import edu.skku.cs.visualvroomandroid.watch.AlertFrame;
+import edu.skku.cs.visualvroomandroid.watch.WatchAlertDispatcher;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
     private static final int PERMISSION_REQUEST_CODE = 1;
-    private static final String VIBRATION_PATH = "/vibration";
 
     private ViewPager2 viewPager;
     private TabLayout tabLayout;
-    private WearNotificationService wearService;
-    private boolean isServiceBound = false;
-    private BroadcastReceiver messageReceiver;
+    private final CompositeDisposable detectionSubscriptions = new CompositeDisposable();
+    private WatchAlertDispatcher watchDispatcher;
     private boolean isRecording = false;
     private Button vibrateWatchButton;
 
@@ -55,25 +48,6 @@ public class MainActivity extends AppCompatActivity {
     private SpeechToTextFragment speechToTextFragment;
     private AudioRecorderFragment audioRecorderFragment;
 
-    private final ServiceConnection serviceConnection = new ServiceConnection() {
-        @Override
-        public void onServiceConnected(ComponentName className, IBinder service) {
-            WearNotificationService.LocalBinder binder = (WearNotificationService.LocalBinder) service;
-            wearService = binder.getService();
-            isServiceBound = true;
-            Log.d(TAG, "WearNotificationService bound successfully");
-        }
-
-        @Override
-        public void onServiceDisconnected(ComponentName arg0) {
-            isServiceBound = false;
-            wearService = null;
-            Log.d(TAG, "WearNotificationService disconnected");
-        }
-    };
-
-
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -102,23 +76,37 @@ public class MainActivity extends AppCompatActivity {
                         case 1:
                             tab.setText("Speech to Text");
                             break;
+                        case 2:
+                            tab.setText("History");
+                            break;
                     }
                 }
         ).attach();
 
-        // Register broadcast receiver
-        messageReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                if ("AUDIO_INFERENCE_RESULT".equals(intent.getAction())) {
-                    String result = intent.getStringExtra("result");
-                    handleInferenceResult(result);
-                }
-            }
-        };
+        // Window traces are cheap enough to keep on; see README "Tracing"
+        Tracer.getInstance().start(Tracer.defaultDirectory(this));
+
+        // Parse alert animations now so the first alert doesn't pay for it
+        VehicleAnimationCache.getInstance(this).preload();
+
+        watchDispatcher = WatchAlertDispatcher.getInstance(this);
+        watchDispatcher.start();
+
+        // Watch bridge: forward alert-worthy detections from any source to the watch
+        detectionSubscriptions.add(DetectionEventBus.getInstance()
+                .events(Schedulers.single())
+                .filter(DetectionEvent::getShouldNotify)
+                .subscribe(this::sendAlertToWatch,
+                        error -> Log.e(TAG, "Watch bridge stopped: " + error.getMessage())));
+
+        // Detection history, kept across runs; the service starts it too
+        DetectionHistory.getInstance(this).start();
 
-        registerReceiver(messageReceiver, new IntentFilter("AUDIO_INFERENCE_RESULT"),
-                Context.RECEIVER_NOT_EXPORTED);
+        // Detection log
+        detectionSubscriptions.add(DetectionEventBus.getInstance()
+                .events(Schedulers.single())
+                .subscribe(event -> Log.d(TAG, "Detection: " + event),
+                        error -> Log.e(TAG, "Detection log stopped: " + error.getMessage())));
 
         // Initialize the vibrate watch button
 //        vibrateWatchButton = findViewById(R.id.vibrateWatchButton);
@@ -144,6 +132,8 @@ public class MainActivity extends AppCompatActivity {
                 case 1:
                     speechToTextFragment = new SpeechToTextFragment();
                     return speechToTextFragment;
+                case 2:
+                    return new HistoryFragment();
                 default:
                     throw new IllegalStateException("Unexpected position " + position);
             }
@@ -151,123 +141,26 @@ public class MainActivity extends AppCompatActivity {
 
         @Override
         public int getItemCount() {
-            return 2; // Updated to include the new AudioRecorderFragment
-        }
-    }
-
-    public void sendAlertToWatch(String vehicleType, String direction) {
-        // Using direct message API instead of service
-        new Thread(() -> {
-            try {
-                // 1. First send the vehicle alert information
-                JSONObject alert = new JSONObject();
-                alert.put("vehicle_type", vehicleType);
-                alert.put("direction", direction);
-
-                String alertJson = alert.toString();
-                Log.d(TAG, "Sending alert to watch: " + alertJson);
-
-                // Get all connected devices
-                Task<List<Node>> nodesTask = Wearable.getNodeClient(getApplicationContext()).getConnectedNodes();
-                List<Node> nodes = Tasks.await(nodesTask);
-
-                for (Node node : nodes) {
-                    // Send message to each connected device
-                    Task<Integer> sendTask = Wearable.getMessageClient(getApplicationContext())
-                            .sendMessage(node.getId(), "/vehicle_alert", alertJson.getBytes());
-
-                    Tasks.await(sendTask);
-                    Log.d(TAG, "Alert sent to watch: " + node.getDisplayName());
-                }
-
-                // 2. Then trigger the vibration separately
-                if(direction == "L" || direction == "Left" || direction == "left"){
-                    sendLeftVibrationRequest();
-
-                }else {
-                    sendRightVibrationRequest();
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to send alert to watch: " + e.getMessage());
-            }
-        }).start();
-    }
-    private void sendLeftVibrationRequest() {
-        try {
-            // Get all connected devices
-            Task<List<Node>> nodesTask = Wearable.getNodeClient(getApplicationContext()).getConnectedNodes();
-            List<Node> nodes = Tasks.await(nodesTask);
-
-            for (Node node : nodes) {
-                // Send message to each connected device
-                Task<Integer> sendTask = Wearable.getMessageClient(getApplicationContext())
-                        .sendMessage(node.getId(), VIBRATION_PATH, new byte[0]);
-
-                // Wait for the task to complete
-                Tasks.await(sendTask);
-
-                // Show feedback on UI thread
-                runOnUiThread(() -> {
-                    Toast.makeText(MainActivity.this,
-                            "Vibration command sent to watch",
-                            Toast.LENGTH_SHORT).show();
-                });
-            }
-        } catch (ExecutionException | InterruptedException e) {
-            e.printStackTrace();
-
-            // Show error on UI thread
-            runOnUiThread(() -> {
-                Toast.makeText(MainActivity.this,
-                        "Failed to send vibration command: " + e.getMessage(),
-                        Toast.LENGTH_SHORT).show();
-            });
+            return 3;
         }
     }
 
-    private void sendRightVibrationRequest() {
-        try {
-            // Create JSON for vibration pattern
-            JSONObject vibrationData = new JSONObject();
-            JSONArray pattern = new JSONArray();
-            pattern.put(0);    // Start immediately
-            pattern.put(200);  // Medium vibrate
-            pattern.put(200);  // Medium pause
-            pattern.put(200);  // Medium vibrate
-            vibrationData.put("pattern", pattern);
-            vibrationData.put("repeat", 1); // No repeat
-            byte[] messageData = vibrationData.toString().getBytes();
-
-            // Get all connected devices
-            Task<List<Node>> nodesTask = Wearable.getNodeClient(getApplicationContext()).getConnectedNodes();
-            List<Node> nodes = Tasks.await(nodesTask);
-
-            for (Node node : nodes) {
-                // Send message to each connected device
-                Task<Integer> sendTask = Wearable.getMessageClient(getApplicationContext())
-                        .sendMessage(node.getId(), VIBRATION_PATH, messageData);
-
-                // Wait for the task to complete
-                Tasks.await(sendTask);
-
-                // Show feedback on UI thread
-                runOnUiThread(() -> {
-                    Toast.makeText(MainActivity.this,
-                            "Vibration command sent to watch",
-                            Toast.LENGTH_SHORT).show();
-                });
-            }
-        } catch (Exception e) {
-            // Catch all exceptions including JSONException
-            e.printStackTrace();
-
-            // Show error on UI thread
-            runOnUiThread(() -> {
-                Toast.makeText(MainActivity.this,
-                        "Failed to send vibration command: " + e.getMessage(),
-                        Toast.LENGTH_SHORT).show();
-            });
-        }
+    /**
+     * Sends a vehicle alert to every reachable watch as a single binary frame.
+     * The frame carries the haptic pattern too, so the watch buzzes without a second message.
+     */
+    private void sendAlertToWatch(DetectionEvent event) {
+        long start = System.nanoTime();
+        String vehicleType = event.getVehicleType();
+        String direction = event.getDirection();
+        byte directionId = AlertFrame.directionId(direction);
+        byte pattern = directionId == AlertFrame.DIRECTION_LEFT
+                ? AlertFrame.PATTERN_LEFT : AlertFrame.PATTERN_RIGHT;
+        byte[] frame = AlertFrame.encode(AlertFrame.typeId(vehicleType), directionId, pattern, 0);
+        Log.d(TAG, "Sending alert frame #" + AlertFrame.sequenceOf(frame) + " to watch: "
+                + vehicleType + " " + direction);
+        watchDispatcher.sendAlert(frame, event.getTimestampMs(), event.getTrace());
+        Tracer.getInstance().record(event.getTrace(), TraceSpan.WATCH_BRIDGE, start, System.nanoTime());
     }
 
     private void checkAndRequestPermissions() {
@@ -311,9 +204,6 @@ public class MainActivity extends AppCompatActivity {
             ActivityCompat.requestPermissions(this,
                     permissions.toArray(new String[0]),
                     PERMISSION_REQUEST_CODE);
-        } else {
-            // We no longer need to start the wear service
-            // startWearService();
         }
     }
 
@@ -355,8 +245,6 @@ public class MainActivity extends AppCompatActivity {
             }
 
             if (allPermissionsGranted) {
-                // We no longer need to start the wear service
-                // startWearService();
                 Toast.makeText(this, "All permissions granted", Toast.LENGTH_SHORT).show();
             } else {
                 Toast.makeText(this,
@@ -366,18 +254,6 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void startWearService() {
-        // This method is kept for backward compatibility but we're not using it anymore
-        Intent serviceIntent = new Intent(this, WearNotificationService.class);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            startForegroundService(serviceIntent);
-        } else {
-            startService(serviceIntent);
-        }
-        bindService(serviceIntent, serviceConnection, Context.BIND_AUTO_CREATE);
-    }
-
-
     public void stopRecording() {
         Intent recordIntent = new Intent(this, AudioRecordingService.class);
         recordIntent.setAction("STOP_RECORDING");
@@ -385,54 +261,14 @@ public class MainActivity extends AppCompatActivity {
         isRecording = false;
     }
 
-    private void handleInferenceResult(String result) {
-        try {
-            JSONObject resultJson = new JSONObject(result);
-            JSONObject inferenceResult = resultJson.getJSONObject("inference_result");
-
-            // Extract the relevant fields
-            String vehicleType = inferenceResult.getString("vehicle_type");
-            String direction = inferenceResult.getString("direction");
-            double confidence = inferenceResult.getDouble("confidence");
-            boolean shouldNotify = inferenceResult.getBoolean("should_notify");
-
-            Log.d(TAG, String.format("Inference result: %s from %s, confidence: %.4f, should notify: %s",
-                    vehicleType, direction, confidence, shouldNotify));
-
-            // Only proceed if confidence is high enough (should_notify will be true if confidence > 0.97)
-            if (shouldNotify) {
-                // Update the sound detection fragment UI if needed
-//                new Thread(this::sendVibrationRequest).start();
-
-                // Send alert to watch with vibration
-                sendAlertToWatch(vehicleType, direction);
-
-                // Display a toast notification about the prediction
-                runOnUiThread(() -> {
-                    Toast.makeText(this,
-                            String.format("Alert: %s detected from %s", vehicleType, direction),
-                            Toast.LENGTH_SHORT).show();
-                });
-            }
-        } catch (JSONException e) {
-            Log.e(TAG, "Error parsing inference result: " + e.getMessage());
-        }
-    }
-
     @Override
     protected void onDestroy() {
         if (isRecording) {
             stopRecording();
         }
 
-        if (isServiceBound) {
-            unbindService(serviceConnection);
-            isServiceBound = false;
-        }
-
-        if (messageReceiver != null) {
-            unregisterReceiver(messageReceiver);
-        }
+        detectionSubscriptions.dispose();
+        watchDispatcher.stop();
 
         super.onDestroy();
     }
@@ -2,14 +2,21 @@ package edu.skku.cs.visualvroomandroid;
 import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
-import android.media.AudioFormat;
-import android.media.AudioRecord;
 
 import androidx.core.content.ContextCompat;
 
+import edu.skku.cs.visualvroomandroid.capture.CaptureFormat;
+import edu.skku.cs.visualvroomandroid.capture.CaptureHub;
+
+/**
+ * Blocking fixed-length recordings, taken from the shared {@link CaptureHub} so they can run
+ * alongside detection. Results are 16-bit little-endian PCM.
+ */
 public class MultiAudioRecorder {
     private static final int SAMPLE_RATE = 16000;  // 16 kHz
     private static final int DURATION_SECONDS = 10;
+    // Historical buffer size in bytes; a mono recording holds half as many samples
+    private static final int MONO_BYTES = SAMPLE_RATE * DURATION_SECONDS;
     private final Context context;
 
     public MultiAudioRecorder(Context context) {
@@ -22,105 +29,11 @@ public class MultiAudioRecorder {
     }
 
     public byte[] recordLeftChannel() throws SecurityException {
-        if (!checkPermission()) {
-            throw new SecurityException("Recording permission not granted");
-        }
-
-        int minBufferSize = AudioRecord.getMinBufferSize(SAMPLE_RATE,
-                AudioFormat.CHANNEL_IN_MONO,
-                AudioFormat.ENCODING_PCM_16BIT);
-
-        if (minBufferSize == AudioRecord.ERROR || minBufferSize == AudioRecord.ERROR_BAD_VALUE) {
-            throw new IllegalStateException("Failed to get minimum buffer size");
-        }
-
-        int bufferSize = Math.max(SAMPLE_RATE * DURATION_SECONDS, minBufferSize);
-
-        AudioFormat leftFormat = new AudioFormat.Builder()
-                .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
-                .setSampleRate(SAMPLE_RATE)
-                .setChannelMask(AudioFormat.CHANNEL_IN_LEFT)
-                .build();
-
-        AudioRecord leftRecorder;
-        try {
-            leftRecorder = new AudioRecord.Builder()
-                    .setAudioFormat(leftFormat)
-                    .setBufferSizeInBytes(bufferSize)
-                    .build();
-        } catch (SecurityException e) {
-            throw new SecurityException("Failed to create AudioRecord: " + e.getMessage());
-        }
-
-        if (leftRecorder.getState() != AudioRecord.STATE_INITIALIZED) {
-            leftRecorder.release();
-            throw new IllegalStateException("Failed to initialize AudioRecord");
-        }
-
-        byte[] leftData = new byte[bufferSize];
-
-        try {
-            leftRecorder.startRecording();
-            int bytesRead = leftRecorder.read(leftData, 0, bufferSize);
-            if (bytesRead < 0) {
-                throw new IllegalStateException("Error reading from AudioRecord: " + bytesRead);
-            }
-            return leftData;
-        } finally {
-            leftRecorder.stop();
-            leftRecorder.release();
-        }
+        return recordChannel(0);
     }
 
     public byte[] recordRightChannel() throws SecurityException {
-        if (!checkPermission()) {
-            throw new SecurityException("Recording permission not granted");
-        }
-
-        int minBufferSize = AudioRecord.getMinBufferSize(SAMPLE_RATE,
-                AudioFormat.CHANNEL_IN_MONO,
-                AudioFormat.ENCODING_PCM_16BIT);
-
-        if (minBufferSize == AudioRecord.ERROR || minBufferSize == AudioRecord.ERROR_BAD_VALUE) {
-            throw new IllegalStateException("Failed to get minimum buffer size");
-        }
-
-        int bufferSize = Math.max(SAMPLE_RATE * DURATION_SECONDS, minBufferSize);
-
-        AudioFormat rightFormat = new AudioFormat.Builder()
-                .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
-                .setSampleRate(SAMPLE_RATE)
-                .setChannelMask(AudioFormat.CHANNEL_IN_RIGHT)
-                .build();
-
-        AudioRecord rightRecorder;
-        try {
-            rightRecorder = new AudioRecord.Builder()
-                    .setAudioFormat(rightFormat)
-                    .setBufferSizeInBytes(bufferSize)
-                    .build();
-        } catch (SecurityException e) {
-            throw new SecurityException("Failed to create AudioRecord: " + e.getMessage());
-        }
-
-        if (rightRecorder.getState() != AudioRecord.STATE_INITIALIZED) {
-            rightRecorder.release();
-            throw new IllegalStateException("Failed to initialize AudioRecord");
-        }
-
-        byte[] rightData = new byte[bufferSize];
-
-        try {
-            rightRecorder.startRecording();
-            int bytesRead = rightRecorder.read(rightData, 0, bufferSize);
-            if (bytesRead < 0) {
-                throw new IllegalStateException("Error reading from AudioRecord: " + bytesRead);
-            }
-            return rightData;
-        } finally {
-            rightRecorder.stop();
-            rightRecorder.release();
-        }
+        return recordChannel(1);
     }
 
     public byte[] recordBothChannels() throws SecurityException {
@@ -128,49 +41,26 @@ public class MultiAudioRecorder {
             throw new SecurityException("Recording permission not granted");
         }
 
-        int minBufferSize = AudioRecord.getMinBufferSize(SAMPLE_RATE,
-                AudioFormat.CHANNEL_IN_STEREO,
-                AudioFormat.ENCODING_PCM_16BIT);
-
-        if (minBufferSize == AudioRecord.ERROR || minBufferSize == AudioRecord.ERROR_BAD_VALUE) {
-            throw new IllegalStateException("Failed to get minimum buffer size");
-        }
-
-        int bufferSize = Math.max(SAMPLE_RATE * DURATION_SECONDS * 2, minBufferSize);
-
-        AudioFormat stereoFormat = new AudioFormat.Builder()
-                .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
-                .setSampleRate(SAMPLE_RATE)
-                .setChannelMask(AudioFormat.CHANNEL_IN_STEREO)
-                .build();
-
-        AudioRecord stereoRecorder;
-        try {
-            stereoRecorder = new AudioRecord.Builder()
-                    .setAudioFormat(stereoFormat)
-                    .setBufferSizeInBytes(bufferSize)
-                    .build();
-        } catch (SecurityException e) {
-            throw new SecurityException("Failed to create AudioRecord: " + e.getMessage());
-        }
+        short[] stereo = CaptureHub.getInstance(context).record(CaptureFormat.STEREO_16K, MONO_BYTES / 2);
+        return toLittleEndian(stereo, 0, 1, stereo.length);
+    }
 
-        if (stereoRecorder.getState() != AudioRecord.STATE_INITIALIZED) {
-            stereoRecorder.release();
-            throw new IllegalStateException("Failed to initialize AudioRecord");
+    private byte[] recordChannel(int channel) {
+        if (!checkPermission()) {
+            throw new SecurityException("Recording permission not granted");
         }
 
-        byte[] stereoData = new byte[bufferSize];
+        short[] stereo = CaptureHub.getInstance(context).record(CaptureFormat.STEREO_16K, MONO_BYTES / 2);
+        return toLittleEndian(stereo, channel, 2, MONO_BYTES / 2);
+    }
 
-        try {
-            stereoRecorder.startRecording();
-            int bytesRead = stereoRecorder.read(stereoData, 0, bufferSize);
-            if (bytesRead < 0) {
-                throw new IllegalStateException("Error reading from AudioRecord: " + bytesRead);
-            }
-            return stereoData;
-        } finally {
-            stereoRecorder.stop();
-            stereoRecorder.release();
+    private static byte[] toLittleEndian(short[] samples, int offset, int stride, int count) {
+        byte[] out = new byte[count * 2];
+        for (int i = 0; i < count; i++) {
+            short sample = samples[offset + i * stride];
+            out[2 * i] = (byte) sample;
+            out[2 * i + 1] = (byte) (sample >> 8);
         }
+        return out;
     }
 }
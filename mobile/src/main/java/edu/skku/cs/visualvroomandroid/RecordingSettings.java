@@ -0,0 +1,39 @@
+package edu.skku.cs.visualvroomandroid;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Recording options the user sets on screen, kept across runs. The recorder screen applies
+ * them directly; {@link AudioRecordingService} falls back to them for any option its start
+ * intent doesn't carry as an extra.
+ */
+public final class RecordingSettings {
+    private static final String PREFS = "recording_settings";
+    private static final String KEY_NOISE_SUPPRESSION = "noise_suppression";
+    private static final String KEY_BLACK_BOX_MINUTES = "black_box_minutes";
+
+    private final SharedPreferences prefs;
+
+    public RecordingSettings(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    /** Spectral noise suppression on the upload path and the live spectrogram. */
+    public boolean isNoiseSuppression() {
+        return prefs.getBoolean(KEY_NOISE_SUPPRESSION, false);
+    }
+
+    public void setNoiseSuppression(boolean enabled) {
+        prefs.edit().putBoolean(KEY_NOISE_SUPPRESSION, enabled).apply();
+    }
+
+    /** Minutes of audio the black box keeps while recording, 0 when it's off. */
+    public int getBlackBoxMinutes() {
+        return prefs.getInt(KEY_BLACK_BOX_MINUTES, 0);
+    }
+
+    public void setBlackBoxMinutes(int minutes) {
+        prefs.edit().putInt(KEY_BLACK_BOX_MINUTES, minutes).apply();
+    }
+}
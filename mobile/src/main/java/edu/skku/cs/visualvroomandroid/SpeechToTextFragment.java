@@ -13,37 +13,41 @@ import android.widget.EditText;
 import android.widget.ImageButton;
 import androidx.fragment.app.Fragment;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import android.media.AudioFormat;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
 import android.widget.Toast;
 
-import okhttp3.*;
-import org.json.JSONObject;
+import edu.skku.cs.visualvroomandroid.capture.CaptureFormat;
+import edu.skku.cs.visualvroomandroid.capture.CaptureHub;
+import edu.skku.cs.visualvroomandroid.speech.ServerTranscriber;
+import edu.skku.cs.visualvroomandroid.speech.StandInTranscriber;
+import edu.skku.cs.visualvroomandroid.speech.StreamingTranscription;
+import edu.skku.cs.visualvroomandroid.speech.Transcriber;
+import edu.skku.cs.visualvroomandroid.speech.VoiceActivitySegmenter;
+import io.reactivex.rxjava3.disposables.Disposable;
+import okhttp3.OkHttpClient;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.concurrent.TimeUnit;
-import java.io.ByteArrayOutputStream;
 
 
 public class SpeechToTextFragment extends Fragment {
     private static final String TAG = "SpeechToTextFragment";
     private static final String BACKEND_URL = "http://211.211.177.45:8017/transcribe";
     private static final int SAMPLE_RATE = 16000;
-    private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_MONO;
-    private static final int AUDIO_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
-    private static final int BUFFER_SIZE = AudioRecord.getMinBufferSize(
-            SAMPLE_RATE, CHANNEL_CONFIG, AUDIO_FORMAT) * 2;
+    // Segments uploaded to /transcribe at once; results are still shown in order
+    private static final int MAX_UPLOADS_IN_FLIGHT = 3;
+    // Quietest audio the voice-activity detector treats as speech
+    private static final double VAD_MIN_RMS = 0.005;
+    // Fragment argument: use the offline stand-in instead of the backend
+    public static final String ARG_USE_LOCAL_TRANSCRIBER = "use_local_transcriber";
+    private static final double STAND_IN_MIN_RMS = 0.01;
 
     private EditText transcribedText;
     private FloatingActionButton micButton;
     private ImageButton clearButton;
     private ImageButton copyButton;
-    private AudioRecord audioRecord;
-    private boolean isRecording = false;
-    private Thread recordingThread;
-    private ByteArrayOutputStream audioBuffer;
+    private volatile boolean isRecording = false;
+    private Disposable captureSubscription;
+    private StreamingTranscription transcription;
+    private Transcriber transcriber;
     private final OkHttpClient client;
 
     public SpeechToTextFragment() {
@@ -58,6 +62,11 @@ public class SpeechToTextFragment extends Fragment {
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_speech_text, container, false);
 
+        boolean useLocal = getArguments() != null && getArguments().getBoolean(ARG_USE_LOCAL_TRANSCRIBER, false);
+        transcriber = useLocal
+                ? new StandInTranscriber(STAND_IN_MIN_RMS)
+                : new ServerTranscriber(client, BACKEND_URL);
+
         transcribedText = view.findViewById(R.id.transcribedText);
         micButton = view.findViewById(R.id.micButton);
         clearButton = view.findViewById(R.id.clearButton);
@@ -90,159 +99,85 @@ public class SpeechToTextFragment extends Fragment {
     private void startRecording() {
         if (isRecording) return;
 
-        try {
-            // Create new buffer for recording
-            audioBuffer = new ByteArrayOutputStream();
-
-            audioRecord = new AudioRecord.Builder()
-                    .setAudioSource(MediaRecorder.AudioSource.VOICE_RECOGNITION)
-                    .setAudioFormat(new AudioFormat.Builder()
-                            .setEncoding(AUDIO_FORMAT)
-                            .setSampleRate(SAMPLE_RATE)
-                            .setChannelMask(CHANNEL_CONFIG)
-                            .build())
-                    .setBufferSizeInBytes(BUFFER_SIZE)
-                    .build();
-
-            if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
-                throw new IllegalStateException("Failed to initialize AudioRecord");
-            }
-
-            isRecording = true;
-            micButton.setImageResource(R.drawable.ic_mic_active);
-            showToast("Recording started");
-
-            recordingThread = new Thread(() -> {
-                byte[] buffer = new byte[BUFFER_SIZE];
-                audioRecord.startRecording();
+        isRecording = true;
+        micButton.setImageResource(R.drawable.ic_mic_active);
+        showToast("Recording started");
+
+        // Partial hypotheses are shown after whatever text was already there
+        final String baseText = transcribedText.getText().toString();
+        // Utterances are cut at pauses and uploaded while recording continues
+        final StreamingTranscription session = new StreamingTranscription(transcriber, SAMPLE_RATE,
+                new VoiceActivitySegmenter(SAMPLE_RATE, VAD_MIN_RMS), MAX_UPLOADS_IN_FLIGHT,
+                new StreamingTranscription.Listener() {
+                    @Override
+                    public void onPartial(String text) {
+                        updateTranscribedText(baseText, text);
+                    }
 
-                while (isRecording) {
-                    int bytesRead = audioRecord.read(buffer, 0, buffer.length);
-                    if (bytesRead > 0) {
-                        synchronized (audioBuffer) {
-                            audioBuffer.write(buffer, 0, bytesRead);
-                        }
+                    @Override
+                    public void onFinal(String text) {
+                        updateTranscribedText(baseText, text);
+                        showToast(TextUtils.isEmpty(text) ? "No speech recognized" : "Transcription complete");
                     }
-                }
-            });
-            recordingThread.start();
 
-        } catch (SecurityException e) {
-            Log.e(TAG, "Permission denied: " + e.getMessage());
-            showToast("Permission denied for audio recording");
-            resetRecordingState();
-        } catch (Exception e) {
-            Log.e(TAG, "Error starting recording: " + e.getMessage());
-            showToast("Error starting audio recording");
-            resetRecordingState();
-        }
+                    @Override
+                    public void onChunkError(Throwable error) {
+                        Log.e(TAG, "Chunk transcription failed: " + error.getMessage());
+                        showToast("Transcription error: " + error.getMessage());
+                    }
+                });
+        transcription = session;
+
+        // The mic is shared with detection; the hub downmixes a 16 kHz mono copy for us
+        captureSubscription = CaptureHub.getInstance(requireContext())
+                .blocks(CaptureFormat.MONO_16K)
+                .subscribe(block -> session.push(block.getSamples(), block.getLength()), e -> {
+                    Log.e(TAG, "Error during audio capture: " + e.getMessage());
+                    showToast(e instanceof SecurityException
+                            ? "Permission denied for audio recording"
+                            : "Error starting audio recording");
+                    session.cancel();
+                    if (getActivity() != null) {
+                        getActivity().runOnUiThread(this::resetRecordingState);
+                    }
+                });
     }
 
     private void stopRecording() {
         if (!isRecording) return;
 
-        try {
-            isRecording = false;
-            micButton.setImageResource(R.drawable.ic_mic);
-            showToast("Processing audio...");
-
-            // Stop the AudioRecord
-            if (audioRecord != null) {
-                audioRecord.stop();
-                audioRecord.release();
-            }
-
-            // Wait for recording thread to finish
-            if (recordingThread != null) {
-                recordingThread.join();
-            }
-
-            // Get the final audio data
-            byte[] audioData;
-            synchronized (audioBuffer) {
-                audioData = audioBuffer.toByteArray();
-            }
-
-            // Send data to backend only if we have audio
-            if (audioData.length > 0) {
-                Log.d(TAG, "Sending audio data, size: " + audioData.length + " bytes");
-                sendAudioToBackend(audioData);
-            } else {
-                showToast("No audio recorded");
-            }
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error stopping recording: " + e.getMessage());
-            showToast("Error processing audio");
-        } finally {
-            resetRecordingState();
+        showToast("Finishing transcription...");
+        // Leave the capture hub; the mic stays open if detection still uses it
+        if (captureSubscription != null) {
+            captureSubscription.dispose();
+            captureSubscription = null;
+        }
+        // The final text arrives once the chunks still in flight come back
+        if (transcription != null) {
+            transcription.finish();
+            transcription = null;
         }
+        resetRecordingState();
     }
 
     private void resetRecordingState() {
         isRecording = false;
-        audioRecord = null;
-        recordingThread = null;
-        audioBuffer = null;
+        if (captureSubscription != null) {
+            captureSubscription.dispose();
+            captureSubscription = null;
+        }
         micButton.setImageResource(R.drawable.ic_mic);
     }
 
-    private void sendAudioToBackend(byte[] audioData) {
-        RequestBody requestBody = new MultipartBody.Builder()
-                .setType(MultipartBody.FORM)
-                .addFormDataPart("sample_rate", String.valueOf(SAMPLE_RATE))
-                .addFormDataPart("audio_data", "audio.raw",
-                        RequestBody.create(MediaType.parse("audio/raw"), audioData))
-                .build();
-
-        Request request = new Request.Builder()
-                .url(BACKEND_URL)
-                .post(requestBody)
-                .build();
-
-        client.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                Log.e(TAG, "Failed to send audio data: " + e.getMessage());
-                showToast("Network error: " + e.getMessage());
-            }
-
-            @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                try (ResponseBody responseBody = response.body()) {
-                    if (!response.isSuccessful() || responseBody == null) {
-                        Log.e(TAG, "Server error: " + response.code());
-                        showToast("Server error: " + response.code());
-                        return;
-                    }
-
-                    JSONObject result = new JSONObject(responseBody.string());
-                    if ("success".equals(result.getString("status"))) {
-                        String transcribedString = result.getString("text");
-                        updateTranscribedText(transcribedString);
-                        showToast("Transcription complete");
-                    } else {
-                        showToast("Transcription error: " + result.getString("error"));
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error processing response: " + e.getMessage());
-                    showToast("Error processing response");
-                }
-            }
-        });
-    }
-
-    private void updateTranscribedText(String newText) {
+    private void updateTranscribedText(String baseText, String hypothesis) {
         if (getActivity() == null) return;
 
         getActivity().runOnUiThread(() -> {
-            if (!TextUtils.isEmpty(newText)) {
-                String currentText = transcribedText.getText().toString();
-                String updatedText = TextUtils.isEmpty(currentText) ?
-                        newText : currentText + "\n" + newText;
-                transcribedText.setText(updatedText);
-                transcribedText.setSelection(updatedText.length());
-            }
+            if (transcribedText == null || TextUtils.isEmpty(hypothesis)) return;
+            String updatedText = TextUtils.isEmpty(baseText) ?
+                    hypothesis : baseText + "\n" + hypothesis;
+            transcribedText.setText(updatedText);
+            transcribedText.setSelection(updatedText.length());
         });
     }
 
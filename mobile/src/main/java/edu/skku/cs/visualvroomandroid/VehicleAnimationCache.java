@@ -0,0 +1,102 @@
+package edu.skku.cs.visualvroomandroid;
+
+import android.content.Context;
+import android.util.Log;
+import android.view.ViewTreeObserver;
+
+import com.airbnb.lottie.LottieAnimationView;
+import com.airbnb.lottie.LottieComposition;
+import com.airbnb.lottie.LottieCompositionFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.skku.cs.visualvroomandroid.watch.LatencyHistogram;
+
+/**
+ * Keeps the vehicle Lottie animations parsed and resident.
+ *
+ * {@link #preload()} parses every vehicle animation on Lottie's background executor at startup,
+ * so an alert only swaps an already-built composition into the view. The cache also measures
+ * the time from an alert's arrival to the first frame drawn for it.
+ */
+public class VehicleAnimationCache {
+    private static final String TAG = "VehicleAnimationCache";
+
+    private static final int[] VEHICLE_ANIMATIONS = {R.raw.siren, R.raw.bike, R.raw.car_horn};
+    // Log the render latency summary after this many alerts
+    private static final int SUMMARY_EVERY_ALERTS = 10;
+
+    private static VehicleAnimationCache instance;
+
+    private final Context context;
+    // Strong references; Lottie's own cache is an LRU and may evict
+    private final Map<Integer, LottieComposition> compositions = new ConcurrentHashMap<>();
+    private final LatencyHistogram firstFrameLatency = new LatencyHistogram("alert_to_first_frame");
+    private boolean preloaded = false;
+
+    private VehicleAnimationCache(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized VehicleAnimationCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new VehicleAnimationCache(context);
+        }
+        return instance;
+    }
+
+    /** Starts parsing all vehicle animations off the main thread. Safe to call more than once. */
+    public synchronized void preload() {
+        if (preloaded) return;
+        preloaded = true;
+
+        for (int resId : VEHICLE_ANIMATIONS) {
+            final long start = System.nanoTime();
+            LottieCompositionFactory.fromRawRes(context, resId)
+                    .addListener(composition -> {
+                        compositions.put(resId, composition);
+                        Log.d(TAG, String.format("Parsed %s in %.1f ms",
+                                context.getResources().getResourceEntryName(resId),
+                                (System.nanoTime() - start) / 1e6));
+                    })
+                    .addFailureListener(e -> Log.e(TAG, "Failed to parse animation " + resId, e));
+        }
+    }
+
+    /**
+     * Shows the animation in {@code view}, using the resident composition when it is ready.
+     * Falls back to Lottie's asynchronous loading if the alert beat the preload.
+     */
+    public void apply(LottieAnimationView view, int resId) {
+        LottieComposition composition = compositions.get(resId);
+        if (composition != null) {
+            view.setComposition(composition);
+        } else {
+            Log.w(TAG, "Animation " + resId + " not preloaded yet");
+            view.setAnimation(resId);
+        }
+    }
+
+    /**
+     * Records the time from {@code receivedAtMs} (wall clock) until {@code view} next draws.
+     */
+    public void measureFirstFrame(LottieAnimationView view, long receivedAtMs) {
+        ViewTreeObserver observer = view.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                view.getViewTreeObserver().removeOnPreDrawListener(this);
+                firstFrameLatency.record(System.currentTimeMillis() - receivedAtMs);
+                if (firstFrameLatency.getCount() % SUMMARY_EVERY_ALERTS == 0) {
+                    Log.d(TAG, firstFrameLatency.toString());
+                }
+                return true;
+            }
+        });
+    }
+
+    public LatencyHistogram getFirstFrameLatency() {
+        return firstFrameLatency;
+    }
+}
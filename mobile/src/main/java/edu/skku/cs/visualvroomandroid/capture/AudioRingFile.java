@@ -0,0 +1,256 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The last {@code capacityFrames} frames of a PCM stream in a fixed-size memory-mapped ring
+ * file, with a time index so a clip around any remembered moment can be cut out later.
+ *
+ * <pre>
+ * header: "VVBB" | version u16 | channels u16 | sample rate i32 | index entries i32
+ *         | capacity frames i64 | frames written i64 | index entries written i64 | reserved (24)
+ * index:  entries * (wall clock ms i64 | first frame i64), one per chunk, as a ring
+ * data:   capacity frames of 16-bit little-endian PCM, as a ring
+ * </pre>
+ * Header and index are big-endian. Blocks are staged in memory and copied into the ring a
+ * chunk of {@link #CHUNK_MS} at a time, so the file sees a few large sequential stores and
+ * never an fsync; the kernel writes the pages back, which keeps the audio even if the app
+ * crashes. A ring reopened with the same format carries on where it stopped.
+ *
+ * Within a chunk the stream is taken to be continuous at the sample rate; between chunks
+ * the index records where each one started, so gaps in capture don't skew export times.
+ * Thread-safe; once closed, writes are dropped and exports find nothing, so a writer racing
+ * {@link #close} never touches a mapping another ring may have reopened.
+ */
+public final class AudioRingFile implements Closeable {
+    static final int MAGIC = 0x56564242;  // "VVBB"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int INDEX_ENTRY_BYTES = 16;
+    static final long CHUNK_MS = 4000;
+
+    private static final int FRAMES_WRITTEN_OFFSET = 24;
+    private static final int INDEX_WRITTEN_OFFSET = 32;
+
+    private final CaptureFormat format;
+    private final int frameBytes;
+    private final long capacityFrames;
+    private final int indexEntries;
+    private final long dataOffset;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer map;
+    private final ByteBuffer staging;           // One chunk, little-endian
+
+    private long framesWritten;
+    private long indexWritten;
+    private long stagedStartMs = -1;            // Wall time of the first staged frame
+    private boolean closed;
+
+    public AudioRingFile(File path, CaptureFormat format, long capacityFrames) throws IOException {
+        this.format = format;
+        this.frameBytes = format.getChannels() * 2;
+        this.capacityFrames = capacityFrames;
+        // A chunk must fit the ring, or one flush would overwrite itself
+        long chunkFrames = Math.min(format.getSampleRate() * CHUNK_MS / 1000, capacityFrames);
+        // Enough entries to index every chunk still in the ring, with room for partial ones
+        this.indexEntries = (int) (capacityFrames / chunkFrames) * 2 + 4;
+        this.dataOffset = HEADER_BYTES + (long) indexEntries * INDEX_ENTRY_BYTES;
+        this.staging = ByteBuffer.allocate((int) chunkFrames * frameBytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        long size = dataOffset + capacityFrames * frameBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ring too large for one mapping: " + size + " bytes");
+        }
+        this.file = new RandomAccessFile(path, "rw");
+        boolean resume = file.length() == size;
+        file.setLength(size);
+        this.map = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (resume && matchesHeader()) {
+            framesWritten = map.getLong(FRAMES_WRITTEN_OFFSET);
+            indexWritten = map.getLong(INDEX_WRITTEN_OFFSET);
+        } else {
+            map.putInt(0, MAGIC);
+            map.putShort(4, (short) VERSION);
+            map.putShort(6, (short) format.getChannels());
+            map.putInt(8, format.getSampleRate());
+            map.putInt(12, indexEntries);
+            map.putLong(16, capacityFrames);
+            map.putLong(FRAMES_WRITTEN_OFFSET, 0);
+            map.putLong(INDEX_WRITTEN_OFFSET, 0);
+        }
+    }
+
+    public CaptureFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Appends interleaved samples captured at {@code wallClockMs} (the time of their first frame).
+     */
+    public synchronized void write(short[] samples, int length, long wallClockMs) {
+        if (closed) return;
+        int offset = 0;
+        while (offset < length) {
+            if (stagedStartMs < 0) {
+                // Later parts of a block split across chunks start where the earlier part ended
+                stagedStartMs = wallClockMs + (offset / format.getChannels()) * 1000L / format.getSampleRate();
+            }
+            int n = Math.min(length - offset, staging.remaining() / 2);
+            for (int i = 0; i < n; i++) {
+                staging.putShort(samples[offset + i]);
+            }
+            offset += n;
+            if (!staging.hasRemaining()) {
+                flush();
+            }
+        }
+    }
+
+    /** Moves staged audio into the ring. Cheap; no I/O is forced. */
+    public synchronized void flush() {
+        if (closed) return;
+        int frames = staging.position() / frameBytes;
+        if (frames == 0) return;
+
+        // Index first, so the chunk is findable as soon as it's counted
+        int entry = (int) (indexWritten % indexEntries);
+        map.putLong(HEADER_BYTES + entry * INDEX_ENTRY_BYTES, stagedStartMs);
+        map.putLong(HEADER_BYTES + entry * INDEX_ENTRY_BYTES + 8, framesWritten);
+
+        staging.flip();
+        long position = framesWritten % capacityFrames;
+        int firstFrames = (int) Math.min(frames, capacityFrames - position);
+        copyIn(position, firstFrames * frameBytes);
+        if (firstFrames < frames) {
+            copyIn(0, (frames - firstFrames) * frameBytes);
+        }
+        staging.clear();
+
+        framesWritten += frames;
+        indexWritten++;
+        map.putLong(FRAMES_WRITTEN_OFFSET, framesWritten);
+        map.putLong(INDEX_WRITTEN_OFFSET, indexWritten);
+        stagedStartMs = -1;
+    }
+
+    /** Wall time of the oldest frame still in the ring, or -1 if nothing has been flushed. */
+    public synchronized long getOldestMs() {
+        long oldest = Math.max(0, framesWritten - capacityFrames);
+        return framesWritten == 0 ? -1 : timeOf(oldest);
+    }
+
+    /** Wall time just after the newest flushed frame, or -1 if nothing has been flushed. */
+    public synchronized long getNewestMs() {
+        return framesWritten == 0 ? -1 : timeOf(framesWritten);
+    }
+
+    /**
+     * Writes the audio between the two wall-clock times, clipped to what the ring still
+     * holds, to {@code out} as a WAV file. Staged audio is flushed first.
+     *
+     * @return frames written, 0 if the ring holds nothing in the range
+     */
+    public synchronized long exportWav(long fromMs, long toMs, File out) throws IOException {
+        if (closed) return 0;
+        flush();
+        long oldest = Math.max(0, framesWritten - capacityFrames);
+        long from = Math.max(frameAt(fromMs), oldest);
+        long to = Math.min(frameAt(toMs), framesWritten);
+        long frames = Math.max(0, to - from);
+
+        try (FileChannel channel = new FileOutputStream(out).getChannel()) {
+            channel.write(ByteBuffer.wrap(WavWriter.header((int) (frames * frameBytes), format)));
+            long position = from % capacityFrames;
+            long firstFrames = Math.min(frames, capacityFrames - position);
+            writeOut(channel, position, firstFrames);
+            writeOut(channel, 0, frames - firstFrames);
+        }
+        return frames;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        flush();
+        closed = true;
+        file.close();
+    }
+
+    private boolean matchesHeader() {
+        return map.getInt(0) == MAGIC && map.getShort(4) == VERSION
+                && map.getShort(6) == format.getChannels() && map.getInt(8) == format.getSampleRate()
+                && map.getInt(12) == indexEntries && map.getLong(16) == capacityFrames;
+    }
+
+    private void copyIn(long frame, int bytes) {
+        ByteBuffer target = map.duplicate();
+        target.position((int) (dataOffset + frame * frameBytes));
+        ByteBuffer source = staging.slice();
+        source.limit(bytes);
+        target.put(source);
+        staging.position(staging.position() + bytes);
+    }
+
+    private void writeOut(FileChannel channel, long frame, long frames) throws IOException {
+        if (frames <= 0) return;
+        ByteBuffer source = map.duplicate();
+        source.position((int) (dataOffset + frame * frameBytes));
+        source.limit((int) (dataOffset + (frame + frames) * frameBytes));
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    // Entries still describing audio in the ring, oldest first: [first, indexWritten)
+    private long firstLiveEntry() {
+        long first = Math.max(0, indexWritten - indexEntries);
+        long oldestFrame = Math.max(0, framesWritten - capacityFrames);
+        // The entry containing the oldest frame is the last one starting at or before it
+        while (first + 1 < indexWritten && entryFrame(first + 1) <= oldestFrame) {
+            first++;
+        }
+        return first;
+    }
+
+    private long entryTime(long entry) {
+        return map.getLong(HEADER_BYTES + (int) (entry % indexEntries) * INDEX_ENTRY_BYTES);
+    }
+
+    private long entryFrame(long entry) {
+        return map.getLong(HEADER_BYTES + (int) (entry % indexEntries) * INDEX_ENTRY_BYTES + 8);
+    }
+
+    private long entryEnd(long entry) {
+        return entry + 1 < indexWritten ? entryFrame(entry + 1) : framesWritten;
+    }
+
+    // Absolute frame number at a wall-clock time, clamped to the indexed range
+    private long frameAt(long wallClockMs) {
+        if (indexWritten == 0) return 0;
+        long first = firstLiveEntry();
+        long entry = first;
+        for (long e = first; e < indexWritten && entryTime(e) <= wallClockMs; e++) {
+            entry = e;
+        }
+        long offset = (wallClockMs - entryTime(entry)) * format.getSampleRate() / 1000;
+        return Math.max(entryFrame(entry), Math.min(entryFrame(entry) + offset, entryEnd(entry)));
+    }
+
+    private long timeOf(long frame) {
+        long first = firstLiveEntry();
+        long entry = first;
+        for (long e = first; e < indexWritten && entryFrame(e) <= frame; e++) {
+            entry = e;
+        }
+        return entryTime(entry) + (frame - entryFrame(entry)) * 1000 / format.getSampleRate();
+    }
+}
@@ -0,0 +1,149 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Opt-in "black box": keeps the last few minutes of what the microphone heard in an
+ * {@link AudioRingFile}, so a clip around a detection can be saved after the fact.
+ *
+ * It takes the same 16 kHz stereo blocks the detection pipeline does, as a subscriber of
+ * its own on {@link CaptureHub}. The hub gives it a separate queue and thread, so writing
+ * the ring never delays a detection window; if storage stalls, the recorder loses its own
+ * oldest blocks. While frozen, new audio is discarded and the ring keeps what it had.
+ *
+ * The user turns it on from the History tab, which sets the length in
+ * {@code RecordingSettings}; whoever records then runs it for as long as they record.
+ */
+public final class BlackBoxRecorder {
+    private static final String TAG = "BlackBoxRecorder";
+
+    private static final CaptureFormat FORMAT = CaptureFormat.STEREO_16K;
+    private static final String RING_FILE = "blackbox.ring";
+
+    private static BlackBoxRecorder instance;
+
+    private final Context context;
+    private AudioRingFile ring;
+    private Disposable subscription;
+    private volatile boolean frozen;
+
+    private BlackBoxRecorder(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized BlackBoxRecorder getInstance(Context context) {
+        if (instance == null) {
+            instance = new BlackBoxRecorder(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Starts keeping the last {@code minutes} of audio; ignored if already running. A ring
+     * left by an earlier run of the same length is carried on, so its audio can still be saved.
+     *
+     * @return true if this call started it, so the caller is the one to {@link #stop} it
+     */
+    public synchronized boolean start(int minutes) {
+        if (subscription != null) return false;
+        try {
+            ring = new AudioRingFile(new File(context.getFilesDir(), RING_FILE), FORMAT,
+                    (long) minutes * 60 * FORMAT.getSampleRate());
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e(TAG, "Cannot open black box: " + e.getMessage());
+            return false;
+        }
+        final AudioRingFile target = ring;
+        subscription = CaptureHub.getInstance(context)
+                .blocks(FORMAT)
+                .subscribe(block -> {
+                    // The ring drops writes once stop() has closed it
+                    if (frozen) return;
+                    // Wall time of the block's first frame; capture stamps are on the nanoTime clock
+                    long ageMs = (System.nanoTime() - block.getCaptureTimeNanos()) / 1_000_000
+                            + (long) block.getLength() / FORMAT.getChannels() * 1000 / FORMAT.getSampleRate();
+                    target.write(block.getSamples(), block.getLength(), System.currentTimeMillis() - ageMs);
+                }, error -> Log.e(TAG, "Black box capture failed: " + error.getMessage()));
+        Log.i(TAG, "Black box keeping the last " + minutes + " min");
+        return true;
+    }
+
+    /** Stops recording and closes the ring; a freeze ends with it. */
+    public synchronized void stop() {
+        frozen = false;
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+        if (ring != null) {
+            try {
+                ring.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing black box: " + e.getMessage());
+            }
+            ring = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return subscription != null;
+    }
+
+    /** Stops taking new audio, so what's in the ring now can't be overwritten. */
+    public void freeze() {
+        frozen = true;
+    }
+
+    public void unfreeze() {
+        frozen = false;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Saves the audio from {@code beforeMs} before to {@code afterMs} after {@code wallClockMs}
+     * as a WAV file. The ring is frozen while copying. Blocking; call off the main thread.
+     *
+     * @return the file, or null if the black box is off or holds nothing in that range
+     */
+    public File exportClip(long wallClockMs, long beforeMs, long afterMs) throws IOException {
+        AudioRingFile target;
+        synchronized (this) {
+            target = ring;
+        }
+        if (target == null) return null;
+
+        File dir = context.getExternalFilesDir("blackbox");
+        if (dir == null) dir = new File(context.getFilesDir(), "blackbox");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File out = new File(dir, "clip-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US)
+                .format(new Date(wallClockMs)) + ".wav");
+
+        boolean wasFrozen = frozen;
+        frozen = true;
+        try {
+            long frames = target.exportWav(wallClockMs - beforeMs, wallClockMs + afterMs, out);
+            if (frames == 0) {
+                out.delete();
+                return null;
+            }
+            Log.i(TAG, "Saved " + frames * 1000 / FORMAT.getSampleRate() + " ms to " + out);
+            return out;
+        } finally {
+            frozen = wasFrozen;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+/**
+ * PCM layout a {@link CaptureHub} subscriber wants: sample rate and channel count.
+ * 16-bit samples, interleaved when stereo. Any rate can be requested; the hub resamples.
+ */
+public final class CaptureFormat {
+    public static final CaptureFormat STEREO_48K = new CaptureFormat(48000, 2);
+    public static final CaptureFormat STEREO_16K = new CaptureFormat(16000, 2);
+    public static final CaptureFormat MONO_16K = new CaptureFormat(16000, 1);
+
+    private final int sampleRate;
+    private final int channels;
+
+    public CaptureFormat(int sampleRate, int channels) {
+        if (channels != 1 && channels != 2) {
+            throw new IllegalArgumentException("Only mono and stereo are supported: " + channels);
+        }
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+    }
+
+    public int getSampleRate() { return sampleRate; }
+    public int getChannels() { return channels; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CaptureFormat)) return false;
+        CaptureFormat other = (CaptureFormat) o;
+        return sampleRate == other.sampleRate && channels == other.channels;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * sampleRate + channels;
+    }
+
+    @Override
+    public String toString() {
+        return (channels == 2 ? "stereo " : "mono ") + sampleRate + " Hz";
+    }
+}
@@ -0,0 +1,174 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.skku.cs.visualvroomandroid.pipeline.AudioBlock;
+import edu.skku.cs.visualvroomandroid.pipeline.AudioRecordCaptureStage;
+import edu.skku.cs.visualvroomandroid.pipeline.CaptureStage;
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Owns the one microphone stream and fans it out to every consumer.
+ *
+ * The mic is opened once, as 16 kHz interleaved stereo, when the first subscriber arrives and
+ * released when the last one leaves. That is the highest rate any consumer takes, so the
+ * detection pipeline and the low-power pre-roll get capture blocks unconverted, and only
+ * lower-rate or mono subscribers such as the sentinel pay for a resampler. The capture thread only hands each block to every
+ * subscriber's bounded drop-oldest queue; format conversion and all downstream work run on
+ * the subscriber's side, so a slow consumer loses its own oldest blocks instead of stalling
+ * capture for everyone.
+ */
+public class CaptureHub {
+    private static final String TAG = "CaptureHub";
+
+    public static final int SAMPLE_RATE = 16000;
+    private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_STEREO;
+    private static final int AUDIO_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
+    // 20 ms of interleaved stereo per read
+    private static final int BLOCK_SHORTS = SAMPLE_RATE / 50 * 2;
+    // Per-subscriber backlog before the oldest blocks are dropped: 1 second
+    private static final int SUBSCRIBER_QUEUE_BLOCKS = 50;
+
+    private static CaptureHub instance;
+
+    private final Context context;
+    // Held from open until release, so a restart can't open the mic twice
+    private final Semaphore micLock = new Semaphore(1);
+    private final Flowable<AudioBlock> shared;
+    private final AtomicLong droppedBlocks = new AtomicLong();
+
+    private CaptureHub(Context context) {
+        this.context = context.getApplicationContext();
+        this.shared = Flowable.defer(this::openMic)
+                .subscribeOn(Schedulers.newThread())
+                // Never let the fan-out push back on the read loop
+                .onBackpressureDrop(block -> droppedBlocks.incrementAndGet())
+                .share();
+    }
+
+    public static synchronized CaptureHub getInstance(Context context) {
+        if (instance == null) {
+            instance = new CaptureHub(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Blocks in the requested format. Subscribing opens the mic if nobody else holds it;
+     * cancelling releases it once every subscriber has gone. Emits on a thread of its own.
+     */
+    public Flowable<AudioBlock> blocks(CaptureFormat format) {
+        return Flowable.defer(() -> {
+            // Fresh converter state per subscription
+            FormatConverter converter = new FormatConverter(SAMPLE_RATE, format);
+            return shared
+                    .onBackpressureBuffer(SUBSCRIBER_QUEUE_BLOCKS, () -> droppedBlocks.incrementAndGet(),
+                            BackpressureOverflowStrategy.DROP_OLDEST)
+                    // io() gives each subscriber its own worker thread, so one that blocks can't starve another
+                    .observeOn(Schedulers.io(), false, SUBSCRIBER_QUEUE_BLOCKS)
+                    .map(converter);
+        });
+    }
+
+    /** The hub as a pipeline capture stage. */
+    public CaptureStage stage(CaptureFormat format) {
+        return () -> blocks(format);
+    }
+
+    /**
+     * Captures {@code frames} frames in {@code format}, blocking the caller until done.
+     *
+     * @return interleaved samples, {@code frames * channels} long
+     */
+    public short[] record(CaptureFormat format, int frames) {
+        short[] out = new short[frames * format.getChannels()];
+        int[] written = {0};
+        Completable done = blocks(format)
+                .doOnNext(block -> {
+                    int n = Math.min(block.getLength(), out.length - written[0]);
+                    System.arraycopy(block.getSamples(), 0, out, written[0], n);
+                    written[0] += n;
+                })
+                .takeUntil(block -> written[0] >= out.length)
+                .ignoreElements();
+        done.blockingAwait();
+        return out;
+    }
+
+    /** Blocks dropped so far, at the capture thread or in a subscriber's queue. */
+    public long getDroppedBlocks() {
+        return droppedBlocks.get();
+    }
+
+    private Flowable<AudioBlock> openMic() throws InterruptedException {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.RECORD_AUDIO)
+                != PackageManager.PERMISSION_GRANTED) {
+            return Flowable.error(new SecurityException("Recording permission not granted"));
+        }
+
+        micLock.acquire();
+        AudioRecord audioRecord;
+        try {
+            audioRecord = createAudioRecord();
+        } catch (RuntimeException e) {
+            micLock.release();
+            return Flowable.error(e);
+        }
+
+        Log.i(TAG, "Microphone opened: stereo " + SAMPLE_RATE + " Hz");
+        final AudioRecord record = audioRecord;
+        // Released by the capture thread after its last read, never by whoever cancels: a
+        // native record must not be freed mid-read, and the next open waits on micLock until then
+        return new AudioRecordCaptureStage(record, BLOCK_SHORTS, () -> {
+            record.release();
+            micLock.release();
+            Log.i(TAG, "Microphone released; dropped blocks so far: " + droppedBlocks.get());
+        }).blocks();
+    }
+
+    private AudioRecord createAudioRecord() {
+        AudioFormat audioFormat = new AudioFormat.Builder()
+                .setEncoding(AUDIO_FORMAT)
+                .setSampleRate(SAMPLE_RATE)
+                .setChannelMask(CHANNEL_CONFIG)
+                .build();
+        int bufferSize = Math.max(AudioRecord.getMinBufferSize(SAMPLE_RATE, CHANNEL_CONFIG, AUDIO_FORMAT) * 4,
+                BLOCK_SHORTS * 2 * 4);
+
+        AudioRecord audioRecord;
+        try {
+            audioRecord = new AudioRecord.Builder()
+                    .setAudioSource(MediaRecorder.AudioSource.MIC)
+                    .setAudioFormat(audioFormat)
+                    .setBufferSizeInBytes(bufferSize)
+                    .build();
+        } catch (UnsupportedOperationException e) {
+            Log.w(TAG, "MIC source not supported, falling back to DEFAULT");
+            audioRecord = new AudioRecord.Builder()
+                    .setAudioSource(MediaRecorder.AudioSource.DEFAULT)
+                    .setAudioFormat(audioFormat)
+                    .setBufferSizeInBytes(bufferSize)
+                    .build();
+        }
+
+        if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+            audioRecord.release();
+            throw new IllegalStateException("Failed to initialize AudioRecord");
+        }
+        return audioRecord;
+    }
+}
@@ -0,0 +1,56 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import edu.skku.cs.visualvroomandroid.pipeline.AudioBlock;
+import io.reactivex.rxjava3.functions.Function;
+
+/**
+ * Converts the hub's interleaved stereo blocks to one subscriber's {@link CaptureFormat}.
+ *
+ * Downmixing averages the two channels before any rate change, so mono subscribers filter
+ * half the samples. Rate changes go through a {@link PolyphaseResampler}, which low-passes
+ * below the output Nyquist rate and keeps its history between blocks, so block boundaries
+ * don't change the output. One instance per subscriber, used from one thread.
+ */
+public class FormatConverter implements Function<AudioBlock, AudioBlock> {
+    private final int outChannels;
+    private final PolyphaseResampler resampler;  // Null when the rate is unchanged
+
+    private short[] mono = new short[0];         // Downmix scratch, reused across blocks
+
+    public FormatConverter(int inputRate, CaptureFormat output) {
+        this.outChannels = output.getChannels();
+        this.resampler = inputRate == output.getSampleRate()
+                ? null
+                : new PolyphaseResampler(inputRate, output.getSampleRate(), outChannels);
+    }
+
+    @Override
+    public AudioBlock apply(AudioBlock block) {
+        if (resampler == null && outChannels == 2) {
+            return block; // Capture format already; blocks are never written after capture
+        }
+
+        short[] in = block.getSamples();
+        int frames = block.getLength() / 2;
+        if (outChannels == 1) {
+            in = downmix(in, frames);
+        }
+        if (resampler == null) {
+            return new AudioBlock(in, frames, block.getCaptureTimeNanos());
+        }
+
+        short[] out = new short[resampler.maxOutputFrames(frames) * outChannels];
+        int written = resampler.process(in, frames, out) * outChannels;
+        return new AudioBlock(out, written, block.getCaptureTimeNanos());
+    }
+
+    private short[] downmix(short[] stereo, int frames) {
+        // Without a resampler the downmix is the output block, so it can't be reused
+        short[] out = resampler == null || mono.length < frames ? new short[frames] : mono;
+        if (resampler != null) mono = out;
+        for (int i = 0; i < frames; i++) {
+            out[i] = (short) ((stereo[2 * i] + stereo[2 * i + 1]) / 2);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,169 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming rational-ratio resampler for interleaved 16-bit PCM.
+ *
+ * The rate change is reduced to {@code up / down} and implemented as a polyphase
+ * Kaiser-windowed sinc filter: {@code up} phases of {@link #getTapsPerPhase()} taps each,
+ * precomputed once per ratio and shared between instances. The passband ends at
+ * {@value #ROLLOFF} of the lower Nyquist rate and the stopband starts at that Nyquist rate,
+ * with about 90 dB of attenuation. Input history carries across calls, so block
+ * boundaries don't change the output. Latency is half the filter, about 1.5 ms at
+ * 48 kHz to 16 kHz. One instance per stream, used from one thread.
+ */
+public final class PolyphaseResampler {
+    static final double ROLLOFF = 0.88;
+    private static final int ZERO_CROSSINGS = 24;   // Sinc lobes per side at the lower rate
+    private static final double STOPBAND_DB = 90;
+
+    // Phase tables by ratio; 48 kHz to 16 kHz is 144 floats, 44.1 kHz to 16 kHz about 21k
+    private static final Map<Long, float[]> TABLES = new ConcurrentHashMap<>();
+
+    private final int up;
+    private final int down;
+    private final int channels;
+    private final int taps;
+    private final float[] table;                    // [phase * taps + j], oldest sample first
+
+    private float[][] history;                      // Per channel, deinterleaved input
+    private int filled;                             // Valid samples in each history buffer
+    private int position;                           // Newest input sample of the next output
+    private int phase;                              // Filter phase of the next output
+
+    public PolyphaseResampler(int inputRate, int outputRate, int channels) {
+        if (inputRate <= 0 || outputRate <= 0) {
+            throw new IllegalArgumentException("Bad rates: " + inputRate + " -> " + outputRate);
+        }
+        int g = gcd(inputRate, outputRate);
+        this.up = outputRate / g;
+        this.down = inputRate / g;
+        this.channels = channels;
+        this.taps = (int) Math.ceil(2.0 * ZERO_CROSSINGS * Math.max(1.0, (double) down / up));
+        this.table = TABLES.computeIfAbsent(((long) up << 32) | down, key -> design(up, down, taps));
+        this.history = new float[channels][taps * 2];
+        reset();
+    }
+
+    /** Clears the stream history, as if no input had been seen. */
+    public void reset() {
+        // Primed with silence so the first output lines up with the first input sample
+        for (float[] h : history) {
+            Arrays.fill(h, 0f);
+        }
+        filled = taps - 1;
+        position = taps - 1;
+        phase = 0;
+    }
+
+    public int getTapsPerPhase() { return taps; }
+
+    /** Upper bound on the frames {@link #process} returns for {@code inputFrames}. */
+    public int maxOutputFrames(int inputFrames) {
+        return (int) (((long) inputFrames + 1) * up / down) + 1;
+    }
+
+    /**
+     * Resamples {@code inputFrames} interleaved frames into {@code out}, which must hold
+     * {@link #maxOutputFrames} frames. Returns the number of frames written.
+     */
+    public int process(short[] in, int inputFrames, short[] out) {
+        append(in, inputFrames);
+
+        int produced = 0;
+        int o = 0;
+        while (position < filled) {
+            int base = position - taps + 1;
+            int coeffs = phase * taps;
+            for (int c = 0; c < channels; c++) {
+                float[] x = history[c];
+                float acc = 0f;
+                for (int j = 0; j < taps; j++) {
+                    acc += table[coeffs + j] * x[base + j];
+                }
+                int v = Math.round(acc);
+                out[o++] = (short) (v > Short.MAX_VALUE ? Short.MAX_VALUE : Math.max(v, Short.MIN_VALUE));
+            }
+            produced++;
+
+            phase += down;
+            position += phase / up;
+            phase %= up;
+        }
+
+        // Keep only the history the next output still needs
+        int drop = Math.min(position - taps + 1, filled);
+        if (drop > 0) {
+            for (float[] x : history) {
+                System.arraycopy(x, drop, x, 0, filled - drop);
+            }
+            filled -= drop;
+            position -= drop;
+        }
+        return produced;
+    }
+
+    private void append(short[] in, int frames) {
+        if (filled + frames > history[0].length) {
+            float[][] grown = new float[channels][filled + frames + taps];
+            for (int c = 0; c < channels; c++) {
+                System.arraycopy(history[c], 0, grown[c], 0, filled);
+            }
+            history = grown;
+        }
+        for (int c = 0; c < channels; c++) {
+            float[] x = history[c];
+            for (int i = 0, s = c; i < frames; i++, s += channels) {
+                x[filled + i] = in[s];
+            }
+        }
+        filled += frames;
+    }
+
+    // Prototype low-pass at up * inputRate, split into phases and scaled by up for unity gain
+    private static float[] design(int up, int down, int taps) {
+        int length = up * taps;
+        double cutoff = ROLLOFF * 0.5 / Math.max(up, down);   // Cycles per prototype sample
+        double beta = 0.1102 * (STOPBAND_DB - 8.7);
+        double center = (length - 1) / 2.0;
+        double norm = besselI0(beta);
+
+        float[] table = new float[length];
+        for (int n = 0; n < length; n++) {
+            double t = n - center;
+            double sinc = t == 0 ? 1 : Math.sin(2 * Math.PI * cutoff * t) / (2 * Math.PI * cutoff * t);
+            double r = t / center;
+            double window = besselI0(beta * Math.sqrt(Math.max(0, 1 - r * r))) / norm;
+            double h = 2 * cutoff * sinc * window * up;
+
+            // Tap n belongs to phase n % up; within a phase, later taps hit older samples
+            int p = n % up;
+            int k = n / up;
+            table[p * taps + (taps - 1 - k)] = (float) h;
+        }
+        return table;
+    }
+
+    private static double besselI0(double x) {
+        double sum = 1;
+        double term = 1;
+        for (int k = 1; k < 50; k++) {
+            term *= (x / (2 * k)) * (x / (2 * k));
+            sum += term;
+            if (term < sum * 1e-12) break;
+        }
+        return sum;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,129 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Append-only PCM buffer for long recordings. The most recent audio stays in a fixed
+ * in-memory tail; each time the tail fills it is spilled to a memory-mapped file in the
+ * given directory, so heap use stays flat however long the recording runs.
+ *
+ * <p>{@link #writeWavTo} streams the recording as a WAV file straight from the mapping and
+ * the tail, without assembling it on the heap. Call it only after the last {@link #write}.
+ */
+public final class SpillingAudioBuffer implements Closeable {
+    static final int REGION_BYTES = 4 << 20;  // Spill file is mapped 4 MB at a time
+
+    private final File dir;
+    private final CaptureFormat format;
+    private final int regionBytes;
+    private final byte[] tail;
+    private int tailLength;
+
+    private File spillFile;
+    private FileChannel channel;
+    private MappedByteBuffer region;          // Current write window into the spill file
+    private long spilledBytes;
+
+    public SpillingAudioBuffer(File dir, CaptureFormat format, int memoryBytes) {
+        this(dir, format, memoryBytes, REGION_BYTES);
+    }
+
+    SpillingAudioBuffer(File dir, CaptureFormat format, int memoryBytes, int regionBytes) {
+        this.dir = dir;
+        this.format = format;
+        this.regionBytes = regionBytes;
+        this.tail = new byte[memoryBytes & ~1];
+    }
+
+    /**
+     * Appends 16-bit samples as little-endian PCM.
+     */
+    public synchronized void write(short[] samples, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            if (tailLength == tail.length) spillTail();
+            short s = samples[i];
+            tail[tailLength++] = (byte) s;
+            tail[tailLength++] = (byte) (s >> 8);
+        }
+    }
+
+    // Copies the whole tail into the mapped file in one sequential run
+    private void spillTail() throws IOException {
+        if (channel == null) {
+            spillFile = File.createTempFile("pcm_spill", ".raw", dir);
+            channel = new RandomAccessFile(spillFile, "rw").getChannel();
+        }
+        int offset = 0;
+        while (offset < tailLength) {
+            if (region == null || !region.hasRemaining()) {
+                // Mapping past the end grows the file; pages are written back lazily
+                region = channel.map(FileChannel.MapMode.READ_WRITE, spilledBytes, regionBytes);
+            }
+            int n = Math.min(tailLength - offset, region.remaining());
+            region.put(tail, offset, n);
+            offset += n;
+            spilledBytes += n;
+        }
+        tailLength = 0;
+    }
+
+    /** PCM bytes written so far. */
+    public synchronized long size() { return spilledBytes + tailLength; }
+
+    /** Bytes spilled to disk so far. */
+    public synchronized long getSpilledBytes() { return spilledBytes; }
+
+    public CaptureFormat getFormat() { return format; }
+
+    /** Length of the WAV stream {@link #writeWavTo} produces. */
+    public long wavLength() {
+        return WavWriter.HEADER_BYTES + size();
+    }
+
+    /**
+     * Writes the recording as a WAV file. Can be called more than once, e.g. when an upload
+     * is retried.
+     */
+    public synchronized void writeWavTo(WritableByteChannel out) throws IOException {
+        long dataBytes = size();
+        if (dataBytes > Integer.MAX_VALUE - WavWriter.HEADER_BYTES) {
+            throw new IOException("Recording too long for WAV: " + dataBytes + " bytes");
+        }
+        writeFully(out, ByteBuffer.wrap(WavWriter.header((int) dataBytes, format)));
+
+        for (long position = 0; position < spilledBytes; position += regionBytes) {
+            long n = Math.min(regionBytes, spilledBytes - position);
+            writeFully(out, channel.map(FileChannel.MapMode.READ_ONLY, position, n));
+        }
+        writeFully(out, ByteBuffer.wrap(tail, 0, tailLength));
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Deletes the spill file. Mapped pages are released once the mappings are collected.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        region = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes 16-bit little-endian PCM as a canonical 44-byte-header WAV file.
+ */
+public final class WavWriter {
+    static final int HEADER_BYTES = 44;
+
+    private WavWriter() {
+    }
+
+    public static void write(File file, byte[] pcm, int length, CaptureFormat format) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(header(length, format));
+            out.write(pcm, 0, length);
+        }
+    }
+
+    static byte[] header(int dataBytes, CaptureFormat format) {
+        int channels = format.getChannels();
+        int byteRate = format.getSampleRate() * channels * 2;
+        byte[] h = new byte[HEADER_BYTES];
+        ascii(h, 0, "RIFF");
+        int32(h, 4, 36 + dataBytes);
+        ascii(h, 8, "WAVE");
+        ascii(h, 12, "fmt ");
+        int32(h, 16, 16);                 // PCM fmt chunk size
+        int16(h, 20, 1);                  // PCM
+        int16(h, 22, channels);
+        int32(h, 24, format.getSampleRate());
+        int32(h, 28, byteRate);
+        int16(h, 32, channels * 2);       // Block align
+        int16(h, 34, 16);                 // Bits per sample
+        ascii(h, 36, "data");
+        int32(h, 40, dataBytes);
+        return h;
+    }
+
+    private static void ascii(byte[] h, int offset, String tag) {
+        for (int i = 0; i < 4; i++) {
+            h[offset + i] = (byte) tag.charAt(i);
+        }
+    }
+
+    private static void int16(byte[] h, int offset, int value) {
+        h[offset] = (byte) value;
+        h[offset + 1] = (byte) (value >> 8);
+    }
+
+    private static void int32(byte[] h, int offset, int value) {
+        for (int i = 0; i < 4; i++) {
+            h[offset + i] = (byte) (value >> (8 * i));
+        }
+    }
+}
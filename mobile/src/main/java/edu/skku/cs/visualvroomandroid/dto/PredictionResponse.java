@@ -1,11 +1,26 @@
 package edu.skku.cs.visualvroomandroid.dto;
 
+/**
+ * Mutable holder for one server inference response. Instances are meant to be
+ * reused: {@link PredictionResponseDecoder} calls {@link #reset()} and then fills
+ * the fields straight from the response stream.
+ */
 public class PredictionResponse {
+    private String status;
+    private String error;
+    private String message;
     private String vehicleType;
     private String direction;
     private double confidence;
     private boolean shouldNotify;
+    private boolean tooQuiet;
 
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
     public String getVehicleType() { return vehicleType; }
     public void setVehicleType(String vehicleType) { this.vehicleType = vehicleType; }
     public String getDirection() { return direction; }
@@ -14,4 +29,25 @@ public class PredictionResponse {
     public void setConfidence(double confidence) { this.confidence = confidence; }
     public boolean isShouldNotify() { return shouldNotify; }
     public void setShouldNotify(boolean shouldNotify) { this.shouldNotify = shouldNotify; }
+    public boolean isTooQuiet() { return tooQuiet; }
+    public void setTooQuiet(boolean tooQuiet) { this.tooQuiet = tooQuiet; }
+
+    public boolean isError() {
+        return "error".equals(status);
+    }
+
+    public boolean hasPrediction() {
+        return vehicleType != null && direction != null;
+    }
+
+    public void reset() {
+        status = null;
+        error = null;
+        message = null;
+        vehicleType = null;
+        direction = null;
+        confidence = 0;
+        shouldNotify = false;
+        tooQuiet = false;
+    }
 }
@@ -0,0 +1,122 @@
+package edu.skku.cs.visualvroomandroid.dto;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pull parser for the backend's inference responses.
+ *
+ * Both response shapes are accepted: the wrapped form used by /test and the
+ * service ({"status": ..., "inference_result": {...}}) and the flat form returned
+ * by /predict, where the prediction fields sit at the top level. Batch responses
+ * ({"status": ..., "results": [...]}) hold one object of either shape per window.
+ * Fields are read directly off the stream, so no JSON tree or intermediate body
+ * string is built.
+ */
+public final class PredictionResponseDecoder {
+
+    private PredictionResponseDecoder() {
+    }
+
+    /**
+     * Decodes one response into {@code target}, which is reset first.
+     *
+     * @param source typically {@code ResponseBody.charStream()}; not closed here
+     * @return {@code target}, for chaining
+     * @throws IOException if the stream is not a well-formed JSON object
+     */
+    public static PredictionResponse decode(Reader source, PredictionResponse target) throws IOException {
+        target.reset();
+        JsonReader reader = new JsonReader(source);
+        reader.setLenient(true);
+        try {
+            readObject(reader, target);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed inference response: " + e.getMessage(), e);
+        }
+        return target;
+    }
+
+    /**
+     * Decodes a batch response, one result per window in request order.
+     *
+     * @throws IOException if the stream is malformed or holds other than {@code expected} results
+     */
+    public static List<PredictionResponse> decodeBatch(Reader source, int expected) throws IOException {
+        List<PredictionResponse> results = new ArrayList<>(expected);
+        JsonReader reader = new JsonReader(source);
+        reader.setLenient(true);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (!"results".equals(name) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    PredictionResponse result = new PredictionResponse();
+                    readObject(reader, result);
+                    results.add(result);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed batch response: " + e.getMessage(), e);
+        }
+        if (results.size() != expected) {
+            throw new IOException("Batch response has " + results.size() + " results for " + expected + " windows");
+        }
+        return results;
+    }
+
+    private static void readObject(JsonReader reader, PredictionResponse target) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "inference_result":
+                    readObject(reader, target);
+                    break;
+                case "status":
+                    target.setStatus(reader.nextString());
+                    break;
+                case "error":
+                    target.setError(reader.nextString());
+                    break;
+                case "message":
+                    target.setMessage(reader.nextString());
+                    break;
+                case "vehicle_type":
+                    target.setVehicleType(reader.nextString());
+                    break;
+                case "direction":
+                    target.setDirection(reader.nextString());
+                    break;
+                case "confidence":
+                    target.setConfidence(reader.nextDouble());
+                    break;
+                case "should_notify":
+                    target.setShouldNotify(reader.nextBoolean());
+                    break;
+                case "too_quiet":
+                    target.setTooQuiet(reader.nextBoolean());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+}
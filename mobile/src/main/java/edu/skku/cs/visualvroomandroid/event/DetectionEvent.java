@@ -0,0 +1,60 @@
+package edu.skku.cs.visualvroomandroid.event;
+
+import edu.skku.cs.visualvroomandroid.trace.TraceContext;
+import edu.skku.cs.visualvroomandroid.trace.Traced;
+
+/**
+ * One decoded detection, as published on {@link DetectionEventBus}.
+ */
+public class DetectionEvent implements Traced {
+    public enum Source {
+        SERVICE,    // AudioRecordingService background monitoring
+        RECORDER    // AudioRecorderFragment continuous snapshots
+    }
+
+    private final Source source;
+    private final String vehicleType;
+    private final String direction;
+    private final double confidence;
+    private final boolean shouldNotify;
+    private final long timestampMs;
+    private final TraceContext trace;  // Null for events not made from a traced window
+
+    public DetectionEvent(Source source, String vehicleType, String direction,
+                          double confidence, boolean shouldNotify, long timestampMs) {
+        this(source, vehicleType, direction, confidence, shouldNotify, timestampMs, null);
+    }
+
+    public DetectionEvent(Source source, String vehicleType, String direction,
+                          double confidence, boolean shouldNotify, long timestampMs, TraceContext trace) {
+        this.source = source;
+        this.vehicleType = vehicleType;
+        this.direction = direction;
+        this.confidence = confidence;
+        this.shouldNotify = shouldNotify;
+        this.timestampMs = timestampMs;
+        this.trace = trace;
+    }
+
+    public Source getSource() { return source; }
+    public String getVehicleType() { return vehicleType; }
+    public String getDirection() { return direction; }
+    public double getConfidence() { return confidence; }
+    public boolean getShouldNotify() { return shouldNotify; }
+    public long getTimestampMs() { return timestampMs; }
+    @Override
+    public TraceContext getTrace() { return trace; }
+
+    /**
+     * Copy of this event carrying an alert decision made downstream of the classifier.
+     */
+    public DetectionEvent withDecision(String direction, boolean shouldNotify) {
+        return new DetectionEvent(source, vehicleType, direction, confidence, shouldNotify, timestampMs, trace);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s from %s (confidence: %.4f, shouldNotify: %b, source: %s)",
+                vehicleType, direction, confidence, shouldNotify, source);
+    }
+}
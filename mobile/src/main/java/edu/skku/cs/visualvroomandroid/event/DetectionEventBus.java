@@ -0,0 +1,45 @@
+package edu.skku.cs.visualvroomandroid.event;
+
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.processors.FlowableProcessor;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+
+/**
+ * In-process stream of detection results.
+ *
+ * Producers call {@link #publish(DetectionEvent)} from any thread; consumers subscribe
+ * through {@link #events(Scheduler)} and each get their own bounded buffer, so a slow
+ * subscriber drops its oldest pending events instead of holding up the producer or
+ * the other subscribers.
+ */
+public final class DetectionEventBus {
+    // Detections arrive every few seconds, so this only fills if a subscriber is stuck
+    private static final int SUBSCRIBER_BUFFER_SIZE = 16;
+
+    private static final DetectionEventBus INSTANCE = new DetectionEventBus();
+
+    private final FlowableProcessor<DetectionEvent> processor =
+            PublishProcessor.<DetectionEvent>create().toSerialized();
+
+    private DetectionEventBus() {
+    }
+
+    public static DetectionEventBus getInstance() {
+        return INSTANCE;
+    }
+
+    public void publish(DetectionEvent event) {
+        processor.onNext(event);
+    }
+
+    /**
+     * @param scheduler where the subscriber's callbacks run, e.g. {@code AndroidSchedulers.mainThread()}
+     */
+    public Flowable<DetectionEvent> events(Scheduler scheduler) {
+        return processor
+                .onBackpressureBuffer(SUBSCRIBER_BUFFER_SIZE, null, BackpressureOverflowStrategy.DROP_OLDEST)
+                .observeOn(scheduler, false, SUBSCRIBER_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,92 @@
+package edu.skku.cs.visualvroomandroid.geo;
+
+/**
+ * Geohash cells as integers.
+ *
+ * A cell at {@code bits} precision splits longitude into {@code 2^ceil(bits/2)} columns and
+ * latitude into {@code 2^floor(bits/2)} rows; its hash interleaves the column and row numbers
+ * starting with a longitude bit, which is the standard geohash bit order. Five bits make one
+ * base-32 character, so {@link #toString(long, int)} gives the usual geohash strings.
+ */
+public final class Geohash {
+    public static final int MAX_BITS = 60;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    public static long encode(double latitude, double longitude, int bits) {
+        return interleave(column(longitude, bits), row(latitude, bits), bits);
+    }
+
+    /** Column of the cell containing {@code longitude}, in {@code [0, columns(bits))}. */
+    public static long column(double longitude, int bits) {
+        return index(longitude + 180, 360, columns(bits));
+    }
+
+    /** Row of the cell containing {@code latitude}, in {@code [0, rows(bits))}. */
+    public static long row(double latitude, int bits) {
+        return index(latitude + 90, 180, rows(bits));
+    }
+
+    public static long columns(int bits) {
+        return 1L << ((bits + 1) / 2);
+    }
+
+    public static long rows(int bits) {
+        return 1L << (bits / 2);
+    }
+
+    public static double cellWidth(int bits) {
+        return 360.0 / columns(bits);
+    }
+
+    public static double cellHeight(int bits) {
+        return 180.0 / rows(bits);
+    }
+
+    /** Hash of the cell at {@code column}, {@code row}. */
+    public static long interleave(long column, long row, int bits) {
+        int columnBit = (bits + 1) / 2;
+        int rowBit = bits / 2;
+        long hash = 0;
+        for (int i = 0; i < bits; i++) {
+            long bit = (i & 1) == 0 ? column >>> --columnBit : row >>> --rowBit;
+            hash = (hash << 1) | (bit & 1);
+        }
+        return hash;
+    }
+
+    public static long columnOf(long hash, int bits) {
+        return deinterleave(hash, bits, 0);
+    }
+
+    public static long rowOf(long hash, int bits) {
+        return deinterleave(hash, bits, 1);
+    }
+
+    /** Base-32 text of a hash; {@code bits} should be a multiple of 5. */
+    public static String toString(long hash, int bits) {
+        char[] text = new char[bits / 5];
+        for (int i = text.length - 1; i >= 0; i--) {
+            text[i] = BASE32[(int) (hash & 31)];
+            hash >>>= 5;
+        }
+        return new String(text);
+    }
+
+    private static long index(double offset, double span, long cells) {
+        long i = (long) Math.floor(offset / span * cells);
+        return Math.max(0, Math.min(i, cells - 1));
+    }
+
+    // Every other bit from the top, starting at bit `first` (0 = longitude, 1 = latitude)
+    private static long deinterleave(long hash, int bits, int first) {
+        long value = 0;
+        for (int i = first; i < bits; i += 2) {
+            value = (value << 1) | ((hash >>> (bits - 1 - i)) & 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,154 @@
+package edu.skku.cs.visualvroomandroid.geo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.skku.cs.visualvroomandroid.watch.AlertFrame;
+
+/**
+ * Per-cell detection counts on a geohash grid, for "where do alerts happen" maps.
+ *
+ * Every detection is counted once at each of a few precisions, from about 40 km cells
+ * down to about 150 m ones, so an update is a handful of hash-map increments and a
+ * viewport never has to visit individual detections. A query picks the finest precision
+ * at which the viewport spans no more cells than asked for and looks those cells up; if
+ * fewer cells than that are occupied, it walks the occupied ones instead. Either way the
+ * cost depends on the viewport, not on how many detections are stored. Thread-safe.
+ */
+public final class HotspotIndex {
+    /** Precisions kept, in bits: geohashes of 4 to 7 characters. */
+    static final int[] LEVEL_BITS = {20, 25, 30, 35};
+
+    /** Counts for one cell; a copy, unaffected by later updates. */
+    public static final class Cell {
+        private final long hash;
+        private final int bits;
+        final int[] counts = new int[AlertFrame.TYPE_HORN + 1];
+        int total;
+
+        Cell(long hash, int bits) {
+            this.hash = hash;
+            this.bits = bits;
+        }
+
+        Cell(Cell other) {
+            this(other.hash, other.bits);
+            System.arraycopy(other.counts, 0, counts, 0, counts.length);
+            total = other.total;
+        }
+
+        public long getHash() { return hash; }
+        public int getBits() { return bits; }
+        public String getGeohash() { return Geohash.toString(hash, bits); }
+        public int getTotal() { return total; }
+        public int count(byte type) { return type >= 0 && type < counts.length ? counts[type] : 0; }
+        public int getSirens() { return counts[AlertFrame.TYPE_SIREN]; }
+        public int getHorns() { return counts[AlertFrame.TYPE_HORN]; }
+        public int getBikes() { return counts[AlertFrame.TYPE_BIKE]; }
+
+        public double getSouth() { return Geohash.rowOf(hash, bits) * Geohash.cellHeight(bits) - 90; }
+        public double getWest() { return Geohash.columnOf(hash, bits) * Geohash.cellWidth(bits) - 180; }
+        public double getNorth() { return getSouth() + Geohash.cellHeight(bits); }
+        public double getEast() { return getWest() + Geohash.cellWidth(bits); }
+        public double getCenterLatitude() { return getSouth() + Geohash.cellHeight(bits) / 2; }
+        public double getCenterLongitude() { return getWest() + Geohash.cellWidth(bits) / 2; }
+    }
+
+    private final List<Map<Long, Cell>> levels = new ArrayList<>();
+    private long size;
+
+    public HotspotIndex() {
+        for (int i = 0; i < LEVEL_BITS.length; i++) {
+            levels.add(new HashMap<>());
+        }
+    }
+
+    /** Counts one detection of {@code type} (an {@link AlertFrame} type id) at a position. */
+    public synchronized void add(double latitude, double longitude, byte type) {
+        int t = type >= 0 && type <= AlertFrame.TYPE_HORN ? type : AlertFrame.TYPE_UNKNOWN;
+        for (int level = 0; level < LEVEL_BITS.length; level++) {
+            int bits = LEVEL_BITS[level];
+            long hash = Geohash.encode(latitude, longitude, bits);
+            Cell cell = levels.get(level).get(hash);
+            if (cell == null) {
+                cell = new Cell(hash, bits);
+                levels.get(level).put(hash, cell);
+            }
+            cell.counts[t]++;
+            cell.total++;
+        }
+        size++;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        for (Map<Long, Cell> cells : levels) {
+            cells.clear();
+        }
+        size = 0;
+    }
+
+    /**
+     * Occupied cells overlapping a viewport, at the finest precision where the viewport spans
+     * at most {@code maxCells} cells (the coarsest if none does). A viewport with
+     * {@code west > east} crosses the antimeridian.
+     */
+    public synchronized List<Cell> query(double south, double west, double north, double east, int maxCells) {
+        int level = 0;
+        for (int i = LEVEL_BITS.length - 1; i >= 0; i--) {
+            if (span(south, west, north, east, LEVEL_BITS[i]) <= maxCells) {
+                level = i;
+                break;
+            }
+        }
+
+        int bits = LEVEL_BITS[level];
+        Map<Long, Cell> cells = levels.get(level);
+        long rowFrom = Geohash.row(south, bits);
+        long rowTo = Geohash.row(north, bits);
+        long columnFrom = Geohash.column(west, bits);
+        long columnTo = Geohash.column(east, bits);
+        long columns = Geohash.columns(bits);
+        List<Cell> result = new ArrayList<>();
+
+        if (span(south, west, north, east, bits) > cells.size()) {
+            for (Cell cell : cells.values()) {
+                long row = Geohash.rowOf(cell.getHash(), bits);
+                long column = Geohash.columnOf(cell.getHash(), bits);
+                boolean inColumns = columnFrom <= columnTo
+                        ? column >= columnFrom && column <= columnTo
+                        : column >= columnFrom || column <= columnTo;
+                if (row >= rowFrom && row <= rowTo && inColumns) {
+                    result.add(new Cell(cell));
+                }
+            }
+            return result;
+        }
+
+        for (long row = rowFrom; row <= rowTo; row++) {
+            for (long column = columnFrom; ; column = (column + 1) % columns) {
+                Cell cell = cells.get(Geohash.interleave(column, row, bits));
+                if (cell != null) {
+                    result.add(new Cell(cell));
+                }
+                if (column == columnTo) break;
+            }
+        }
+        return result;
+    }
+
+    // Cells a viewport covers at a precision
+    private static long span(double south, double west, double north, double east, int bits) {
+        long rows = Geohash.row(north, bits) - Geohash.row(south, bits) + 1;
+        long columns = Geohash.column(east, bits) - Geohash.column(west, bits) + 1;
+        if (columns <= 0) {
+            columns += Geohash.columns(bits);
+        }
+        return Math.max(rows, 0) * columns;
+    }
+}
@@ -0,0 +1,70 @@
+package edu.skku.cs.visualvroomandroid.geo;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * The phone's latest known position, for tagging detections.
+ *
+ * Listens on the passive provider only, so it never turns on a receiver by itself: it sees
+ * the GPS fixes {@code AdaptiveCadence} already requests while listening, plus any other
+ * app's. Once started it runs for the life of the process.
+ */
+public final class PositionTracker {
+    private static final String TAG = "PositionTracker";
+
+    private static PositionTracker instance;
+
+    private final Context context;
+    private volatile Location latest;
+    private boolean started;
+
+    private final LocationListener listener = location -> latest = location;
+
+    private PositionTracker(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized PositionTracker getInstance(Context context) {
+        if (instance == null) {
+            instance = new PositionTracker(context);
+        }
+        return instance;
+    }
+
+    /** Starts listening if location permission has been granted; later calls retry until it has. */
+    public synchronized void start() {
+        if (started) return;
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.i(TAG, "Location permission not granted; detections won't be tagged");
+            return;
+        }
+        LocationManager locationManager = context.getSystemService(LocationManager.class);
+        try {
+            latest = locationManager.getLastKnownLocation(LocationManager.PASSIVE_PROVIDER);
+            locationManager.requestLocationUpdates(LocationManager.PASSIVE_PROVIDER, 0, 0f,
+                    listener, Looper.getMainLooper());
+            started = true;
+        } catch (SecurityException | IllegalArgumentException e) {
+            Log.e(TAG, "No position updates: " + e.getMessage());
+        }
+    }
+
+    /** The latest fix if it's no older than {@code maxAgeMs}, otherwise null. */
+    public Location getFix(long maxAgeMs) {
+        Location fix = latest;
+        if (fix == null || System.currentTimeMillis() - fix.getTime() > maxAgeMs) {
+            return null;
+        }
+        return fix;
+    }
+}
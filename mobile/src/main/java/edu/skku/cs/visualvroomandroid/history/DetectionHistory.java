@@ -0,0 +1,127 @@
+package edu.skku.cs.visualvroomandroid.history;
+
+import android.content.Context;
+import android.location.Location;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+import edu.skku.cs.visualvroomandroid.event.DetectionEventBus;
+import edu.skku.cs.visualvroomandroid.geo.HotspotIndex;
+import edu.skku.cs.visualvroomandroid.geo.PositionTracker;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Records every detection published on {@link DetectionEventBus} into the app's
+ * {@link HistoryLog}, from whichever of the activity and the service starts it first,
+ * for as long as the process lives.
+ *
+ * Detections are tagged with the phone's position when a recent fix is known and counted
+ * into a {@link HotspotIndex}. The index lives in memory: it's rebuilt from the log in the
+ * background on start and kept up to date as detections arrive.
+ */
+public final class DetectionHistory {
+    private static final String TAG = "DetectionHistory";
+    // A fix older than this no longer says where a detection happened
+    private static final long MAX_FIX_AGE_MS = 30_000;
+
+    private static DetectionHistory instance;
+
+    private final File dir;
+    private final PositionTracker positions;
+    private final HotspotIndex hotspots = new HotspotIndex();
+    private final HistoryRecord scratch = new HistoryRecord();  // Writer thread only
+    private HistoryLog log;
+    private Disposable subscription;
+
+    private DetectionHistory(Context context) {
+        this.dir = new File(context.getApplicationContext().getFilesDir(), "history");
+        this.positions = PositionTracker.getInstance(context);
+    }
+
+    public static synchronized DetectionHistory getInstance(Context context) {
+        if (instance == null) {
+            instance = new DetectionHistory(context);
+        }
+        return instance;
+    }
+
+    public File getDirectory() {
+        return dir;
+    }
+
+    /** Detection counts by place, over the whole stored history. */
+    public HotspotIndex getHotspots() {
+        return hotspots;
+    }
+
+    /**
+     * Starts recording; later calls are ignored, except that position tagging starts with
+     * the first call made once location permission has been granted.
+     */
+    public synchronized void start() {
+        positions.start();
+        if (subscription != null) return;
+        HistoryReader stored;
+        try {
+            log = new HistoryLog(dir);
+            stored = new HistoryReader(dir);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open detection history: " + e.getMessage());
+            return;
+        }
+        // One ordered worker, off the threads that produce and display detections
+        subscription = DetectionEventBus.getInstance()
+                .events(Schedulers.io())
+                .subscribe(this::record, error -> Log.e(TAG, "History recording stopped: " + error.getMessage()));
+        // The reader's snapshot ends where live recording begins, so nothing is counted twice
+        Schedulers.io().scheduleDirect(() -> rebuildHotspots(stored));
+    }
+
+    /** Forces recorded pages to storage, e.g. before the service goes away. */
+    public synchronized void flush() {
+        if (log != null) {
+            log.flush();
+        }
+    }
+
+    private void record(DetectionEvent event) {
+        // Capture of the newest audio in the window to arrival here
+        int latencyMs = event.getTrace() == null ? -1
+                : (int) ((System.nanoTime() - event.getTrace().getCaptureTimeNanos()) / 1_000_000);
+        scratch.set(event, latencyMs);
+        Location fix = positions.getFix(MAX_FIX_AGE_MS);
+        if (fix != null) {
+            scratch.setPosition(fix.getLatitude(), fix.getLongitude());
+            hotspots.add(fix.getLatitude(), fix.getLongitude(), scratch.getType());
+        }
+        try {
+            log.append(scratch);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to record detection: " + e.getMessage());
+        }
+    }
+
+    private void rebuildHotspots(HistoryReader stored) {
+        long start = System.nanoTime();
+        HistoryRecord record = new HistoryRecord();
+        long total = stored.size();
+        long indexed = 0;
+        for (long i = 0; i < total; i++) {
+            if (stored.read(i, record) != null && record.hasPosition()) {
+                hotspots.add(record.getLatitude(), record.getLongitude(), record.getType());
+                indexed++;
+            }
+        }
+        try {
+            stored.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Error closing history: " + e.getMessage());
+        }
+        Log.i(TAG, String.format("Indexed %d of %d stored detections by place in %d ms",
+                indexed, total, (System.nanoTime() - start) / 1_000_000));
+    }
+}
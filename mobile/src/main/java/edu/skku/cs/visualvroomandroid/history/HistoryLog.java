@@ -0,0 +1,191 @@
+package edu.skku.cs.visualvroomandroid.history;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Append-only detection history, stored as fixed-size {@link HistoryRecord}s in
+ * memory-mapped segment files.
+ *
+ * <pre>
+ * segment: "VVHL" | version u16 | record size u16 | count i32 | capacity i32 | reserved (16)
+ *          | capacity * record
+ * </pre>
+ * All big-endian. An append is one record store into the mapping followed by the count
+ * update, with no system call; the kernel writes the pages back, so a crashed app loses
+ * nothing. A segment holds {@link #SEGMENT_RECORDS}; when it fills the next one starts, and
+ * only the newest {@link #MAX_SEGMENTS} are kept. Segment names carry a sequence number,
+ * so name order is age order.
+ *
+ * Stored times never go backwards: a record stamped before its predecessor, e.g. from
+ * another detection source, is filed at the predecessor's time. That keeps the whole log
+ * sorted for {@link HistoryReader}'s binary search. Thread-safe.
+ */
+public final class HistoryLog implements Closeable {
+    public static final String FILE_SUFFIX = ".vvhist";
+    static final String FILE_PREFIX = "history-";
+    static final int MAGIC = 0x5656484c;  // "VVHL"
+    static final int VERSION = 2;
+    static final int VERSION_1 = 1;             // 32-byte records without a position; still readable
+    static final int HEADER_BYTES = 32;
+    static final int COUNT_OFFSET = 8;
+    static final int CAPACITY_OFFSET = 12;
+
+    // 160 KB per segment; 32 segments keep the last 131k detections in 5 MB
+    static final int SEGMENT_RECORDS = 4096;
+    static final int MAX_SEGMENTS = 32;
+
+    private final File dir;
+    private final int segmentRecords;
+    private final int maxSegments;
+
+    private RandomAccessFile file;
+    private MappedByteBuffer segment;
+    private long sequence;
+    private int count;
+    private long lastTimestampMs = Long.MIN_VALUE;
+
+    public HistoryLog(File dir) throws IOException {
+        this(dir, SEGMENT_RECORDS, MAX_SEGMENTS);
+    }
+
+    HistoryLog(File dir, int segmentRecords, int maxSegments) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create history directory " + dir);
+        }
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+        this.maxSegments = maxSegments;
+        resume();
+    }
+
+    /** Appends {@code record}; the record object can be reused as soon as this returns. */
+    public synchronized void append(HistoryRecord record) throws IOException {
+        if (segment == null) {
+            throw new IOException("History log is closed");
+        }
+        if (count == segment.getInt(CAPACITY_OFFSET)) {
+            rotate();
+        }
+
+        long timestamp = record.timestampMs;
+        if (timestamp < lastTimestampMs) {
+            record.timestampMs = lastTimestampMs;
+        }
+        record.writeTo(segment, HEADER_BYTES + count * HistoryRecord.BYTES);
+        record.timestampMs = timestamp;
+        lastTimestampMs = Math.max(lastTimestampMs, timestamp);
+
+        // Published only once the record is in place
+        segment.putInt(COUNT_OFFSET, ++count);
+    }
+
+    /** Forces mapped pages to storage, for when the whole device may go down. */
+    public synchronized void flush() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment == null) return;
+        segment.force();
+        segment = null;
+        file.close();
+    }
+
+    static File[] segmentFiles(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        if (files == null) return new File[0];
+        Arrays.sort(files);
+        return files;
+    }
+
+    private void resume() throws IOException {
+        File[] files = segmentFiles(dir);
+        if (files.length == 0) {
+            sequence = 0;
+            open(newSegmentFile(), true);
+            return;
+        }
+
+        File newest = files[files.length - 1];
+        sequence = sequenceOf(newest);
+        if (!open(newest, false)) {
+            // Unreadable or from another format version: leave it for inspection and move on
+            rotate();
+        }
+    }
+
+    // Maps a segment, writing a fresh header if asked; false if an existing header doesn't match
+    private boolean open(File target, boolean create) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(target, "rw");
+        long size = HEADER_BYTES + (long) segmentRecords * HistoryRecord.BYTES;
+        if (!create) {
+            size = Math.max(raf.length(), HEADER_BYTES);
+        }
+        raf.setLength(size);
+        MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (create) {
+            mapped.putInt(0, MAGIC);
+            mapped.putShort(4, (short) VERSION);
+            mapped.putShort(6, (short) HistoryRecord.BYTES);
+            mapped.putInt(COUNT_OFFSET, 0);
+            mapped.putInt(CAPACITY_OFFSET, segmentRecords);
+        } else {
+            int capacity = mapped.getInt(CAPACITY_OFFSET);
+            int stored = mapped.getInt(COUNT_OFFSET);
+            boolean valid = mapped.getInt(0) == MAGIC && mapped.getShort(4) == VERSION
+                    && mapped.getShort(6) == HistoryRecord.BYTES && capacity > 0
+                    && HEADER_BYTES + (long) capacity * HistoryRecord.BYTES == size
+                    && stored >= 0 && stored <= capacity;
+            if (!valid) {
+                raf.close();
+                return false;
+            }
+        }
+
+        if (file != null) {
+            segment.force();
+            file.close();
+        }
+        file = raf;
+        segment = mapped;
+        count = segment.getInt(COUNT_OFFSET);
+        if (count > 0) {
+            lastTimestampMs = Math.max(lastTimestampMs,
+                    segment.getLong(HEADER_BYTES + (count - 1) * HistoryRecord.BYTES));
+        }
+        return true;
+    }
+
+    private void rotate() throws IOException {
+        sequence++;
+        open(newSegmentFile(), true);
+
+        File[] files = segmentFiles(dir);
+        for (int i = 0; i < files.length - maxSegments; i++) {
+            files[i].delete();
+        }
+    }
+
+    private File newSegmentFile() {
+        return new File(dir, String.format("%s%010d%s", FILE_PREFIX, sequence, FILE_SUFFIX));
+    }
+
+    private static long sequenceOf(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package edu.skku.cs.visualvroomandroid.history;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.skku.cs.visualvroomandroid.watch.AlertFrame;
+
+/**
+ * Random access to a {@link HistoryLog} directory, by record index or by time.
+ *
+ * Records are numbered oldest first across all segments. Each segment is mapped read-only
+ * and records are decoded on demand into a caller's {@link HistoryRecord}, so paging through
+ * the history costs no heap beyond the visible rows. Because the log is sorted by time,
+ * {@link #lowerBound} checks each segment's first record and then binary-searches one segment.
+ * Segments left by a version 1 log are read too; their records have no position.
+ *
+ * The view is a snapshot as of the last {@link #refresh}: sizes and indices don't move
+ * until the next one, even while a {@link HistoryLog} appends to the same files. Thread-safe.
+ */
+public final class HistoryReader implements Closeable {
+
+    /** Counts over a time range. */
+    public static class Summary {
+        private final long[] byType = new long[AlertFrame.TYPE_HORN + 1];
+        private final long[] byDirection = new long[AlertFrame.DIRECTION_RIGHT + 1];
+        private long total;
+        private long notified;
+        private long latencyCount;
+        private long latencyTotalMs;
+        private double confidenceTotal;
+
+        public long getTotal() { return total; }
+        public long getNotified() { return notified; }
+        public long count(byte type) { return type >= 0 && type < byType.length ? byType[type] : 0; }
+        public long countDirection(byte direction) {
+            return direction >= 0 && direction < byDirection.length ? byDirection[direction] : 0;
+        }
+        public double getAverageConfidence() { return total == 0 ? 0 : confidenceTotal / total; }
+        public double getAverageLatencyMs() { return latencyCount == 0 ? 0 : (double) latencyTotalMs / latencyCount; }
+
+        void add(HistoryRecord record) {
+            total++;
+            byType[record.type >= 0 && record.type < byType.length ? record.type : AlertFrame.TYPE_UNKNOWN]++;
+            byDirection[record.direction >= 0 && record.direction < byDirection.length
+                    ? record.direction : AlertFrame.DIRECTION_UNKNOWN]++;
+            if (record.isNotified()) notified++;
+            if (record.latencyMs >= 0) {
+                latencyCount++;
+                latencyTotalMs += record.latencyMs;
+            }
+            confidenceTotal += record.confidence;
+        }
+    }
+
+    private static class Segment {
+        final File file;
+        final RandomAccessFile raf;
+        final MappedByteBuffer buffer;
+        final int recordBytes;
+        long firstIndex;
+        int count;
+
+        Segment(File file, RandomAccessFile raf, MappedByteBuffer buffer, int recordBytes) {
+            this.file = file;
+            this.raf = raf;
+            this.buffer = buffer;
+            this.recordBytes = recordBytes;
+        }
+
+        long timestampAt(int i) {
+            return buffer.getLong(HistoryLog.HEADER_BYTES + i * recordBytes);
+        }
+    }
+
+    private final File dir;
+    private final List<Segment> segments = new ArrayList<>();
+    private long size;
+    private boolean closed;
+
+    public HistoryReader(File dir) throws IOException {
+        this.dir = dir;
+        refresh();
+    }
+
+    /** Picks up appended records, new segments and rotated-out ones. Does nothing once closed. */
+    public synchronized void refresh() throws IOException {
+        // A background refresh may finish after its screen closed the reader
+        if (closed) return;
+        Map<String, Segment> open = new HashMap<>();
+        for (Segment segment : segments) {
+            open.put(segment.file.getName(), segment);
+        }
+        segments.clear();
+
+        for (File file : HistoryLog.segmentFiles(dir)) {
+            Segment segment = open.remove(file.getName());
+            if (segment == null) {
+                segment = map(file);
+                if (segment == null) continue;
+            }
+            segments.add(segment);
+        }
+        for (Segment gone : open.values()) {
+            gone.raf.close();
+        }
+
+        size = 0;
+        for (Segment segment : segments) {
+            int capacity = segment.buffer.getInt(HistoryLog.CAPACITY_OFFSET);
+            segment.count = Math.max(0, Math.min(segment.buffer.getInt(HistoryLog.COUNT_OFFSET), capacity));
+            segment.firstIndex = size;
+            size += segment.count;
+        }
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Decodes record {@code index}, counted oldest first, into {@code into}.
+     *
+     * @return {@code into}, or null if the index is out of range
+     */
+    public synchronized HistoryRecord read(long index, HistoryRecord into) {
+        if (index < 0 || index >= size) return null;
+        Segment segment = segments.get(segmentOf(index));
+        int i = (int) (index - segment.firstIndex);
+        return into.readFrom(segment.buffer, HistoryLog.HEADER_BYTES + i * segment.recordBytes, segment.recordBytes);
+    }
+
+    /** Index of the first record at or after {@code timestampMs}; {@link #size()} if none. */
+    public synchronized long lowerBound(long timestampMs) {
+        // The last segment starting before the time holds the answer; there are only a few dozen
+        int candidate = -1;
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            if (segment.count > 0 && segment.timestampAt(0) < timestampMs) {
+                candidate = i;
+            }
+        }
+        if (candidate < 0) {
+            return 0;
+        }
+
+        Segment segment = segments.get(candidate);
+        int left = 0;
+        int right = segment.count;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (segment.timestampAt(mid) < timestampMs) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return segment.firstIndex + left;
+    }
+
+    /** Aggregates the records with {@code fromMs <= timestamp < toMs}. */
+    public synchronized Summary summarize(long fromMs, long toMs) {
+        Summary summary = new Summary();
+        HistoryRecord record = new HistoryRecord();
+        long end = lowerBound(toMs);
+        for (long i = lowerBound(fromMs); i < end; i++) {
+            summary.add(read(i, record));
+        }
+        return summary;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        for (Segment segment : segments) {
+            segment.raf.close();
+        }
+        segments.clear();
+        size = 0;
+    }
+
+    // Last segment starting at or before the index; empty ones share their successor's start
+    private int segmentOf(long index) {
+        int lo = 0;
+        int hi = segments.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (segments.get(mid).firstIndex <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private static Segment map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        long length = raf.length();
+        if (length < HistoryLog.HEADER_BYTES) {
+            raf.close();
+            return null;
+        }
+        MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+        int capacity = buffer.getInt(HistoryLog.CAPACITY_OFFSET);
+        short version = buffer.getShort(4);
+        int recordBytes = buffer.getShort(6);
+        boolean valid = buffer.getInt(0) == HistoryLog.MAGIC && capacity > 0
+                && (version == HistoryLog.VERSION && recordBytes == HistoryRecord.BYTES
+                        || version == HistoryLog.VERSION_1 && recordBytes == HistoryRecord.BYTES_V1)
+                && HistoryLog.HEADER_BYTES + (long) capacity * recordBytes <= length;
+        if (!valid) {
+            raf.close();
+            return null;
+        }
+        return new Segment(file, raf, buffer, recordBytes);
+    }
+}
@@ -0,0 +1,138 @@
+package edu.skku.cs.visualvroomandroid.history;
+
+import java.nio.ByteBuffer;
+
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+import edu.skku.cs.visualvroomandroid.watch.AlertFrame;
+
+/**
+ * One detection as stored in the history log, and its fixed binary layout.
+ *
+ * <pre>
+ * timestamp ms i64 | trace id i64 | confidence f32 | latency ms i32
+ * | type u8 | direction u8 | source u8 | flags u8 | latitude e7 i32 | longitude e7 i32 | reserved (4)
+ * </pre>
+ * Type and direction use the {@link AlertFrame} ids. Latency runs from the capture of the
+ * window's newest audio to the detection reaching the log, or -1 if unknown. Position is in
+ * units of 1e-7 degrees, and only meaningful when {@link #hasPosition()}; version 1 logs
+ * stored the first {@link #BYTES_V1} bytes and no position. Instances are mutable so readers
+ * can reuse one per row.
+ */
+public final class HistoryRecord {
+    public static final int BYTES = 40;
+    static final int BYTES_V1 = 32;
+    static final int FLAG_NOTIFIED = 1;
+    static final int FLAG_POSITION = 2;
+
+    private static final DetectionEvent.Source[] SOURCES = DetectionEvent.Source.values();
+
+    long timestampMs;
+    long traceId;
+    float confidence;
+    int latencyMs;
+    byte type;
+    byte direction;
+    byte source;
+    byte flags;
+    int latitudeE7;
+    int longitudeE7;
+
+    public long getTimestampMs() { return timestampMs; }
+    public long getTraceId() { return traceId; }
+    public float getConfidence() { return confidence; }
+    public int getLatencyMs() { return latencyMs; }
+    public byte getType() { return type; }
+    public byte getDirection() { return direction; }
+    public boolean isNotified() { return (flags & FLAG_NOTIFIED) != 0; }
+    public boolean hasPosition() { return (flags & FLAG_POSITION) != 0; }
+    public double getLatitude() { return latitudeE7 / 1e7; }
+    public double getLongitude() { return longitudeE7 / 1e7; }
+
+    public DetectionEvent.Source getSource() {
+        return source >= 0 && source < SOURCES.length ? SOURCES[source] : null;
+    }
+
+    public HistoryRecord set(DetectionEvent event, int latencyMs) {
+        timestampMs = event.getTimestampMs();
+        traceId = event.getTrace() != null ? event.getTrace().getTraceId() : 0;
+        confidence = (float) event.getConfidence();
+        this.latencyMs = latencyMs;
+        type = event.getVehicleType() != null ? AlertFrame.typeId(event.getVehicleType()) : AlertFrame.TYPE_UNKNOWN;
+        direction = AlertFrame.directionId(event.getDirection());
+        source = (byte) event.getSource().ordinal();
+        flags = (byte) (event.getShouldNotify() ? FLAG_NOTIFIED : 0);
+        latitudeE7 = 0;
+        longitudeE7 = 0;
+        return this;
+    }
+
+    /** Tags the record with where it was detected. */
+    public HistoryRecord setPosition(double latitude, double longitude) {
+        latitudeE7 = (int) Math.round(latitude * 1e7);
+        longitudeE7 = (int) Math.round(longitude * 1e7);
+        flags |= FLAG_POSITION;
+        return this;
+    }
+
+    void writeTo(ByteBuffer buffer, int offset) {
+        buffer.putLong(offset, timestampMs);
+        buffer.putLong(offset + 8, traceId);
+        buffer.putFloat(offset + 16, confidence);
+        buffer.putInt(offset + 20, latencyMs);
+        buffer.put(offset + 24, type);
+        buffer.put(offset + 25, direction);
+        buffer.put(offset + 26, source);
+        buffer.put(offset + 27, flags);
+        buffer.putInt(offset + 28, latitudeE7);
+        buffer.putInt(offset + 32, longitudeE7);
+    }
+
+    HistoryRecord readFrom(ByteBuffer buffer, int offset) {
+        return readFrom(buffer, offset, BYTES);
+    }
+
+    // Decodes a record stored with the given size; the v1 layout is a prefix of the current one
+    HistoryRecord readFrom(ByteBuffer buffer, int offset, int recordBytes) {
+        timestampMs = buffer.getLong(offset);
+        traceId = buffer.getLong(offset + 8);
+        confidence = buffer.getFloat(offset + 16);
+        latencyMs = buffer.getInt(offset + 20);
+        type = buffer.get(offset + 24);
+        direction = buffer.get(offset + 25);
+        source = buffer.get(offset + 26);
+        flags = buffer.get(offset + 27);
+        if (recordBytes >= BYTES) {
+            latitudeE7 = buffer.getInt(offset + 28);
+            longitudeE7 = buffer.getInt(offset + 32);
+        } else {
+            flags &= ~FLAG_POSITION;
+            latitudeE7 = 0;
+            longitudeE7 = 0;
+        }
+        return this;
+    }
+
+    public static String typeName(byte type) {
+        switch (type) {
+            case AlertFrame.TYPE_SIREN:
+                return "siren";
+            case AlertFrame.TYPE_BIKE:
+                return "bike";
+            case AlertFrame.TYPE_HORN:
+                return "horn";
+            default:
+                return "unknown";
+        }
+    }
+
+    public static String directionName(byte direction) {
+        switch (direction) {
+            case AlertFrame.DIRECTION_LEFT:
+                return "L";
+            case AlertFrame.DIRECTION_RIGHT:
+                return "R";
+            default:
+                return "?";
+        }
+    }
+}
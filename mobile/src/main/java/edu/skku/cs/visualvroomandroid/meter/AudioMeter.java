@@ -0,0 +1,145 @@
+package edu.skku.cs.visualvroomandroid.meter;
+
+import org.jtransforms.fft.FloatFFT_1D;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.skku.cs.visualvroomandroid.pipeline.AudioBlock;
+import edu.skku.cs.visualvroomandroid.pipeline.NoiseGain;
+import io.reactivex.rxjava3.functions.Consumer;
+
+/**
+ * Turns interleaved stereo blocks into what the recorder screen draws: per-channel RMS and
+ * peak levels, and spectrogram columns of the mono mix.
+ *
+ * Levels of the newest block are published as one packed long (see {@link #getLevels}), so
+ * a reader always gets a consistent set with a single volatile load. Columns are
+ * {@link #FFT_SIZE}-point Hann-windowed FFTs every {@link #HOP} samples, quantized to one
+ * byte per bin over {@link #FLOOR_DB} to 0 dBFS and written straight into a
+ * {@link SpectrogramRing} slot. With noise suppression on, each column is first scaled
+ * by a {@link NoiseGain}, the same per-bin estimate the upload path's suppressor uses, so
+ * the display shows what is left once steady noise is removed. Every buffer is allocated
+ * up front, so analysis allocates nothing per block. One instance per stream, fed from one
+ * thread.
+ */
+public class AudioMeter implements Consumer<AudioBlock> {
+    public static final int FFT_SIZE = 512;
+    public static final int HOP = 256;          // 16 ms at 16 kHz, about one column per frame
+    public static final int BINS = FFT_SIZE / 2;
+    static final float FLOOR_DB = -96f;
+    private static final int RING_COLUMNS = 128;
+    private static final int SAMPLE_RATE = 16000;  // The hub's STEREO_16K stream
+
+    private final FloatFFT_1D fft = new FloatFFT_1D(FFT_SIZE);
+    private final float[] window = new float[FFT_SIZE];
+    private final float[] pending = new float[FFT_SIZE];   // Mono samples not yet fully analyzed
+    private final float[] spectrum = new float[FFT_SIZE];
+    private final float magnitudeScale;
+    private int pendingCount = 0;
+    private final NoiseGain noiseGain;          // Null when suppression is off
+    private final float[] power;
+
+    private final SpectrogramRing ring = new SpectrogramRing(RING_COLUMNS, BINS);
+    private final AtomicLong levels = new AtomicLong();
+
+    public AudioMeter() {
+        this(false);
+    }
+
+    public AudioMeter(boolean suppressNoise) {
+        noiseGain = suppressNoise ? new NoiseGain(FFT_SIZE, SAMPLE_RATE / (double) HOP) : null;
+        power = suppressNoise ? new float[noiseGain.getBins()] : null;
+        float windowSum = 0;
+        for (int i = 0; i < FFT_SIZE; i++) {
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / FFT_SIZE));
+            windowSum += window[i];
+        }
+        // A full-scale sine in one bin reads 0 dBFS
+        magnitudeScale = 2f / (windowSum * 32768f);
+    }
+
+    public SpectrogramRing getSpectrogram() {
+        return ring;
+    }
+
+    /**
+     * RMS and peak of each channel in the newest block, packed as four 16-bit fractions of
+     * full scale; unpack with {@link #rmsLeft} and friends.
+     */
+    public long getLevels() {
+        return levels.get();
+    }
+
+    public static float rmsLeft(long levels) { return unpack(levels, 48); }
+    public static float rmsRight(long levels) { return unpack(levels, 32); }
+    public static float peakLeft(long levels) { return unpack(levels, 16); }
+    public static float peakRight(long levels) { return unpack(levels, 0); }
+
+    @Override
+    public void accept(AudioBlock block) {
+        short[] samples = block.getSamples();
+        int frames = block.getLength() / 2;
+        if (frames == 0) return;
+
+        long sumLeft = 0;
+        long sumRight = 0;
+        int peakLeft = 0;
+        int peakRight = 0;
+        for (int i = 0; i < frames; i++) {
+            int left = samples[2 * i];
+            int right = samples[2 * i + 1];
+            sumLeft += left * left;
+            sumRight += right * right;
+            peakLeft = Math.max(peakLeft, Math.abs(left));
+            peakRight = Math.max(peakRight, Math.abs(right));
+
+            pending[pendingCount++] = (left + right) * 0.5f;
+            if (pendingCount == FFT_SIZE) {
+                analyze();
+                System.arraycopy(pending, HOP, pending, 0, FFT_SIZE - HOP);
+                pendingCount = FFT_SIZE - HOP;
+            }
+        }
+        levels.set(pack(Math.sqrt((double) sumLeft / frames) / 32768, 48)
+                | pack(Math.sqrt((double) sumRight / frames) / 32768, 32)
+                | pack(peakLeft / 32768.0, 16)
+                | pack(peakRight / 32768.0, 0));
+    }
+
+    private void analyze() {
+        for (int i = 0; i < FFT_SIZE; i++) {
+            spectrum[i] = pending[i] * window[i];
+        }
+        fft.realForward(spectrum);
+        if (noiseGain != null) {
+            NoiseGain.power(spectrum, power, false);
+            NoiseGain.apply(spectrum, noiseGain.update(power));
+        }
+
+        // Packed output: [re0, re(n/2), re1, im1, ...]; the Nyquist bin isn't shown
+        byte[] column = ring.claim();
+        column[0] = quantize(Math.abs(spectrum[0]) * magnitudeScale / 2);
+        for (int k = 1; k < BINS; k++) {
+            float re = spectrum[2 * k];
+            float im = spectrum[2 * k + 1];
+            column[k] = quantize((float) Math.sqrt(re * re + im * im) * magnitudeScale);
+        }
+        ring.publish();
+    }
+
+    // 0 at the floor, 255 at full scale
+    private static byte quantize(float magnitude) {
+        if (magnitude <= 0) return 0;
+        float db = 20f * (float) Math.log10(magnitude);
+        float scaled = (db - FLOOR_DB) / -FLOOR_DB * 255f;
+        return (byte) Math.max(0, Math.min(255, Math.round(scaled)));
+    }
+
+    private static long pack(double fraction, int shift) {
+        return (Math.round(Math.min(fraction, 1.0) * 0xffff) & 0xffffL) << shift;
+    }
+
+    private static float unpack(long levels, int shift) {
+        return ((levels >>> shift) & 0xffff) / (float) 0xffff;
+    }
+}
@@ -0,0 +1,156 @@
+package edu.skku.cs.visualvroomandroid.meter;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Live stereo level meter over a scrolling spectrogram, drawn from an {@link AudioMeter}.
+ *
+ * Nothing is pushed to the view: each frame it reads the meter's latest levels and drains
+ * the spectrogram columns published since the last frame, then asks for the next frame
+ * while a meter is attached. The spectrogram bitmap is a circular buffer one pixel per
+ * column; a new column is one {@code setPixels} call and scrolling is two bitmap blits
+ * split at the write position. Paints, rects, the bitmap and the pixel scratch are all
+ * made once, so drawing allocates nothing per frame.
+ */
+public class AudioScopeView extends View {
+    private static final int HISTORY_COLUMNS = 256;    // About 4 s at one column per 16 ms
+    private static final float METER_FLOOR_DB = -60f;
+    private static final float PEAK_DECAY_PER_FRAME = 0.01f;
+    private static final int METER_GAP_PX = 4;
+
+    private final Paint barPaint = new Paint();
+    private final Paint peakPaint = new Paint();
+    private final Paint trackPaint = new Paint();
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect src = new Rect();
+    private final Rect dst = new Rect();
+    private final int[] palette = new int[256];
+
+    private final Bitmap spectrogram = Bitmap.createBitmap(HISTORY_COLUMNS, AudioMeter.BINS, Bitmap.Config.ARGB_8888);
+    private final byte[] column = new byte[AudioMeter.BINS];
+    private final int[] columnPixels = new int[AudioMeter.BINS];
+    private int writeColumn = 0;
+
+    private AudioMeter meter;
+    private long nextSequence;
+    private float heldPeakLeft;
+    private float heldPeakRight;
+
+    public AudioScopeView(Context context) {
+        this(context, null);
+    }
+
+    public AudioScopeView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        barPaint.setColor(Color.rgb(0x27, 0x54, 0xC3));
+        peakPaint.setColor(Color.rgb(0xE5, 0x39, 0x35));
+        trackPaint.setColor(Color.rgb(0xE0, 0xE0, 0xE0));
+        // Dark blue through magenta to yellow, so loud bins stand out on a quiet background
+        for (int i = 0; i < palette.length; i++) {
+            float t = i / 255f;
+            palette[i] = Color.rgb(
+                    (int) (255 * Math.min(1f, t * 1.6f)),
+                    (int) (255 * Math.max(0f, t * 1.6f - 0.6f)),
+                    (int) (255 * (t < 0.5f ? 0.25f + t : Math.max(0f, 1.25f - t * 1.5f))));
+        }
+        spectrogram.eraseColor(palette[0]);
+    }
+
+    /** Starts drawing from {@code meter}, or stops and clears when null. Main thread only. */
+    public void setMeter(@Nullable AudioMeter meter) {
+        this.meter = meter;
+        heldPeakLeft = 0;
+        heldPeakRight = 0;
+        spectrogram.eraseColor(palette[0]);
+        writeColumn = 0;
+        if (meter != null) {
+            nextSequence = meter.getSpectrogram().getOldestReadable();
+        }
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int width = getWidth() - getPaddingLeft() - getPaddingRight();
+        int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (width <= 0 || height <= 0) return;
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+
+        AudioMeter source = meter;
+        long levels = source != null ? source.getLevels() : 0;
+        if (source != null) {
+            drainColumns(source.getSpectrogram());
+        }
+
+        // Two meter bars, left channel above right, in the top fifth
+        int barHeight = Math.max(1, (height / 5 - METER_GAP_PX) / 2);
+        heldPeakLeft = Math.max(AudioMeter.peakLeft(levels), heldPeakLeft - PEAK_DECAY_PER_FRAME);
+        heldPeakRight = Math.max(AudioMeter.peakRight(levels), heldPeakRight - PEAK_DECAY_PER_FRAME);
+        drawMeter(canvas, left, top, width, barHeight, AudioMeter.rmsLeft(levels), heldPeakLeft);
+        drawMeter(canvas, left, top + barHeight + METER_GAP_PX, width, barHeight,
+                AudioMeter.rmsRight(levels), heldPeakRight);
+
+        // Oldest columns on the left: [writeColumn, end) then [0, writeColumn)
+        int spectrogramTop = top + 2 * barHeight + 2 * METER_GAP_PX;
+        int bottom = top + height;
+        int split = left + width * (HISTORY_COLUMNS - writeColumn) / HISTORY_COLUMNS;
+        src.set(writeColumn, 0, HISTORY_COLUMNS, AudioMeter.BINS);
+        dst.set(left, spectrogramTop, split, bottom);
+        canvas.drawBitmap(spectrogram, src, dst, bitmapPaint);
+        if (writeColumn > 0) {
+            src.set(0, 0, writeColumn, AudioMeter.BINS);
+            dst.set(split, spectrogramTop, left + width, bottom);
+            canvas.drawBitmap(spectrogram, src, dst, bitmapPaint);
+        }
+
+        if (source != null) {
+            postInvalidateOnAnimation();
+        }
+    }
+
+    private void drainColumns(SpectrogramRing ring) {
+        // Anything older than one screen would scroll straight off
+        long published = ring.getPublished();
+        nextSequence = Math.max(nextSequence, Math.max(ring.getOldestReadable(), published - HISTORY_COLUMNS));
+        for (; nextSequence < published; nextSequence++) {
+            if (!ring.read(nextSequence, column)) continue;
+            // Low frequencies at the bottom
+            for (int bin = 0; bin < column.length; bin++) {
+                columnPixels[column.length - 1 - bin] = palette[column[bin] & 0xff];
+            }
+            spectrogram.setPixels(columnPixels, 0, 1, writeColumn, 0, 1, column.length);
+            writeColumn = (writeColumn + 1) % HISTORY_COLUMNS;
+        }
+    }
+
+    private void drawMeter(Canvas canvas, int left, int top, int width, int height, float rms, float peak) {
+        canvas.drawRect(left, top, left + width, top + height, trackPaint);
+        canvas.drawRect(left, top, left + width * meterFraction(rms), top + height, barPaint);
+        float peakX = left + width * meterFraction(peak);
+        canvas.drawRect(Math.max(left, peakX - 3), top, peakX, top + height, peakPaint);
+    }
+
+    // Position along a bar, on a dB scale from METER_FLOOR_DB to full scale
+    private static float meterFraction(float amplitude) {
+        if (amplitude <= 0) return 0;
+        float db = 20f * (float) Math.log10(amplitude);
+        return Math.max(0f, Math.min(1f, (db - METER_FLOOR_DB) / -METER_FLOOR_DB));
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        meter = null;
+        super.onDetachedFromWindow();
+    }
+}
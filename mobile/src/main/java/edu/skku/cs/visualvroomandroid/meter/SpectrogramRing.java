@@ -0,0 +1,62 @@
+package edu.skku.cs.visualvroomandroid.meter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free ring of spectrogram columns from one producer thread to one consumer thread.
+ *
+ * Columns are preallocated; the producer fills the slot returned by {@link #claim} in place
+ * and makes it visible with {@link #publish}. The consumer copies a column out by sequence
+ * number and learns afterwards whether the producer lapped it mid-copy, like a seqlock, so
+ * neither side ever waits or allocates. A consumer that falls more than a ring behind simply
+ * misses the oldest columns. The lap check has no load fence behind it, so on a weakly
+ * ordered CPU a torn column can still slip through; for a display that's one odd stripe.
+ */
+public final class SpectrogramRing {
+    private final byte[][] slots;
+    private final AtomicLong published = new AtomicLong();
+
+    public SpectrogramRing(int capacity, int bins) {
+        slots = new byte[capacity][bins];
+    }
+
+    public int getBins() {
+        return slots[0].length;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /** Producer: the slot for the next column. Valid until {@link #publish}. */
+    public byte[] claim() {
+        return slots[(int) (published.get() % slots.length)];
+    }
+
+    /** Producer: makes the claimed column readable. */
+    public void publish() {
+        published.lazySet(published.get() + 1);
+    }
+
+    /** Columns published so far; column {@code n} is the {@code n}th, counting from 0. */
+    public long getPublished() {
+        return published.get();
+    }
+
+    /** The oldest column that can still be read. */
+    public long getOldestReadable() {
+        // The slot after the newest may be mid-write
+        return Math.max(0, published.get() - slots.length + 1);
+    }
+
+    /**
+     * Consumer: copies column {@code sequence} into {@code into}.
+     *
+     * @return false if the column isn't published yet or was overwritten; {@code into} is then undefined
+     */
+    public boolean read(long sequence, byte[] into) {
+        if (sequence >= published.get() || sequence < getOldestReadable()) return false;
+        System.arraycopy(slots[(int) (sequence % slots.length)], 0, into, 0, into.length);
+        return sequence >= getOldestReadable();
+    }
+}
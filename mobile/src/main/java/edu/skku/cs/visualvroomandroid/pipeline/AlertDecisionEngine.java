@@ -0,0 +1,160 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+
+/**
+ * Decides when a run of per-window detections is worth an alert.
+ *
+ * Each vehicle type accumulates evidence: the window's confidence is added and the total
+ * decays exponentially with time. A type becomes active when its evidence reaches
+ * {@link Config#onThreshold} and inactive again only below {@link Config#offThreshold},
+ * so one siren produces one rising edge rather than an alert per window. A rising edge
+ * alerts unless the same type alerted within its refractory period. The reported
+ * direction is a confidence-weighted vote over the type's last few windows.
+ *
+ * Not thread-safe; feed it from one thread.
+ */
+public class AlertDecisionEngine implements SmoothingStage {
+
+    public static class Config {
+        final double minConfidence;
+        final double onThreshold;
+        final double offThreshold;
+        final long decayTimeConstantMs;
+        final long refractoryMs;
+        final int directionVoteWindows;
+
+        /**
+         * @param minConfidence       windows below this add no evidence
+         * @param onThreshold         evidence needed to activate a type
+         * @param offThreshold        evidence below which an active type resets; must not exceed onThreshold
+         * @param decayTimeConstantMs time for evidence to decay to 1/e
+         * @param refractoryMs        minimum time between alerts of the same type
+         * @param directionVoteWindows how many recent windows vote on direction
+         */
+        public Config(double minConfidence, double onThreshold, double offThreshold,
+                      long decayTimeConstantMs, long refractoryMs, int directionVoteWindows) {
+            if (offThreshold > onThreshold) {
+                throw new IllegalArgumentException("offThreshold must not exceed onThreshold");
+            }
+            this.minConfidence = minConfidence;
+            this.onThreshold = onThreshold;
+            this.offThreshold = offThreshold;
+            this.decayTimeConstantMs = decayTimeConstantMs;
+            this.refractoryMs = refractoryMs;
+            this.directionVoteWindows = directionVoteWindows;
+        }
+
+        /**
+         * A single window above 0.95 still alerts on its own, matching the old 0.97
+         * cut-off in spirit; weaker detections need agreement across windows.
+         */
+        public static Config defaults() {
+            return new Config(0.5, 0.95, 0.4, 6000, 10000, 5);
+        }
+    }
+
+    private static class TypeState {
+        double evidence;
+        boolean active;
+        long lastAlertMs = Long.MIN_VALUE;
+        final String[] recentDirections;
+        final double[] recentWeights;
+        int voteCursor;
+
+        TypeState(int voteWindows) {
+            recentDirections = new String[voteWindows];
+            recentWeights = new double[voteWindows];
+        }
+    }
+
+    private final Config config;
+    private final Map<String, TypeState> states = new HashMap<>();
+    private long lastEventMs = Long.MIN_VALUE;
+
+    public AlertDecisionEngine() {
+        this(Config.defaults());
+    }
+
+    public AlertDecisionEngine(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * @return the event with its alert decision and voted direction; never null
+     */
+    @Override
+    public DetectionEvent smooth(DetectionEvent event) {
+        long now = event.getTimestampMs();
+        decayAll(now);
+
+        String type = event.getVehicleType().toLowerCase(Locale.ROOT);
+        TypeState state = states.get(type);
+        if (state == null) {
+            state = new TypeState(config.directionVoteWindows);
+            states.put(type, state);
+        }
+
+        if (event.getConfidence() >= config.minConfidence) {
+            state.evidence += event.getConfidence();
+            state.recentDirections[state.voteCursor] = event.getDirection();
+            state.recentWeights[state.voteCursor] = event.getConfidence();
+            state.voteCursor = (state.voteCursor + 1) % config.directionVoteWindows;
+        }
+
+        boolean alert = false;
+        if (!state.active && state.evidence >= config.onThreshold) {
+            state.active = true;
+            if (state.lastAlertMs == Long.MIN_VALUE || now - state.lastAlertMs >= config.refractoryMs) {
+                state.lastAlertMs = now;
+                alert = true;
+            }
+        }
+
+        String direction = votedDirection(state, event.getDirection());
+        return event.withDecision(direction, alert);
+    }
+
+    public void reset() {
+        states.clear();
+        lastEventMs = Long.MIN_VALUE;
+    }
+
+    private void decayAll(long now) {
+        if (lastEventMs != Long.MIN_VALUE && now > lastEventMs) {
+            double factor = Math.exp(-(double) (now - lastEventMs) / config.decayTimeConstantMs);
+            for (TypeState state : states.values()) {
+                state.evidence *= factor;
+                if (state.active && state.evidence < config.offThreshold) {
+                    state.active = false;
+                }
+            }
+        }
+        lastEventMs = Math.max(lastEventMs, now);
+    }
+
+    private static String votedDirection(TypeState state, String fallback) {
+        // Directions are short codes ("L"/"R"), so a linear scan beats a map here
+        String best = fallback;
+        double bestWeight = 0;
+        for (int i = 0; i < state.recentDirections.length; i++) {
+            String candidate = state.recentDirections[i];
+            if (candidate == null) continue;
+            double weight = 0;
+            for (int j = 0; j < state.recentDirections.length; j++) {
+                if (candidate.equalsIgnoreCase(state.recentDirections[j])) {
+                    weight += state.recentWeights[j];
+                }
+            }
+            if (weight > bestWeight) {
+                bestWeight = weight;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,20 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+/**
+ * One read from the capture source: 16-bit PCM, interleaved when stereo.
+ */
+public class AudioBlock {
+    private final short[] samples;
+    private final int length;
+    private final long captureTimeNanos;
+
+    public AudioBlock(short[] samples, int length, long captureTimeNanos) {
+        this.samples = samples;
+        this.length = length;
+        this.captureTimeNanos = captureTimeNanos;
+    }
+
+    public short[] getSamples() { return samples; }
+    public int getLength() { return length; }
+    public long getCaptureTimeNanos() { return captureTimeNanos; }
+}
@@ -0,0 +1,88 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import android.media.AudioRecord;
+import android.media.AudioTimestamp;
+import android.util.Log;
+
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+
+/**
+ * Capture stage reading from an already-initialized {@link AudioRecord}.
+ * The record is started on subscribe and stopped on cancel, but not released. Teardown
+ * that must not race a read, such as releasing the record, goes in {@code onExit}: it runs
+ * on the capture thread once the read loop has left {@code read()} and stopped the record.
+ *
+ * Each block is stamped with the {@code CLOCK_MONOTONIC} time its last frame was captured,
+ * extrapolated from {@link AudioRecord#getTimestamp}. Before the first timestamp is
+ * available, the read completion time stands in.
+ */
+public class AudioRecordCaptureStage implements CaptureStage {
+    private static final String TAG = "AudioRecordCapture";
+
+    private final AudioRecord audioRecord;
+    private final int blockSize;
+    private final Runnable onExit;
+
+    /**
+     * @param blockSize shorts per read
+     */
+    public AudioRecordCaptureStage(AudioRecord audioRecord, int blockSize) {
+        this(audioRecord, blockSize, null);
+    }
+
+    /**
+     * @param blockSize shorts per read
+     * @param onExit    run on the capture thread after the read loop has exited; may be null
+     */
+    public AudioRecordCaptureStage(AudioRecord audioRecord, int blockSize, Runnable onExit) {
+        this.audioRecord = audioRecord;
+        this.blockSize = blockSize;
+        this.onExit = onExit;
+    }
+
+    @Override
+    public Flowable<AudioBlock> blocks() {
+        // MISSING: the pipeline puts a bounded drop-oldest buffer right after this stage,
+        // so the read loop itself never waits on downstream demand
+        return Flowable.create(emitter -> {
+            AudioTimestamp timestamp = new AudioTimestamp();
+            int channels = audioRecord.getChannelCount();
+            double nanosPerFrame = 1e9 / audioRecord.getSampleRate();
+            long framesRead = 0;
+
+            try {
+                audioRecord.startRecording();
+                while (!emitter.isCancelled()) {
+                    short[] buffer = new short[blockSize];
+                    int shortsRead = audioRecord.read(buffer, 0, buffer.length);
+
+                    if (shortsRead > 0) {
+                        framesRead += shortsRead / channels;
+                        long captureTime = System.nanoTime();
+                        if (audioRecord.getTimestamp(timestamp, AudioTimestamp.TIMEBASE_MONOTONIC)
+                                == AudioRecord.SUCCESS) {
+                            captureTime = timestamp.nanoTime
+                                    + (long) ((framesRead - 1 - timestamp.framePosition) * nanosPerFrame);
+                        }
+                        emitter.onNext(new AudioBlock(buffer, shortsRead, captureTime));
+                    } else if (shortsRead < 0) {
+                        emitter.tryOnError(new IllegalStateException("AudioRecord read failed: " + shortsRead));
+                        return;
+                    }
+                }
+            } finally {
+                try {
+                    if (audioRecord.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
+                        audioRecord.stop();
+                    }
+                } catch (IllegalStateException e) {
+                    Log.e(TAG, "Error stopping AudioRecord: " + e.getMessage());
+                }
+                if (onExit != null) {
+                    onExit.run();
+                }
+            }
+        }, BackpressureStrategy.MISSING);
+    }
+}
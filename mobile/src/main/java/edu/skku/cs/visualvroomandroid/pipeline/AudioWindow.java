@@ -0,0 +1,56 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import edu.skku.cs.visualvroomandroid.trace.TraceContext;
+import edu.skku.cs.visualvroomandroid.trace.Traced;
+
+/**
+ * A fixed-length analysis window of de-interleaved, gain-adjusted audio, with the
+ * {@link WindowQuality} of that gain stage when it came from one.
+ */
+public class AudioWindow implements Traced {
+    private final long windowId;
+    private final short[] left;
+    private final short[] right;
+    private final int sampleRate;
+    private final long captureTimeNanos;
+    private final TraceContext trace;
+    private final WindowQuality quality;
+
+    public AudioWindow(long windowId, short[] left, short[] right, int sampleRate, long captureTimeNanos) {
+        this(windowId, left, right, sampleRate, new TraceContext(windowId, captureTimeNanos));
+    }
+
+    public AudioWindow(long windowId, short[] left, short[] right, int sampleRate, TraceContext trace) {
+        this(windowId, left, right, sampleRate, trace, null);
+    }
+
+    public AudioWindow(long windowId, short[] left, short[] right, int sampleRate, TraceContext trace,
+                       WindowQuality quality) {
+        this.windowId = windowId;
+        this.left = left;
+        this.right = right;
+        this.sampleRate = sampleRate;
+        this.captureTimeNanos = trace.getCaptureTimeNanos();
+        this.trace = trace;
+        this.quality = quality;
+    }
+
+    public long getWindowId() { return windowId; }
+    public short[] getLeft() { return left; }
+    public short[] getRight() { return right; }
+    public int getSampleRate() { return sampleRate; }
+    // Capture time of the newest block in the window
+    public long getCaptureTimeNanos() { return captureTimeNanos; }
+    // Null for windows that didn't pass through a BlockLimiter
+    public WindowQuality getQuality() { return quality; }
+    @Override
+    public TraceContext getTrace() { return trace; }
+
+    public static double rms(short[] channel) {
+        double sum = 0;
+        for (short sample : channel) {
+            sum += (double) sample * sample;
+        }
+        return Math.sqrt(sum / Math.max(channel.length, 1)) / 32768.0;
+    }
+}
@@ -0,0 +1,15 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import java.util.List;
+
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * An {@link InferenceStage} that can also classify several windows in one request.
+ * Implementations return one response per window, in order; a window with no usable
+ * prediction gets a response without one. Transport failures fail the whole batch.
+ */
+public interface BatchInferenceStage extends InferenceStage {
+    Single<List<PredictionResponse>> inferBatch(List<EncodedWindow> windows);
+}
@@ -0,0 +1,231 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+/**
+ * Streaming compressor and look-ahead peak limiter for interleaved stereo, with the gain
+ * decided once per {@link #BLOCK_MS} block instead of per sample.
+ *
+ * Quiet input gets {@link #MAX_GAIN_DB}, the fixed gain the capture chain always applied.
+ * Above {@link #THRESHOLD_DB} after that gain, levels are compressed {@link #RATIO}:1; the
+ * compressor gain follows with {@link #ATTACK_MS} attack and {@link #RELEASE_MS} release.
+ * Output is delayed by one block, so the gain for a block is known to suit both it and the
+ * block after it: every block's gain ramps linearly to a value that keeps both peaks under
+ * {@link #CEILING}, so nothing is clipped by the gain stage and the ramp never steps.
+ * Both channels share one gain, which keeps the level difference direction finding uses.
+ *
+ * Per-block gain, input clipping and whether the limit was binding are kept for as far back
+ * as {@code historyFrames}, for {@link #quality}. One instance per stream, used from one thread.
+ */
+public class BlockLimiter {
+    static final double BLOCK_MS = 5;
+    static final double MAX_GAIN_DB = 48;       // 250x: the old chain's 50x window gain times 5x pre-amp
+    static final double THRESHOLD_DB = -24;
+    static final double RATIO = 4;
+    static final double ATTACK_MS = 5;
+    static final double RELEASE_MS = 300;
+    static final double CEILING = 0.89;         // -1 dBFS peak
+
+    private final int blockFrames;
+    private final double attackCoef;
+    private final double releaseCoef;
+
+    // The block being filled and the one waiting for its successor, interleaved
+    private short[] filling;
+    private short[] waiting;
+    private int fillingFrames = 0;
+    private boolean hasWaiting = false;
+    private long fillingSumLeft;
+    private long fillingSumRight;
+    private int fillingPeak;
+    private int fillingClipped;
+    private int waitingPeak;
+    private int waitingClipped;
+
+    private double compressorGainDb = MAX_GAIN_DB;
+    private double gain;                        // Linear gain at the end of the last output block
+
+    // Per output block, as a ring
+    private final float[] historyGainDb;
+    private final int[] historyClipped;
+    private final boolean[] historyLimited;
+    private long blocksOut = 0;
+
+    /**
+     * @param historyFrames how many output frames back {@link #quality} must reach
+     */
+    public BlockLimiter(int sampleRate, int historyFrames) {
+        this.blockFrames = Math.max(1, (int) Math.round(sampleRate * BLOCK_MS / 1000));
+        this.attackCoef = Math.exp(-BLOCK_MS / ATTACK_MS);
+        this.releaseCoef = Math.exp(-BLOCK_MS / RELEASE_MS);
+        this.filling = new short[blockFrames * 2];
+        this.waiting = new short[blockFrames * 2];
+        int historyBlocks = historyFrames / blockFrames + 2;
+        this.historyGainDb = new float[historyBlocks];
+        this.historyClipped = new int[historyBlocks];
+        this.historyLimited = new boolean[historyBlocks];
+        reset();
+    }
+
+    public int getBlockFrames() {
+        return blockFrames;
+    }
+
+    /** The most output frames one call can produce for {@code inputFrames} of input. */
+    public int maxOutputFrames(int inputFrames) {
+        return (inputFrames / blockFrames + 1) * blockFrames;
+    }
+
+    /**
+     * Takes {@code length} interleaved samples and writes whatever output is ready to
+     * {@code out}, which must hold {@link #maxOutputFrames} frames.
+     *
+     * @return frames written
+     */
+    public int process(short[] in, int length, short[] out) {
+        return process(in, length, out, -1);
+    }
+
+    /**
+     * Like {@link #process(short[], int, short[])}, for input that has been through another
+     * stage first: {@code inputClipped} is the clipped sample count of the original mic
+     * input (see {@link #countClipped}), recorded in place of counting {@code in}, whose
+     * samples no longer show the mic's clipping.
+     *
+     * @param inputClipped clipped samples in the mic input behind {@code in}, or -1 to count {@code in}
+     */
+    public int process(short[] in, int length, short[] out, int inputClipped) {
+        boolean countInput = inputClipped < 0;
+        if (!countInput) {
+            fillingClipped += inputClipped;
+        }
+        int outFrames = 0;
+        for (int i = 0; i + 1 < length; i += 2) {
+            int left = in[i];
+            int right = in[i + 1];
+            filling[2 * fillingFrames] = in[i];
+            filling[2 * fillingFrames + 1] = in[i + 1];
+            fillingSumLeft += left * left;
+            fillingSumRight += right * right;
+            fillingPeak = Math.max(fillingPeak, Math.max(Math.abs(left), Math.abs(right)));
+            if (countInput) {
+                if (left >= Short.MAX_VALUE || left <= Short.MIN_VALUE) fillingClipped++;
+                if (right >= Short.MAX_VALUE || right <= Short.MIN_VALUE) fillingClipped++;
+            }
+
+            if (++fillingFrames == blockFrames) {
+                if (emitBlock(out, outFrames)) {
+                    outFrames += blockFrames;
+                }
+            }
+        }
+        return outFrames;
+    }
+
+    /** Samples among the first {@code length} of {@code samples} at full scale. */
+    public static int countClipped(short[] samples, int length) {
+        int clipped = 0;
+        for (int i = 0; i < length; i++) {
+            if (samples[i] >= Short.MAX_VALUE || samples[i] <= Short.MIN_VALUE) clipped++;
+        }
+        return clipped;
+    }
+
+    /**
+     * Quality of the {@code windowFrames} output frames that end {@code framesAfter} frames
+     * before the newest output frame, i.e. a window taken part-way through the last
+     * {@link #process} call's output.
+     */
+    public WindowQuality quality(int windowFrames, int framesAfter) {
+        long end = blocksOut * blockFrames - framesAfter;
+        long firstBlock = Math.max(Math.max(0, end - windowFrames) / blockFrames,
+                blocksOut - historyGainDb.length);
+        long lastBlock = Math.max(firstBlock, (end - 1) / blockFrames);
+        int blocks = (int) (lastBlock - firstBlock + 1);
+
+        long clipped = 0;
+        int limited = 0;
+        float[] gainDb = new float[WindowQuality.GAIN_POINTS];
+        int[] gainCounts = new int[WindowQuality.GAIN_POINTS];
+        for (long block = firstBlock; block <= lastBlock && block < blocksOut; block++) {
+            int slot = (int) (block % historyGainDb.length);
+            clipped += historyClipped[slot];
+            if (historyLimited[slot]) limited++;
+            int point = (int) ((block - firstBlock) * WindowQuality.GAIN_POINTS / blocks);
+            gainDb[point] += historyGainDb[slot];
+            gainCounts[point]++;
+        }
+        for (int i = 0; i < gainDb.length; i++) {
+            // Short windows have fewer blocks than points; repeat the previous point
+            gainDb[i] = gainCounts[i] > 0 ? gainDb[i] / gainCounts[i] : i > 0 ? gainDb[i - 1] : (float) MAX_GAIN_DB;
+        }
+        return new WindowQuality((double) clipped / (blocks * blockFrames * 2.0), (double) limited / blocks, gainDb);
+    }
+
+    public void reset() {
+        fillingFrames = 0;
+        hasWaiting = false;
+        fillingSumLeft = 0;
+        fillingSumRight = 0;
+        fillingPeak = 0;
+        fillingClipped = 0;
+        compressorGainDb = MAX_GAIN_DB;
+        gain = dbToLinear(MAX_GAIN_DB);
+    }
+
+    // A block has filled: update the gain and output the one before it, if any
+    private boolean emitBlock(short[] out, int outFrames) {
+        double meanSquare = Math.max(fillingSumLeft, fillingSumRight) / (double) blockFrames / (32768.0 * 32768.0);
+        double levelDb = 10 * Math.log10(Math.max(meanSquare, 1e-12)) + MAX_GAIN_DB;
+        double targetDb = levelDb > THRESHOLD_DB ? MAX_GAIN_DB - (levelDb - THRESHOLD_DB) * (1 - 1 / RATIO) : MAX_GAIN_DB;
+        double coef = targetDb < compressorGainDb ? attackCoef : releaseCoef;
+        compressorGainDb = targetDb + coef * (compressorGainDb - targetDb);
+        double compressorGain = dbToLinear(compressorGainDb);
+
+        boolean emitted = false;
+        if (hasWaiting) {
+            // Ends at a gain safe for this block's peak and the next one's; starts at one safe for this block's
+            double end = Math.min(compressorGain, Math.min(ceilingGain(waitingPeak), ceilingGain(fillingPeak)));
+            double start = gain;
+            int base = outFrames * 2;
+            for (int f = 0; f < blockFrames; f++) {
+                double g = start + (end - start) * (f + 1) / blockFrames;
+                out[base + 2 * f] = clip(waiting[2 * f] * g);
+                out[base + 2 * f + 1] = clip(waiting[2 * f + 1] * g);
+            }
+            gain = end;
+
+            int slot = (int) (blocksOut % historyGainDb.length);
+            historyGainDb[slot] = (float) (20 * Math.log10((start + end) / 2));
+            historyClipped[slot] = waitingClipped;
+            historyLimited[slot] = end < compressorGain * 0.999;
+            blocksOut++;
+            emitted = true;
+        } else {
+            gain = Math.min(compressorGain, ceilingGain(fillingPeak));
+        }
+
+        short[] swap = waiting;
+        waiting = filling;
+        filling = swap;
+        waitingPeak = fillingPeak;
+        waitingClipped = fillingClipped;
+        hasWaiting = true;
+        fillingFrames = 0;
+        fillingSumLeft = 0;
+        fillingSumRight = 0;
+        fillingPeak = 0;
+        fillingClipped = 0;
+        return emitted;
+    }
+
+    private static double ceilingGain(int peak) {
+        return peak == 0 ? Double.MAX_VALUE : CEILING * 32767 / peak;
+    }
+
+    private static double dbToLinear(double db) {
+        return Math.pow(10, db / 20);
+    }
+
+    private static short clip(double value) {
+        return (short) Math.max(Math.min(Math.round(value), 32767), -32768);
+    }
+}
@@ -0,0 +1,36 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+/**
+ * How often and how much audio the detection pipeline sends: analysis window length and hop
+ * between windows. Payloads are always sent at the capture rate.
+ */
+public final class Cadence {
+    private final long windowMs;
+    private final long hopMs;
+
+    public Cadence(long windowMs, long hopMs) {
+        this.windowMs = windowMs;
+        this.hopMs = hopMs;
+    }
+
+    public long getWindowMs() { return windowMs; }
+    public long getHopMs() { return hopMs; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Cadence)) return false;
+        Cadence other = (Cadence) o;
+        return windowMs == other.windowMs && hopMs == other.hopMs;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (31 * windowMs + hopMs);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("window=%dms hop=%dms", windowMs, hopMs);
+    }
+}
@@ -0,0 +1,208 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Picks the pipeline's {@link Cadence} from backend round-trip time, battery level and
+ * movement speed.
+ *
+ * <ul>
+ *   <li>Speed sets the base: the faster the user moves, the sooner a vehicle closes in, so
+ *       hops and windows shrink from 3 s / 5 s standing still to 1 s / 3 s cycling.</li>
+ *   <li>A low battery stretches the hop by 1.5x, a critical one by 2x; not while
+ *       charging.</li>
+ *   <li>The hop never drops below the smoothed RTT divided by the requests the pipeline
+ *       keeps in flight, so uploads don't queue up.</li>
+ * </ul>
+ * Payloads stay at 16 kHz whatever the conditions: /predict's model was trained at that rate
+ * and the server does not resample, so lower-rate uploads would cost accuracy exactly when
+ * the phone is struggling. Round trips should come from /predict requests only.
+ * Results are clamped to [{@link #MIN_HOP_MS}, {@link #MAX_HOP_MS}] and
+ * [{@link #MIN_WINDOW_MS}, {@link #MAX_WINDOW_MS}]. Hop changes under
+ * {@link #MIN_HOP_CHANGE_MS} are ignored so RTT jitter doesn't cause churn.
+ *
+ * Every input produces a {@link Decision}, changed or not. The last {@link #HISTORY}
+ * are kept, and listeners see each one. Thread-safe; listeners run on the caller's thread.
+ */
+public class CadenceController {
+    public static final long MIN_WINDOW_MS = 3000;
+    public static final long MAX_WINDOW_MS = 5000;
+    public static final long MIN_HOP_MS = 1000;
+    public static final long MAX_HOP_MS = 6000;
+
+    static final double WALKING_MPS = 0.7;
+    static final double CYCLING_MPS = 3.0;
+    static final int LOW_BATTERY_PERCENT = 30;
+    static final int CRITICAL_BATTERY_PERCENT = 15;
+    static final long MIN_HOP_CHANGE_MS = 250;
+    static final long SPEED_STALE_MS = 30_000;   // No fix for this long counts as standing still
+    static final int HISTORY = 64;
+    private static final double RTT_SMOOTHING = 0.25;
+
+    public static final Cadence DEFAULT = new Cadence(5000, 3000);
+
+    public interface Listener {
+        void onDecision(Decision decision);
+    }
+
+    /** One evaluation: the inputs it saw, the cadence it chose and why. */
+    public static class Decision {
+        private final long timeMs;
+        private final String trigger;
+        private final long rttMs;
+        private final int batteryPercent;
+        private final boolean charging;
+        private final double speedMps;
+        private final Cadence cadence;
+        private final boolean changed;
+        private final String reason;
+
+        Decision(long timeMs, String trigger, long rttMs, int batteryPercent, boolean charging,
+                 double speedMps, Cadence cadence, boolean changed, String reason) {
+            this.timeMs = timeMs;
+            this.trigger = trigger;
+            this.rttMs = rttMs;
+            this.batteryPercent = batteryPercent;
+            this.charging = charging;
+            this.speedMps = speedMps;
+            this.cadence = cadence;
+            this.changed = changed;
+            this.reason = reason;
+        }
+
+        public long getTimeMs() { return timeMs; }
+        public Cadence getCadence() { return cadence; }
+        public boolean isChanged() { return changed; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s %s [%s] (rtt=%dms battery=%d%%%s speed=%.1fm/s)",
+                    trigger, changed ? "->" : "keep", cadence, reason, rttMs, batteryPercent,
+                    charging ? " charging" : "", speedMps);
+        }
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Decision[] history = new Decision[HISTORY];
+    private int historyCount = 0;
+
+    private Cadence cadence = DEFAULT;
+    private double smoothedRttMs = -1;
+    private int batteryPercent = 100;
+    private boolean charging = false;
+    private double speedMps = 0;
+    private long speedAtMs = Long.MIN_VALUE;
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized Cadence getCadence() {
+        return cadence;
+    }
+
+    /** Decisions so far, oldest first, up to {@link #HISTORY}. */
+    public synchronized List<Decision> getDecisions() {
+        List<Decision> out = new ArrayList<>(Math.min(historyCount, HISTORY));
+        for (int i = Math.max(0, historyCount - HISTORY); i < historyCount; i++) {
+            out.add(history[i % HISTORY]);
+        }
+        return out;
+    }
+
+    /** A /predict request completed, or failed on the network, after {@code rttMs}. */
+    public void onRoundTrip(long nowMs, long rttMs) {
+        Decision decision;
+        synchronized (this) {
+            smoothedRttMs = smoothedRttMs < 0 ? rttMs : smoothedRttMs + RTT_SMOOTHING * (rttMs - smoothedRttMs);
+            decision = decide(nowMs, "rtt " + rttMs + "ms");
+        }
+        publish(decision);
+    }
+
+    public void onBattery(long nowMs, int percent, boolean charging) {
+        Decision decision;
+        synchronized (this) {
+            this.batteryPercent = percent;
+            this.charging = charging;
+            decision = decide(nowMs, "battery");
+        }
+        publish(decision);
+    }
+
+    public void onSpeed(long nowMs, double speedMps) {
+        Decision decision;
+        synchronized (this) {
+            this.speedMps = speedMps;
+            this.speedAtMs = nowMs;
+            decision = decide(nowMs, "speed");
+        }
+        publish(decision);
+    }
+
+    private Decision decide(long nowMs, String trigger) {
+        List<String> reasons = new ArrayList<>();
+        double speed = speedAtMs != Long.MIN_VALUE && nowMs - speedAtMs <= SPEED_STALE_MS ? speedMps : 0;
+        long hop;
+        long window;
+        if (speed >= CYCLING_MPS) {
+            hop = 1000;
+            window = 3000;
+            reasons.add("cycling");
+        } else if (speed >= WALKING_MPS) {
+            hop = 2000;
+            window = 4000;
+            reasons.add("walking");
+        } else {
+            hop = DEFAULT.getHopMs();
+            window = DEFAULT.getWindowMs();
+            reasons.add("stationary");
+        }
+
+        if (!charging && batteryPercent <= CRITICAL_BATTERY_PERCENT) {
+            hop *= 2;
+            reasons.add("battery critical");
+        } else if (!charging && batteryPercent <= LOW_BATTERY_PERCENT) {
+            hop = hop * 3 / 2;
+            reasons.add("battery low");
+        }
+
+        if (smoothedRttMs >= 0) {
+            long rttFloor = (long) (smoothedRttMs / DetectionPipeline.MAX_INFERENCES_IN_FLIGHT);
+            if (hop < rttFloor) {
+                hop = rttFloor;
+                reasons.add("hop held to backend rtt");
+            }
+        }
+
+        hop = clamp(hop, MIN_HOP_MS, MAX_HOP_MS);
+        window = clamp(window, MIN_WINDOW_MS, MAX_WINDOW_MS);
+
+        boolean changed = window != cadence.getWindowMs()
+                || Math.abs(hop - cadence.getHopMs()) >= MIN_HOP_CHANGE_MS;
+        if (changed) {
+            cadence = new Cadence(window, hop);
+        }
+        Decision decision = new Decision(nowMs, trigger, Math.round(Math.max(smoothedRttMs, 0)),
+                batteryPercent, charging, speed, cadence, changed, String.join(", ", reasons));
+        history[historyCount++ % HISTORY] = decision;
+        return decision;
+    }
+
+    private void publish(Decision decision) {
+        for (Listener listener : listeners) {
+            listener.onDecision(decision);
+        }
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
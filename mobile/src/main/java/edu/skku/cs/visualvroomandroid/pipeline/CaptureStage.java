@@ -0,0 +1,11 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import io.reactivex.rxjava3.core.Flowable;
+
+/**
+ * Source of interleaved stereo PCM blocks. Subscribing starts capture and
+ * cancelling stops it; reads block the subscribing thread.
+ */
+public interface CaptureStage {
+    Flowable<AudioBlock> blocks();
+}
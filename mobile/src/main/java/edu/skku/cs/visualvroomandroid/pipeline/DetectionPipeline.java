@@ -0,0 +1,262 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+import edu.skku.cs.visualvroomandroid.event.DetectionEventBus;
+import edu.skku.cs.visualvroomandroid.trace.TraceContext;
+import edu.skku.cs.visualvroomandroid.trace.TraceSpan;
+import edu.skku.cs.visualvroomandroid.trace.Tracer;
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.functions.Consumer;
+import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.functions.Predicate;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * capture → window → gate → encode → infer → smooth → alert, as one Flowable graph.
+ *
+ * Threading and backpressure per stage:
+ * <ul>
+ *   <li>capture: blocking reads on a dedicated thread, then a bounded drop-oldest buffer,
+ *       so a stalled consumer costs old audio rather than stalling the microphone</li>
+ *   <li>window/gate/encode: computation scheduler</li>
+ *   <li>infer: at most {@link #MAX_INFERENCES_IN_FLIGHT} requests; windows waiting for a
+ *       free slot sit in a drop-oldest buffer, so under a slow backend the newest audio wins.
+ *       With {@link Builder#batching} an {@link InferenceBatcher} takes over, packing the
+ *       windows that wait for a slot into one request</li>
+ *   <li>smooth/alert: a single ordered thread</li>
+ * </ul>
+ * Every stage is timed through {@link StageTimer}, and each window carries a
+ * {@link TraceContext} from its capture timestamp through to the published event.
+ *
+ * Disposing the subscription from {@link #start} cancels everything at once; {@link #finish}
+ * stops capture but lets windows already taken be classified and alerted first. A failed
+ * request only drops its window, but a capture or stage error ends the pipeline and is
+ * handed to {@link Builder#onError}; restarting is up to the owner.
+ */
+public class DetectionPipeline {
+    private static final String TAG = "DetectionPipeline";
+    private static final int CAPTURE_BUFFER_BLOCKS = 32;
+    private static final int MAX_PENDING_WINDOWS = 2;
+    static final int MAX_INFERENCES_IN_FLIGHT = 2;
+    private static final int TIMING_LOG_INTERVAL = 10;
+    // Upper bound on how long finish() waits for requests in flight
+    static final long FINISH_TIMEOUT_MS = 10_000;
+
+    private final CaptureStage capture;
+    private final StereoWindowStage windowStage;
+    private final Predicate<AudioWindow> gate;
+    private final Function<AudioWindow, EncodedWindow> encoder;
+    private final InferenceStage inference;
+    private final SmoothingStage smoothing;
+    private final Consumer<DetectionEvent> alert;
+    private final Scheduler captureScheduler;
+    private final InferenceBatcher.Config batching;
+    private final PrerollBuffer preroll;
+    private final Consumer<Throwable> onError;
+
+    private final StageTimer timer = new StageTimer();
+    private final Tracer tracer = Tracer.getInstance();
+    private final AtomicLong droppedBlocks = new AtomicLong();
+    private final AtomicLong droppedWindows = new AtomicLong();
+    private long inferences = 0;
+    private InferenceBatcher batcher;
+    private final PublishProcessor<Boolean> stopCapture = PublishProcessor.create();
+    private volatile Disposable subscription;
+
+    private DetectionPipeline(Builder builder) {
+        this.capture = builder.capture;
+        this.windowStage = builder.windowStage;
+        this.gate = builder.gate;
+        this.encoder = builder.encoder;
+        this.inference = builder.inference;
+        this.smoothing = builder.smoothing;
+        this.alert = builder.alert;
+        this.captureScheduler = builder.captureScheduler;
+        this.batching = builder.batching;
+        this.preroll = builder.preroll;
+        this.onError = builder.onError;
+    }
+
+    public Disposable start() {
+        windowStage.reset();
+
+        Flowable<AudioBlock> live = capture.blocks()
+                .subscribeOn(captureScheduler)
+                .takeUntil(stopCapture)
+                .onBackpressureBuffer(CAPTURE_BUFFER_BLOCKS, droppedBlocks::incrementAndGet,
+                        BackpressureOverflowStrategy.DROP_OLDEST);
+        // A pre-roll is replayed behind the drop-oldest buffer, so it isn't dropped as a burst
+        Flowable<AudioBlock> blocks = preroll == null
+                ? live
+                : Flowable.defer(() -> live.startWithIterable(preroll.drain()));
+
+        Flowable<EncodedWindow> encoded = blocks
+                .observeOn(Schedulers.computation(), false, CAPTURE_BUFFER_BLOCKS)
+                .concatMapIterable(timer.timed("window", windowStage::push), CAPTURE_BUFFER_BLOCKS)
+                // Capture through gain and windowing, measured from the newest frame's timestamp
+                .doOnNext(window -> tracer.record(window.getTrace(), TraceSpan.CAPTURE,
+                        window.getCaptureTimeNanos(), System.nanoTime()))
+                .filter(timer.timedFilter("gate", gate))
+                .onBackpressureBuffer(MAX_PENDING_WINDOWS, droppedWindows::incrementAndGet,
+                        BackpressureOverflowStrategy.DROP_OLDEST)
+                .map(timer.timed("encode", encoder));
+
+        Flowable<DetectionEvent> inferred;
+        if (batching == null) {
+            inferred = encoded.flatMapMaybe(timer.timedMaybe("infer", this::infer), false, MAX_INFERENCES_IN_FLIGHT);
+        } else {
+            // The batcher queues windows itself, so the pending buffer above never fills
+            batcher = new InferenceBatcher((BatchInferenceStage) inference, batching, timer);
+            inferred = encoded.compose(batcher)
+                    .map(result -> toEvent(result.getResponse(), result.getWindow().getTrace()));
+        }
+
+        subscription = inferred
+                .observeOn(Schedulers.single())
+                .concatMapMaybe(timer.timedMaybe("smooth",
+                        event -> Maybe.fromCallable(() -> smoothing.smooth(event))))
+                .map(timer.timed("alert", event -> {
+                    alert.accept(event);
+                    return event;
+                }))
+                .subscribe(event -> logTimings(), error -> {
+                    Log.e(TAG, "Detection pipeline failed: " + error.getMessage());
+                    onError.accept(error);
+                });
+        return subscription;
+    }
+
+    /**
+     * Stops capture, but lets the windows already taken run to the end: requests in flight
+     * are answered and alerted, then the pipeline completes. Whatever is still running after
+     * {@link #FINISH_TIMEOUT_MS} is cancelled.
+     */
+    public void finish() {
+        stopCapture.onNext(Boolean.TRUE);
+        Disposable running = subscription;
+        if (running != null) {
+            Schedulers.computation().scheduleDirect(running::dispose, FINISH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public StageTimer getTimer() {
+        return timer;
+    }
+
+    private Maybe<DetectionEvent> infer(EncodedWindow window) {
+        return inference.infer(window)
+                .map(response -> toEvent(response, window.getTrace()))
+                .doOnError(error -> Log.e(TAG, String.format("Inference failed for window %d: %s",
+                        window.getWindow().getWindowId(), error.getMessage())))
+                .onErrorComplete();
+    }
+
+    private DetectionEvent toEvent(PredictionResponse response, TraceContext trace) {
+        return new DetectionEvent(
+                DetectionEvent.Source.SERVICE,
+                response.getVehicleType(),
+                response.getDirection(),
+                response.getConfidence(),
+                response.isShouldNotify(),
+                System.currentTimeMillis(),
+                trace);
+    }
+
+    private void logTimings() {
+        if (++inferences % TIMING_LOG_INTERVAL == 0) {
+            timer.log();
+            Log.d(TAG, String.format("Dropped %d capture blocks, %d windows",
+                    droppedBlocks.get(), droppedWindows.get()));
+            if (batcher != null) {
+                Log.d(TAG, batcher.report());
+            }
+        }
+    }
+
+    public static class Builder {
+        private final CaptureStage capture;
+        private final StereoWindowStage windowStage;
+        private final InferenceStage inference;
+        private Predicate<AudioWindow> gate = window -> true;
+        private Function<AudioWindow, EncodedWindow> encoder = new PcmEncoder();
+        private SmoothingStage smoothing = event -> event;
+        private Consumer<DetectionEvent> alert = DetectionEventBus.getInstance()::publish;
+        private Scheduler captureScheduler = Schedulers.newThread();
+        private InferenceBatcher.Config batching;
+        private PrerollBuffer preroll;
+        private Consumer<Throwable> onError = error -> { };
+
+        public Builder(CaptureStage capture, StereoWindowStage windowStage, InferenceStage inference) {
+            this.capture = capture;
+            this.windowStage = windowStage;
+            this.inference = inference;
+        }
+
+        public Builder gate(Predicate<AudioWindow> gate) {
+            this.gate = gate;
+            return this;
+        }
+
+        public Builder encoder(Function<AudioWindow, EncodedWindow> encoder) {
+            this.encoder = encoder;
+            return this;
+        }
+
+        public Builder smoothing(SmoothingStage smoothing) {
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        public Builder alert(Consumer<DetectionEvent> alert) {
+            this.alert = alert;
+            return this;
+        }
+
+        public Builder captureScheduler(Scheduler captureScheduler) {
+            this.captureScheduler = captureScheduler;
+            return this;
+        }
+
+        /**
+         * Packs windows into shared requests when the backend falls behind; the inference
+         * stage must be a {@link BatchInferenceStage}.
+         */
+        public Builder batching(InferenceBatcher.Config batching) {
+            if (!(inference instanceof BatchInferenceStage)) {
+                throw new IllegalArgumentException("Batching needs a BatchInferenceStage");
+            }
+            this.batching = batching;
+            return this;
+        }
+
+        /**
+         * Starts with the audio {@code preroll} holds, so the first window doesn't wait for a
+         * full window of live capture.
+         */
+        public Builder preroll(PrerollBuffer preroll) {
+            this.preroll = preroll;
+            return this;
+        }
+
+        /** Told of the error that ended the pipeline, on whichever thread it surfaced. */
+        public Builder onError(Consumer<Throwable> onError) {
+            this.onError = onError;
+            return this;
+        }
+
+        public DetectionPipeline build() {
+            return new DetectionPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * State machine for the low-power monitoring mode.
+ *
+ * <ul>
+ *   <li>{@link State#SENTINEL}: only the {@link SentinelDetector} runs, on a low-rate mono stream</li>
+ *   <li>{@link State#AUDIT}: the full pipeline runs for {@link Config#auditDurationMs}, every
+ *       {@link Config#auditIntervalMs}, so a vehicle the sentinel misses is still caught eventually</li>
+ *   <li>{@link State#ACTIVE}: the full pipeline runs until neither the sentinel nor the
+ *       classifier has reported anything for {@link Config#quietTimeoutMs}</li>
+ * </ul>
+ * A sentinel trigger escalates from either other state to ACTIVE, as does a detection
+ * during an audit. So does a detection that arrives in SENTINEL: it can only come from
+ * the windows a just-finished audit or active spell was still classifying. Time only advances through {@link #update}, which the sentinel calls
+ * once per block, so no timer thread is needed.
+ *
+ * Time, process CPU time and uploaded bytes are accounted to the state they were spent in.
+ * Thread-safe; the listener is called outside the lock, on the thread that caused the change.
+ */
+public class DutyCycleController {
+
+    public enum State { SENTINEL, AUDIT, ACTIVE }
+
+    public interface Listener {
+        void onStateChanged(State from, State to, String reason);
+    }
+
+    public static class Config {
+        final long auditIntervalMs;
+        final long auditDurationMs;
+        final long quietTimeoutMs;
+
+        /**
+         * @param auditIntervalMs time in SENTINEL before an audit is due
+         * @param auditDurationMs how long an audit runs the full pipeline; at least one window
+         *                        plus a round trip, or its result arrives after it ends
+         * @param quietTimeoutMs  time without triggers or detections before ACTIVE drops back
+         */
+        public Config(long auditIntervalMs, long auditDurationMs, long quietTimeoutMs) {
+            this.auditIntervalMs = auditIntervalMs;
+            this.auditDurationMs = auditDurationMs;
+            this.quietTimeoutMs = quietTimeoutMs;
+        }
+
+        /**
+         * Audits every minute cover one 5 s window and a 3 s round trip; ACTIVE outlasts a
+         * passing siren.
+         */
+        public static Config defaults() {
+            return new Config(60_000, 8_000, 15_000);
+        }
+    }
+
+    public static class StateStats {
+        private long entries;
+        private long timeMs;
+        private long cpuMs;
+        private long bytesUploaded;
+
+        public long getEntries() { return entries; }
+        public long getTimeMs() { return timeMs; }
+        public long getCpuMs() { return cpuMs; }
+        public long getBytesUploaded() { return bytesUploaded; }
+
+        /** CPU time as a fraction of wall time spent in the state. */
+        public double getCpuLoad() { return timeMs == 0 ? 0 : (double) cpuMs / timeMs; }
+    }
+
+    private final Config config;
+    private final LongSupplier cpuClockMs;
+    private final Listener listener;
+    private final StateStats[] stats = new StateStats[State.values().length];
+
+    private State state = State.SENTINEL;
+    private boolean started = false;
+    private long enteredAtMs;
+    private long enteredAtCpuMs;
+    private long lastActivityMs;
+    private long nextAuditMs;
+
+    /**
+     * @param cpuClockMs process CPU time in milliseconds, e.g. {@code Process::getElapsedCpuTime}
+     */
+    public DutyCycleController(Config config, LongSupplier cpuClockMs, Listener listener) {
+        this.config = config;
+        this.cpuClockMs = cpuClockMs;
+        this.listener = listener;
+        for (State s : State.values()) {
+            stats[s.ordinal()] = new StateStats();
+        }
+    }
+
+    /**
+     * Advances the state machine; call once per sentinel block.
+     *
+     * @param triggered whether the sentinel detector fired on this block
+     * @return the state after this update
+     */
+    public State update(long nowMs, boolean triggered) {
+        State from;
+        State to;
+        String reason;
+        synchronized (this) {
+            if (!started) {
+                started = true;
+                enter(State.SENTINEL, nowMs);
+                nextAuditMs = nowMs + config.auditIntervalMs;
+            }
+            from = state;
+            if (triggered) {
+                lastActivityMs = nowMs;
+            }
+            switch (state) {
+                case SENTINEL:
+                    to = triggered ? State.ACTIVE : nowMs >= nextAuditMs ? State.AUDIT : State.SENTINEL;
+                    reason = triggered ? "sentinel trigger" : "audit due";
+                    break;
+                case AUDIT:
+                    to = triggered ? State.ACTIVE
+                            : nowMs - enteredAtMs >= config.auditDurationMs ? State.SENTINEL : State.AUDIT;
+                    reason = triggered ? "sentinel trigger" : "audit finished";
+                    break;
+                default:
+                    to = nowMs - lastActivityMs >= config.quietTimeoutMs ? State.SENTINEL : State.ACTIVE;
+                    reason = "quiet for " + config.quietTimeoutMs + " ms";
+                    break;
+            }
+            if (to == from) return to;
+            transition(to, nowMs);
+        }
+        listener.onStateChanged(from, to, reason);
+        return to;
+    }
+
+    /**
+     * Reports a classifier detection worth staying awake for; promotes an audit, or a
+     * sentinel whose last pipeline was still finishing, to ACTIVE.
+     */
+    public void onDetection(long nowMs) {
+        State from;
+        synchronized (this) {
+            lastActivityMs = nowMs;
+            if (state == State.ACTIVE) return;
+            from = state;
+            transition(State.ACTIVE, nowMs);
+        }
+        listener.onStateChanged(from, State.ACTIVE,
+                from == State.AUDIT ? "detection during audit" : "detection after pipeline stopped");
+    }
+
+    /** Counts bytes sent to the backend against the current state. */
+    public synchronized void addUploadedBytes(long bytes) {
+        stats[state.ordinal()].bytesUploaded += bytes;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Snapshot of the per-state totals, including time spent so far in the current state.
+     */
+    public synchronized StateStats stats(State s, long nowMs) {
+        StateStats copy = new StateStats();
+        StateStats live = stats[s.ordinal()];
+        copy.entries = live.entries;
+        copy.timeMs = live.timeMs;
+        copy.cpuMs = live.cpuMs;
+        copy.bytesUploaded = live.bytesUploaded;
+        if (started && s == state) {
+            copy.timeMs += nowMs - enteredAtMs;
+            copy.cpuMs += cpuClockMs.getAsLong() - enteredAtCpuMs;
+        }
+        return copy;
+    }
+
+    public synchronized String report(long nowMs) {
+        StringBuilder sb = new StringBuilder("Duty cycle:");
+        for (State s : State.values()) {
+            StateStats st = stats(s, nowMs);
+            sb.append(String.format(" %s[entries=%d time=%ds cpu=%dms (%.1f%%) uploaded=%dKB]",
+                    s.name().toLowerCase(Locale.ROOT), st.getEntries(), st.getTimeMs() / 1000, st.getCpuMs(),
+                    st.getCpuLoad() * 100, st.getBytesUploaded() / 1024));
+        }
+        return sb.toString();
+    }
+
+    private void transition(State to, long nowMs) {
+        StateStats leaving = stats[state.ordinal()];
+        long cpuNow = cpuClockMs.getAsLong();
+        leaving.timeMs += nowMs - enteredAtMs;
+        leaving.cpuMs += cpuNow - enteredAtCpuMs;
+
+        if (to == State.SENTINEL) {
+            nextAuditMs = nowMs + config.auditIntervalMs;
+        }
+        if (to == State.ACTIVE) {
+            lastActivityMs = nowMs;
+        }
+        state = to;
+        enteredAtMs = nowMs;
+        enteredAtCpuMs = cpuNow;
+        stats[to.ordinal()].entries++;
+    }
+
+    private void enter(State s, long nowMs) {
+        state = s;
+        enteredAtMs = nowMs;
+        enteredAtCpuMs = cpuClockMs.getAsLong();
+        stats[s.ordinal()].entries++;
+    }
+}
@@ -0,0 +1,25 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import edu.skku.cs.visualvroomandroid.trace.TraceContext;
+import edu.skku.cs.visualvroomandroid.trace.Traced;
+
+/**
+ * Upload payload for one window: little-endian PCM per channel.
+ */
+public class EncodedWindow implements Traced {
+    private final AudioWindow window;
+    private final byte[] leftData;
+    private final byte[] rightData;
+
+    public EncodedWindow(AudioWindow window, byte[] leftData, byte[] rightData) {
+        this.window = window;
+        this.leftData = leftData;
+        this.rightData = rightData;
+    }
+
+    public AudioWindow getWindow() { return window; }
+    public byte[] getLeftData() { return leftData; }
+    public byte[] getRightData() { return rightData; }
+    @Override
+    public TraceContext getTrace() { return window.getTrace(); }
+}
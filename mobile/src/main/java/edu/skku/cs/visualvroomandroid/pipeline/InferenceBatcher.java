@@ -0,0 +1,216 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import android.util.Log;
+
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.FlowableEmitter;
+import io.reactivex.rxjava3.core.FlowableTransformer;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.observers.DisposableSingleObserver;
+
+/**
+ * Sends encoded windows to a {@link BatchInferenceStage}, packing several into one request
+ * when the link falls behind.
+ *
+ * Windows wait in a queue of at most {@link Config#maxBatch}; past that the oldest is
+ * dropped, so under a slow backend the newest audio wins. Whenever a request slot is free,
+ * everything queued goes out together: a lone window as a plain request, two or more as one
+ * batch. Up to {@link Config#maxInFlight} requests run at once, but while the smoothed round
+ * trip is above {@link Config#congestedRttMs} only one does, so windows arriving meanwhile
+ * share the next request instead of each paying for its own headers and framing.
+ *
+ * Emits one {@link Result} per window with a usable prediction; a failed request is logged
+ * and its windows skipped. One instance per pipeline run.
+ */
+public class InferenceBatcher implements FlowableTransformer<EncodedWindow, InferenceBatcher.Result> {
+    private static final String TAG = "InferenceBatcher";
+    private static final double RTT_SMOOTHING = 0.25;
+
+    public static class Config {
+        final int maxBatch;
+        final int maxInFlight;
+        final long congestedRttMs;
+
+        /**
+         * @param maxBatch       windows per request, and the most that wait for a slot
+         * @param maxInFlight    concurrent requests while the link keeps up
+         * @param congestedRttMs smoothed round trip above which only one request runs
+         */
+        public Config(int maxBatch, int maxInFlight, long congestedRttMs) {
+            this.maxBatch = maxBatch;
+            this.maxInFlight = maxInFlight;
+            this.congestedRttMs = congestedRttMs;
+        }
+
+        /**
+         * Four 5 s windows of 16 kHz stereo are about 640 KB; congestion starts where a
+         * request no longer fits in half of the default 3 s hop.
+         */
+        public static Config defaults() {
+            return new Config(4, DetectionPipeline.MAX_INFERENCES_IN_FLIGHT, 1500);
+        }
+    }
+
+    /** A window and the prediction made for it. */
+    public static class Result {
+        private final EncodedWindow window;
+        private final PredictionResponse response;
+
+        Result(EncodedWindow window, PredictionResponse response) {
+            this.window = window;
+            this.response = response;
+        }
+
+        public EncodedWindow getWindow() { return window; }
+        public PredictionResponse getResponse() { return response; }
+    }
+
+    private final BatchInferenceStage inference;
+    private final Config config;
+    private final StageTimer timer;
+
+    private final ArrayDeque<EncodedWindow> pending = new ArrayDeque<>();
+    private int inFlight = 0;
+    private boolean upstreamDone = false;
+    private double smoothedRttMs = -1;
+    private long requests = 0;
+    private long batches = 0;
+    private long batchedWindows = 0;
+    private long dropped = 0;
+
+    public InferenceBatcher(BatchInferenceStage inference, Config config, StageTimer timer) {
+        this.inference = inference;
+        this.config = config;
+        this.timer = timer;
+    }
+
+    @Override
+    public Publisher<Result> apply(Flowable<EncodedWindow> windows) {
+        return Flowable.create(emitter -> {
+            FlowableEmitter<Result> out = emitter.serialize();
+            CompositeDisposable active = new CompositeDisposable();
+            out.setDisposable(active);
+            active.add(windows.subscribe(window -> {
+                offer(window);
+                dispatch(out, active);
+            }, out::tryOnError, () -> {
+                synchronized (this) {
+                    upstreamDone = true;
+                }
+                dispatch(out, active);
+            }));
+        }, BackpressureStrategy.BUFFER);
+    }
+
+    public synchronized boolean isCongested() {
+        return smoothedRttMs > config.congestedRttMs;
+    }
+
+    public synchronized String report() {
+        return String.format("Inference: %d requests, %d batches of %.1f windows, %d windows dropped, rtt %.0f ms%s",
+                requests, batches, batches == 0 ? 0.0 : (double) batchedWindows / batches, dropped,
+                Math.max(smoothedRttMs, 0), isCongested() ? " (congested)" : "");
+    }
+
+    synchronized void offer(EncodedWindow window) {
+        pending.addLast(window);
+        while (pending.size() > config.maxBatch) {
+            pending.removeFirst();
+            dropped++;
+        }
+    }
+
+    /** Everything queued, if a request slot is free; null otherwise. */
+    synchronized List<EncodedWindow> poll() {
+        int slots = isCongested() ? 1 : config.maxInFlight;
+        if (pending.isEmpty() || inFlight >= slots) return null;
+
+        List<EncodedWindow> batch = new ArrayList<>(pending);
+        pending.clear();
+        inFlight++;
+        requests++;
+        if (batch.size() > 1) {
+            batches++;
+            batchedWindows += batch.size();
+        }
+        return batch;
+    }
+
+    /** A request from {@link #poll} finished, successfully or not, after {@code rttMs}. */
+    synchronized void complete(long rttMs) {
+        inFlight--;
+        smoothedRttMs = smoothedRttMs < 0 ? rttMs : smoothedRttMs + RTT_SMOOTHING * (rttMs - smoothedRttMs);
+    }
+
+    private void dispatch(FlowableEmitter<Result> out, CompositeDisposable active) {
+        List<EncodedWindow> batch;
+        while ((batch = poll()) != null) {
+            final List<EncodedWindow> sent = batch;
+            final long startNanos = System.nanoTime();
+            DisposableSingleObserver<List<Result>> observer = new DisposableSingleObserver<List<Result>>() {
+                @Override
+                public void onSuccess(List<Result> results) {
+                    active.delete(this);
+                    finish(sent, startNanos);
+                    for (Result result : results) {
+                        out.onNext(result);
+                    }
+                    dispatch(out, active);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    active.delete(this);
+                    finish(sent, startNanos);
+                    Log.e(TAG, String.format("Inference failed for %d window(s) from %d: %s", sent.size(),
+                            sent.get(0).getWindow().getWindowId(), error.getMessage()));
+                    dispatch(out, active);
+                }
+            };
+            // Added before subscribing, since a local stage can finish synchronously
+            active.add(observer);
+            send(sent).subscribe(observer);
+        }
+
+        synchronized (this) {
+            if (!upstreamDone || inFlight > 0 || !pending.isEmpty()) return;
+        }
+        out.onComplete();
+    }
+
+    private Single<List<Result>> send(List<EncodedWindow> batch) {
+        if (batch.size() == 1) {
+            EncodedWindow window = batch.get(0);
+            return inference.infer(window)
+                    .map(response -> Collections.singletonList(new Result(window, response)))
+                    .defaultIfEmpty(Collections.emptyList());
+        }
+        return inference.inferBatch(batch).map(responses -> {
+            List<Result> results = new ArrayList<>(responses.size());
+            for (int i = 0; i < responses.size(); i++) {
+                PredictionResponse response = responses.get(i);
+                if (response.hasPrediction() && !response.isError()) {
+                    results.add(new Result(batch.get(i), response));
+                }
+            }
+            return results;
+        });
+    }
+
+    private void finish(List<EncodedWindow> batch, long startNanos) {
+        for (EncodedWindow window : batch) {
+            timer.record("infer", window, startNanos);
+        }
+        complete((System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
@@ -0,0 +1,12 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import io.reactivex.rxjava3.core.Maybe;
+
+/**
+ * Turns an encoded window into a prediction. Implementations complete empty when the
+ * window produced no usable prediction and signal an error for transport failures.
+ */
+public interface InferenceStage {
+    Maybe<PredictionResponse> infer(EncodedWindow window);
+}
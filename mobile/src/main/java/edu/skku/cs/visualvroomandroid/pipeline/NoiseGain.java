@@ -0,0 +1,119 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+/**
+ * Per-bin noise estimate and Wiener suppression gain for a stream of FFT frames, in the
+ * packed layout of JTransforms' {@code realForward}: {@code [re0, re(n/2), re1, im1, ...]}.
+ *
+ * The noise power of each bin is the slowly rising minimum of its smoothed power: it drops
+ * straight to any quieter frame and climbs at most {@link #RISE_DB_PER_S}, so steady wind
+ * and road rumble are learned within seconds while a siren or horn, which never holds one
+ * bin for long, is not. The gain is Wiener's, with the a priori SNR estimated
+ * decision-directed from the previous frame, and floored at {@link #FLOOR_DB} so what's
+ * left of the noise stays smooth rather than turning into musical tones.
+ *
+ * Works on spectra it is handed, so the same estimate serves time-domain suppression
+ * ({@link NoiseSuppressor}) and spectral features computed on-device. Allocates only in the
+ * constructor; one instance per stream, used from one thread.
+ */
+public class NoiseGain {
+    static final double RISE_DB_PER_S = 3;
+    static final double SMOOTHING_MS = 50;
+    static final double NOISE_BIAS = 1.5;       // The minimum of a smoothed periodogram sits below its mean
+    static final double DECISION_DIRECTED = 0.98;
+    static final double FLOOR_DB = -18;
+    private static final float MIN_POWER = 1e-2f;   // Keeps digital silence from pinning the estimate at zero
+
+    private final int bins;
+    private final float smoothing;
+    private final float rise;
+    private final float floor;
+
+    private final float[] smoothed;
+    private final float[] minimum;
+    private final float[] previousClean;        // |gain * X|^2 of the last frame
+    private final float[] gains;
+    private boolean started = false;
+
+    /**
+     * @param fftSize    length of the frames that will be passed in
+     * @param frameRate  frames per second, for the time constants
+     */
+    public NoiseGain(int fftSize, double frameRate) {
+        this.bins = fftSize / 2 + 1;
+        this.smoothing = (float) Math.exp(-1000 / (SMOOTHING_MS * frameRate));
+        this.rise = (float) Math.pow(10, RISE_DB_PER_S / 10 / frameRate);
+        this.floor = (float) Math.pow(10, FLOOR_DB / 20);
+        this.smoothed = new float[bins];
+        this.minimum = new float[bins];
+        this.previousClean = new float[bins];
+        this.gains = new float[bins];
+        reset();
+    }
+
+    /** Bins per frame, DC to Nyquist inclusive. */
+    public int getBins() {
+        return bins;
+    }
+
+    /** Writes each bin's power of a packed spectrum into {@code power}, or adds it when {@code add}. */
+    public static void power(float[] packed, float[] power, boolean add) {
+        int half = packed.length / 2;
+        float dc = packed[0] * packed[0];
+        float nyquist = packed[1] * packed[1];
+        power[0] = add ? power[0] + dc : dc;
+        power[half] = add ? power[half] + nyquist : nyquist;
+        for (int k = 1; k < half; k++) {
+            float re = packed[2 * k];
+            float im = packed[2 * k + 1];
+            power[k] = add ? power[k] + re * re + im * im : re * re + im * im;
+        }
+    }
+
+    /** Scales a packed spectrum by {@code gains}, one per bin. */
+    public static void apply(float[] packed, float[] gains) {
+        int half = packed.length / 2;
+        packed[0] *= gains[0];
+        packed[1] *= gains[half];
+        for (int k = 1; k < half; k++) {
+            packed[2 * k] *= gains[k];
+            packed[2 * k + 1] *= gains[k];
+        }
+    }
+
+    /**
+     * Takes the power of the next frame, {@link #getBins} long, and updates the noise
+     * estimate from it.
+     *
+     * @return the gain for each bin of that frame; reused by the next call
+     */
+    public float[] update(float[] power) {
+        if (!started) {
+            for (int k = 0; k < bins; k++) {
+                smoothed[k] = power[k];
+                minimum[k] = Math.max(power[k], MIN_POWER);
+                previousClean[k] = 0;
+            }
+            started = true;
+        }
+
+        for (int k = 0; k < bins; k++) {
+            float p = power[k];
+            float s = smoothing * smoothed[k] + (1 - smoothing) * p;
+            smoothed[k] = s;
+            minimum[k] = Math.max(MIN_POWER, Math.min(s, minimum[k] * rise));
+
+            float noise = (float) (minimum[k] * NOISE_BIAS);
+            float posterior = p / noise;
+            float prior = (float) (DECISION_DIRECTED * previousClean[k] / noise
+                    + (1 - DECISION_DIRECTED) * Math.max(posterior - 1, 0));
+            float gain = Math.max(prior / (1 + prior), floor);
+            gains[k] = gain;
+            previousClean[k] = gain * gain * p;
+        }
+        return gains;
+    }
+
+    public void reset() {
+        started = false;
+    }
+}
@@ -0,0 +1,123 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.jtransforms.fft.FloatFFT_1D;
+
+import java.util.Arrays;
+
+/**
+ * Streaming spectral noise suppression for interleaved stereo: short-time FFT, a
+ * {@link NoiseGain} per bin, inverse FFT and overlap-add.
+ *
+ * Frames are {@link #FFT_SIZE} samples every {@link #HOP} with a square-root Hann window on
+ * both analysis and synthesis, which at 50% overlap adds back to the input exactly when
+ * every gain is one. Both channels get the gain computed from their summed power, so the
+ * level and phase differences that direction finding relies on are left as they were.
+ * Output trails input by {@code FFT_SIZE - HOP} samples, 16 ms at 16 kHz.
+ *
+ * Every buffer, the FFT tables included, is allocated up front and reused, so processing
+ * allocates nothing per block. One instance per stream, used from one thread.
+ */
+public class NoiseSuppressor {
+    public static final int FFT_SIZE = 512;
+    public static final int HOP = FFT_SIZE / 2;
+
+    private final FloatFFT_1D fft = new FloatFFT_1D(FFT_SIZE);
+    private final NoiseGain noiseGain;
+    private final float[] window = new float[FFT_SIZE];
+
+    // The newest FFT_SIZE input samples per channel, oldest first
+    private final float[] inputLeft = new float[FFT_SIZE];
+    private final float[] inputRight = new float[FFT_SIZE];
+    private int fresh = 0;                      // Samples arrived since the last frame
+    private final float[] spectrumLeft = new float[FFT_SIZE];
+    private final float[] spectrumRight = new float[FFT_SIZE];
+    private final float[] power;
+    // Overlap-add sums; the first HOP samples are complete once a frame has been added
+    private final float[] outputLeft = new float[FFT_SIZE];
+    private final float[] outputRight = new float[FFT_SIZE];
+
+    public NoiseSuppressor(int sampleRate) {
+        this.noiseGain = new NoiseGain(FFT_SIZE, sampleRate / (double) HOP);
+        this.power = new float[noiseGain.getBins()];
+        // Periodic, so squares of windows HOP apart sum to one
+        for (int i = 0; i < FFT_SIZE; i++) {
+            window[i] = (float) Math.sin(Math.PI * i / FFT_SIZE);
+        }
+    }
+
+    /** The most output frames one call can produce for {@code inputFrames} of input. */
+    public int maxOutputFrames(int inputFrames) {
+        return (inputFrames / HOP + 1) * HOP;
+    }
+
+    /**
+     * Takes {@code length} interleaved samples and writes whatever output is ready to
+     * {@code out}, which must hold {@link #maxOutputFrames} frames.
+     *
+     * @return frames written
+     */
+    public int process(short[] in, int length, short[] out) {
+        int outFrames = 0;
+        int offset = FFT_SIZE - HOP;
+        for (int i = 0; i + 1 < length; i += 2) {
+            inputLeft[offset + fresh] = in[i];
+            inputRight[offset + fresh] = in[i + 1];
+            if (++fresh == HOP) {
+                suppressFrame();
+                int base = outFrames * 2;
+                for (int j = 0; j < HOP; j++) {
+                    out[base + 2 * j] = clip(outputLeft[j]);
+                    out[base + 2 * j + 1] = clip(outputRight[j]);
+                }
+                outFrames += HOP;
+                shift(inputLeft);
+                shift(inputRight);
+                shift(outputLeft);
+                shift(outputRight);
+                fresh = 0;
+            }
+        }
+        return outFrames;
+    }
+
+    public void reset() {
+        Arrays.fill(inputLeft, 0);
+        Arrays.fill(inputRight, 0);
+        Arrays.fill(outputLeft, 0);
+        Arrays.fill(outputRight, 0);
+        fresh = 0;
+        noiseGain.reset();
+    }
+
+    private void suppressFrame() {
+        for (int i = 0; i < FFT_SIZE; i++) {
+            spectrumLeft[i] = inputLeft[i] * window[i];
+            spectrumRight[i] = inputRight[i] * window[i];
+        }
+        fft.realForward(spectrumLeft);
+        fft.realForward(spectrumRight);
+
+        NoiseGain.power(spectrumLeft, power, false);
+        NoiseGain.power(spectrumRight, power, true);
+        float[] gains = noiseGain.update(power);
+        NoiseGain.apply(spectrumLeft, gains);
+        NoiseGain.apply(spectrumRight, gains);
+
+        fft.realInverse(spectrumLeft, true);
+        fft.realInverse(spectrumRight, true);
+        for (int i = 0; i < FFT_SIZE; i++) {
+            outputLeft[i] += spectrumLeft[i] * window[i];
+            outputRight[i] += spectrumRight[i] * window[i];
+        }
+    }
+
+    // Drops the oldest HOP samples and zeroes the freed tail
+    private static void shift(float[] buffer) {
+        System.arraycopy(buffer, HOP, buffer, 0, FFT_SIZE - HOP);
+        Arrays.fill(buffer, FFT_SIZE - HOP, FFT_SIZE, 0);
+    }
+
+    private static short clip(float value) {
+        return (short) Math.max(Math.min(Math.round(value), 32767), -32768);
+    }
+}
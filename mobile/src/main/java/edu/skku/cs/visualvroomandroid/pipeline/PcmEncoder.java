@@ -0,0 +1,24 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import io.reactivex.rxjava3.functions.Function;
+
+/**
+ * Encodes a window as little-endian 16-bit PCM, one array per channel. The window is
+ * already levelled by {@link BlockLimiter}, so samples go out as they are.
+ */
+public class PcmEncoder implements Function<AudioWindow, EncodedWindow> {
+    @Override
+    public EncodedWindow apply(AudioWindow window) {
+        return new EncodedWindow(window, encode(window.getLeft()), encode(window.getRight()));
+    }
+
+    private static byte[] encode(short[] samples) {
+        byte[] bytes = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            short value = samples[i];
+            bytes[i * 2] = (byte) (value & 0xff);
+            bytes[i * 2 + 1] = (byte) ((value >> 8) & 0xff);
+        }
+        return bytes;
+    }
+}
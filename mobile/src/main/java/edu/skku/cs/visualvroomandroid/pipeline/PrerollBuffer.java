@@ -0,0 +1,51 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.functions.Consumer;
+
+/**
+ * Keeps the most recent blocks of a stream, up to a fixed number of frames, so a pipeline
+ * started later can begin with a full window instead of an empty ring.
+ *
+ * The low-power mode feeds it while only the sentinel runs; when the full pipeline starts,
+ * it replays what was kept ahead of live capture (see {@link DetectionPipeline.Builder#preroll}).
+ * Blocks are held as they arrive, not copied, so the source must not reuse their arrays.
+ * Thread-safe.
+ */
+public class PrerollBuffer implements Consumer<AudioBlock> {
+    private final int capacitySamples;
+    private final ArrayDeque<AudioBlock> blocks = new ArrayDeque<>();
+    private int heldSamples = 0;
+
+    /**
+     * @param capacitySamples interleaved samples to keep, e.g. one window's frames times channels
+     */
+    public PrerollBuffer(int capacitySamples) {
+        this.capacitySamples = capacitySamples;
+    }
+
+    @Override
+    public synchronized void accept(AudioBlock block) {
+        blocks.addLast(block);
+        heldSamples += block.getLength();
+        // Keep whole blocks; drop the oldest once the rest still fill the capacity
+        while (heldSamples - blocks.peekFirst().getLength() >= capacitySamples) {
+            heldSamples -= blocks.removeFirst().getLength();
+        }
+    }
+
+    /** Everything held, oldest first, leaving the buffer empty. */
+    public synchronized List<AudioBlock> drain() {
+        List<AudioBlock> out = new ArrayList<>(blocks);
+        blocks.clear();
+        heldSamples = 0;
+        return out;
+    }
+
+    public synchronized int getHeldSamples() {
+        return heldSamples;
+    }
+}
@@ -0,0 +1,73 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import io.reactivex.rxjava3.functions.Predicate;
+
+/**
+ * Cheap always-on trigger for the low-power mode, run on a low-rate mono stream.
+ *
+ * Each block's energy is measured after a first-difference high-pass, which keeps the
+ * 1-4 kHz band where sirens, horns and bells sit and suppresses wind and road rumble. The
+ * detector fires once that energy has stayed {@link #TRIGGER_RATIO} above an adaptive noise
+ * floor for {@link #HOLD_BLOCKS} blocks in a row. The floor follows quieter blocks quickly,
+ * but climbs under louder ones by at most {@link #RISE_DB_PER_S}: a lasting rise in ambient
+ * noise, such as stepping out onto a street, is learned within seconds, while a passing
+ * siren keeps the detector firing for as long as it stands that far above the floor. A few
+ * multiply-adds per sample; one instance per stream, used from one thread.
+ */
+public class SentinelDetector implements Predicate<AudioBlock> {
+    static final double TRIGGER_RATIO = 4.0;    // 6 dB over the noise floor
+    static final int HOLD_BLOCKS = 5;           // 100 ms of 20 ms blocks
+    static final double RISE_DB_PER_S = 1;
+    private static final double FLOOR_ADAPT = 0.02;
+
+    private final double minEnergy;
+    private final double risePerSample;         // Log of the floor's growth per sample while loud
+    private double noiseFloor = -1;             // Unset until the first block
+    private int loudBlocks = 0;
+    private short previous = 0;                 // Carried so block edges don't add a step
+
+    /**
+     * @param sampleRate frames per second of the stream
+     * @param minRms high-passed RMS, as a fraction of full scale, below which nothing triggers
+     */
+    public SentinelDetector(int sampleRate, double minRms) {
+        this.minEnergy = minRms * minRms;
+        this.risePerSample = RISE_DB_PER_S / 10 * Math.log(10) / sampleRate;
+    }
+
+    @Override
+    public boolean test(AudioBlock block) {
+        short[] samples = block.getSamples();
+        int length = block.getLength();
+        if (length == 0) return loudBlocks >= HOLD_BLOCKS;
+
+        double sum = 0;
+        short last = previous;
+        for (int i = 0; i < length; i++) {
+            double d = (samples[i] - last) / 32768.0;
+            sum += d * d;
+            last = samples[i];
+        }
+        previous = last;
+        double energy = sum / length;
+
+        if (noiseFloor < 0) {
+            noiseFloor = energy;
+        }
+        boolean loud = energy >= minEnergy && energy > noiseFloor * TRIGGER_RATIO;
+        if (loud) {
+            loudBlocks++;
+            noiseFloor = Math.min(energy, noiseFloor * Math.exp(risePerSample * length));
+        } else {
+            loudBlocks = 0;
+            noiseFloor += FLOOR_ADAPT * (energy - noiseFloor);
+        }
+        return loudBlocks >= HOLD_BLOCKS;
+    }
+
+    public void reset() {
+        noiseFloor = -1;
+        loudBlocks = 0;
+        previous = 0;
+    }
+}
@@ -0,0 +1,200 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponseDecoder;
+import edu.skku.cs.visualvroomandroid.trace.TraceContext;
+import edu.skku.cs.visualvroomandroid.trace.TraceSpan;
+import edu.skku.cs.visualvroomandroid.trace.Tracer;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Uploads both channels to the backend's /predict endpoint. The window's trace context
+ * goes along as the {@link TraceContext#HEADER} header, so server logs can be joined
+ * with the on-device trace. Windows with a {@link WindowQuality} also carry
+ * {@code clip_rate}, {@code limited_rate} and {@code gain_db} (comma-separated dB, oldest
+ * first) fields, so the backend can skip or down-rank distorted audio.
+ *
+ * Batches go to a separate endpoint as one multipart body, with the fields of window
+ * {@code i} suffixed {@code _i}, a {@code count} field, and the windows' trace contexts
+ * comma-separated in one header. The backend answers with a {@code results} array in the
+ * same order.
+ */
+public class ServerInferenceStage implements BatchInferenceStage {
+    private static final String TAG = "ServerInferenceStage";
+    private static final MediaType AUDIO_TYPE = MediaType.parse("application/octet-stream");
+
+    private final OkHttpClient client;
+    private final String serverUrl;
+    private final String batchUrl;
+    private final Tracer tracer = Tracer.getInstance();
+
+    public ServerInferenceStage(OkHttpClient client, String serverUrl) {
+        this(client, serverUrl, serverUrl + "_batch");
+    }
+
+    public ServerInferenceStage(OkHttpClient client, String serverUrl, String batchUrl) {
+        this.client = client;
+        this.serverUrl = serverUrl;
+        this.batchUrl = batchUrl;
+    }
+
+    @Override
+    public Maybe<PredictionResponse> infer(EncodedWindow window) {
+        return Maybe.create(emitter -> {
+            MultipartBody.Builder form = new MultipartBody.Builder()
+                    .setType(MultipartBody.FORM)
+                    .addFormDataPart("sample_rate", String.valueOf(window.getWindow().getSampleRate()))
+                    .addFormDataPart("left_channel", "left.raw",
+                            RequestBody.create(AUDIO_TYPE, window.getLeftData()))
+                    .addFormDataPart("right_channel", "right.raw",
+                            RequestBody.create(AUDIO_TYPE, window.getRightData()));
+            addQuality(form, window, "");
+            RequestBody body = form.build();
+
+            TraceContext trace = window.getTrace();
+            Request request = new Request.Builder()
+                    .url(serverUrl)
+                    .header(TraceContext.HEADER, trace.toHeader())
+                    .post(body)
+                    .build();
+            int uploadBytes = uploadBytes(window);
+
+            Log.d(TAG, String.format("Sending window %d to %s (%d + %d bytes)",
+                    window.getWindow().getWindowId(), serverUrl,
+                    window.getLeftData().length, window.getRightData().length));
+
+            Call call = client.newCall(request);
+            emitter.setCancellable(call::cancel);
+            final long sentAt = System.nanoTime();
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    emitter.tryOnError(e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    long headersAt = System.nanoTime();
+                    tracer.record(trace, TraceSpan.UPLOAD, sentAt, headersAt, uploadBytes);
+                    try (ResponseBody responseBody = response.body()) {
+                        if (!response.isSuccessful() || responseBody == null) {
+                            String errorBody = responseBody != null ? responseBody.string() : "No error body";
+                            emitter.tryOnError(new IOException(
+                                    String.format("Server error %d: %s", response.code(), errorBody)));
+                            return;
+                        }
+
+                        PredictionResponse result = PredictionResponseDecoder.decode(
+                                responseBody.charStream(), new PredictionResponse());
+                        tracer.record(trace, TraceSpan.RESPONSE, headersAt, System.nanoTime(), response.code());
+                        if (result.hasPrediction() && !result.isError()) {
+                            emitter.onSuccess(result);
+                        } else {
+                            emitter.onComplete();
+                        }
+                    } catch (IOException e) {
+                        emitter.tryOnError(e);
+                    }
+                }
+            });
+        });
+    }
+
+    @Override
+    public Single<List<PredictionResponse>> inferBatch(List<EncodedWindow> windows) {
+        return Single.create(emitter -> {
+            MultipartBody.Builder body = new MultipartBody.Builder()
+                    .setType(MultipartBody.FORM)
+                    .addFormDataPart("count", String.valueOf(windows.size()));
+            List<String> traces = new ArrayList<>(windows.size());
+            int totalBytes = 0;
+            for (int i = 0; i < windows.size(); i++) {
+                EncodedWindow window = windows.get(i);
+                // Cadence changes can leave windows of different rates in one batch
+                body.addFormDataPart("sample_rate_" + i, String.valueOf(window.getWindow().getSampleRate()))
+                        .addFormDataPart("left_channel_" + i, "left_" + i + ".raw",
+                                RequestBody.create(AUDIO_TYPE, window.getLeftData()))
+                        .addFormDataPart("right_channel_" + i, "right_" + i + ".raw",
+                                RequestBody.create(AUDIO_TYPE, window.getRightData()));
+                addQuality(body, window, "_" + i);
+                traces.add(window.getTrace().toHeader());
+                totalBytes += uploadBytes(window);
+            }
+
+            Request request = new Request.Builder()
+                    .url(batchUrl)
+                    .header(TraceContext.HEADER, String.join(",", traces))
+                    .post(body.build())
+                    .build();
+
+            Log.d(TAG, String.format("Sending %d windows (%d-%d) to %s (%d bytes)", windows.size(),
+                    windows.get(0).getWindow().getWindowId(),
+                    windows.get(windows.size() - 1).getWindow().getWindowId(), batchUrl, totalBytes));
+
+            Call call = client.newCall(request);
+            emitter.setCancellable(call::cancel);
+            final long sentAt = System.nanoTime();
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    emitter.tryOnError(e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    long headersAt = System.nanoTime();
+                    for (EncodedWindow window : windows) {
+                        tracer.record(window.getTrace(), TraceSpan.UPLOAD, sentAt, headersAt, uploadBytes(window));
+                    }
+                    try (ResponseBody responseBody = response.body()) {
+                        if (!response.isSuccessful() || responseBody == null) {
+                            String errorBody = responseBody != null ? responseBody.string() : "No error body";
+                            emitter.tryOnError(new IOException(
+                                    String.format("Server error %d: %s", response.code(), errorBody)));
+                            return;
+                        }
+
+                        List<PredictionResponse> results = PredictionResponseDecoder.decodeBatch(
+                                responseBody.charStream(), windows.size());
+                        long decodedAt = System.nanoTime();
+                        for (EncodedWindow window : windows) {
+                            tracer.record(window.getTrace(), TraceSpan.RESPONSE, headersAt, decodedAt, response.code());
+                        }
+                        emitter.onSuccess(results);
+                    } catch (IOException e) {
+                        emitter.tryOnError(e);
+                    }
+                }
+            });
+        });
+    }
+
+    private static void addQuality(MultipartBody.Builder form, EncodedWindow window, String suffix) {
+        WindowQuality quality = window.getWindow().getQuality();
+        if (quality == null) return;
+        form.addFormDataPart("clip_rate" + suffix, String.format(Locale.US, "%.5f", quality.getClipRate()))
+                .addFormDataPart("limited_rate" + suffix, String.format(Locale.US, "%.3f", quality.getLimitedRate()))
+                .addFormDataPart("gain_db" + suffix, quality.formatGainDb());
+    }
+
+    private static int uploadBytes(EncodedWindow window) {
+        return window.getLeftData().length + window.getRightData().length;
+    }
+}
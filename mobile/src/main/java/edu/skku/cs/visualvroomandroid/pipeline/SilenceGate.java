@@ -0,0 +1,23 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import io.reactivex.rxjava3.functions.Predicate;
+
+/**
+ * Drops windows where both channels are effectively silent, so they are never encoded or uploaded.
+ */
+public class SilenceGate implements Predicate<AudioWindow> {
+    private final double minRms;
+
+    /**
+     * @param minRms minimum RMS as a fraction of full scale, e.g. 0.001
+     */
+    public SilenceGate(double minRms) {
+        this.minRms = minRms;
+    }
+
+    @Override
+    public boolean test(AudioWindow window) {
+        return AudioWindow.rms(window.getLeft()) >= minRms
+                || AudioWindow.rms(window.getRight()) >= minRms;
+    }
+}
@@ -0,0 +1,13 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+
+/**
+ * Turns the stream of per-window detections into alert decisions.
+ */
+public interface SmoothingStage {
+    /**
+     * @return the event to pass on to the alert stage, or null to suppress it
+     */
+    DetectionEvent smooth(DetectionEvent event);
+}
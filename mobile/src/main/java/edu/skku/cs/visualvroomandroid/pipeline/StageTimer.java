@@ -0,0 +1,116 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.skku.cs.visualvroomandroid.trace.TraceSpan;
+import edu.skku.cs.visualvroomandroid.trace.Traced;
+import edu.skku.cs.visualvroomandroid.trace.Tracer;
+
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.functions.Predicate;
+
+/**
+ * Per-stage latency accounting for {@link DetectionPipeline}. Stage functions are
+ * wrapped so each call records its wall time under the stage name. Stages with a
+ * {@link TraceSpan} also record a span on the trace of each {@link Traced} value.
+ */
+public class StageTimer {
+    private static final String TAG = "StageTimer";
+
+    public static class Stats {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        public synchronized long getCount() { return count; }
+        public synchronized double getAverageMillis() { return count == 0 ? 0 : totalNanos / 1e6 / count; }
+        public synchronized double getMaxMillis() { return maxNanos / 1e6; }
+    }
+
+    private final Map<String, Stats> stages = new LinkedHashMap<>();
+    private final Tracer tracer = Tracer.getInstance();
+
+    public synchronized Stats stats(String stage) {
+        Stats stats = stages.get(stage);
+        if (stats == null) {
+            stats = new Stats();
+            stages.put(stage, stats);
+        }
+        return stats;
+    }
+
+    public <T, R> Function<T, R> timed(String stage, Function<T, R> function) {
+        Stats stats = stats(stage);
+        TraceSpan span = TraceSpan.forStage(stage);
+        return value -> {
+            long start = System.nanoTime();
+            try {
+                return function.apply(value);
+            } finally {
+                finish(stats, span, value, start);
+            }
+        };
+    }
+
+    public <T> Predicate<T> timedFilter(String stage, Predicate<T> predicate) {
+        Stats stats = stats(stage);
+        TraceSpan span = TraceSpan.forStage(stage);
+        return value -> {
+            long start = System.nanoTime();
+            try {
+                return predicate.test(value);
+            } finally {
+                finish(stats, span, value, start);
+            }
+        };
+    }
+
+    /**
+     * Times an asynchronous stage from subscription to its terminal event.
+     */
+    public <T, R> Function<T, Maybe<R>> timedMaybe(String stage, Function<T, Maybe<R>> function) {
+        Stats stats = stats(stage);
+        TraceSpan span = TraceSpan.forStage(stage);
+        return value -> Maybe.defer(() -> {
+            long start = System.nanoTime();
+            return function.apply(value)
+                    .doOnEvent((result, error) -> finish(stats, span, value, start));
+        });
+    }
+
+    /**
+     * Records a stage that started at {@code startNanos} and ends now, for work that isn't
+     * one call per value, such as a request carrying several windows.
+     */
+    public void record(String stage, Object value, long startNanos) {
+        finish(stats(stage), TraceSpan.forStage(stage), value, startNanos);
+    }
+
+    private void finish(Stats stats, TraceSpan span, Object value, long start) {
+        long end = System.nanoTime();
+        stats.record(end - start);
+        if (span != null && value instanceof Traced) {
+            tracer.record(((Traced) value).getTrace(), span, start, end);
+        }
+    }
+
+    public synchronized void log() {
+        StringBuilder summary = new StringBuilder("Stage timings:");
+        for (Map.Entry<String, Stats> entry : stages.entrySet()) {
+            Stats stats = entry.getValue();
+            summary.append(String.format(" %s[n=%d avg=%.2fms max=%.2fms]",
+                    entry.getKey(), stats.getCount(), stats.getAverageMillis(), stats.getMaxMillis()));
+        }
+        Log.d(TAG, summary.toString());
+    }
+}
@@ -0,0 +1,66 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Local stand-in for the inference backend, used for offline development and tests.
+ *
+ * It has no classifier: every window loud enough to pass the threshold is reported
+ * as {@code vehicleType}, with the direction taken from the louder channel and the
+ * confidence from the inter-channel level difference. Batches get the same treatment
+ * per window, with quiet windows answered by an empty response.
+ */
+public class StandInInferenceStage implements BatchInferenceStage {
+    private final String vehicleType;
+    private final double minRms;
+
+    public StandInInferenceStage(String vehicleType, double minRms) {
+        this.vehicleType = vehicleType;
+        this.minRms = minRms;
+    }
+
+    @Override
+    public Maybe<PredictionResponse> infer(EncodedWindow window) {
+        // fromCallable completes empty when predict() returns null
+        return Maybe.fromCallable(() -> predict(window.getWindow()));
+    }
+
+    @Override
+    public Single<List<PredictionResponse>> inferBatch(List<EncodedWindow> windows) {
+        return Single.fromCallable(() -> {
+            List<PredictionResponse> results = new ArrayList<>(windows.size());
+            for (EncodedWindow window : windows) {
+                PredictionResponse response = predict(window.getWindow());
+                if (response == null) {
+                    response = new PredictionResponse();
+                    response.setStatus("success");
+                    response.setTooQuiet(true);
+                }
+                results.add(response);
+            }
+            return results;
+        });
+    }
+
+    PredictionResponse predict(AudioWindow window) {
+        double leftRms = AudioWindow.rms(window.getLeft());
+        double rightRms = AudioWindow.rms(window.getRight());
+        if (Math.max(leftRms, rightRms) < minRms) {
+            return null;
+        }
+
+        PredictionResponse response = new PredictionResponse();
+        response.setStatus("success");
+        double balance = Math.abs(leftRms - rightRms) / (leftRms + rightRms);
+        response.setVehicleType(vehicleType);
+        response.setDirection(leftRms >= rightRms ? "L" : "R");
+        response.setConfidence(0.5 + 0.5 * balance);
+        response.setShouldNotify(response.getConfidence() > 0.97);
+        return response;
+    }
+}
@@ -0,0 +1,154 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import edu.skku.cs.visualvroomandroid.trace.TraceContext;
+
+/**
+ * Optionally cleans interleaved stereo blocks with a {@link NoiseSuppressor}, levels them
+ * with a {@link BlockLimiter}, keeps the most recent
+ * window per channel in fixed ring buffers, and emits a window once every hop, carrying
+ * the limiter's {@link WindowQuality} for the audio in it.
+ *
+ * Window and hop can be changed while running with {@link #setCadence}; the rings are
+ * sized for the largest window, so a change takes effect from the next sample.
+ */
+public class StereoWindowStage {
+    private static final String TAG = "StereoWindowStage";
+
+    private final int sampleRate;
+    private final int capacity;
+    // Window and hop in samples, packed so a change from another thread is seen whole
+    private volatile long cadence;
+    private final BlockLimiter limiter;
+    private short[] levelled = new short[0];   // Limiter output for one block, interleaved
+    private final NoiseSuppressor suppressor;  // Null when suppression is off
+    private short[] denoised = new short[0];   // Suppressor output for one block, interleaved
+
+    // Ring buffers for left and right channels
+    private final short[] leftRing;
+    private final short[] rightRing;
+    private int writePos = 0;
+    private int filled = 0;
+    private int samplesSinceEmit = 0;
+    private long nextWindowId = 0;
+    // High half of every trace id, so traces from separate runs never collide
+    private final long traceRun = (long) new Random().nextInt() << 32;
+
+    /**
+     * @param windowSamples the initial and largest window
+     */
+    public StereoWindowStage(int sampleRate, int windowSamples, int hopSamples) {
+        this(sampleRate, windowSamples, hopSamples, false);
+    }
+
+    /**
+     * @param windowSamples the initial and largest window
+     * @param suppressNoise run a {@link NoiseSuppressor} ahead of the limiter, so steady noise
+     *                      neither reaches the upload nor sets the gain
+     */
+    public StereoWindowStage(int sampleRate, int windowSamples, int hopSamples, boolean suppressNoise) {
+        this.sampleRate = sampleRate;
+        this.capacity = windowSamples;
+        this.limiter = new BlockLimiter(sampleRate, windowSamples);
+        this.suppressor = suppressNoise ? new NoiseSuppressor(sampleRate) : null;
+        this.leftRing = new short[windowSamples];
+        this.rightRing = new short[windowSamples];
+        setCadence(windowSamples, hopSamples);
+    }
+
+    /**
+     * Changes window and hop lengths; the window is capped at the constructor's.
+     */
+    public void setCadence(int windowSamples, int hopSamples) {
+        int window = Math.max(1, Math.min(windowSamples, capacity));
+        cadence = ((long) window << 32) | Math.max(1, hopSamples);
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return the windows completed by this block; usually none
+     */
+    public List<AudioWindow> push(AudioBlock block) {
+        AudioWindow completed = null;
+        long current = cadence;
+        int windowSamples = (int) (current >>> 32);
+        int hopSamples = (int) current;
+
+        // Scratch is only reallocated if a longer block than any before arrives
+        short[] samples = block.getSamples();
+        int length = block.getLength();
+        // Clipping is a property of the mic input; the suppressor's output no longer shows it
+        int inputClipped = -1;
+        if (suppressor != null) {
+            inputClipped = BlockLimiter.countClipped(samples, length);
+            int maxDenoised = suppressor.maxOutputFrames(length / 2);
+            if (denoised.length < maxDenoised * 2) {
+                denoised = new short[maxDenoised * 2];
+            }
+            length = suppressor.process(samples, length, denoised) * 2;
+            samples = denoised;
+        }
+        int maxFrames = limiter.maxOutputFrames(length / 2);
+        if (levelled.length < maxFrames * 2) {
+            levelled = new short[maxFrames * 2];
+        }
+        int frames = limiter.process(samples, length, levelled, inputClipped);
+
+        for (int f = 0; f < frames; f++) {
+            leftRing[writePos] = levelled[2 * f];
+            rightRing[writePos] = levelled[2 * f + 1];
+            writePos = (writePos + 1) % capacity;
+            if (filled < capacity) {
+                filled++;
+            }
+
+            // Emit once a full window is buffered, then every hop
+            samplesSinceEmit++;
+            if (filled >= windowSamples && samplesSinceEmit >= hopSamples) {
+                samplesSinceEmit = 0;
+                completed = snapshot(windowSamples, block.getCaptureTimeNanos(),
+                        limiter.quality(windowSamples, frames - 1 - f));
+            }
+        }
+
+        if (completed != null) {
+            Log.d(TAG, "Window " + completed.getWindowId() + ": " + completed.getQuality());
+        }
+        return completed == null ? Collections.<AudioWindow>emptyList() : Collections.singletonList(completed);
+    }
+
+    public void reset() {
+        writePos = 0;
+        filled = 0;
+        samplesSinceEmit = 0;
+        limiter.reset();
+        if (suppressor != null) {
+            suppressor.reset();
+        }
+    }
+
+    private AudioWindow snapshot(int windowSamples, long captureTimeNanos, WindowQuality quality) {
+        short[] left = new short[windowSamples];
+        short[] right = new short[windowSamples];
+
+        // The window's oldest sample sits windowSamples behind writePos
+        int start = (writePos - windowSamples + capacity) % capacity;
+        int tail = Math.min(windowSamples, capacity - start);
+        System.arraycopy(leftRing, start, left, 0, tail);
+        System.arraycopy(leftRing, 0, left, tail, windowSamples - tail);
+        System.arraycopy(rightRing, start, right, 0, tail);
+        System.arraycopy(rightRing, 0, right, tail, windowSamples - tail);
+
+        long windowId = nextWindowId++;
+        TraceContext trace = new TraceContext(traceRun | (windowId & 0xffffffffL), captureTimeNanos);
+        return new AudioWindow(windowId, left, right, sampleRate, trace, quality);
+    }
+}
@@ -0,0 +1,52 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import java.util.Locale;
+
+/**
+ * How a window's audio fared in {@link BlockLimiter}: how much of the input was already
+ * clipped at the mic, how often the limiter had to pull the gain below the compressor's,
+ * and the gain applied across the window. Sent with the upload so the backend can skip
+ * or down-rank distorted windows.
+ */
+public class WindowQuality {
+    /** Points in the gain history, evenly spread over the window. */
+    public static final int GAIN_POINTS = 8;
+
+    private final double clipRate;
+    private final double limitedRate;
+    private final float[] gainDb;
+
+    public WindowQuality(double clipRate, double limitedRate, float[] gainDb) {
+        this.clipRate = clipRate;
+        this.limitedRate = limitedRate;
+        this.gainDb = gainDb;
+    }
+
+    /** Fraction of input samples at full scale, i.e. clipped before any gain was applied. */
+    public double getClipRate() { return clipRate; }
+    /** Fraction of gain blocks where the peak limit, not the compressor, set the gain. */
+    public double getLimitedRate() { return limitedRate; }
+    /** Gain in dB over the window, oldest first, {@link #GAIN_POINTS} long. */
+    public float[] getGainDb() { return gainDb; }
+
+    public float getMinGainDb() {
+        float min = Float.POSITIVE_INFINITY;
+        for (float gain : gainDb) min = Math.min(min, gain);
+        return min;
+    }
+
+    /** The gain history as comma-separated dB with one decimal, for upload. */
+    public String formatGainDb() {
+        StringBuilder text = new StringBuilder(gainDb.length * 5);
+        for (int i = 0; i < gainDb.length; i++) {
+            if (i > 0) text.append(',');
+            text.append(String.format(Locale.US, "%.1f", gainDb[i]));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "clip %.4f, limited %.2f, gain [%s] dB", clipRate, limitedRate, formatGainDb());
+    }
+}
@@ -0,0 +1,45 @@
+package edu.skku.cs.visualvroomandroid.speech;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Cuts the stream into equal chunks regardless of content. Recordings are segmented by
+ * {@link VoiceActivitySegmenter}; this one gives tests boundaries that don't depend on the audio.
+ */
+class FixedLengthSegmenter implements Segmenter {
+    private final short[] chunk;
+    private final int minTailSamples;
+    private int filled = 0;
+
+    /**
+     * @param minTailSamples a shorter final chunk is dropped on flush
+     */
+    FixedLengthSegmenter(int chunkSamples, int minTailSamples) {
+        this.chunk = new short[chunkSamples];
+        this.minTailSamples = minTailSamples;
+    }
+
+    @Override
+    public void push(short[] samples, int length, Consumer<short[]> sink) {
+        int offset = 0;
+        while (offset < length) {
+            int n = Math.min(length - offset, chunk.length - filled);
+            System.arraycopy(samples, offset, chunk, filled, n);
+            filled += n;
+            offset += n;
+            if (filled == chunk.length) {
+                sink.accept(chunk.clone());
+                filled = 0;
+            }
+        }
+    }
+
+    @Override
+    public void flush(Consumer<short[]> sink) {
+        if (filled > minTailSamples) {
+            sink.accept(Arrays.copyOf(chunk, filled));
+        }
+        filled = 0;
+    }
+}
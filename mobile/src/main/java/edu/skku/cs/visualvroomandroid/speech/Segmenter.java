@@ -0,0 +1,15 @@
+package edu.skku.cs.visualvroomandroid.speech;
+
+import java.util.function.Consumer;
+
+/**
+ * Cuts a mono sample stream into the pieces that are uploaded for transcription.
+ * Used from one thread at a time.
+ */
+public interface Segmenter {
+    /** Feeds captured samples, handing each segment they complete to {@code sink}. */
+    void push(short[] samples, int length, Consumer<short[]> sink);
+
+    /** Ends the stream, handing any segment still open to {@code sink}. */
+    void flush(Consumer<short[]> sink);
+}
@@ -0,0 +1,125 @@
+package edu.skku.cs.visualvroomandroid.speech;
+
+import android.util.Log;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+import io.reactivex.rxjava3.core.Maybe;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Uploads a chunk to the backend's /transcribe endpoint as little-endian PCM.
+ */
+public class ServerTranscriber implements Transcriber {
+    private static final String TAG = "ServerTranscriber";
+    private static final MediaType AUDIO_TYPE = MediaType.parse("audio/raw");
+
+    private final OkHttpClient client;
+    private final String serverUrl;
+
+    public ServerTranscriber(OkHttpClient client, String serverUrl) {
+        this.client = client;
+        this.serverUrl = serverUrl;
+    }
+
+    @Override
+    public Maybe<String> transcribe(short[] samples, int sampleRate) {
+        return Maybe.create(emitter -> {
+            RequestBody body = new MultipartBody.Builder()
+                    .setType(MultipartBody.FORM)
+                    .addFormDataPart("sample_rate", String.valueOf(sampleRate))
+                    .addFormDataPart("audio_data", "audio.raw",
+                            RequestBody.create(AUDIO_TYPE, toLittleEndian(samples)))
+                    .build();
+
+            Request request = new Request.Builder()
+                    .url(serverUrl)
+                    .post(body)
+                    .build();
+
+            Log.d(TAG, String.format("Sending %.1f s chunk to %s", (double) samples.length / sampleRate, serverUrl));
+
+            Call call = client.newCall(request);
+            emitter.setCancellable(call::cancel);
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    emitter.tryOnError(e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (ResponseBody responseBody = response.body()) {
+                        if (!response.isSuccessful() || responseBody == null) {
+                            emitter.tryOnError(new IOException("Server error " + response.code()));
+                            return;
+                        }
+
+                        String text = decodeText(new JsonReader(responseBody.charStream()));
+                        if (text == null || text.trim().isEmpty()) {
+                            emitter.onComplete();
+                        } else {
+                            emitter.onSuccess(text.trim());
+                        }
+                    } catch (IOException | IllegalStateException e) {
+                        emitter.tryOnError(e);
+                    }
+                }
+            });
+        });
+    }
+
+    // {"status": "success", "text": ...} or {"status": "error", "error": ...}
+    private static String decodeText(JsonReader reader) throws IOException {
+        String status = null;
+        String text = null;
+        String error = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "status":
+                    status = reader.nextString();
+                    break;
+                case "text":
+                    text = reader.nextString();
+                    break;
+                case "error":
+                    error = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!"success".equals(status)) {
+            throw new IOException("Transcription error: " + error);
+        }
+        return text;
+    }
+
+    private static byte[] toLittleEndian(short[] samples) {
+        byte[] out = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            out[2 * i] = (byte) samples[i];
+            out[2 * i + 1] = (byte) (samples[i] >> 8);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,38 @@
+package edu.skku.cs.visualvroomandroid.speech;
+
+import io.reactivex.rxjava3.core.Maybe;
+
+/**
+ * Local stand-in for the transcription backend, used for offline development and tests.
+ *
+ * It recognises nothing: each chunk loud enough to pass the threshold becomes a numbered
+ * placeholder word such as {@code "[speech 3]"}, and quiet chunks complete empty.
+ */
+public class StandInTranscriber implements Transcriber {
+    private final double minRms;
+    private int chunks = 0;
+
+    public StandInTranscriber(double minRms) {
+        this.minRms = minRms;
+    }
+
+    @Override
+    public Maybe<String> transcribe(short[] samples, int sampleRate) {
+        // fromCallable completes empty when the callable returns null
+        return Maybe.fromCallable(() -> {
+            synchronized (this) {
+                chunks++;
+                return rms(samples) < minRms ? null : "[speech " + chunks + "]";
+            }
+        });
+    }
+
+    private static double rms(short[] samples) {
+        double sum = 0;
+        for (short s : samples) {
+            double v = s / 32768.0;
+            sum += v * v;
+        }
+        return samples.length == 0 ? 0 : Math.sqrt(sum / samples.length);
+    }
+}
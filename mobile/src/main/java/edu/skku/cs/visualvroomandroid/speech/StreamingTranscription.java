@@ -0,0 +1,87 @@
+package edu.skku.cs.visualvroomandroid.speech;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.processors.FlowableProcessor;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+
+/**
+ * One recording's worth of streaming transcription.
+ *
+ * Captured audio is cut into segments by a {@link Segmenter} as it arrives. Each finished
+ * segment goes to the {@link Transcriber} while recording continues, with up to
+ * {@code maxInFlight} requests outstanding; results are applied in capture order whatever
+ * order they come back in. After every result the listener gets the whole hypothesis so far;
+ * {@link #finish()} flushes the last segment, and the listener gets the final text once
+ * every segment is back. Only the segment being collected and those awaiting upload are held
+ * in memory.
+ */
+public class StreamingTranscription {
+    // Segments waiting behind a slow backend before the oldest are dropped
+    private static final int MAX_PENDING_SEGMENTS = 16;
+
+    public interface Listener {
+        /** The full text so far; more may follow. */
+        void onPartial(String text);
+
+        /** The full text once recording has finished and every segment is transcribed. */
+        void onFinal(String text);
+
+        /** A segment failed; the session carries on without its text. */
+        void onChunkError(Throwable error);
+    }
+
+    private final Segmenter segmenter;
+    private boolean finished = false;
+    private final FlowableProcessor<short[]> segments = PublishProcessor.<short[]>create().toSerialized();
+    private final StringBuilder text = new StringBuilder();
+    private final AtomicLong droppedSegments = new AtomicLong();
+    private final Disposable subscription;
+
+    public StreamingTranscription(Transcriber transcriber, int sampleRate, Segmenter segmenter,
+                                  int maxInFlight, Listener listener) {
+        this.segmenter = segmenter;
+        this.subscription = segments
+                .onBackpressureBuffer(MAX_PENDING_SEGMENTS, droppedSegments::incrementAndGet,
+                        BackpressureOverflowStrategy.DROP_OLDEST)
+                // Eager: requests overlap, results are still emitted in segment order
+                .concatMapEager(samples -> transcriber.transcribe(samples, sampleRate)
+                        .doOnError(listener::onChunkError)
+                        .onErrorComplete()
+                        .toFlowable(), maxInFlight, 1)
+                .subscribe(piece -> {
+                    if (text.length() > 0) text.append(' ');
+                    text.append(piece);
+                    listener.onPartial(text.toString());
+                }, listener::onChunkError, () -> listener.onFinal(text.toString()));
+    }
+
+    /** Adds captured mono samples. Called from the capture thread. */
+    public synchronized void push(short[] samples, int length) {
+        if (finished) return;
+        segmenter.push(samples, length, segments::onNext);
+    }
+
+    /** Sends what is left and completes once every outstanding segment has been transcribed. */
+    public synchronized void finish() {
+        if (finished) return;
+        finished = true;
+
+        segmenter.flush(segments::onNext);
+        segments.onComplete();
+    }
+
+    /** Abandons the session without a final result. */
+    public void cancel() {
+        synchronized (this) {
+            finished = true;
+        }
+        subscription.dispose();
+    }
+
+    public long getDroppedSegments() {
+        return droppedSegments.get();
+    }
+}
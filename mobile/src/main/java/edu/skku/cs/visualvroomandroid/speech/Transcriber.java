@@ -0,0 +1,11 @@
+package edu.skku.cs.visualvroomandroid.speech;
+
+import io.reactivex.rxjava3.core.Maybe;
+
+/**
+ * Turns one chunk of 16-bit mono PCM into text. Implementations complete empty when the
+ * chunk held no speech and signal an error for transport or server failures.
+ */
+public interface Transcriber {
+    Maybe<String> transcribe(short[] samples, int sampleRate);
+}
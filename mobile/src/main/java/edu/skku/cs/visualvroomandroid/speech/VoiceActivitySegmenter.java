@@ -0,0 +1,160 @@
+package edu.skku.cs.visualvroomandroid.speech;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Cuts the stream into utterances at pauses using an energy voice-activity detector.
+ *
+ * Audio is judged in 20 ms frames. A frame is voiced when its RMS is above both an absolute
+ * floor and a multiple of the running noise estimate. The estimate follows unvoiced frames,
+ * and under voiced ones climbs by at most {@link #NOISE_RISE_DB_PER_S}: a lasting step up in
+ * background noise is learned within seconds instead of reading as one endless utterance,
+ * while speech, which keeps dipping between words, barely moves it.
+ * An utterance starts at the first voiced frame, with a short pre-roll so soft onsets are not
+ * clipped, and ends after a pause of {@link #HANGOVER_MS} or at {@link #MAX_SEGMENT_MS}.
+ * Utterances with less than {@link #MIN_SPEECH_MS} of voiced audio are treated as clicks and dropped.
+ */
+public class VoiceActivitySegmenter implements Segmenter {
+    private static final int FRAME_MS = 20;
+    private static final int PRE_ROLL_MS = 200;
+    static final int HANGOVER_MS = 400;
+    static final int MIN_SPEECH_MS = 200;
+    static final int MAX_SEGMENT_MS = 15_000;
+    // Voiced frames must be this many times louder than the noise estimate
+    private static final double SPEECH_TO_NOISE = 3.0;
+    private static final double NOISE_ADAPT = 0.05;
+    static final double NOISE_RISE_DB_PER_S = 3;
+
+    private final double minRms;
+    private final int frameSamples;
+    private final int hangoverFrames;
+    private final int minSpeechFrames;
+    private final double noiseRise;             // Per-frame growth of the noise estimate while voiced
+
+    private final short[] frame;
+    private int frameFill = 0;
+    // Pre-roll ring of the most recent unvoiced audio
+    private final short[] preRoll;
+    private int preRollPos = 0;
+    private int preRollFill = 0;
+    // Utterance being collected; reused between utterances
+    private final short[] segment;
+    private int segmentLength = 0;
+    private boolean inSpeech = false;
+    private int speechFrames = 0;
+    private int silentRun = 0;
+    private double noiseRms = -1;
+
+    public VoiceActivitySegmenter(int sampleRate, double minRms) {
+        this.minRms = minRms;
+        this.frameSamples = sampleRate * FRAME_MS / 1000;
+        this.hangoverFrames = HANGOVER_MS / FRAME_MS;
+        this.minSpeechFrames = MIN_SPEECH_MS / FRAME_MS;
+        this.noiseRise = Math.pow(10, NOISE_RISE_DB_PER_S / 20 * FRAME_MS / 1000);
+        this.frame = new short[frameSamples];
+        this.preRoll = new short[sampleRate * PRE_ROLL_MS / 1000];
+        this.segment = new short[sampleRate * MAX_SEGMENT_MS / 1000];
+    }
+
+    @Override
+    public void push(short[] samples, int length, Consumer<short[]> sink) {
+        int offset = 0;
+        while (offset < length) {
+            int n = Math.min(length - offset, frameSamples - frameFill);
+            System.arraycopy(samples, offset, frame, frameFill, n);
+            frameFill += n;
+            offset += n;
+            if (frameFill == frameSamples) {
+                processFrame(sink);
+                frameFill = 0;
+            }
+        }
+    }
+
+    @Override
+    public void flush(Consumer<short[]> sink) {
+        if (inSpeech) {
+            append(frame, frameFill);
+            endSegment(sink);
+        }
+        frameFill = 0;
+        preRollFill = 0;
+    }
+
+    private void processFrame(Consumer<short[]> sink) {
+        double rms = rms(frame, frameSamples);
+        double threshold = noiseRms < 0 ? minRms : Math.max(minRms, noiseRms * SPEECH_TO_NOISE);
+        boolean voiced = rms > threshold;
+        if (!voiced) {
+            noiseRms = noiseRms < 0 ? rms : noiseRms + NOISE_ADAPT * (rms - noiseRms);
+        } else if (noiseRms > 0) {
+            noiseRms = Math.min(rms, noiseRms * noiseRise);
+        }
+
+        if (!inSpeech) {
+            if (voiced) {
+                startSegment();
+            } else {
+                addToPreRoll();
+            }
+            return;
+        }
+
+        append(frame, frameSamples);
+        if (voiced) {
+            speechFrames++;
+            silentRun = 0;
+        } else {
+            silentRun++;
+        }
+        if (silentRun >= hangoverFrames || segmentLength + frameSamples > segment.length) {
+            endSegment(sink);
+        }
+    }
+
+    private void startSegment() {
+        inSpeech = true;
+        segmentLength = 0;
+        // Oldest pre-roll sample first
+        int start = (preRollPos - preRollFill + preRoll.length) % preRoll.length;
+        for (int i = 0; i < preRollFill; i++) {
+            segment[segmentLength++] = preRoll[(start + i) % preRoll.length];
+        }
+        append(frame, frameSamples);
+        speechFrames = 1;
+        silentRun = 0;
+    }
+
+    private void endSegment(Consumer<short[]> sink) {
+        if (speechFrames >= minSpeechFrames) {
+            sink.accept(Arrays.copyOf(segment, segmentLength));
+        }
+        inSpeech = false;
+        segmentLength = 0;
+        preRollFill = 0;
+    }
+
+    private void append(short[] samples, int length) {
+        int n = Math.min(length, segment.length - segmentLength);
+        System.arraycopy(samples, 0, segment, segmentLength, n);
+        segmentLength += n;
+    }
+
+    private void addToPreRoll() {
+        for (int i = 0; i < frameSamples; i++) {
+            preRoll[preRollPos] = frame[i];
+            preRollPos = (preRollPos + 1) % preRoll.length;
+        }
+        preRollFill = Math.min(preRoll.length, preRollFill + frameSamples);
+    }
+
+    private static double rms(short[] samples, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            double v = samples[i] / 32768.0;
+            sum += v * v;
+        }
+        return Math.sqrt(sum / length);
+    }
+}
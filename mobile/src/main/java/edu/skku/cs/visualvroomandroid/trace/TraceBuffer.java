@@ -0,0 +1,65 @@
+package edu.skku.cs.visualvroomandroid.trace;
+
+/**
+ * Fixed-capacity span store in parallel primitive arrays, so recording allocates nothing.
+ * When full, the oldest span is overwritten and counted as dropped. Not thread-safe;
+ * {@link Tracer} guards it.
+ */
+final class TraceBuffer {
+    private final long[] traceIds;
+    private final long[] starts;
+    private final long[] durations;
+    private final short[] spans;
+    private final short[] threads;
+    private final int[] args;
+    private int head;       // Oldest span
+    private int count;
+    private long dropped;
+
+    TraceBuffer(int capacity) {
+        traceIds = new long[capacity];
+        starts = new long[capacity];
+        durations = new long[capacity];
+        spans = new short[capacity];
+        threads = new short[capacity];
+        args = new int[capacity];
+    }
+
+    void add(long traceId, int span, long startNanos, long endNanos, int thread, int arg) {
+        int capacity = traceIds.length;
+        int slot = (head + count) % capacity;
+        if (count == capacity) {
+            head = (head + 1) % capacity;
+            dropped++;
+        } else {
+            count++;
+        }
+        traceIds[slot] = traceId;
+        starts[slot] = startNanos;
+        durations[slot] = endNanos - startNanos;
+        spans[slot] = (short) span;
+        threads[slot] = (short) thread;
+        args[slot] = arg;
+    }
+
+    int size() { return count; }
+    long getDropped() { return dropped; }
+
+    // i-th oldest span
+    long traceId(int i) { return traceIds[index(i)]; }
+    long start(int i) { return starts[index(i)]; }
+    long duration(int i) { return durations[index(i)]; }
+    int span(int i) { return spans[index(i)]; }
+    int thread(int i) { return threads[index(i)]; }
+    int arg(int i) { return args[index(i)]; }
+
+    private int index(int i) {
+        return (head + i) % traceIds.length;
+    }
+
+    void clear() {
+        head = 0;
+        count = 0;
+        dropped = 0;
+    }
+}
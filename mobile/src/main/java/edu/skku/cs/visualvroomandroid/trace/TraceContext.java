@@ -0,0 +1,33 @@
+package edu.skku.cs.visualvroomandroid.trace;
+
+/**
+ * Identity of one detection window as it moves from the microphone to the wrist.
+ *
+ * The trace id is unique across pipeline runs; its low 32 bits are the window id. The
+ * capture time is the {@code CLOCK_MONOTONIC} time of the window's newest frame, taken
+ * from {@code AudioRecord.getTimestamp}, on the same clock as {@link System#nanoTime()}.
+ */
+public final class TraceContext {
+    public static final String HEADER = "X-Trace-Context";
+
+    private final long traceId;
+    private final long captureTimeNanos;
+
+    public TraceContext(long traceId, long captureTimeNanos) {
+        this.traceId = traceId;
+        this.captureTimeNanos = captureTimeNanos;
+    }
+
+    public long getTraceId() { return traceId; }
+    public long getCaptureTimeNanos() { return captureTimeNanos; }
+
+    /** Value for the {@link #HEADER} request header, e.g. {@code 5c1e00a2000000c8;capture=81234567000}. */
+    public String toHeader() {
+        return String.format("%016x;capture=%d", traceId, captureTimeNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("trace %016x", traceId);
+    }
+}
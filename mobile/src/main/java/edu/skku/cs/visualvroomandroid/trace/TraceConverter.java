@@ -0,0 +1,151 @@
+package edu.skku.cs.visualvroomandroid.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts binary trace files to Chrome trace-event JSON, which chrome://tracing and
+ * ui.perfetto.dev both open. Runs on a workstation:
+ *
+ * <pre>
+ * adb pull /sdcard/Android/data/edu.skku.cs.visualvroomandroid/files/traces
+ * java -cp app-classes edu.skku.cs.visualvroomandroid.trace.TraceConverter traces/*.vvtrace &gt; trace.json
+ * </pre>
+ *
+ * Each pipeline run becomes a process and each window a thread, so one window's spans line
+ * up on one row and the gaps between them are queueing.
+ */
+public final class TraceConverter {
+
+    private final Writer out;
+    private final Set<Long> namedWindows = new HashSet<>();
+    private final Set<Long> namedRuns = new HashSet<>();
+    private boolean first = true;
+
+    private TraceConverter(Writer out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: TraceConverter <trace file>... > trace.json");
+            System.exit(2);
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, "UTF-8"));
+        TraceConverter converter = new TraceConverter(out);
+        converter.begin();
+        for (String path : args) {
+            try (InputStream in = new FileInputStream(path)) {
+                converter.append(in);
+            }
+        }
+        converter.end();
+        out.flush();
+    }
+
+    /** Converts one trace file into a complete JSON document. */
+    public static void convert(InputStream in, Writer out) throws IOException {
+        TraceConverter converter = new TraceConverter(out);
+        converter.begin();
+        converter.append(in);
+        converter.end();
+        out.flush();
+    }
+
+    private void begin() throws IOException {
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+    }
+
+    private void end() throws IOException {
+        out.write("\n]}\n");
+    }
+
+    private void append(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != TraceFileWriter.MAGIC) {
+            throw new IOException("Not a trace file");
+        }
+        int version = in.readUnsignedShort();
+        if (version != TraceFileWriter.VERSION) {
+            throw new IOException("Unsupported trace version " + version);
+        }
+        int recordBytes = in.readUnsignedShort();
+        if (recordBytes < TraceFileWriter.RECORD_BYTES) {
+            throw new IOException("Bad record size " + recordBytes);
+        }
+        long wallClockMs = in.readLong();
+        long monotonicNanos = in.readLong();
+
+        Map<Integer, String> names = new HashMap<>();
+        int spanCount = in.readUnsignedShort();
+        for (int i = 0; i < spanCount; i++) {
+            int id = in.readUnsignedShort();
+            names.put(id, in.readUTF());
+        }
+
+        // Spans go on the wall clock, in microseconds
+        double originMicros = wallClockMs * 1000.0 - monotonicNanos / 1000.0;
+        byte[] bytes = new byte[recordBytes];
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        while (true) {
+            try {
+                in.readFully(bytes);
+            } catch (EOFException e) {
+                return; // A file cut off mid-record by a crash is still usable up to here
+            }
+            record.clear();
+            long traceId = record.getLong();
+            long start = record.getLong();
+            long duration = record.getLong();
+            int span = record.getShort() & 0xffff;
+            int thread = record.getShort() & 0xffff;
+            int arg = record.getInt();
+
+            String name = names.get(span);
+            event(traceId, name != null ? name : "span_" + span,
+                    originMicros + start / 1000.0, Math.max(duration, 0) / 1000.0, thread, arg);
+        }
+    }
+
+    private void event(long traceId, String name, double tsMicros, double durMicros,
+                       int thread, int arg) throws IOException {
+        long run = traceId >>> 32;
+        long window = traceId & 0xffffffffL;
+        if (namedRuns.add(run)) {
+            metadata("process_name", run, 0, String.format("pipeline run %08x", run));
+        }
+        if (namedWindows.add(traceId)) {
+            metadata("thread_name", run, window, "window " + window);
+        }
+        separator();
+        out.write(String.format(Locale.US,
+                "{\"name\":\"%s\",\"cat\":\"window\",\"ph\":\"X\",\"ts\":%.3f,\"dur\":%.3f,"
+                        + "\"pid\":%d,\"tid\":%d,\"args\":{\"trace\":\"%016x\",\"thread\":%d,\"arg\":%d}}",
+                name, tsMicros, durMicros, run, window, traceId, thread, arg));
+    }
+
+    private void metadata(String kind, long pid, long tid, String value) throws IOException {
+        separator();
+        out.write(String.format(Locale.US,
+                "{\"name\":\"%s\",\"ph\":\"M\",\"pid\":%d,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+                kind, pid, tid, value));
+    }
+
+    private void separator() throws IOException {
+        if (!first) out.write(",\n");
+        first = false;
+    }
+}
@@ -0,0 +1,87 @@
+package edu.skku.cs.visualvroomandroid.trace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes spans in the compact binary trace format {@link TraceConverter} reads.
+ *
+ * <pre>
+ * header:  "VVTR" | version u16 | record size u16 | wall clock ms i64 | monotonic ns i64
+ *          | span count u16 | (span id u16, name UTF)*
+ * record:  trace id i64 | start ns i64 | duration ns i64 | span id u16 | thread u16 | arg i32
+ * </pre>
+ * All big-endian. The two clocks in the header are read together, so monotonic span times
+ * can be placed on the wall clock when the file is converted.
+ */
+public final class TraceFileWriter implements Closeable {
+    static final int MAGIC = 0x56565452;  // "VVTR"
+    static final int VERSION = 1;
+    static final int RECORD_BYTES = 32;
+
+    private final FileChannel channel;
+    private final ByteBuffer records;
+    private long bytesWritten;
+
+    public TraceFileWriter(File file, int maxRecordsPerWrite, long wallClockMs, long monotonicNanos)
+            throws IOException {
+        this.channel = new FileOutputStream(file).getChannel();
+        this.records = ByteBuffer.allocate(maxRecordsPerWrite * RECORD_BYTES);
+        write(ByteBuffer.wrap(header(wallClockMs, monotonicNanos)));
+    }
+
+    private static byte[] header(long wallClockMs, long monotonicNanos) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(RECORD_BYTES);
+        out.writeLong(wallClockMs);
+        out.writeLong(monotonicNanos);
+        out.writeShort(TraceSpan.values().length);
+        for (TraceSpan span : TraceSpan.values()) {
+            out.writeShort(span.getId());
+            out.writeUTF(span.label());
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Appends every span in {@code buffer}, oldest first. */
+    void write(TraceBuffer buffer) throws IOException {
+        records.clear();
+        for (int i = 0; i < buffer.size(); i++) {
+            if (records.remaining() < RECORD_BYTES) {
+                records.flip();
+                write(records);
+                records.clear();
+            }
+            records.putLong(buffer.traceId(i))
+                    .putLong(buffer.start(i))
+                    .putLong(buffer.duration(i))
+                    .putShort((short) buffer.span(i))
+                    .putShort((short) buffer.thread(i))
+                    .putInt(buffer.arg(i));
+        }
+        records.flip();
+        write(records);
+    }
+
+    private void write(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            bytesWritten += channel.write(data);
+        }
+    }
+
+    public long getBytesWritten() { return bytesWritten; }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,51 @@
+package edu.skku.cs.visualvroomandroid.trace;
+
+import java.util.Locale;
+
+/**
+ * The hops a window's trace records. Ids are written to trace files, so existing ones must
+ * not be renumbered.
+ */
+public enum TraceSpan {
+    CAPTURE(0, null),          // Newest frame captured until its window is gained and emitted
+    GATE(1, "gate"),
+    ENCODE(2, "encode"),
+    INFER(3, "infer"),         // Whole inference stage, including the upload
+    UPLOAD(4, null),           // Request enqueued until response headers arrive
+    RESPONSE(5, null),         // Response body decoded
+    DECIDE(6, "smooth"),       // Alert decision
+    PUBLISH(7, "alert"),       // Published on the event bus
+    WATCH_BRIDGE(8, null),     // Bus subscriber builds and hands off the watch frame
+    WATCH_SEND(9, null),       // Message API send until it reports success, per watch
+    WATCH_RECEIVE(10, null),   // Sent until the watch received it, on the phone clock
+    HAPTIC(11, null);          // Watch received until vibration started
+
+    private final int id;
+    private final String stage;
+
+    TraceSpan(int id, String stage) {
+        this.id = id;
+        this.stage = stage;
+    }
+
+    public int getId() { return id; }
+
+    public String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /** @return the span for a {@code StageTimer} stage name, or null if it isn't traced */
+    public static TraceSpan forStage(String stage) {
+        for (TraceSpan span : values()) {
+            if (stage.equals(span.stage)) return span;
+        }
+        return null;
+    }
+
+    public static TraceSpan forId(int id) {
+        for (TraceSpan span : values()) {
+            if (span.id == id) return span;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,9 @@
+package edu.skku.cs.visualvroomandroid.trace;
+
+/**
+ * A value that belongs to a traced window, so the stages it passes through can record spans.
+ */
+public interface Traced {
+    /** @return the window's trace, or null when the value isn't traced */
+    TraceContext getTrace();
+}
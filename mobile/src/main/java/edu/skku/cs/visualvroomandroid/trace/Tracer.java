@@ -0,0 +1,159 @@
+package edu.skku.cs.visualvroomandroid.trace;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide span recorder for window traces.
+ *
+ * Recording is meant to stay on: a span is six primitive stores into a preallocated
+ * {@link TraceBuffer} under an uncontended lock, with no allocation and no I/O. Every
+ * {@link #FLUSH_INTERVAL_MS} a writer thread swaps in the spare buffer and appends the full
+ * one to the current trace file. Files rotate at {@link #MAX_FILE_BYTES} and only the newest
+ * {@link #MAX_FILES} are kept. Until {@link #start} is called every hook returns at once.
+ */
+public final class Tracer {
+    private static final String TAG = "Tracer";
+    public static final String FILE_SUFFIX = ".vvtrace";
+
+    // Spans per buffer; a window records about a dozen every few seconds
+    private static final int BUFFER_SPANS = 4096;
+    private static final long FLUSH_INTERVAL_MS = 2000;
+    private static final long MAX_FILE_BYTES = 4 << 20;
+    private static final int MAX_FILES = 4;
+
+    private static final Tracer INSTANCE = new Tracer();
+
+    private final Object bufferLock = new Object();
+    private TraceBuffer active = new TraceBuffer(BUFFER_SPANS);
+    private TraceBuffer spare = new TraceBuffer(BUFFER_SPANS);
+
+    private volatile boolean enabled = false;
+    private ScheduledExecutorService writerThread;
+    private File dir;
+    private TraceFileWriter file;   // Writer thread only
+    private long droppedSpans;      // Writer thread only
+
+    private Tracer() {
+    }
+
+    public static Tracer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts writing traces to {@code dir}. Later calls are ignored.
+     */
+    public synchronized void start(File dir) {
+        if (enabled || dir == null) return;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.e(TAG, "Cannot create trace directory " + dir);
+            return;
+        }
+        this.dir = dir;
+        writerThread = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, "trace-writer"));
+        writerThread.scheduleWithFixedDelay(this::drain,
+                FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        enabled = true;
+        Log.i(TAG, "Tracing to " + dir);
+    }
+
+    /**
+     * App-specific external storage, so traces can be pulled with adb without root; the
+     * internal files directory if that isn't mounted.
+     */
+    public static File defaultDirectory(Context context) {
+        File external = context.getExternalFilesDir("traces");
+        return external != null ? external : new File(context.getFilesDir(), "traces");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(TraceContext trace, TraceSpan span, long startNanos, long endNanos) {
+        record(trace, span, startNanos, endNanos, 0);
+    }
+
+    /**
+     * Records one span of {@code trace}. Times are {@link System#nanoTime()} values.
+     *
+     * @param arg a span-specific number kept with the span, e.g. bytes uploaded
+     */
+    public void record(TraceContext trace, TraceSpan span, long startNanos, long endNanos, int arg) {
+        if (!enabled || trace == null) return;
+        int thread = (int) Thread.currentThread().getId();
+        synchronized (bufferLock) {
+            active.add(trace.getTraceId(), span.getId(), startNanos, endNanos, thread, arg);
+        }
+    }
+
+    /** Writes buffered spans now rather than at the next interval, e.g. before the process dies. */
+    public void flush() {
+        ScheduledExecutorService writer;
+        synchronized (this) {
+            writer = writerThread;
+        }
+        if (writer != null) {
+            writer.execute(this::drain);
+        }
+    }
+
+    /**
+     * Places a wall-clock time, e.g. one reported by the watch, on the {@link System#nanoTime()} clock.
+     */
+    public static long monotonicFromWall(long wallClockMs) {
+        return System.nanoTime() - (System.currentTimeMillis() - wallClockMs) * 1_000_000L;
+    }
+
+    private void drain() {
+        TraceBuffer full;
+        synchronized (bufferLock) {
+            full = active;
+            active = spare;
+            spare = full;
+        }
+        if (full.size() == 0) return;
+
+        try {
+            if (file == null || file.getBytesWritten() >= MAX_FILE_BYTES) {
+                rotate();
+            }
+            file.write(full);
+            if (full.getDropped() > 0) {
+                droppedSpans += full.getDropped();
+                Log.w(TAG, "Trace buffer overflowed; dropped " + droppedSpans + " spans so far");
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write trace: " + e.getMessage());
+        } finally {
+            full.clear();
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+        long wallClockMs = System.currentTimeMillis();
+        File next = new File(dir, "trace-" + wallClockMs + FILE_SUFFIX);
+        file = new TraceFileWriter(next, BUFFER_SPANS, wallClockMs, System.nanoTime());
+
+        File[] files = dir.listFiles((d, name) -> name.endsWith(FILE_SUFFIX));
+        if (files != null && files.length > MAX_FILES) {
+            // Names embed the creation time, so name order is age order
+            Arrays.sort(files);
+            for (int i = 0; i < files.length - MAX_FILES; i++) {
+                files[i].delete();
+            }
+        }
+    }
+}
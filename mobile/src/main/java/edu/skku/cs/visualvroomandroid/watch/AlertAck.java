@@ -0,0 +1,79 @@
+package edu.skku.cs.visualvroomandroid.watch;
+
+/**
+ * Acknowledgement the watch returns on {@link #PATH} for every {@link AlertFrame} it handles.
+ *
+ * Layout (big-endian), mirrored by the wear app's encoder:
+ * <pre>
+ *  0  magic 'A'
+ *  1  version
+ *  2  sequence number of the acknowledged frame (int)
+ *  6  watch receive time (long, watch clock ms)
+ * 14  haptic start time  (long, watch clock ms; 0 if the watch merged the alert without buzzing)
+ * 22  ack send time      (long, watch clock ms)
+ * </pre>
+ */
+public final class AlertAck {
+    public static final String PATH = "/alert_ack";
+
+    public static final int LENGTH = 30;
+    public static final byte MAGIC = 'A';
+    public static final byte VERSION = 1;
+
+    private final int sequence;
+    private final long receivedAtMs;
+    private final long hapticStartMs;
+    private final long sentAtMs;
+
+    public AlertAck(int sequence, long receivedAtMs, long hapticStartMs, long sentAtMs) {
+        this.sequence = sequence;
+        this.receivedAtMs = receivedAtMs;
+        this.hapticStartMs = hapticStartMs;
+        this.sentAtMs = sentAtMs;
+    }
+
+    /**
+     * @return the decoded ack, or null if {@code data} is not an ack this version understands
+     */
+    public static AlertAck decode(byte[] data) {
+        if (data == null || data.length < LENGTH || data[0] != MAGIC || data[1] != VERSION) {
+            return null;
+        }
+        int sequence = ((data[2] & 0xff) << 24) | ((data[3] & 0xff) << 16)
+                | ((data[4] & 0xff) << 8) | (data[5] & 0xff);
+        return new AlertAck(sequence, readLong(data, 6), readLong(data, 14), readLong(data, 22));
+    }
+
+    public byte[] encode() {
+        byte[] data = new byte[LENGTH];
+        data[0] = MAGIC;
+        data[1] = VERSION;
+        for (int i = 0; i < 4; i++) {
+            data[2 + i] = (byte) (sequence >>> (24 - 8 * i));
+        }
+        writeLong(data, 6, receivedAtMs);
+        writeLong(data, 14, hapticStartMs);
+        writeLong(data, 22, sentAtMs);
+        return data;
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static void writeLong(byte[] data, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            data[offset + i] = (byte) (value >>> (56 - 8 * i));
+        }
+    }
+
+    public int getSequence() { return sequence; }
+    public long getReceivedAtMs() { return receivedAtMs; }
+    public long getHapticStartMs() { return hapticStartMs; }
+    public boolean didVibrate() { return hapticStartMs != 0; }
+    public long getSentAtMs() { return sentAtMs; }
+}
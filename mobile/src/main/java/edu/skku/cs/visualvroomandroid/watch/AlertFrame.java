@@ -0,0 +1,143 @@
+package edu.skku.cs.visualvroomandroid.watch;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encoder for the binary alert frame sent to the watch on {@link #PATH}.
+ *
+ * One frame carries the whole alert, so the watch can buzz without a second message
+ * and without parsing JSON. Layout (big-endian), mirrored by the wear app's decoder:
+ * <pre>
+ *  0  magic 'V'
+ *  1  version
+ *  2  vehicle type id   (TYPE_*)
+ *  3  direction id      (DIRECTION_*)
+ *  4  vibration pattern (PATTERN_*)
+ *  5  intensity         (0 = pattern default, 1-3 scale pulse lengths)
+ *  6  sequence number   (int)
+ * 10  timestamp, ms since epoch on the phone (long)
+ * </pre>
+ */
+public final class AlertFrame {
+    public static final String PATH = "/alert";
+
+    public static final int LENGTH = 18;
+    public static final byte MAGIC = 'V';
+    public static final byte VERSION = 1;
+
+    public static final byte TYPE_UNKNOWN = 0;
+    public static final byte TYPE_SIREN = 1;
+    public static final byte TYPE_BIKE = 2;
+    public static final byte TYPE_HORN = 3;
+
+    public static final byte DIRECTION_UNKNOWN = 0;
+    public static final byte DIRECTION_LEFT = 1;
+    public static final byte DIRECTION_RIGHT = 2;
+
+    // Pattern ids index the watch's vibration table
+    public static final byte PATTERN_DEFAULT = 0;
+    public static final byte PATTERN_SIREN = 1;
+    public static final byte PATTERN_BIKE = 2;
+    public static final byte PATTERN_HORN = 3;
+    public static final byte PATTERN_LEFT = 4;
+    public static final byte PATTERN_RIGHT = 5;
+    public static final byte PATTERN_SINGLE = 6;
+    public static final byte PATTERN_DOUBLE = 7;
+    public static final byte PATTERN_TRIPLE = 8;
+    public static final byte PATTERN_SOS = 9;
+
+    private static final AtomicInteger sequenceCounter = new AtomicInteger();
+
+    private AlertFrame() {
+    }
+
+    public static byte[] encode(byte type, byte direction, byte pattern, int intensity) {
+        return encode(type, direction, pattern, intensity, nextSequence(), System.currentTimeMillis());
+    }
+
+    public static byte[] encode(byte type, byte direction, byte pattern, int intensity,
+                                int sequence, long timestampMs) {
+        byte[] frame = new byte[LENGTH];
+        frame[0] = MAGIC;
+        frame[1] = VERSION;
+        frame[2] = type;
+        frame[3] = direction;
+        frame[4] = pattern;
+        frame[5] = (byte) intensity;
+        stamp(frame, sequence, timestampMs);
+        return frame;
+    }
+
+    /**
+     * Overwrites the sequence number and timestamp, so a frame serialized once per alert
+     * type can be copied and reused.
+     */
+    public static void stamp(byte[] frame, int sequence, long timestampMs) {
+        for (int i = 0; i < 4; i++) {
+            frame[6 + i] = (byte) (sequence >>> (24 - 8 * i));
+        }
+        for (int i = 0; i < 8; i++) {
+            frame[10 + i] = (byte) (timestampMs >>> (56 - 8 * i));
+        }
+    }
+
+    public static int nextSequence() {
+        return sequenceCounter.incrementAndGet();
+    }
+
+    public static int sequenceOf(byte[] frame) {
+        return ((frame[6] & 0xff) << 24) | ((frame[7] & 0xff) << 16)
+                | ((frame[8] & 0xff) << 8) | (frame[9] & 0xff);
+    }
+
+    public static byte typeId(String vehicleType) {
+        switch (vehicleType.toLowerCase(Locale.ROOT)) {
+            case "siren":
+                return TYPE_SIREN;
+            case "bike":
+                return TYPE_BIKE;
+            case "horn":
+                return TYPE_HORN;
+            default:
+                return TYPE_UNKNOWN;
+        }
+    }
+
+    public static byte directionId(String direction) {
+        if ("L".equalsIgnoreCase(direction) || "left".equalsIgnoreCase(direction)) {
+            return DIRECTION_LEFT;
+        } else if ("R".equalsIgnoreCase(direction) || "right".equalsIgnoreCase(direction)) {
+            return DIRECTION_RIGHT;
+        }
+        return DIRECTION_UNKNOWN;
+    }
+
+    public static byte vehiclePattern(byte type) {
+        switch (type) {
+            case TYPE_SIREN:
+                return PATTERN_SIREN;
+            case TYPE_BIKE:
+                return PATTERN_BIKE;
+            case TYPE_HORN:
+                return PATTERN_HORN;
+            default:
+                return PATTERN_SINGLE;
+        }
+    }
+
+    public static byte customPattern(String patternType) {
+        switch (patternType.toLowerCase(Locale.ROOT)) {
+            case "single":
+                return PATTERN_SINGLE;
+            case "double":
+                return PATTERN_DOUBLE;
+            case "triple":
+                return PATTERN_TRIPLE;
+            case "sos":
+                return PATTERN_SOS;
+            default:
+                return PATTERN_DEFAULT;
+        }
+    }
+}
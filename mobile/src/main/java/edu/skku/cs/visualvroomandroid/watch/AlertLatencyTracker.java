@@ -0,0 +1,118 @@
+package edu.skku.cs.visualvroomandroid.watch;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.skku.cs.visualvroomandroid.trace.TraceContext;
+import edu.skku.cs.visualvroomandroid.trace.TraceSpan;
+import edu.skku.cs.visualvroomandroid.trace.Tracer;
+
+/**
+ * Follows each alert frame from detection to the watch's vibration using the watch's acks.
+ *
+ * Phone-side times (detection, send) are recorded when the frame goes out; watch-side times
+ * arrive in the {@link AlertAck} and are moved onto the phone clock with a per-watch
+ * {@link ClockOffsetEstimator}. All times are wall-clock milliseconds.
+ *
+ * The frame's sequence number is what crosses the wire, so the tracker keeps each traced
+ * alert's {@link TraceContext} by sequence and closes its trace with the watch-side spans.
+ */
+public class AlertLatencyTracker {
+    // Acks later than this are dropped; a watch that slow is effectively unreachable
+    private static final long PENDING_EXPIRY_MS = 30_000;
+
+    public enum Stage {
+        DETECTION_TO_SEND,
+        SEND_TO_WATCH_RECEIVE,
+        WATCH_RECEIVE_TO_HAPTIC,
+        DETECTION_TO_HAPTIC
+    }
+
+    private static class Pending {
+        final long detectedAtMs;
+        final long sentAtMs;
+        final TraceContext trace;
+
+        Pending(long detectedAtMs, long sentAtMs, TraceContext trace) {
+            this.detectedAtMs = detectedAtMs;
+            this.sentAtMs = sentAtMs;
+            this.trace = trace;
+        }
+    }
+
+    private final Map<Integer, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<String, ClockOffsetEstimator> clocks = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+    public AlertLatencyTracker() {
+        for (Stage stage : Stage.values()) {
+            histograms[stage.ordinal()] = new LatencyHistogram(stage.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    public void onSent(int sequence, long detectedAtMs, long sentAtMs) {
+        onSent(sequence, detectedAtMs, sentAtMs, null);
+    }
+
+    public void onSent(int sequence, long detectedAtMs, long sentAtMs, TraceContext trace) {
+        histograms[Stage.DETECTION_TO_SEND.ordinal()].record(sentAtMs - detectedAtMs);
+        pending.put(sequence, new Pending(detectedAtMs, sentAtMs, trace));
+
+        Iterator<Pending> it = pending.values().iterator();
+        while (it.hasNext()) {
+            if (sentAtMs - it.next().sentAtMs > PENDING_EXPIRY_MS) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return false if the ack matches no alert still pending
+     */
+    public boolean onAck(String nodeId, AlertAck ack, long receivedAtMs) {
+        // Several watches may ack the same frame, so the entry is left to expire
+        Pending sent = pending.get(ack.getSequence());
+        if (sent == null) return false;
+
+        ClockOffsetEstimator clock = clocks.computeIfAbsent(nodeId, id -> new ClockOffsetEstimator());
+        clock.addSample(sent.sentAtMs, ack.getReceivedAtMs(), ack.getSentAtMs(), receivedAtMs);
+
+        long watchReceived = clock.toPhoneTime(ack.getReceivedAtMs());
+        histograms[Stage.SEND_TO_WATCH_RECEIVE.ordinal()].record(watchReceived - sent.sentAtMs);
+        Tracer tracer = Tracer.getInstance();
+        long watchReceivedNanos = Tracer.monotonicFromWall(watchReceived);
+        tracer.record(sent.trace, TraceSpan.WATCH_RECEIVE,
+                Tracer.monotonicFromWall(sent.sentAtMs), watchReceivedNanos);
+        if (!ack.didVibrate()) return true; // Merged into an alert already buzzing
+
+        long hapticStart = clock.toPhoneTime(ack.getHapticStartMs());
+        tracer.record(sent.trace, TraceSpan.HAPTIC, watchReceivedNanos, Tracer.monotonicFromWall(hapticStart));
+        // Same clock on both ends; needs no offset
+        histograms[Stage.WATCH_RECEIVE_TO_HAPTIC.ordinal()].record(ack.getHapticStartMs() - ack.getReceivedAtMs());
+        histograms[Stage.DETECTION_TO_HAPTIC.ordinal()].record(hapticStart - sent.detectedAtMs);
+        return true;
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /** @return the clock estimate for a watch, or null before its first ack */
+    public ClockOffsetEstimator clockFor(String nodeId) {
+        return clocks.get(nodeId);
+    }
+
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (LatencyHistogram histogram : histograms) {
+            sb.append(histogram).append('\n');
+        }
+        for (Map.Entry<String, ClockOffsetEstimator> entry : clocks.entrySet()) {
+            sb.append(String.format("clock %s: offset=%dms rtt=%dms%n", entry.getKey(),
+                    entry.getValue().getOffsetMillis(), entry.getValue().getRoundTripMillis()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package edu.skku.cs.visualvroomandroid.watch;
+
+/**
+ * Estimates the offset between the watch clock and the phone clock from alert/ack exchanges,
+ * NTP style. Each exchange gives four timestamps: phone send (t0), watch receive (t1),
+ * watch ack send (t2) and phone ack receive (t3). Its offset is {@code ((t1 - t0) + (t2 - t3)) / 2}
+ * and its error is bounded by half its round trip {@code (t3 - t0) - (t2 - t1)}, so the
+ * estimate is taken from the recent sample with the smallest round trip.
+ */
+public class ClockOffsetEstimator {
+    private static final int DEFAULT_SAMPLES = 16;
+
+    private final long[] offsets;
+    private final long[] roundTrips;
+    private int count = 0;
+    private int next = 0;
+
+    public ClockOffsetEstimator() {
+        this(DEFAULT_SAMPLES);
+    }
+
+    public ClockOffsetEstimator(int samples) {
+        offsets = new long[samples];
+        roundTrips = new long[samples];
+    }
+
+    public synchronized void addSample(long phoneSentMs, long watchReceivedMs,
+                                       long watchSentMs, long phoneReceivedMs) {
+        long roundTrip = (phoneReceivedMs - phoneSentMs) - (watchSentMs - watchReceivedMs);
+        if (roundTrip < 0) return; // Clock jumped mid-exchange
+
+        offsets[next] = ((watchReceivedMs - phoneSentMs) + (watchSentMs - phoneReceivedMs)) / 2;
+        roundTrips[next] = roundTrip;
+        next = (next + 1) % offsets.length;
+        count = Math.min(count + 1, offsets.length);
+    }
+
+    public synchronized boolean hasEstimate() {
+        return count > 0;
+    }
+
+    /** Watch clock minus phone clock, in ms; 0 until the first sample. */
+    public synchronized long getOffsetMillis() {
+        int best = bestSample();
+        return best < 0 ? 0 : offsets[best];
+    }
+
+    /** Round trip of the sample the offset came from; twice the offset's worst-case error. */
+    public synchronized long getRoundTripMillis() {
+        int best = bestSample();
+        return best < 0 ? 0 : roundTrips[best];
+    }
+
+    /** Converts a watch timestamp to the phone's clock. */
+    public long toPhoneTime(long watchTimeMs) {
+        return watchTimeMs - getOffsetMillis();
+    }
+
+    private int bestSample() {
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (best < 0 || roundTrips[i] < roundTrips[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,59 @@
+package edu.skku.cs.visualvroomandroid.watch;
+
+/**
+ * Fixed-bucket latency histogram. Buckets follow a 1-2-5 progression up to 5 s with an overflow
+ * bucket above, so recording never allocates and percentiles resolve to a bucket's upper bound.
+ */
+public class LatencyHistogram {
+    private static final long[] UPPER_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private final String name;
+    private final long[] counts = new long[UPPER_BOUNDS_MS.length + 1];
+    private long total = 0;
+    private long sumMillis = 0;
+    private long maxMillis = 0;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long millis) {
+        long value = Math.max(0, millis);
+        int bucket = 0;
+        while (bucket < UPPER_BOUNDS_MS.length && value > UPPER_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        total++;
+        sumMillis += value;
+        maxMillis = Math.max(maxMillis, value);
+    }
+
+    /**
+     * @param fraction 0 to 1, e.g. 0.95
+     * @return upper bound of the bucket holding that fraction of samples; the max for the overflow bucket
+     */
+    public synchronized long percentile(double fraction) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return i < UPPER_BOUNDS_MS.length ? Math.min(UPPER_BOUNDS_MS[i], maxMillis) : maxMillis;
+            }
+        }
+        return maxMillis;
+    }
+
+    public synchronized long getCount() { return total; }
+    public synchronized double getMeanMillis() { return total == 0 ? 0 : (double) sumMillis / total; }
+    public synchronized long getMaxMillis() { return maxMillis; }
+    public String getName() { return name; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: n=%d mean=%.1fms p50<=%dms p95<=%dms max=%dms",
+                name, total, getMeanMillis(), percentile(0.5), percentile(0.95), maxMillis);
+    }
+}
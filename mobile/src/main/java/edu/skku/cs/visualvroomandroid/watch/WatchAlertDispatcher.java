@@ -0,0 +1,439 @@
+package edu.skku.cs.visualvroomandroid.watch;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.wearable.CapabilityClient;
+import com.google.android.gms.wearable.CapabilityInfo;
+import com.google.android.gms.wearable.MessageClient;
+import com.google.android.gms.wearable.MessageEvent;
+import com.google.android.gms.wearable.Node;
+import com.google.android.gms.wearable.Wearable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import edu.skku.cs.visualvroomandroid.trace.TraceContext;
+import edu.skku.cs.visualvroomandroid.trace.TraceSpan;
+import edu.skku.cs.visualvroomandroid.trace.Tracer;
+
+/**
+ * Delivers messages to every reachable watch.
+ *
+ * Reachable nodes are cached and kept current by a {@link CapabilityClient} listener for
+ * the watch app's {@link #CAPABILITY_ALERT_RECEIVER} capability, so a send does not query
+ * the node list first. Each send becomes one delivery per cached node in a bounded queue
+ * drained by a single thread, with at most {@link #MAX_IN_FLIGHT} messages outstanding.
+ * Failed deliveries are retried with backoff until their deadline, after which the message
+ * is stale and dropped. Send latency is recorded per node, and {@link #getDeliveryStats()}
+ * reports how deliveries went.
+ *
+ * Alert frames sent through {@link #sendAlert(byte[], long)} are also tracked end to end:
+ * the watch answers each with an {@link AlertAck}, which feeds the {@link AlertLatencyTracker}.
+ */
+public class WatchAlertDispatcher implements CapabilityClient.OnCapabilityChangedListener,
+        MessageClient.OnMessageReceivedListener {
+    private static final String TAG = "WatchAlertDispatcher";
+
+    // Declared by the wear app in res/values/wear.xml
+    public static final String CAPABILITY_ALERT_RECEIVER = "visualvroom_alert_receiver";
+
+    // Log the latency summary after this many acks
+    private static final int SUMMARY_EVERY_ACKS = 10;
+
+    // An alert that can't reach the watch within this is no longer worth showing
+    private static final long DELIVERY_DEADLINE_MS = 2000;
+    private static final int MAX_QUEUED = 16;
+    private static final int MAX_IN_FLIGHT = 4;
+    private static final long RETRY_BASE_MS = 100;
+    private static final long RETRY_MAX_MS = 800;
+
+    private static WatchAlertDispatcher instance;
+
+    public static class NodeLatency {
+        private long sends;
+        private long failures;
+        private long totalMillis;
+        private long maxMillis;
+        private long lastMillis;
+
+        synchronized void record(long millis, boolean success) {
+            if (!success) {
+                failures++;
+                return;
+            }
+            sends++;
+            totalMillis += millis;
+            maxMillis = Math.max(maxMillis, millis);
+            lastMillis = millis;
+        }
+
+        public synchronized long getSends() { return sends; }
+        public synchronized long getFailures() { return failures; }
+        public synchronized double getAverageMillis() { return sends == 0 ? 0 : (double) totalMillis / sends; }
+        public synchronized long getMaxMillis() { return maxMillis; }
+        public synchronized long getLastMillis() { return lastMillis; }
+    }
+
+    public static class DeliveryStats {
+        private long submitted;
+        private long delivered;
+        private long retries;
+        private long droppedStale;
+        private long droppedOverflow;
+        private long noWatch;
+        private long totalLatencyMs;
+        private long maxLatencyMs;
+
+        synchronized void recordDelivered(long latencyMs) {
+            delivered++;
+            totalLatencyMs += latencyMs;
+            maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+        }
+
+        public synchronized long getSubmitted() { return submitted; }
+        public synchronized long getDelivered() { return delivered; }
+        public synchronized long getRetries() { return retries; }
+        public synchronized long getDroppedStale() { return droppedStale; }
+        public synchronized long getDroppedOverflow() { return droppedOverflow; }
+        public synchronized long getNoWatch() { return noWatch; }
+        public synchronized double getAverageLatencyMs() { return delivered == 0 ? 0 : (double) totalLatencyMs / delivered; }
+        public synchronized long getMaxLatencyMs() { return maxLatencyMs; }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("submitted=%d delivered=%d retries=%d stale=%d overflow=%d noWatch=%d avg=%.1fms max=%dms",
+                    submitted, delivered, retries, droppedStale, droppedOverflow, noWatch,
+                    getAverageLatencyMs(), maxLatencyMs);
+        }
+    }
+
+    private static class Delivery {
+        final String path;
+        final byte[] payload;
+        final String nodeId; // null until fanned out to the cached nodes
+        final long deadline;
+        final long enqueuedAt;
+        final Runnable onFanOut;
+        final TraceContext trace;
+        int attempts = 0;
+
+        Delivery(String path, byte[] payload, String nodeId, long deadline, long enqueuedAt,
+                 Runnable onFanOut, TraceContext trace) {
+            this.path = path;
+            this.payload = payload;
+            this.nodeId = nodeId;
+            this.deadline = deadline;
+            this.enqueuedAt = enqueuedAt;
+            this.onFanOut = onFanOut;
+            this.trace = trace;
+        }
+
+        Delivery forNode(String nodeId) {
+            return new Delivery(path, payload, nodeId, deadline, enqueuedAt, null, trace);
+        }
+    }
+
+    private final Context context;
+    private final CapabilityClient capabilityClient;
+    private final MessageClient messageClient;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "watch-dispatch"));
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, NodeLatency> latencies = new ConcurrentHashMap<>();
+    private final AlertLatencyTracker latencyTracker = new AlertLatencyTracker();
+    private final DeliveryStats stats = new DeliveryStats();
+    private volatile boolean nodesKnown = false;
+
+    // Dispatch-thread state
+    private final ArrayDeque<Delivery> queue = new ArrayDeque<>();
+    private boolean fetchingNodes = false;
+    private int inFlight = 0;
+    private int acks = 0;
+    private int startCount = 0;
+
+    private WatchAlertDispatcher(Context context) {
+        this.context = context.getApplicationContext();
+        this.capabilityClient = Wearable.getCapabilityClient(this.context);
+        this.messageClient = Wearable.getMessageClient(this.context);
+    }
+
+    public static synchronized WatchAlertDispatcher getInstance(Context context) {
+        if (instance == null) {
+            instance = new WatchAlertDispatcher(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Starts tracking reachable watches. Calls are counted; tracking stops after the matching number of {@link #stop()} calls.
+     */
+    public synchronized void start() {
+        if (startCount++ > 0) return;
+
+        capabilityClient.addListener(this, CAPABILITY_ALERT_RECEIVER);
+        messageClient.addListener(this);
+        dispatch(this::refreshNodes);
+    }
+
+    public synchronized void stop() {
+        if (startCount == 0 || --startCount > 0) return;
+
+        capabilityClient.removeListener(this, CAPABILITY_ALERT_RECEIVER);
+        messageClient.removeListener(this);
+        nodes.clear();
+        nodesKnown = false;
+        dispatch(queue::clear);
+        Log.d(TAG, "Delivery stats: " + stats);
+    }
+
+    @Override
+    public void onCapabilityChanged(CapabilityInfo capabilityInfo) {
+        updateNodes(capabilityInfo.getNodes());
+        // A watch may have come back for messages still queued
+        dispatch(this::drain);
+    }
+
+    @Override
+    public void onMessageReceived(MessageEvent messageEvent) {
+        if (!AlertAck.PATH.equals(messageEvent.getPath())) return;
+
+        long receivedAt = System.currentTimeMillis();
+        AlertAck ack = AlertAck.decode(messageEvent.getData());
+        if (ack == null) {
+            Log.w(TAG, "Ignoring malformed alert ack");
+            return;
+        }
+        if (!latencyTracker.onAck(messageEvent.getSourceNodeId(), ack, receivedAt)) {
+            Log.w(TAG, "Ack for unknown or expired alert #" + ack.getSequence());
+            return;
+        }
+        synchronized (this) {
+            if (++acks % SUMMARY_EVERY_ACKS != 0) return;
+        }
+        Log.d(TAG, "Alert latency:\n" + latencyTracker.summary() + "\nDelivery: " + stats);
+    }
+
+    /**
+     * Queues {@code payload} for every reachable watch. Never blocks.
+     */
+    public void send(String path, byte[] payload) {
+        send(path, payload, null, null);
+    }
+
+    /**
+     * Sends an {@link AlertFrame} and tracks its latency from {@code detectedAtMs} until the
+     * watch acknowledges it.
+     */
+    public void sendAlert(byte[] frame, long detectedAtMs) {
+        sendAlert(frame, detectedAtMs, null);
+    }
+
+    /**
+     * As {@link #sendAlert(byte[], long)}, recording the send and the watch's ack on {@code trace}.
+     */
+    public void sendAlert(byte[] frame, long detectedAtMs, TraceContext trace) {
+        final int sequence = AlertFrame.sequenceOf(frame);
+        send(AlertFrame.PATH, frame,
+                () -> latencyTracker.onSent(sequence, detectedAtMs, System.currentTimeMillis(), trace),
+                trace);
+    }
+
+    public AlertLatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    public DeliveryStats getDeliveryStats() {
+        return stats;
+    }
+
+    public boolean hasReachableNodes() {
+        return !nodes.isEmpty();
+    }
+
+    public Map<String, NodeLatency> getNodeLatencies() {
+        return new HashMap<>(latencies);
+    }
+
+    public Collection<Node> getNodes() {
+        return new ArrayList<>(nodes.values());
+    }
+
+    private void send(String path, byte[] payload, Runnable onFanOut, TraceContext trace) {
+        long now = SystemClock.elapsedRealtime();
+        synchronized (stats) {
+            stats.submitted++;
+        }
+        dispatch(() -> {
+            enqueue(new Delivery(path, payload, null, now + DELIVERY_DEADLINE_MS, now, onFanOut, trace));
+            drain();
+        });
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Dispatcher is shut down: " + e.getMessage());
+        }
+    }
+
+    private void enqueue(Delivery delivery) {
+        if (queue.size() >= MAX_QUEUED) {
+            // Oldest message is the least useful one
+            queue.poll();
+            synchronized (stats) {
+                stats.droppedOverflow++;
+            }
+        }
+        queue.add(delivery);
+    }
+
+    private void drain() {
+        if (queue.isEmpty()) return;
+        if (!nodesKnown) {
+            // First message raced the initial capability query; drained once it lands
+            refreshNodes();
+            return;
+        }
+        if (nodes.isEmpty()) {
+            dropUnreachable();
+            return;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        while (inFlight < MAX_IN_FLIGHT && !queue.isEmpty()) {
+            Delivery delivery = queue.poll();
+            if (now > delivery.deadline) {
+                synchronized (stats) {
+                    stats.droppedStale++;
+                }
+                continue;
+            }
+            if (delivery.nodeId == null) {
+                if (!queue.isEmpty() && queue.size() + nodes.size() > MAX_QUEUED) {
+                    // No room for its copies; as in enqueue, the oldest message is the one to go
+                    synchronized (stats) {
+                        stats.droppedOverflow++;
+                    }
+                    continue;
+                }
+                if (delivery.onFanOut != null) {
+                    delivery.onFanOut.run();
+                }
+                // One delivery per node so retries only hit the node that failed
+                for (String nodeId : nodes.keySet()) {
+                    queue.addFirst(delivery.forNode(nodeId));
+                }
+                continue;
+            }
+            send(delivery);
+        }
+    }
+
+    private void send(Delivery delivery) {
+        inFlight++;
+        delivery.attempts++;
+        final long sentAt = SystemClock.elapsedRealtime();
+        final long sentAtNanos = System.nanoTime();
+        final NodeLatency latency = latencies.computeIfAbsent(delivery.nodeId, id -> new NodeLatency());
+        messageClient.sendMessage(delivery.nodeId, delivery.path, delivery.payload)
+                .addOnSuccessListener(executor, requestId -> {
+                    inFlight--;
+                    long elapsed = SystemClock.elapsedRealtime() - sentAt;
+                    latency.record(elapsed, true);
+                    stats.recordDelivered(SystemClock.elapsedRealtime() - delivery.enqueuedAt);
+                    Tracer.getInstance().record(delivery.trace, TraceSpan.WATCH_SEND,
+                            sentAtNanos, System.nanoTime(), delivery.payload.length);
+                    Log.d(TAG, String.format("%s delivered to %s in %d ms",
+                            delivery.path, nodeName(delivery.nodeId), elapsed));
+                    drain();
+                })
+                .addOnFailureListener(executor, e -> {
+                    inFlight--;
+                    latency.record(0, false);
+                    Log.w(TAG, "Failed to send " + delivery.path + " to " + nodeName(delivery.nodeId)
+                            + " (attempt " + delivery.attempts + "): " + e.getMessage());
+                    retry(delivery);
+                    drain();
+                });
+    }
+
+    private void retry(Delivery delivery) {
+        long backoff = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << (delivery.attempts - 1));
+        if (SystemClock.elapsedRealtime() + backoff > delivery.deadline) {
+            synchronized (stats) {
+                stats.droppedStale++;
+            }
+            return;
+        }
+        synchronized (stats) {
+            stats.retries++;
+        }
+        try {
+            executor.schedule(() -> {
+                enqueue(delivery);
+                drain();
+            }, backoff, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Dispatcher is shut down: " + e.getMessage());
+        }
+    }
+
+    private void dropUnreachable() {
+        // Per-node copies of one message share its payload; count messages, not copies
+        Set<byte[]> messages = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Delivery delivery : queue) {
+            messages.add(delivery.payload);
+        }
+        synchronized (stats) {
+            stats.noWatch += messages.size();
+        }
+        queue.clear();
+        Log.w(TAG, "No reachable watch");
+    }
+
+    private String nodeName(String nodeId) {
+        Node node = nodes.get(nodeId);
+        return node != null ? node.getDisplayName() : nodeId;
+    }
+
+    private void refreshNodes() {
+        if (fetchingNodes) return;
+        fetchingNodes = true;
+        capabilityClient.getCapability(CAPABILITY_ALERT_RECEIVER, CapabilityClient.FILTER_REACHABLE)
+                .addOnSuccessListener(executor, info -> {
+                    fetchingNodes = false;
+                    updateNodes(info.getNodes());
+                    drain();
+                })
+                .addOnFailureListener(executor, e -> {
+                    fetchingNodes = false;
+                    Log.e(TAG, "Failed to look up watches: " + e.getMessage());
+                });
+    }
+
+    private void updateNodes(Collection<Node> reachable) {
+        List<String> ids = new ArrayList<>();
+        for (Node node : reachable) {
+            nodes.put(node.getId(), node);
+            ids.add(node.getId());
+        }
+        nodes.keySet().retainAll(ids);
+        nodesKnown = true;
+        Log.d(TAG, "Reachable watches: " + nodes.size());
+    }
+}
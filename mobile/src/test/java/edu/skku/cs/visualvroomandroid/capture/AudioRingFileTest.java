@@ -0,0 +1,132 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class AudioRingFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final CaptureFormat FORMAT = CaptureFormat.STEREO_16K;
+    private static final int BLOCK_FRAMES = 320;    // 20 ms
+
+    // Writes 20 ms blocks whose left channel counts frames from firstFrame, starting at startMs
+    private static void writeBlocks(AudioRingFile ring, int firstFrame, int blocks, long startMs) {
+        short[] samples = new short[BLOCK_FRAMES * 2];
+        for (int b = 0; b < blocks; b++) {
+            for (int i = 0; i < BLOCK_FRAMES; i++) {
+                samples[2 * i] = (short) (firstFrame + b * BLOCK_FRAMES + i);
+                samples[2 * i + 1] = (short) -1;
+            }
+            ring.write(samples, samples.length, startMs + b * 20L);
+        }
+    }
+
+    // Left-channel samples of an exported WAV
+    private static short[] leftChannel(File wav) throws IOException {
+        byte[] bytes = Files.readAllBytes(wav.toPath());
+        ByteBuffer data = ByteBuffer.wrap(bytes, WavWriter.HEADER_BYTES, bytes.length - WavWriter.HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(bytes.length - WavWriter.HEADER_BYTES,
+                ByteBuffer.wrap(bytes, 40, 4).order(ByteOrder.LITTLE_ENDIAN).getInt());
+        short[] left = new short[data.remaining() / 4];
+        for (int i = 0; i < left.length; i++) {
+            left[i] = data.getShort();
+            data.getShort();
+        }
+        return left;
+    }
+
+    @Test
+    public void exportsTheRequestedSpan() throws IOException {
+        try (AudioRingFile ring = new AudioRingFile(folder.newFile(), FORMAT, 16000 * 10)) {
+            writeBlocks(ring, 0, 250, 100_000);     // 5 s from t = 100 s
+            ring.flush();
+
+            File clip = folder.newFile();
+            assertEquals(16000, ring.exportWav(101_000, 102_000, clip));
+            short[] left = leftChannel(clip);
+            assertEquals(16000, left.length);
+            assertEquals((short) 16000, left[0]);
+            assertEquals((short) 31999, left[left.length - 1]);
+            assertEquals(100_000, ring.getOldestMs());
+            assertEquals(105_000, ring.getNewestMs());
+        }
+    }
+
+    @Test
+    public void keepsOnlyTheNewestAudioAcrossTheWrap() throws IOException {
+        // 3 s ring, 5 s written: only t = 2..5 s remain and the export straddles the wrap
+        try (AudioRingFile ring = new AudioRingFile(folder.newFile(), FORMAT, 16000 * 3)) {
+            writeBlocks(ring, 0, 250, 0);
+            ring.flush();
+
+            assertEquals(2000, ring.getOldestMs());
+            File clip = folder.newFile();
+            assertEquals(48000, ring.exportWav(0, 10_000, clip));
+            short[] left = leftChannel(clip);
+            for (int i = 0; i < left.length; i++) {
+                assertEquals((short) (32000 + i), left[i]);
+            }
+        }
+    }
+
+    @Test
+    public void gapsInCaptureDoNotShiftLaterAudio() throws IOException {
+        try (AudioRingFile ring = new AudioRingFile(folder.newFile(), FORMAT, 16000 * 30)) {
+            writeBlocks(ring, 0, 200, 0);           // 4 s, exactly one chunk
+            writeBlocks(ring, 64000, 100, 60_000);  // A minute later, 2 s more
+
+            File clip = folder.newFile();
+            assertEquals(16000, ring.exportWav(60_500, 61_500, clip));
+            assertEquals((short) (64000 + 8000), leftChannel(clip)[0]);
+            assertEquals(0, ring.exportWav(10_000, 20_000, folder.newFile()));
+        }
+    }
+
+    @Test
+    public void closedRingIgnoresLateWrites() throws IOException {
+        File file = folder.newFile();
+        AudioRingFile ring = new AudioRingFile(file, FORMAT, 16000 * 10);
+        writeBlocks(ring, 0, 100, 0);
+        ring.close();
+        // A capture thread still draining its queue after stop()
+        writeBlocks(ring, 32000, 100, 2000);
+        ring.flush();
+        assertEquals(0, ring.exportWav(0, 10_000, folder.newFile()));
+        ring.close();
+
+        try (AudioRingFile reopened = new AudioRingFile(file, FORMAT, 16000 * 10)) {
+            assertEquals(2000, reopened.getNewestMs());
+        }
+    }
+
+    @Test
+    public void reopenedRingKeepsItsAudio() throws IOException {
+        File file = folder.newFile();
+        try (AudioRingFile ring = new AudioRingFile(file, FORMAT, 16000 * 10)) {
+            writeBlocks(ring, 0, 100, 0);
+        }
+        try (AudioRingFile ring = new AudioRingFile(file, FORMAT, 16000 * 10)) {
+            writeBlocks(ring, 32000, 100, 2000);
+            File clip = folder.newFile();
+            assertEquals(64000, ring.exportWav(0, 4000, clip));
+            short[] left = leftChannel(clip);
+            assertEquals((short) 0, left[0]);
+            assertEquals((short) 63999, left[63999]);
+        }
+        // A different length starts afresh
+        try (AudioRingFile ring = new AudioRingFile(file, FORMAT, 16000 * 5)) {
+            assertEquals(-1, ring.getOldestMs());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import org.junit.Test;
+
+import edu.skku.cs.visualvroomandroid.pipeline.AudioBlock;
+
+import static org.junit.Assert.*;
+
+public class FormatConverterTest {
+
+    private static AudioBlock stereo(short left, short right, int frames) {
+        short[] samples = new short[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            samples[2 * i] = left;
+            samples[2 * i + 1] = right;
+        }
+        return new AudioBlock(samples, samples.length, 0);
+    }
+
+    @Test
+    public void captureFormatPassesThrough() {
+        FormatConverter converter = new FormatConverter(48000, CaptureFormat.STEREO_48K);
+        AudioBlock block = stereo((short) 1, (short) 2, 10);
+        assertSame(block, converter.apply(block));
+    }
+
+    @Test
+    public void monoDownmixAveragesChannels() {
+        FormatConverter converter = new FormatConverter(48000, new CaptureFormat(48000, 1));
+        AudioBlock out = converter.apply(stereo((short) 1000, (short) -200, 4));
+        assertEquals(4, out.getLength());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(400, out.getSamples()[i]);
+        }
+    }
+
+    @Test
+    public void decimationCarriesHistoryAcrossBlocks() {
+        FormatConverter split = new FormatConverter(48000, CaptureFormat.STEREO_16K);
+        FormatConverter whole = new FormatConverter(48000, CaptureFormat.STEREO_16K);
+        // 500 + 400 frames = 900 input frames = 300 output frames, whatever the split
+        AudioBlock first = split.apply(stereo((short) 300, (short) 600, 500));
+        AudioBlock second = split.apply(stereo((short) 300, (short) 600, 400));
+        AudioBlock all = whole.apply(stereo((short) 300, (short) 600, 900));
+
+        assertEquals(600, first.getLength() + second.getLength());
+        assertEquals(600, all.getLength());
+        for (int i = 0; i < first.getLength(); i++) {
+            assertEquals(all.getSamples()[i], first.getSamples()[i]);
+        }
+        for (int i = 0; i < second.getLength(); i++) {
+            assertEquals(all.getSamples()[first.getLength() + i], second.getSamples()[i]);
+        }
+        // DC passes at unity gain once the filter has filled
+        assertEquals(300, second.getSamples()[second.getLength() - 2], 1);
+        assertEquals(600, second.getSamples()[second.getLength() - 1], 1);
+    }
+
+    @Test
+    public void resamplesRatesThatDontDivide() {
+        FormatConverter converter = new FormatConverter(48000, new CaptureFormat(44100, 2));
+        int frames = 0;
+        for (int i = 0; i < 50; i++) {
+            frames += converter.apply(stereo((short) 100, (short) 100, 960)).getLength() / 2;
+        }
+        // One second in, one second out
+        assertEquals(44100, frames, 1);
+    }
+}
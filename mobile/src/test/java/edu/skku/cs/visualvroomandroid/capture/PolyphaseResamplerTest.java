@@ -0,0 +1,150 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class PolyphaseResamplerTest {
+
+    private static final int AMPLITUDE = 20000;
+
+    // Linear sweep from f0 to f1 Hz over the given number of mono samples
+    private static short[] sweep(int rate, double f0, double f1, int samples) {
+        short[] out = new short[samples];
+        double duration = (double) samples / rate;
+        for (int i = 0; i < samples; i++) {
+            double t = (double) i / rate;
+            double phase = 2 * Math.PI * (f0 * t + (f1 - f0) * t * t / (2 * duration));
+            out[i] = (short) Math.round(AMPLITUDE * Math.sin(phase));
+        }
+        return out;
+    }
+
+    private static short[] resample(PolyphaseResampler resampler, short[] in, int block) {
+        short[] out = new short[resampler.maxOutputFrames(in.length) + block];
+        short[] scratch = new short[resampler.maxOutputFrames(block)];
+        short[] chunk = new short[block];
+        int written = 0;
+        for (int i = 0; i < in.length; i += block) {
+            int n = Math.min(block, in.length - i);
+            System.arraycopy(in, i, chunk, 0, n);
+            int produced = resampler.process(chunk, n, scratch);
+            System.arraycopy(scratch, 0, out, written, produced);
+            written += produced;
+        }
+        return Arrays.copyOf(out, written);
+    }
+
+    // RMS in dB relative to the sweep's own RMS, skipping the filter's warm-up
+    private static double levelDb(short[] samples, int skip) {
+        double sum = 0;
+        for (int i = skip; i < samples.length; i++) {
+            sum += (double) samples[i] * samples[i];
+        }
+        double rms = Math.sqrt(sum / (samples.length - skip));
+        return 20 * Math.log10(rms / (AMPLITUDE / Math.sqrt(2)));
+    }
+
+    @Test
+    public void passbandSweepKeepsItsLevel() {
+        PolyphaseResampler resampler = new PolyphaseResampler(48000, 16000, 1);
+        short[] out = resample(resampler, sweep(48000, 50, 0.85 * 8000, 48000), 960);
+
+        assertEquals(16000, out.length, 1);
+        assertEquals(0.0, levelDb(out, resampler.getTapsPerPhase()), 0.1);
+    }
+
+    @Test
+    public void sweepAboveNyquistDoesNotAlias() {
+        PolyphaseResampler resampler = new PolyphaseResampler(48000, 16000, 1);
+        short[] out = resample(resampler, sweep(48000, 8000, 23500, 48000), 960);
+
+        assertTrue("aliasing at " + levelDb(out, 100) + " dB", levelDb(out, 100) < -70);
+    }
+
+    @Test
+    public void boxAveragingWouldAlias() {
+        // The decimator this replaced: averaging 3 samples leaves most of an 11 kHz tone
+        short[] in = sweep(48000, 11000, 11000, 48000);
+        short[] out = new short[16000];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (short) ((in[3 * i] + in[3 * i + 1] + in[3 * i + 2]) / 3);
+        }
+        assertTrue(levelDb(out, 0) > -20);
+
+        PolyphaseResampler resampler = new PolyphaseResampler(48000, 16000, 1);
+        assertTrue(levelDb(resample(resampler, in, 960), 100) < -70);
+    }
+
+    @Test
+    public void fractionalRatioDoesNotAlias() {
+        PolyphaseResampler resampler = new PolyphaseResampler(44100, 16000, 1);
+        short[] pass = resample(resampler, sweep(44100, 50, 0.85 * 8000, 44100), 441);
+        resampler.reset();
+        short[] stop = resample(resampler, sweep(44100, 8000, 21500, 44100), 441);
+
+        assertEquals(16000, pass.length, 2);
+        assertEquals(0.0, levelDb(pass, resampler.getTapsPerPhase()), 0.1);
+        assertTrue("aliasing at " + levelDb(stop, 100) + " dB", levelDb(stop, 100) < -70);
+    }
+
+    @Test
+    public void upsamplingIsFlat() {
+        PolyphaseResampler resampler = new PolyphaseResampler(16000, 48000, 1);
+        short[] out = resample(resampler, sweep(16000, 50, 0.85 * 8000, 16000), 320);
+
+        assertEquals(48000, out.length, 2);
+        assertEquals(0.0, levelDb(out, 3 * resampler.getTapsPerPhase()), 0.1);
+    }
+
+    @Test
+    public void stereoChannelsStaySeparate() {
+        PolyphaseResampler resampler = new PolyphaseResampler(48000, 16000, 2);
+        short[] in = new short[2 * 4800];
+        for (int i = 0; i < 4800; i++) {
+            in[2 * i] = 1000;
+            in[2 * i + 1] = -3000;
+        }
+        short[] out = new short[2 * resampler.maxOutputFrames(4800)];
+        int frames = resampler.process(in, 4800, out);
+
+        assertEquals(1600, frames);
+        assertEquals(1000, out[2 * frames - 2]);
+        assertEquals(-3000, out[2 * frames - 1]);
+    }
+
+    // Opt-in with -Pbenchmark, so the regular suite neither prints nor depends on machine load
+    @Test
+    public void benchmarkResampleThroughput() {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        reportThroughput(new PolyphaseResampler(48000, 16000, 2), 2, "48k->16k stereo");
+        reportThroughput(new PolyphaseResampler(48000, 8000, 1), 1, "48k->8k mono");
+    }
+
+    // Times 20 ms blocks of 48 kHz input, the capture block size
+    private static void reportThroughput(PolyphaseResampler resampler, int channels, String name) {
+        int frames = 960;
+        short[] block = sweep(48000, 50, 20000, frames * channels);
+        short[] out = new short[channels * resampler.maxOutputFrames(frames)];
+        int warmup = 2_000;
+        int iterations = 10_000;
+
+        for (int i = 0; i < warmup; i++) {
+            resampler.process(block, frames, out);
+        }
+
+        long outputSamples = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            outputSamples += resampler.process(block, frames, out) * channels;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("PolyphaseResampler: %s, %d taps, %.1f ns per output sample (%.0fx realtime)%n",
+                name, resampler.getTapsPerPhase(), (double) elapsed / outputSamples,
+                iterations * 0.02 / (elapsed / 1e9));
+    }
+}
@@ -0,0 +1,92 @@
+package edu.skku.cs.visualvroomandroid.capture;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SpillingAudioBufferTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static short[] ramp(int start, int length) {
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (short) ((start + i) * 37);
+        }
+        return samples;
+    }
+
+    private static byte[] wav(SpillingAudioBuffer buffer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffer.writeWavTo(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private static byte[] expectedPcm(int samples) {
+        byte[] pcm = new byte[samples * 2];
+        short[] all = ramp(0, samples);
+        for (int i = 0; i < samples; i++) {
+            pcm[2 * i] = (byte) all[i];
+            pcm[2 * i + 1] = (byte) (all[i] >> 8);
+        }
+        return pcm;
+    }
+
+    @Test
+    public void shortRecordingStaysInMemory() throws IOException {
+        File dir = tmp.newFolder();
+        SpillingAudioBuffer buffer = new SpillingAudioBuffer(dir, CaptureFormat.STEREO_48K, 1000);
+        buffer.write(ramp(0, 300), 300);
+
+        assertEquals(0, buffer.getSpilledBytes());
+        assertEquals(0, dir.list().length);
+
+        byte[] wav = wav(buffer);
+        assertEquals(buffer.wavLength(), wav.length);
+        assertArrayEquals(WavWriter.header(600, CaptureFormat.STEREO_48K),
+                Arrays.copyOf(wav, WavWriter.HEADER_BYTES));
+        assertArrayEquals(expectedPcm(300), Arrays.copyOfRange(wav, WavWriter.HEADER_BYTES, wav.length));
+    }
+
+    @Test
+    public void spillsAcrossMappedRegionsInOrder() throws IOException {
+        File dir = tmp.newFolder();
+        // 100-byte tail, 256-byte regions: spills straddle region boundaries
+        SpillingAudioBuffer buffer = new SpillingAudioBuffer(dir, CaptureFormat.MONO_16K, 100, 256);
+        int written = 0;
+        for (int block : new int[]{7, 120, 33, 500, 1}) {
+            buffer.write(ramp(written, block), block);
+            written += block;
+        }
+
+        assertEquals(written * 2, buffer.size());
+        assertTrue(buffer.getSpilledBytes() > 256 * 3);
+        assertEquals(1, dir.list().length);
+
+        byte[] wav = wav(buffer);
+        assertEquals(buffer.wavLength(), wav.length);
+        assertArrayEquals(expectedPcm(written), Arrays.copyOfRange(wav, WavWriter.HEADER_BYTES, wav.length));
+        // Retried uploads stream the same bytes again
+        assertArrayEquals(wav, wav(buffer));
+    }
+
+    @Test
+    public void closeDeletesSpillFile() throws IOException {
+        File dir = tmp.newFolder();
+        SpillingAudioBuffer buffer = new SpillingAudioBuffer(dir, CaptureFormat.MONO_16K, 64, 128);
+        buffer.write(ramp(0, 200), 200);
+        assertEquals(1, dir.list().length);
+
+        buffer.close();
+        assertEquals(0, dir.list().length);
+    }
+}
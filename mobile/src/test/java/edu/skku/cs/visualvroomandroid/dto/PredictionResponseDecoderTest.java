@@ -0,0 +1,111 @@
+package edu.skku.cs.visualvroomandroid.dto;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Decoding checks for both response shapes plus a rough decode-throughput benchmark.
+ */
+public class PredictionResponseDecoderTest {
+    private static final String WRAPPED = "{\"status\": \"success\", \"inference_result\": "
+            + "{\"vehicle_type\": \"siren\", \"direction\": \"L\", \"confidence\": 0.9821, "
+            + "\"should_notify\": true, \"too_quiet\": false, \"probabilities\": [0.98, 0.01, 0.01]}}";
+    private static final String FLAT = "{\"vehicle_type\": \"horn\", \"direction\": \"R\", \"confidence\": 0.75}";
+
+    @Test
+    public void decodesWrappedResponse() throws IOException {
+        PredictionResponse response = PredictionResponseDecoder.decode(
+                new StringReader(WRAPPED), new PredictionResponse());
+
+        assertEquals("success", response.getStatus());
+        assertEquals("siren", response.getVehicleType());
+        assertEquals("L", response.getDirection());
+        assertEquals(0.9821, response.getConfidence(), 1e-9);
+        assertTrue(response.isShouldNotify());
+        assertFalse(response.isTooQuiet());
+        assertFalse(response.isError());
+    }
+
+    @Test
+    public void decodesFlatResponseIntoReusedTarget() throws IOException {
+        PredictionResponse response = new PredictionResponse();
+        PredictionResponseDecoder.decode(new StringReader(WRAPPED), response);
+        PredictionResponseDecoder.decode(new StringReader(FLAT), response);
+
+        assertNull(response.getStatus());
+        assertEquals("horn", response.getVehicleType());
+        assertEquals("R", response.getDirection());
+        assertFalse(response.isShouldNotify());
+    }
+
+    @Test
+    public void decodesErrorAndQuietResponses() throws IOException {
+        PredictionResponse response = new PredictionResponse();
+
+        PredictionResponseDecoder.decode(new StringReader(
+                "{\"status\": \"error\", \"error\": \"bad audio\"}"), response);
+        assertTrue(response.isError());
+        assertEquals("bad audio", response.getError());
+
+        PredictionResponseDecoder.decode(new StringReader(
+                "{\"status\": \"success\", \"inference_result\": {\"too_quiet\": true, \"vehicle_type\": null}}"),
+                response);
+        assertTrue(response.isTooQuiet());
+        assertFalse(response.hasPrediction());
+    }
+
+    @Test
+    public void decodesBatchInRequestOrder() throws IOException {
+        List<PredictionResponse> results = PredictionResponseDecoder.decodeBatch(new StringReader(
+                "{\"status\": \"success\", \"results\": [" + WRAPPED + ", "
+                        + "{\"status\": \"success\", \"too_quiet\": true}, " + FLAT + "]}"), 3);
+
+        assertEquals(3, results.size());
+        assertEquals("siren", results.get(0).getVehicleType());
+        assertTrue(results.get(1).isTooQuiet());
+        assertFalse(results.get(1).hasPrediction());
+        assertEquals("horn", results.get(2).getVehicleType());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsBatchWithMissingResults() throws IOException {
+        PredictionResponseDecoder.decodeBatch(new StringReader("{\"results\": [" + FLAT + "]}"), 2);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMalformedInput() throws IOException {
+        PredictionResponseDecoder.decode(new StringReader("[1, 2]"), new PredictionResponse());
+    }
+
+    // Opt-in with -Pbenchmark, so the regular suite neither prints nor depends on machine load
+    @Test
+    public void benchmarkDecodeThroughput() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        PredictionResponse response = new PredictionResponse();
+        int warmup = 20_000;
+        int iterations = 200_000;
+
+        for (int i = 0; i < warmup; i++) {
+            PredictionResponseDecoder.decode(new StringReader(WRAPPED), response);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            PredictionResponseDecoder.decode(new StringReader(WRAPPED), response);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double perSecond = iterations / (elapsed / 1e9);
+        double megabytesPerSecond = perSecond * WRAPPED.length() / (1024.0 * 1024.0);
+        System.out.printf("PredictionResponseDecoder: %.0f responses/s (%.1f MB/s, %.2f us/response)%n",
+                perSecond, megabytesPerSecond, elapsed / 1e3 / iterations);
+
+        assertEquals("siren", response.getVehicleType());
+    }
+}
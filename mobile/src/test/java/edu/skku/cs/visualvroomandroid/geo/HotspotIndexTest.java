@@ -0,0 +1,100 @@
+package edu.skku.cs.visualvroomandroid.geo;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import edu.skku.cs.visualvroomandroid.watch.AlertFrame;
+
+import static org.junit.Assert.*;
+
+public class HotspotIndexTest {
+
+    @Test
+    public void geohashMatchesTheStandardEncoding() {
+        // The example from the geohash reference: u4pruydqqvj
+        assertEquals("u4pruyd", Geohash.toString(Geohash.encode(57.64911, 10.40744, 35), 35));
+        assertEquals("wydm", Geohash.toString(Geohash.encode(37.5665, 126.9780, 20), 20));
+
+        long hash = Geohash.encode(-33.8688, 151.2093, 35);
+        assertEquals(Geohash.column(151.2093, 35), Geohash.columnOf(hash, 35));
+        assertEquals(Geohash.row(-33.8688, 35), Geohash.rowOf(hash, 35));
+    }
+
+    @Test
+    public void countsEachTypePerCell() {
+        HotspotIndex index = new HotspotIndex();
+        index.add(37.29370, 126.97520, AlertFrame.TYPE_SIREN);
+        index.add(37.29375, 126.97525, AlertFrame.TYPE_SIREN);
+        index.add(37.29372, 126.97522, AlertFrame.TYPE_HORN);
+        index.add(37.29371, 126.97521, AlertFrame.TYPE_BIKE);
+        index.add(37.35000, 127.00000, AlertFrame.TYPE_HORN);   // About 7 km away
+
+        List<HotspotIndex.Cell> cells = index.query(37.29, 126.97, 37.30, 126.98, 100);
+        assertEquals(1, cells.size());
+        HotspotIndex.Cell cell = cells.get(0);
+        assertEquals(35, cell.getBits());
+        assertEquals(2, cell.getSirens());
+        assertEquals(1, cell.getHorns());
+        assertEquals(1, cell.getBikes());
+        assertEquals(4, cell.getTotal());
+        assertTrue(cell.getSouth() <= 37.2937 && cell.getNorth() > 37.29375);
+        assertTrue(cell.getWest() <= 126.9752 && cell.getEast() > 126.97525);
+
+        // A wide viewport falls back to coarser cells that merge both places
+        List<HotspotIndex.Cell> coarse = index.query(36, 126, 38, 128, 4);
+        assertEquals(20, coarse.get(0).getBits());
+        assertEquals(5, coarse.get(0).getTotal());
+    }
+
+    @Test
+    public void viewportQueriesMatchAScanOfEveryDetection() {
+        Random random = new Random(7);
+        HotspotIndex index = new HotspotIndex();
+        double[][] points = new double[20_000][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[]{37.2 + random.nextDouble() * 0.4, 126.8 + random.nextDouble() * 0.4};
+            index.add(points[i][0], points[i][1], (byte) (1 + i % 3));
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double south = 37.2 + random.nextDouble() * 0.3;
+            double west = 126.8 + random.nextDouble() * 0.3;
+            double size = 0.005 + random.nextDouble() * 0.1;
+            int maxCells = 1 + random.nextInt(2000);
+            List<HotspotIndex.Cell> cells = index.query(south, west, south + size, west + size, maxCells);
+
+            // Every detection inside the returned cells, and only those, lies in a cell the viewport touches
+            int bits = cells.isEmpty() ? 35 : cells.get(0).getBits();
+            long expected = 0;
+            for (double[] p : points) {
+                long row = Geohash.row(p[0], bits);
+                long column = Geohash.column(p[1], bits);
+                if (row >= Geohash.row(south, bits) && row <= Geohash.row(south + size, bits)
+                        && column >= Geohash.column(west, bits) && column <= Geohash.column(west + size, bits)) {
+                    expected++;
+                }
+            }
+            long total = 0;
+            for (HotspotIndex.Cell cell : cells) {
+                total += cell.getTotal();
+            }
+            assertEquals(expected, total);
+        }
+    }
+
+    @Test
+    public void viewportMayCrossTheAntimeridian() {
+        HotspotIndex index = new HotspotIndex();
+        index.add(-17.0, 179.99, AlertFrame.TYPE_SIREN);
+        index.add(-17.0, -179.99, AlertFrame.TYPE_HORN);
+        index.add(-17.0, 170.0, AlertFrame.TYPE_BIKE);
+
+        long total = 0;
+        for (HotspotIndex.Cell cell : index.query(-17.1, 179.9, -16.9, -179.9, 1000)) {
+            total += cell.getTotal();
+        }
+        assertEquals(2, total);
+    }
+}
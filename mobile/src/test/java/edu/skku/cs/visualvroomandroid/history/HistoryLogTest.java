@@ -0,0 +1,201 @@
+package edu.skku.cs.visualvroomandroid.history;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+import edu.skku.cs.visualvroomandroid.watch.AlertFrame;
+
+import static org.junit.Assert.*;
+
+public class HistoryLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static HistoryRecord record(long timestampMs, String type, String direction, boolean notify) {
+        return new HistoryRecord().set(new DetectionEvent(DetectionEvent.Source.SERVICE, type, direction,
+                0.9, notify, timestampMs), 120);
+    }
+
+    @Test
+    public void recordsRoundTrip() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryLog log = new HistoryLog(dir)) {
+            log.append(record(1000, "siren", "L", true));
+            log.append(record(2000, "horn", "R", false));
+        }
+
+        HistoryReader reader = new HistoryReader(dir);
+        assertEquals(2, reader.size());
+        HistoryRecord r = reader.read(0, new HistoryRecord());
+        assertEquals(1000, r.getTimestampMs());
+        assertEquals(AlertFrame.TYPE_SIREN, r.getType());
+        assertEquals(AlertFrame.DIRECTION_LEFT, r.getDirection());
+        assertEquals(0.9f, r.getConfidence(), 1e-6);
+        assertEquals(120, r.getLatencyMs());
+        assertEquals(DetectionEvent.Source.SERVICE, r.getSource());
+        assertTrue(r.isNotified());
+        assertEquals("horn", HistoryRecord.typeName(reader.read(1, r).getType()));
+        assertFalse(r.isNotified());
+        assertNull(reader.read(2, r));
+        reader.close();
+    }
+
+    @Test
+    public void positionsRoundTrip() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryLog log = new HistoryLog(dir)) {
+            log.append(record(1000, "siren", "L", true).setPosition(37.2937123, 126.9752456));
+            log.append(record(2000, "horn", "R", false));
+        }
+
+        HistoryReader reader = new HistoryReader(dir);
+        HistoryRecord r = reader.read(0, new HistoryRecord());
+        assertTrue(r.hasPosition());
+        assertTrue(r.isNotified());
+        assertEquals(37.2937123, r.getLatitude(), 1e-7);
+        assertEquals(126.9752456, r.getLongitude(), 1e-7);
+        assertFalse(reader.read(1, r).hasPosition());
+        reader.close();
+    }
+
+    @Test
+    public void versionOneSegmentsStayReadable() throws IOException {
+        File dir = folder.newFolder();
+        // A full segment as the first version wrote it: 32-byte records, no position
+        int v1Bytes = HistoryLog.HEADER_BYTES + 2 * HistoryRecord.BYTES_V1;
+        // Room for writeTo's position fields past the last record; they aren't saved
+        ByteBuffer v1 = ByteBuffer.allocate(v1Bytes + HistoryRecord.BYTES);
+        v1.putInt(0, HistoryLog.MAGIC);
+        v1.putShort(4, (short) HistoryLog.VERSION_1);
+        v1.putShort(6, (short) HistoryRecord.BYTES_V1);
+        v1.putInt(HistoryLog.COUNT_OFFSET, 2);
+        v1.putInt(HistoryLog.CAPACITY_OFFSET, 2);
+        HistoryRecord old = record(1000, "bike", "L", true);
+        old.writeTo(v1, HistoryLog.HEADER_BYTES);
+        old.timestampMs = 2000;
+        old.writeTo(v1, HistoryLog.HEADER_BYTES + HistoryRecord.BYTES_V1);
+        try (RandomAccessFile file = new RandomAccessFile(new File(dir, "history-0000000000.vvhist"), "rw")) {
+            file.write(v1.array(), 0, v1Bytes);
+        }
+
+        // The log moves on to a current-version segment and both are read in order
+        try (HistoryLog log = new HistoryLog(dir)) {
+            log.append(record(3000, "siren", "R", false).setPosition(1, 2));
+        }
+        HistoryReader reader = new HistoryReader(dir);
+        assertEquals(3, reader.size());
+        HistoryRecord r = reader.read(1, new HistoryRecord());
+        assertEquals(2000, r.getTimestampMs());
+        assertEquals(AlertFrame.TYPE_BIKE, r.getType());
+        assertFalse(r.hasPosition());
+        assertTrue(reader.read(2, r).hasPosition());
+        assertEquals(1, reader.lowerBound(1500));
+        reader.close();
+    }
+
+    @Test
+    public void rotatesSegmentsAndDropsTheOldest() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryLog log = new HistoryLog(dir, 10, 3)) {
+            for (int i = 0; i < 45; i++) {
+                log.append(record(i * 1000L, "siren", "L", false));
+            }
+        }
+        assertEquals(3, HistoryLog.segmentFiles(dir).length);
+
+        // The newest three segments hold records 20..44
+        HistoryReader reader = new HistoryReader(dir);
+        assertEquals(25, reader.size());
+        assertEquals(20_000, reader.read(0, new HistoryRecord()).getTimestampMs());
+        assertEquals(44_000, reader.read(24, new HistoryRecord()).getTimestampMs());
+        reader.close();
+    }
+
+    @Test
+    public void reopenedLogAppendsWhereItLeftOff() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryLog log = new HistoryLog(dir, 10, 4)) {
+            for (int i = 0; i < 5; i++) {
+                log.append(record(i * 1000L, "bike", "R", false));
+            }
+        }
+        try (HistoryLog log = new HistoryLog(dir, 10, 4)) {
+            // Earlier than the last stored record, so it's filed at that record's time
+            log.append(record(3500, "horn", "R", false));
+        }
+
+        HistoryReader reader = new HistoryReader(dir);
+        assertEquals(6, reader.size());
+        assertEquals(1, HistoryLog.segmentFiles(dir).length);
+        assertEquals(4000, reader.read(5, new HistoryRecord()).getTimestampMs());
+        reader.close();
+    }
+
+    @Test
+    public void rangeQueriesAndCounts() throws IOException {
+        File dir = folder.newFolder();
+        String[] types = {"siren", "horn", "bike"};
+        try (HistoryLog log = new HistoryLog(dir, 16, 100)) {
+            for (int i = 0; i < 300; i++) {
+                log.append(record(i * 100L, types[i % 3], i % 2 == 0 ? "L" : "R", i % 10 == 0));
+            }
+        }
+
+        HistoryReader reader = new HistoryReader(dir);
+        assertEquals(0, reader.lowerBound(Long.MIN_VALUE));
+        assertEquals(0, reader.lowerBound(0));
+        assertEquals(51, reader.lowerBound(5050));
+        assertEquals(160, reader.lowerBound(16_000));   // First record of a segment
+        assertEquals(300, reader.lowerBound(30_000));
+
+        HistoryReader.Summary summary = reader.summarize(3000, 6000);
+        assertEquals(30, summary.getTotal());
+        assertEquals(10, summary.count(AlertFrame.TYPE_SIREN));
+        assertEquals(10, summary.count(AlertFrame.TYPE_HORN));
+        assertEquals(10, summary.count(AlertFrame.TYPE_BIKE));
+        assertEquals(15, summary.countDirection(AlertFrame.DIRECTION_LEFT));
+        assertEquals(3, summary.getNotified());
+        assertEquals(120, summary.getAverageLatencyMs(), 1e-9);
+        reader.close();
+    }
+
+    @Test
+    public void readerSeesAppendsAfterRefresh() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryLog log = new HistoryLog(dir, 4, 10)) {
+            HistoryReader reader = new HistoryReader(dir);
+            log.append(record(1000, "siren", "L", false));
+            assertEquals(0, reader.size());     // Snapshot until refreshed
+
+            for (int i = 1; i < 6; i++) {
+                log.append(record(1000 + i, "siren", "L", false));
+            }
+            reader.refresh();
+            assertEquals(6, reader.size());
+            assertEquals(1005, reader.read(5, new HistoryRecord()).getTimestampMs());
+            reader.close();
+        }
+    }
+
+    @Test
+    public void closedReaderStaysEmptyOnRefresh() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryLog log = new HistoryLog(dir)) {
+            log.append(record(1000, "siren", "L", false));
+            HistoryReader reader = new HistoryReader(dir);
+            reader.close();
+
+            log.append(record(2000, "horn", "R", false));
+            reader.refresh();
+            assertEquals(0, reader.size());
+            assertNull(reader.read(0, new HistoryRecord()));
+        }
+    }
+}
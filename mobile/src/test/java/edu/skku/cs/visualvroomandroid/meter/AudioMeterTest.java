@@ -0,0 +1,109 @@
+package edu.skku.cs.visualvroomandroid.meter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import edu.skku.cs.visualvroomandroid.pipeline.AudioBlock;
+
+import static org.junit.Assert.*;
+
+public class AudioMeterTest {
+    private static final int RATE = 16000;
+    private static final int BLOCK_FRAMES = 320;
+
+    // Interleaved stereo: a sine on the left at the given amplitude, silence on the right
+    private static AudioBlock sineBlock(double hz, double amplitude, int firstFrame) {
+        short[] samples = new short[BLOCK_FRAMES * 2];
+        for (int i = 0; i < BLOCK_FRAMES; i++) {
+            samples[2 * i] = (short) Math.round(amplitude * 32767 * Math.sin(2 * Math.PI * hz * (firstFrame + i) / RATE));
+        }
+        return new AudioBlock(samples, samples.length, 0);
+    }
+
+    @Test
+    public void levelsTrackEachChannel() {
+        AudioMeter meter = new AudioMeter();
+        meter.accept(sineBlock(1000, 0.5, 0));
+
+        long levels = meter.getLevels();
+        assertEquals(0.5 / Math.sqrt(2), AudioMeter.rmsLeft(levels), 0.005);
+        assertEquals(0.5, AudioMeter.peakLeft(levels), 0.005);
+        assertEquals(0, AudioMeter.rmsRight(levels), 1e-6);
+        assertEquals(0, AudioMeter.peakRight(levels), 1e-6);
+    }
+
+    @Test
+    public void spectrogramColumnPeaksAtTheToneBin() {
+        AudioMeter meter = new AudioMeter();
+        SpectrogramRing ring = meter.getSpectrogram();
+        for (int b = 0; b < 10; b++) {
+            meter.accept(sineBlock(2000, 0.5, b * BLOCK_FRAMES));
+        }
+        // 3200 frames: the first column after 512, then one every 256
+        assertEquals(1 + (10 * BLOCK_FRAMES - AudioMeter.FFT_SIZE) / AudioMeter.HOP, ring.getPublished());
+
+        byte[] column = new byte[AudioMeter.BINS];
+        assertTrue(ring.read(ring.getPublished() - 1, column));
+        int loudest = 0;
+        for (int k = 1; k < column.length; k++) {
+            if ((column[k] & 0xff) > (column[loudest] & 0xff)) loudest = k;
+        }
+        assertEquals(2000 * AudioMeter.FFT_SIZE / RATE, loudest);
+        // Mono mix halves the left channel: a 0.25 sine is about -12 dBFS
+        float db = (column[loudest] & 0xff) / 255f * -AudioMeter.FLOOR_DB + AudioMeter.FLOOR_DB;
+        assertEquals(-12, db, 1.0);
+        assertTrue((column[loudest / 2] & 0xff) < (column[loudest] & 0xff) / 2);
+    }
+
+    @Test
+    public void noiseSuppressionDimsSteadyNoiseButNotATone() {
+        AudioMeter plain = new AudioMeter();
+        AudioMeter suppressed = new AudioMeter(true);
+        Random random = new Random(6);
+        // Three seconds of noise on the left, a 2 kHz tone joining for the last half second
+        int blocks = 3 * RATE / BLOCK_FRAMES;
+        for (int b = 0; b < blocks; b++) {
+            AudioBlock block = b >= blocks - 25 ? sineBlock(2000, 0.1, b * BLOCK_FRAMES) : sineBlock(2000, 0, 0);
+            short[] samples = block.getSamples();
+            for (int i = 0; i < BLOCK_FRAMES; i++) {
+                samples[2 * i] += (short) Math.round(random.nextGaussian() * 0.01 * 32767);
+            }
+            plain.accept(block);
+            suppressed.accept(block);
+        }
+
+        byte[] plainColumn = new byte[AudioMeter.BINS];
+        byte[] suppressedColumn = new byte[AudioMeter.BINS];
+        SpectrogramRing plainRing = plain.getSpectrogram();
+        SpectrogramRing suppressedRing = suppressed.getSpectrogram();
+        assertTrue(plainRing.read(plainRing.getPublished() - 1, plainColumn));
+        assertTrue(suppressedRing.read(suppressedRing.getPublished() - 1, suppressedColumn));
+        int tone = 2000 * AudioMeter.FFT_SIZE / RATE;
+        // 255 levels span 96 dB: the tone loses under 2 dB, a noise-only bin at least 10
+        assertTrue((plainColumn[tone] & 0xff) - (suppressedColumn[tone] & 0xff) < 6);
+        int noiseBin = tone / 2;
+        assertTrue((plainColumn[noiseBin] & 0xff) - (suppressedColumn[noiseBin] & 0xff) > 26);
+    }
+
+    @Test
+    public void ringReportsOverwrittenColumns() {
+        SpectrogramRing ring = new SpectrogramRing(4, 2);
+        byte[] into = new byte[2];
+        assertFalse(ring.read(0, into));
+
+        for (int i = 0; i < 6; i++) {
+            byte[] slot = ring.claim();
+            slot[0] = (byte) i;
+            ring.publish();
+        }
+        // Six published into four slots; the slot after the newest is next to be written
+        assertEquals(3, ring.getOldestReadable());
+        assertFalse(ring.read(2, into));
+        assertTrue(ring.read(3, into));
+        assertEquals(3, into[0]);
+        assertTrue(ring.read(5, into));
+        assertEquals(5, into[0]);
+        assertFalse(ring.read(6, into));
+    }
+}
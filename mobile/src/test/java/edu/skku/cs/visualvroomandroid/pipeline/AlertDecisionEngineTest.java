@@ -0,0 +1,57 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+
+import static org.junit.Assert.*;
+
+public class AlertDecisionEngineTest {
+
+    private static DetectionEvent window(String type, String direction, double confidence, long timeMs) {
+        return new DetectionEvent(DetectionEvent.Source.SERVICE, type, direction, confidence, false, timeMs);
+    }
+
+    @Test
+    public void continuousSirenAlertsOnce() {
+        AlertDecisionEngine engine = new AlertDecisionEngine();
+        int alerts = 0;
+        for (long t = 0; t < 30_000; t += 3000) {
+            if (engine.smooth(window("siren", "L", 0.98, t)).getShouldNotify()) {
+                alerts++;
+            }
+        }
+        assertEquals(1, alerts);
+    }
+
+    @Test
+    public void weakDetectionsNeedAgreement() {
+        AlertDecisionEngine engine = new AlertDecisionEngine();
+        assertFalse(engine.smooth(window("horn", "R", 0.7, 0)).getShouldNotify());
+        assertTrue(engine.smooth(window("horn", "R", 0.7, 3000)).getShouldNotify());
+    }
+
+    @Test
+    public void realertsAfterQuietAndRefractory() {
+        AlertDecisionEngine engine = new AlertDecisionEngine();
+        assertTrue(engine.smooth(window("bike", "L", 0.99, 0)).getShouldNotify());
+        // Evidence has decayed below the off threshold and the refractory period is over
+        assertTrue(engine.smooth(window("bike", "L", 0.99, 20_000)).getShouldNotify());
+    }
+
+    @Test
+    public void refractoryPeriodIsPerType() {
+        AlertDecisionEngine engine = new AlertDecisionEngine();
+        assertTrue(engine.smooth(window("siren", "L", 0.99, 0)).getShouldNotify());
+        assertTrue(engine.smooth(window("horn", "R", 0.99, 1000)).getShouldNotify());
+    }
+
+    @Test
+    public void directionIsVotedAcrossWindows() {
+        AlertDecisionEngine engine = new AlertDecisionEngine();
+        engine.smooth(window("siren", "L", 0.9, 0));
+        engine.smooth(window("siren", "L", 0.9, 3000));
+        DetectionEvent outlier = engine.smooth(window("siren", "R", 0.6, 6000));
+        assertEquals("L", outlier.getDirection());
+    }
+}
@@ -0,0 +1,133 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BlockLimiterTest {
+    private static final int RATE = 16000;
+    private static final int BLOCK = 320;   // 20 ms capture blocks
+
+    // Interleaved stereo sine, the right channel at half the left's amplitude
+    private static short[] sine(double amplitude, int frames, int firstFrame) {
+        short[] samples = new short[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            double v = amplitude * 32767 * Math.sin(2 * Math.PI * 440 * (firstFrame + i) / RATE);
+            samples[2 * i] = (short) Math.max(-32768, Math.min(32767, Math.round(v)));
+            samples[2 * i + 1] = (short) Math.round(v / 2);
+        }
+        return samples;
+    }
+
+    // Runs `seconds` of a signal through, returning every output sample
+    private static short[] run(BlockLimiter limiter, double amplitude, double seconds, int[] firstFrame) {
+        int blocks = (int) (seconds * RATE / BLOCK);
+        short[] all = new short[blocks * BLOCK * 2];
+        short[] out = new short[limiter.maxOutputFrames(BLOCK) * 2];
+        int written = 0;
+        for (int b = 0; b < blocks; b++) {
+            short[] in = sine(amplitude, BLOCK, firstFrame[0]);
+            firstFrame[0] += BLOCK;
+            int frames = limiter.process(in, in.length, out);
+            System.arraycopy(out, 0, all, written, frames * 2);
+            written += frames * 2;
+        }
+        return java.util.Arrays.copyOf(all, written);
+    }
+
+    private static int peak(short[] samples, int from) {
+        int peak = 0;
+        for (int i = from; i < samples.length; i++) peak = Math.max(peak, Math.abs(samples[i]));
+        return peak;
+    }
+
+    @Test
+    public void quietInputGetsTheFullGain() {
+        BlockLimiter limiter = new BlockLimiter(RATE, RATE);
+        short[] out = run(limiter, 0.00025, 1.0, new int[1]);
+
+        // Output lags by one 5 ms block
+        assertEquals(RATE - limiter.getBlockFrames(), out.length / 2);
+        double gain = Math.pow(10, BlockLimiter.MAX_GAIN_DB / 20);
+        assertEquals(0.00025 * 32767 * gain, peak(out, 0), 0.05 * 0.00025 * 32767 * gain);
+
+        WindowQuality quality = limiter.quality(RATE / 2, 0);
+        assertEquals(0, quality.getClipRate(), 0);
+        assertEquals(0, quality.getLimitedRate(), 0);
+        for (float g : quality.getGainDb()) {
+            assertEquals(BlockLimiter.MAX_GAIN_DB, g, 0.1);
+        }
+    }
+
+    @Test
+    public void loudInputIsCompressedAndNeverClipped() {
+        BlockLimiter limiter = new BlockLimiter(RATE, RATE * 3);
+        int[] frame = {0};
+        short[] quiet = run(limiter, 0.00025, 1.0, frame);
+        // A sudden full-scale tone: the limiter must catch the very first loud block
+        short[] loud = run(limiter, 1.0, 1.0, frame);
+
+        int ceiling = (int) Math.ceil(BlockLimiter.CEILING * 32767);
+        assertTrue(peak(quiet, 0) < ceiling);
+        assertTrue("peak " + peak(loud, 0), peak(loud, 0) <= ceiling);
+
+        // A quiet second then a loud one: the gain history shows the drop
+        WindowQuality quality = limiter.quality(RATE * 2, 0);
+        float[] gains = quality.getGainDb();
+        assertEquals(BlockLimiter.MAX_GAIN_DB, gains[0], 0.1);
+        assertTrue(gains[gains.length - 1] < 1);
+        assertTrue(quality.getLimitedRate() > 0);
+        // A full-scale sine touches the rails on a few samples per cycle
+        assertTrue(quality.getClipRate() > 0);
+        assertTrue(quality.getClipRate() < 0.05);
+    }
+
+    @Test
+    public void gainChangesWithoutSteps() {
+        BlockLimiter limiter = new BlockLimiter(RATE, RATE);
+        Random random = new Random(3);
+        int blocks = 200;
+        short[] in = new short[blocks * BLOCK * 2];
+        short[] out = new short[in.length];
+        short[] block = new short[BLOCK * 2];
+        short[] chunk = new short[limiter.maxOutputFrames(BLOCK) * 2];
+        int written = 0;
+        for (int b = 0; b < blocks; b++) {
+            // A constant level that jumps every 10 blocks; the output/input ratio is the gain
+            short level = (short) (b % 20 < 10 ? 30 : 20000 + random.nextInt(5000));
+            java.util.Arrays.fill(block, level);
+            System.arraycopy(block, 0, in, b * BLOCK * 2, block.length);
+            int frames = limiter.process(block, block.length, chunk);
+            System.arraycopy(chunk, 0, out, written, frames * 2);
+            written += frames * 2;
+        }
+
+        // Output frame i is input frame i times the gain, which may only move along a ramp:
+        // at steepest, from full gain to none within one gain block
+        double maxStep = Math.pow(10, BlockLimiter.MAX_GAIN_DB / 20) / limiter.getBlockFrames() + 0.05;
+        for (int i = 2; i < written; i += 2) {
+            double step = out[i] / (double) in[i] - out[i - 2] / (double) in[i - 2];
+            assertTrue("step " + step + " at frame " + i / 2, Math.abs(step) <= maxStep);
+        }
+    }
+
+    @Test
+    public void windowEndingPartWayThroughACallUsesItsOwnBlocks() {
+        BlockLimiter limiter = new BlockLimiter(RATE, RATE * 2);
+        int[] frame = {0};
+        run(limiter, 0.00025, 1.0, frame);
+        short[] loud = run(limiter, 1.0, 0.02, frame);
+
+        // The last quiet second, ending where the loud call's output began
+        WindowQuality before = limiter.quality(RATE, loud.length / 2);
+        assertEquals(0, before.getClipRate(), 0);
+        assertEquals(0, before.getLimitedRate(), 0);
+        assertEquals(BlockLimiter.MAX_GAIN_DB, before.getMinGainDb(), 0.1);
+        // The second up to now takes in the loud blocks
+        WindowQuality after = limiter.quality(RATE, 0);
+        assertTrue(after.getLimitedRate() > 0);
+        assertTrue(after.getGainDb()[WindowQuality.GAIN_POINTS - 1] < BlockLimiter.MAX_GAIN_DB);
+    }
+}
@@ -0,0 +1,98 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CadenceControllerTest {
+
+    @Test
+    public void speedShortensHopAndWindow() {
+        CadenceController c = new CadenceController();
+        assertEquals(CadenceController.DEFAULT, c.getCadence());
+
+        c.onSpeed(0, 1.4);
+        assertEquals(new Cadence(4000, 2000), c.getCadence());
+        c.onSpeed(1000, 6.0);
+        assertEquals(new Cadence(3000, 1000), c.getCadence());
+
+        // A fix older than SPEED_STALE_MS counts as standing still
+        c.onBattery(1000 + CadenceController.SPEED_STALE_MS + 1, 80, false);
+        assertEquals(CadenceController.DEFAULT, c.getCadence());
+    }
+
+    @Test
+    public void lowBatteryStretchesHopUnlessCharging() {
+        CadenceController c = new CadenceController();
+        c.onBattery(0, 25, false);
+        assertEquals(new Cadence(5000, 4500), c.getCadence());
+
+        c.onBattery(1, 10, false);
+        // Stretched further, but still at the model's 16 kHz
+        assertEquals(new Cadence(5000, 6000), c.getCadence());
+        assertTrue(c.getDecisions().get(1).getReason().contains("battery critical"));
+
+        c.onBattery(2, 10, true);
+        assertEquals(CadenceController.DEFAULT, c.getCadence());
+    }
+
+    @Test
+    public void hopKeepsUpWithBackendAndClamps() {
+        CadenceController c = new CadenceController();
+        c.onSpeed(0, 6.0);
+        c.onRoundTrip(0, 1200);
+        // Two requests in flight absorb a 1.2 s round trip at a 1 s hop
+        assertEquals(new Cadence(3000, 1000), c.getCadence());
+
+        for (int i = 0; i < 20; i++) {
+            c.onRoundTrip(i, 4000);
+        }
+        Cadence slow = c.getCadence();
+        // Held near RTT / in-flight, give or take the hysteresis
+        assertTrue(slow.getHopMs() > 2000 - CadenceController.MIN_HOP_CHANGE_MS && slow.getHopMs() <= 2000);
+
+        for (int i = 0; i < 20; i++) {
+            c.onRoundTrip(i, 30_000);
+        }
+        assertEquals(CadenceController.MAX_HOP_MS, c.getCadence().getHopMs());
+        assertTrue(c.getCadence().getWindowMs() >= CadenceController.MIN_WINDOW_MS);
+    }
+
+    @Test
+    public void smallHopChangesAreIgnored() {
+        CadenceController c = new CadenceController();
+        c.onSpeed(0, 6.0);
+        c.onRoundTrip(0, 3200);     // Floor of 1600 ms
+        assertEquals(1600, c.getCadence().getHopMs());
+
+        c.onRoundTrip(1, 3600);     // Smoothed to 3300, floor 1650: within MIN_HOP_CHANGE_MS
+        assertEquals(1600, c.getCadence().getHopMs());
+        assertFalse(c.getDecisions().get(2).isChanged());
+
+        c.onRoundTrip(2, 5000);     // Smoothed to 3725, floor 1862
+        assertEquals(1862, c.getCadence().getHopMs());
+        assertTrue(c.getDecisions().get(3).isChanged());
+    }
+
+    @Test
+    public void everyDecisionIsKeptAndPublished() {
+        CadenceController c = new CadenceController();
+        List<CadenceController.Decision> seen = new ArrayList<>();
+        c.addListener(seen::add);
+
+        for (int i = 0; i < CadenceController.HISTORY + 10; i++) {
+            c.onBattery(i, 80, false);
+        }
+        assertEquals(CadenceController.HISTORY + 10, seen.size());
+
+        List<CadenceController.Decision> history = c.getDecisions();
+        assertEquals(CadenceController.HISTORY, history.size());
+        assertEquals(10, history.get(0).getTimeMs());
+        assertEquals(CadenceController.HISTORY + 9, history.get(history.size() - 1).getTimeMs());
+        assertFalse(history.get(0).isChanged());
+        assertTrue(history.get(0).toString().contains("battery=80%"));
+    }
+}
@@ -0,0 +1,222 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import edu.skku.cs.visualvroomandroid.event.DetectionEvent;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+import static org.junit.Assert.*;
+
+public class DetectionPipelineTest {
+    private static final int RATE = 16000;
+    private static final int BLOCK = 320;   // 20 ms capture blocks
+    private static final int WINDOW = RATE;
+    private static final int HOP = RATE / 2;
+
+    private final List<Long> requested = Collections.synchronizedList(new ArrayList<>());
+    private final List<DetectionEvent> alerted = Collections.synchronizedList(new ArrayList<>());
+
+    // A quiet tone, so every block is distinct but nothing clips
+    private static AudioBlock block(long index) {
+        short[] samples = new short[BLOCK * 2];
+        for (int i = 0; i < BLOCK; i++) {
+            short v = (short) (1000 * Math.sin(2 * Math.PI * 440 * (index * BLOCK + i) / RATE));
+            samples[2 * i] = v;
+            samples[2 * i + 1] = v;
+        }
+        return new AudioBlock(samples, samples.length, index);
+    }
+
+    private static List<AudioBlock> blocks(int count) {
+        List<AudioBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            blocks.add(block(i));
+        }
+        return blocks;
+    }
+
+    // Signals each block it has windowed, so a fake capture can hold its next read until then
+    private static class PacingWindowStage extends StereoWindowStage {
+        final Semaphore windowed = new Semaphore(0);
+
+        PacingWindowStage() {
+            super(RATE, WINDOW, HOP);
+        }
+
+        @Override
+        public List<AudioWindow> push(AudioBlock block) {
+            List<AudioWindow> windows = super.push(block);
+            windowed.release();
+            return windows;
+        }
+    }
+
+    private final PacingWindowStage windowStage = new PacingWindowStage();
+
+    // Delivers blocks one read at a time, as the mic does; a burst would overrun the capture buffer
+    private CaptureStage paced(List<AudioBlock> blocks) {
+        return () -> Flowable.fromIterable(blocks)
+                .doAfterNext(block -> assertTrue(windowStage.windowed.tryAcquire(5, TimeUnit.SECONDS)));
+    }
+
+    // The windows a stage on its own cuts from the same audio
+    private static int windowsIn(List<AudioBlock> blocks) {
+        StereoWindowStage stage = new StereoWindowStage(RATE, WINDOW, HOP);
+        int windows = 0;
+        for (AudioBlock block : blocks) {
+            windows += stage.push(block).size();
+        }
+        return windows;
+    }
+
+    // Answers every window at once, naming the window in the vehicle type
+    private Maybe<PredictionResponse> answer(EncodedWindow window) {
+        long id = window.getWindow().getWindowId();
+        requested.add(id);
+        PredictionResponse response = new PredictionResponse();
+        response.setVehicleType("window " + id);
+        response.setDirection("L");
+        return Maybe.just(response);
+    }
+
+    private DetectionPipeline.Builder builder(CaptureStage capture, InferenceStage inference) {
+        return new DetectionPipeline.Builder(capture, windowStage, inference)
+                .alert(alerted::add);
+    }
+
+    // A subscription disposes itself once the pipeline completes
+    private static void awaitEnd(Disposable subscription) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!subscription.isDisposed()) {
+            assertTrue("pipeline still running", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void everyWindowIsClassifiedAndAlerted() throws InterruptedException {
+        List<AudioBlock> audio = blocks(3 * RATE / BLOCK);
+        awaitEnd(builder(paced(audio), this::answer).build().start());
+
+        int windows = windowsIn(audio);
+        assertTrue(windows >= 4);
+        assertEquals(windows, requested.size());
+        assertEquals(windows, alerted.size());
+        // One thread alerts, in window order
+        for (int i = 0; i < windows; i++) {
+            assertEquals("window " + requested.get(i), alerted.get(i).getVehicleType());
+        }
+    }
+
+    @Test
+    public void gatedWindowsAreNotSent() throws InterruptedException {
+        List<AudioBlock> audio = blocks(3 * RATE / BLOCK);
+        awaitEnd(builder(paced(audio), this::answer)
+                .gate(window -> window.getWindowId() % 2 == 0)
+                .build().start());
+
+        assertFalse(requested.isEmpty());
+        for (long id : requested) {
+            assertEquals(0, id % 2);
+        }
+        assertEquals(requested.size(), alerted.size());
+        assertEquals((windowsIn(audio) + 1) / 2, requested.size());
+    }
+
+    @Test
+    public void aFailedRequestDropsOnlyItsWindow() throws InterruptedException {
+        List<AudioBlock> audio = blocks(3 * RATE / BLOCK);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        awaitEnd(builder(paced(audio), window -> window.getWindow().getWindowId() % 2 == 1
+                        ? Maybe.error(new IOException("timeout"))
+                        : answer(window))
+                .onError(failure::set)
+                .build().start());
+
+        assertEquals(windowsIn(audio) / 2, alerted.size());
+        assertEquals(alerted.size(), requested.size());
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void captureErrorEndsThePipelineAndIsReported() throws InterruptedException {
+        List<AudioBlock> audio = blocks(2 * RATE / BLOCK);
+        IllegalStateException micLost = new IllegalStateException("mic lost");
+        CountDownLatch reported = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Disposable subscription = builder(
+                () -> paced(audio).blocks().concatWith(Flowable.error(micLost)), this::answer)
+                .onError(error -> {
+                    failure.set(error);
+                    reported.countDown();
+                })
+                .build().start();
+
+        assertTrue(reported.await(5, TimeUnit.SECONDS));
+        assertSame(micLost, failure.get());
+        assertTrue(subscription.isDisposed());
+    }
+
+    @Test
+    public void disposingStopsCaptureAndAlerts() throws InterruptedException {
+        AtomicBoolean captureCancelled = new AtomicBoolean();
+        CountDownLatch firstAlert = new CountDownLatch(1);
+        Disposable subscription = new DetectionPipeline.Builder(
+                () -> Flowable.interval(1, TimeUnit.MILLISECONDS).map(DetectionPipelineTest::block)
+                        .doOnCancel(() -> captureCancelled.set(true)),
+                new StereoWindowStage(RATE, WINDOW, HOP), this::answer)
+                .alert(event -> {
+                    alerted.add(event);
+                    firstAlert.countDown();
+                })
+                .build().start();
+
+        assertTrue(firstAlert.await(5, TimeUnit.SECONDS));
+        subscription.dispose();
+        assertTrue(captureCancelled.get());
+        // An alert already running when dispose landed may still finish
+        Thread.sleep(50);
+        int count = alerted.size();
+        Thread.sleep(200);
+        assertEquals(count, alerted.size());
+    }
+
+    @Test
+    public void finishLetsRequestsInFlightComplete() throws InterruptedException {
+        AtomicBoolean captureCancelled = new AtomicBoolean();
+        CountDownLatch firstRequest = new CountDownLatch(1);
+        DetectionPipeline pipeline = new DetectionPipeline.Builder(
+                () -> Flowable.interval(1, TimeUnit.MILLISECONDS).map(DetectionPipelineTest::block)
+                        .doOnCancel(() -> captureCancelled.set(true)),
+                new StereoWindowStage(RATE, WINDOW, HOP),
+                window -> {
+                    firstRequest.countDown();
+                    // Answered well after capture has stopped
+                    return Maybe.timer(300, TimeUnit.MILLISECONDS).flatMap(tick -> answer(window));
+                })
+                .alert(alerted::add)
+                .build();
+        Disposable subscription = pipeline.start();
+
+        assertTrue(firstRequest.await(5, TimeUnit.SECONDS));
+        pipeline.finish();
+        awaitEnd(subscription);
+
+        assertTrue(captureCancelled.get());
+        assertFalse(alerted.isEmpty());
+        assertEquals(requested.size(), alerted.size());
+    }
+}
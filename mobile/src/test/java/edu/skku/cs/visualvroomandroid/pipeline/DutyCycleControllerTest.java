@@ -0,0 +1,114 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.skku.cs.visualvroomandroid.pipeline.DutyCycleController.State;
+
+import static org.junit.Assert.*;
+
+public class DutyCycleControllerTest {
+
+    private final List<String> transitions = new ArrayList<>();
+    private long cpuMs = 0;
+
+    private DutyCycleController controller() {
+        // Audit every 60 s for 6 s; ACTIVE drops back after 15 s of quiet
+        return new DutyCycleController(new DutyCycleController.Config(60_000, 6_000, 15_000),
+                () -> cpuMs, (from, to, reason) -> transitions.add(from + "->" + to));
+    }
+
+    // Feeds one 20 ms sentinel block per step, burning cpuPerBlock each
+    private void run(DutyCycleController c, long fromMs, long toMs, boolean triggered, long cpuPerBlock) {
+        for (long t = fromMs; t < toMs; t += 20) {
+            cpuMs += cpuPerBlock;
+            c.update(t, triggered);
+        }
+    }
+
+    @Test
+    public void triggerEscalatesUntilQuietTimeout() {
+        DutyCycleController c = controller();
+        run(c, 0, 1000, false, 0);
+        assertEquals(State.SENTINEL, c.getState());
+
+        c.update(1000, true);
+        assertEquals(State.ACTIVE, c.getState());
+
+        run(c, 1020, 16_000, false, 0);
+        assertEquals(State.ACTIVE, c.getState());
+        run(c, 16_000, 16_100, false, 0);
+        assertEquals(State.SENTINEL, c.getState());
+        assertEquals("[SENTINEL->ACTIVE, ACTIVE->SENTINEL]", transitions.toString());
+    }
+
+    @Test
+    public void auditRunsPeriodicallyAndDetectionPromotesIt() {
+        DutyCycleController c = controller();
+        run(c, 0, 60_000, false, 0);
+        assertEquals(State.SENTINEL, c.getState());
+        c.update(60_000, false);
+        assertEquals(State.AUDIT, c.getState());
+
+        run(c, 60_020, 66_100, false, 0);
+        assertEquals(State.SENTINEL, c.getState());
+
+        // Next audit is an interval after the last one ended; a detection keeps it awake
+        run(c, 66_100, 126_100, false, 0);
+        assertEquals(State.AUDIT, c.getState());
+        c.onDetection(127_000);
+        assertEquals(State.ACTIVE, c.getState());
+        assertEquals("[SENTINEL->AUDIT, AUDIT->SENTINEL, SENTINEL->AUDIT, AUDIT->ACTIVE]",
+                transitions.toString());
+    }
+
+    @Test
+    public void lateDetectionFromAFinishedAuditEscalates() {
+        DutyCycleController c = controller();
+        run(c, 0, 60_000, false, 0);
+        c.update(60_000, false);
+        run(c, 60_020, 66_100, false, 0);
+        assertEquals(State.SENTINEL, c.getState());
+
+        // The audit's last request answers after the audit has handed back to the sentinel
+        c.onDetection(67_000);
+        assertEquals(State.ACTIVE, c.getState());
+        assertEquals("[SENTINEL->AUDIT, AUDIT->SENTINEL, SENTINEL->ACTIVE]", transitions.toString());
+    }
+
+    @Test
+    public void detectionsKeepActiveAwake() {
+        DutyCycleController c = controller();
+        c.update(0, true);
+        for (long t = 10_000; t <= 40_000; t += 10_000) {
+            run(c, t - 10_000 + 20, t, false, 0);
+            c.onDetection(t);
+        }
+        assertEquals(State.ACTIVE, c.getState());
+        assertEquals("[SENTINEL->ACTIVE]", transitions.toString());
+    }
+
+    @Test
+    public void accountsTimeCpuAndBytesPerState() {
+        DutyCycleController c = controller();
+        run(c, 0, 10_000, false, 0);          // 10 s sentinel, no CPU
+        c.update(10_000, true);
+        c.addUploadedBytes(320_000);
+        run(c, 10_020, 30_000, false, 2);     // ACTIVE burns 2 ms per 20 ms block
+        assertEquals(State.SENTINEL, c.getState());
+        c.addUploadedBytes(5);                // Late completion, billed to SENTINEL
+
+        DutyCycleController.StateStats active = c.stats(State.ACTIVE, 30_000);
+        DutyCycleController.StateStats sentinel = c.stats(State.SENTINEL, 30_000);
+        assertEquals(1, active.getEntries());
+        assertEquals(15_000, active.getTimeMs());
+        assertEquals(320_000, active.getBytesUploaded());
+        assertEquals(0.1, active.getCpuLoad(), 0.01);
+        assertEquals(2, sentinel.getEntries());
+        assertEquals(5, sentinel.getBytesUploaded());
+        assertTrue(sentinel.getTimeMs() >= 10_000);
+        assertTrue(c.report(30_000).contains("active[entries=1 time=15s"));
+    }
+}
@@ -0,0 +1,137 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.skku.cs.visualvroomandroid.dto.PredictionResponse;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import io.reactivex.rxjava3.subjects.MaybeSubject;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+
+import static org.junit.Assert.*;
+
+public class InferenceBatcherTest {
+
+    // Holds each request open until the test answers it
+    private static class HeldStage implements BatchInferenceStage {
+        final List<MaybeSubject<PredictionResponse>> singles = new ArrayList<>();
+        final List<SingleSubject<List<PredictionResponse>>> batches = new ArrayList<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public Maybe<PredictionResponse> infer(EncodedWindow window) {
+            MaybeSubject<PredictionResponse> subject = MaybeSubject.create();
+            singles.add(subject);
+            return subject;
+        }
+
+        @Override
+        public Single<List<PredictionResponse>> inferBatch(List<EncodedWindow> windows) {
+            SingleSubject<List<PredictionResponse>> subject = SingleSubject.create();
+            batches.add(subject);
+            batchSizes.add(windows.size());
+            return subject;
+        }
+    }
+
+    private static EncodedWindow window(long id) {
+        AudioWindow window = new AudioWindow(id, new short[4], new short[4], 16000, 0L);
+        return new EncodedWindow(window, new byte[8], new byte[8]);
+    }
+
+    private static PredictionResponse prediction(String type) {
+        PredictionResponse response = new PredictionResponse();
+        response.setVehicleType(type);
+        response.setDirection("L");
+        return response;
+    }
+
+    @Test
+    public void windowsWaitingForASlotShareOneRequest() {
+        HeldStage stage = new HeldStage();
+        InferenceBatcher batcher = new InferenceBatcher(stage, new InferenceBatcher.Config(4, 2, 1500), new StageTimer());
+        PublishProcessor<EncodedWindow> windows = PublishProcessor.create();
+        TestSubscriber<InferenceBatcher.Result> results = windows.compose(batcher).test();
+
+        // Two slots take the first two windows on their own
+        windows.onNext(window(1));
+        windows.onNext(window(2));
+        assertEquals(2, stage.singles.size());
+
+        // The next three queue, then go out together once a slot frees
+        windows.onNext(window(3));
+        windows.onNext(window(4));
+        windows.onNext(window(5));
+        assertTrue(stage.batches.isEmpty());
+        stage.singles.get(0).onSuccess(prediction("siren"));
+        assertEquals(Arrays.asList(3), stage.batchSizes);
+
+        PredictionResponse quiet = new PredictionResponse();
+        quiet.setTooQuiet(true);
+        stage.batches.get(0).onSuccess(Arrays.asList(prediction("horn"), quiet, prediction("bike")));
+
+        results.assertValueCount(3);
+        assertEquals(1, results.values().get(0).getWindow().getWindow().getWindowId());
+        assertEquals(3, results.values().get(1).getWindow().getWindow().getWindowId());
+        assertEquals("horn", results.values().get(1).getResponse().getVehicleType());
+        assertEquals(5, results.values().get(2).getWindow().getWindow().getWindowId());
+    }
+
+    @Test
+    public void queueDropsOldestPastMaxBatch() {
+        InferenceBatcher batcher = new InferenceBatcher(new HeldStage(), new InferenceBatcher.Config(3, 1, 1500), new StageTimer());
+        for (long id = 1; id <= 5; id++) {
+            batcher.offer(window(id));
+        }
+        List<EncodedWindow> batch = batcher.poll();
+        assertEquals(3, batch.size());
+        assertEquals(3, batch.get(0).getWindow().getWindowId());
+        assertNull(batcher.poll());
+        assertTrue(batcher.report().contains("2 windows dropped"));
+    }
+
+    @Test
+    public void congestionLimitsRequestsToOne() {
+        InferenceBatcher batcher = new InferenceBatcher(new HeldStage(), new InferenceBatcher.Config(4, 2, 1500), new StageTimer());
+        batcher.offer(window(1));
+        assertNotNull(batcher.poll());
+        batcher.offer(window(2));
+        assertNotNull(batcher.poll());      // Second slot while the link keeps up
+        batcher.complete(2500);
+        batcher.complete(2500);
+        assertTrue(batcher.isCongested());
+
+        batcher.offer(window(3));
+        assertNotNull(batcher.poll());
+        batcher.offer(window(4));
+        batcher.offer(window(5));
+        assertNull(batcher.poll());         // Waits for the one request in flight
+        batcher.complete(3000);
+        assertEquals(2, batcher.poll().size());
+    }
+
+    @Test
+    public void failedRequestFreesItsSlot() {
+        HeldStage stage = new HeldStage();
+        InferenceBatcher batcher = new InferenceBatcher(stage, new InferenceBatcher.Config(4, 1, 1500), new StageTimer());
+        PublishProcessor<EncodedWindow> windows = PublishProcessor.create();
+        TestSubscriber<InferenceBatcher.Result> results = windows.compose(batcher).test();
+
+        windows.onNext(window(1));
+        windows.onNext(window(2));
+        stage.singles.get(0).onComplete();      // No usable prediction
+        assertEquals(2, stage.singles.size());
+
+        windows.onComplete();
+        results.assertNotComplete();
+        stage.singles.get(1).onSuccess(prediction("siren"));
+        results.assertValueCount(1);
+        results.assertComplete();
+    }
+}
@@ -0,0 +1,154 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class NoiseSuppressorTest {
+    private static final int RATE = 16000;
+    private static final int BLOCK = 320;   // 20 ms capture blocks
+    private static final int DELAY = NoiseSuppressor.FFT_SIZE - NoiseSuppressor.HOP;
+
+    // Runs interleaved stereo through in capture-sized blocks, returning every output sample
+    private static short[] run(NoiseSuppressor suppressor, short[] input) {
+        // Samples left over from earlier calls can add up to one more hop
+        short[] all = new short[input.length + NoiseSuppressor.HOP * 2];
+        short[] block = new short[BLOCK * 2];
+        short[] out = new short[suppressor.maxOutputFrames(BLOCK) * 2];
+        int written = 0;
+        for (int start = 0; start + block.length <= input.length; start += block.length) {
+            System.arraycopy(input, start, block, 0, block.length);
+            int frames = suppressor.process(block, block.length, out);
+            System.arraycopy(out, 0, all, written, frames * 2);
+            written += frames * 2;
+        }
+        return Arrays.copyOf(all, written);
+    }
+
+    // Interleaved Gaussian noise, the right channel at `rightScale` of the left
+    private static short[] noise(Random random, int frames, double rms, double rightScale) {
+        short[] samples = new short[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            double v = random.nextGaussian() * rms * 32767;
+            samples[2 * i] = (short) Math.round(v);
+            samples[2 * i + 1] = (short) Math.round(v * rightScale);
+        }
+        return samples;
+    }
+
+    // Mean square of one channel over frames [from, to)
+    private static double power(short[] samples, int channel, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            double v = samples[2 * i + channel] / 32768.0;
+            sum += v * v;
+        }
+        return sum / (to - from);
+    }
+
+    @Test
+    public void loudAudioOverSilenceComesBackUnchanged() {
+        // Digital silence teaches a near-zero noise floor, so every gain stays at one
+        // and the output is the input delayed by one hop's worth of overlap
+        NoiseSuppressor suppressor = new NoiseSuppressor(RATE);
+        Random random = new Random(1);
+        short[] input = new short[RATE * 2];
+        System.arraycopy(noise(random, RATE / 2, 0.1, 0.5), 0, input, RATE, RATE);
+        short[] out = run(suppressor, input);
+
+        assertEquals(RATE / NoiseSuppressor.HOP * NoiseSuppressor.HOP, out.length / 2);
+        for (int f = DELAY; f < out.length / 2; f++) {
+            assertEquals("left at " + f, input[2 * (f - DELAY)], out[2 * f], 2);
+            assertEquals("right at " + f, input[2 * (f - DELAY) + 1], out[2 * f + 1], 2);
+        }
+    }
+
+    @Test
+    public void steadyNoiseIsSuppressedAndAToneKept() {
+        NoiseSuppressor suppressor = new NoiseSuppressor(RATE);
+        Random random = new Random(2);
+        int frames = RATE * 4;
+        short[] noise = noise(random, frames, 0.02, 1.0);
+        short[] input = noise.clone();
+        // A 1 kHz tone 12 dB over the noise for the last second
+        double toneAmplitude = 0.02 * 4 * Math.sqrt(2);
+        for (int i = RATE * 3; i < frames; i++) {
+            double v = toneAmplitude * 32767 * Math.sin(2 * Math.PI * 1000 * i / RATE);
+            input[2 * i] = (short) Math.round(input[2 * i] + v);
+            input[2 * i + 1] = (short) Math.round(input[2 * i + 1] + v);
+        }
+        short[] out = run(suppressor, input);
+
+        // After two seconds of learning, noise alone is at least 10 dB down
+        double noiseIn = power(input, 0, 2 * RATE, 3 * RATE - DELAY);
+        double noiseOut = power(out, 0, 2 * RATE + DELAY, 3 * RATE);
+        assertTrue("noise " + 10 * Math.log10(noiseOut / noiseIn) + " dB",
+                noiseOut < noiseIn / 10);
+
+        // The tone comes through within 2 dB: project the output onto it
+        double re = 0;
+        double im = 0;
+        int from = 3 * RATE + NoiseSuppressor.FFT_SIZE;
+        for (int f = from; f < frames; f++) {
+            double phase = 2 * Math.PI * 1000 * (f - DELAY) / RATE;
+            re += out[2 * f] / 32767.0 * Math.cos(phase);
+            im += out[2 * f] / 32767.0 * Math.sin(phase);
+        }
+        double amplitude = 2 * Math.hypot(re, im) / (frames - from);
+        assertEquals(0, 20 * Math.log10(amplitude / toneAmplitude), 2);
+    }
+
+    @Test
+    public void channelsShareOneGain() {
+        NoiseSuppressor suppressor = new NoiseSuppressor(RATE);
+        short[] input = noise(new Random(3), RATE * 2, 0.05, 0.5);
+        short[] out = run(suppressor, input);
+
+        // Suppressed, but the right channel is still 6 dB under the left
+        double left = power(out, 0, RATE, 2 * RATE);
+        double right = power(out, 1, RATE, 2 * RATE);
+        assertTrue(left < power(input, 0, RATE, 2 * RATE) / 4);
+        assertEquals(-6.02, 10 * Math.log10(right / left), 0.1);
+    }
+
+    // Opt-in, so the regular suite neither prints nor depends on machine load
+    @Test
+    public void benchmarkCostPerSecondOfAudio() {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        NoiseSuppressor suppressor = new NoiseSuppressor(RATE);
+        short[] input = noise(new Random(4), RATE, 0.05, 0.8);
+        for (int i = 0; i < 5; i++) {
+            run(suppressor, input);
+        }
+        int seconds = 30;
+        long start = System.nanoTime();
+        for (int i = 0; i < seconds; i++) {
+            run(suppressor, input);
+        }
+        double msPerSecond = (System.nanoTime() - start) / 1e6 / seconds;
+
+        // Spectral-domain use adds only the gain on top of an FFT a feature extractor already does
+        NoiseGain gain = new NoiseGain(NoiseSuppressor.FFT_SIZE, RATE / (double) NoiseSuppressor.HOP);
+        float[] source = new float[NoiseSuppressor.FFT_SIZE];
+        float[] spectrum = new float[NoiseSuppressor.FFT_SIZE];
+        float[] power = new float[gain.getBins()];
+        Random random = new Random(5);
+        for (int i = 0; i < source.length; i++) source[i] = (float) random.nextGaussian() * 1000;
+        int framesPerSecond = RATE / NoiseSuppressor.HOP;
+        long gainStart = 0;
+        for (int i = -5 * framesPerSecond; i < seconds * framesPerSecond; i++) {
+            if (i == 0) gainStart = System.nanoTime();
+            System.arraycopy(source, 0, spectrum, 0, spectrum.length);
+            NoiseGain.power(spectrum, power, false);
+            NoiseGain.apply(spectrum, gain.update(power));
+        }
+        double gainMsPerSecond = (System.nanoTime() - gainStart) / 1e6 / seconds;
+        System.out.printf("NoiseSuppressor: %.2f ms CPU per second of 16 kHz stereo (%.0fx realtime); "
+                        + "gain alone on an existing spectrum %.3f ms per second%n",
+                msPerSecond, 1000 / msPerSecond, gainMsPerSecond);
+    }
+}
@@ -0,0 +1,37 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PrerollBufferTest {
+
+    private static AudioBlock block(int length, long time) {
+        return new AudioBlock(new short[length], length, time);
+    }
+
+    @Test
+    public void keepsTheNewestWholeBlocksCoveringTheCapacity() {
+        PrerollBuffer preroll = new PrerollBuffer(1000);
+        for (int i = 0; i < 10; i++) {
+            preroll.accept(block(300, i));
+        }
+        // Three blocks would fall short of 1000, so four are kept
+        assertEquals(1200, preroll.getHeldSamples());
+        List<AudioBlock> held = preroll.drain();
+        assertEquals(4, held.size());
+        assertEquals(6, held.get(0).getCaptureTimeNanos());
+        assertEquals(9, held.get(3).getCaptureTimeNanos());
+    }
+
+    @Test
+    public void drainEmptiesTheBuffer() {
+        PrerollBuffer preroll = new PrerollBuffer(1000);
+        preroll.accept(block(300, 0));
+        assertEquals(1, preroll.drain().size());
+        assertEquals(0, preroll.getHeldSamples());
+        assertTrue(preroll.drain().isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SentinelDetectorTest {
+
+    private static final int RATE = 8000;
+    private static final int BLOCK = RATE / 50;
+    private final Random random = new Random(7);
+    private double phase = 0;
+
+    private AudioBlock block(double noiseRms, double toneHz, double toneAmplitude) {
+        short[] samples = new short[BLOCK];
+        for (int i = 0; i < BLOCK; i++) {
+            phase += 2 * Math.PI * toneHz / RATE;
+            double v = random.nextGaussian() * noiseRms + toneAmplitude * Math.sin(phase);
+            samples[i] = (short) Math.max(-32768, Math.min(32767, v * 32768));
+        }
+        return new AudioBlock(samples, BLOCK, 0);
+    }
+
+    private int triggeredBlocks(SentinelDetector detector, int blocks, double noise, double hz, double amp) {
+        int fired = 0;
+        for (int i = 0; i < blocks; i++) {
+            if (detector.test(block(noise, hz, amp))) fired++;
+        }
+        return fired;
+    }
+
+    @Test
+    public void steadyNoiseNeverTriggers() {
+        SentinelDetector detector = new SentinelDetector(RATE, 0.002);
+        assertEquals(0, triggeredBlocks(detector, 500, 0.02, 0, 0));
+    }
+
+    @Test
+    public void sirenBandToneTriggersAfterHold() {
+        SentinelDetector detector = new SentinelDetector(RATE, 0.002);
+        triggeredBlocks(detector, 100, 0.01, 0, 0);
+
+        assertEquals(0, triggeredBlocks(detector, SentinelDetector.HOLD_BLOCKS - 1, 0.01, 1500, 0.1));
+        // Stays triggered for the whole tone; the floor doesn't learn it
+        assertEquals(200, triggeredBlocks(detector, 200, 0.01, 1500, 0.1));
+        assertEquals(0, triggeredBlocks(detector, 1, 0.01, 0, 0));
+    }
+
+    @Test
+    public void lowRumbleIsSuppressed() {
+        SentinelDetector detector = new SentinelDetector(RATE, 0.002);
+        triggeredBlocks(detector, 100, 0.01, 0, 0);
+        // A loud 40 Hz rumble barely survives the first-difference high-pass
+        assertEquals(0, triggeredBlocks(detector, 100, 0.01, 40, 0.3));
+    }
+
+    @Test
+    public void louderAmbientNoiseIsLearned() {
+        SentinelDetector detector = new SentinelDetector(RATE, 0.002);
+        triggeredBlocks(detector, 100, 0.01, 0, 0);
+
+        // 10 dB more noise fires at first, but the floor climbs past it within seconds
+        double louder = 0.01 * Math.sqrt(10);
+        assertTrue(triggeredBlocks(detector, 50, louder, 0, 0) > 0);
+        triggeredBlocks(detector, 400, louder, 0, 0);
+        assertEquals(0, triggeredBlocks(detector, 500, louder, 0, 0));
+        // A siren over the new floor still fires, from the end of the hold on
+        assertEquals(200 - (SentinelDetector.HOLD_BLOCKS - 1), triggeredBlocks(detector, 200, louder, 1500, 0.3));
+    }
+
+    @Test
+    public void dutyCycleSettlesAfterANoiseStep() {
+        SentinelDetector detector = new SentinelDetector(RATE, 0.002);
+        DutyCycleController controller = new DutyCycleController(DutyCycleController.Config.defaults(),
+                () -> 0, (from, to, reason) -> { });
+        long now = 0;
+        for (int i = 0; i < 100; i++, now += 20) {
+            controller.update(now, detector.test(block(0.01, 0, 0)));
+        }
+        assertEquals(DutyCycleController.State.SENTINEL, controller.getState());
+
+        // Stepping out onto a street: 10 dB more noise from here on
+        double louder = 0.01 * Math.sqrt(10);
+        boolean escalated = false;
+        for (int i = 0; i < 1500; i++, now += 20) {
+            escalated |= controller.update(now, detector.test(block(louder, 0, 0)))
+                    == DutyCycleController.State.ACTIVE;
+        }
+        assertTrue(escalated);
+        assertEquals(DutyCycleController.State.SENTINEL, controller.getState());
+    }
+}
@@ -0,0 +1,50 @@
+package edu.skku.cs.visualvroomandroid.pipeline;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StereoWindowStageTest {
+    private static final int RATE = 16000;
+    private static final int BLOCK = 320;   // 20 ms capture blocks
+
+    // Interleaved stereo sine driven past full scale and clipped, as an overloaded mic delivers it
+    private static AudioBlock clippedSine(int firstFrame) {
+        short[] samples = new short[BLOCK * 2];
+        for (int i = 0; i < BLOCK; i++) {
+            double v = 2.0 * 32767 * Math.sin(2 * Math.PI * 440 * (firstFrame + i) / RATE);
+            short clipped = (short) Math.max(-32768, Math.min(32767, Math.round(v)));
+            samples[2 * i] = clipped;
+            samples[2 * i + 1] = clipped;
+        }
+        return new AudioBlock(samples, samples.length, 0);
+    }
+
+    // Feeds two seconds of clipped audio, returning the last window emitted
+    private static AudioWindow lastWindow(StereoWindowStage stage) {
+        AudioWindow last = null;
+        for (int b = 0; b < 2 * RATE / BLOCK; b++) {
+            List<AudioWindow> windows = stage.push(clippedSine(b * BLOCK));
+            if (!windows.isEmpty()) last = windows.get(windows.size() - 1);
+        }
+        assertNotNull(last);
+        return last;
+    }
+
+    @Test
+    public void clippedInputIsReportedWithoutSuppression() {
+        AudioWindow window = lastWindow(new StereoWindowStage(RATE, RATE, RATE / 2));
+        // A sine at twice full scale sits on the rails for two thirds of every cycle
+        assertEquals(2 / 3.0, window.getQuality().getClipRate(), 0.05);
+    }
+
+    @Test
+    public void clippedInputIsReportedWithSuppression() {
+        // The suppressor's output is attenuated below full scale, so clipping must be
+        // counted on the mic input before it
+        AudioWindow window = lastWindow(new StereoWindowStage(RATE, RATE, RATE / 2, true));
+        assertEquals(2 / 3.0, window.getQuality().getClipRate(), 0.05);
+    }
+}
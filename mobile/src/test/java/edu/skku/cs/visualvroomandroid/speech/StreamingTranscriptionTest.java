@@ -0,0 +1,148 @@
+package edu.skku.cs.visualvroomandroid.speech;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.core.Maybe;
+
+import static org.junit.Assert.*;
+
+public class StreamingTranscriptionTest {
+
+    private static final int SAMPLE_RATE = 1000;
+
+    private static class Recorder implements StreamingTranscription.Listener {
+        final List<String> partials = new ArrayList<>();
+        String finalText;
+        int errors;
+
+        @Override public synchronized void onPartial(String text) { partials.add(text); }
+        @Override public synchronized void onFinal(String text) { finalText = text; notifyAll(); }
+        @Override public synchronized void onChunkError(Throwable error) { errors++; }
+
+        synchronized String awaitFinal() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (finalText == null && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            return finalText;
+        }
+    }
+
+    private static short[] tone(int length, short level) {
+        short[] samples = new short[length];
+        Arrays.fill(samples, level);
+        return samples;
+    }
+
+    // Fixed-length chunks, one request at a time; a tail under a tenth of a second is dropped
+    private static StreamingTranscription fixedChunks(Transcriber transcriber, int chunkSamples, Recorder listener) {
+        return new StreamingTranscription(transcriber, SAMPLE_RATE,
+                new FixedLengthSegmenter(chunkSamples, SAMPLE_RATE / 10), 1, listener);
+    }
+
+    private static void pushInBlocks(StreamingTranscription session, short[] audio, int block) {
+        for (int i = 0; i < audio.length; i += block) {
+            short[] part = Arrays.copyOfRange(audio, i, Math.min(audio.length, i + block));
+            session.push(part, part.length);
+        }
+    }
+
+    @Test
+    public void partialsGrowAndFinishFlushesTail() throws Exception {
+        Recorder listener = new Recorder();
+        StreamingTranscription session = fixedChunks(new StandInTranscriber(0.01), 1000, listener);
+
+        pushInBlocks(session, tone(2500, (short) 8000), 700);
+        assertEquals(Arrays.asList("[speech 1]", "[speech 1] [speech 2]"), listener.partials);
+
+        session.finish();
+        assertEquals("[speech 1] [speech 2] [speech 3]", listener.awaitFinal());
+    }
+
+    @Test
+    public void quietChunksAddNothing() throws Exception {
+        Recorder listener = new Recorder();
+        StreamingTranscription session = fixedChunks(new StandInTranscriber(0.01), 1000, listener);
+
+        session.push(tone(1000, (short) 8000), 1000);
+        session.push(tone(1000, (short) 0), 1000);
+        session.push(tone(1000, (short) 8000), 1000);
+        session.finish();
+
+        assertEquals("[speech 1] [speech 3]", listener.awaitFinal());
+    }
+
+    @Test
+    public void slowChunksStayInCaptureOrder() throws Exception {
+        Recorder listener = new Recorder();
+        // Earlier chunks take longer, so they would finish last if run out of order
+        Transcriber slowFirst = new Transcriber() {
+            int calls = 0;
+
+            @Override
+            public synchronized Maybe<String> transcribe(short[] samples, int sampleRate) {
+                int n = ++calls;
+                return Maybe.just("c" + n).delay(60 - 20 * n, TimeUnit.MILLISECONDS);
+            }
+        };
+        StreamingTranscription session = fixedChunks(slowFirst, 100, listener);
+
+        session.push(tone(300, (short) 1), 300);
+        session.finish();
+
+        assertEquals("c1 c2 c3", listener.awaitFinal());
+    }
+
+    @Test
+    public void pipelinedSegmentsOverlapButStayOrdered() throws Exception {
+        Recorder listener = new Recorder();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Transcriber slowFirst = new Transcriber() {
+            int calls = 0;
+
+            @Override
+            public synchronized Maybe<String> transcribe(short[] samples, int sampleRate) {
+                int n = ++calls;
+                return Maybe.just("s" + n)
+                        .delay(100 - 20 * n, TimeUnit.MILLISECONDS)
+                        .doOnSubscribe(d -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .doFinally(inFlight::decrementAndGet);
+            }
+        };
+        StreamingTranscription session = new StreamingTranscription(slowFirst, SAMPLE_RATE,
+                new FixedLengthSegmenter(100, 0), 3, listener);
+
+        session.push(tone(400, (short) 1), 400);
+        session.finish();
+
+        assertEquals("s1 s2 s3 s4", listener.awaitFinal());
+        assertEquals(3, maxInFlight.get());
+    }
+
+    @Test
+    public void failedChunkIsSkipped() throws Exception {
+        Recorder listener = new Recorder();
+        Transcriber flaky = new Transcriber() {
+            int calls = 0;
+
+            @Override
+            public synchronized Maybe<String> transcribe(short[] samples, int sampleRate) {
+                return ++calls == 2 ? Maybe.error(new java.io.IOException("boom")) : Maybe.just("c" + calls);
+            }
+        };
+        StreamingTranscription session = fixedChunks(flaky, 100, listener);
+
+        session.push(tone(300, (short) 1), 300);
+        session.finish();
+
+        assertEquals("c1 c3", listener.awaitFinal());
+        assertEquals(1, listener.errors);
+    }
+}
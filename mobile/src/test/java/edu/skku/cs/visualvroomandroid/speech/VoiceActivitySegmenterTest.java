@@ -0,0 +1,109 @@
+package edu.skku.cs.visualvroomandroid.speech;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VoiceActivitySegmenterTest {
+
+    private static final int SAMPLE_RATE = 16000;
+    private final Random random = new Random(42);
+
+    private short[] noise(int ms, int amplitude) {
+        short[] out = new short[SAMPLE_RATE * ms / 1000];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (short) (random.nextGaussian() * amplitude);
+        }
+        return out;
+    }
+
+    private static short[] tone(int ms) {
+        short[] out = new short[SAMPLE_RATE * ms / 1000];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (short) (6000 * Math.sin(2 * Math.PI * 220 * i / SAMPLE_RATE));
+        }
+        return out;
+    }
+
+    private static List<short[]> run(VoiceActivitySegmenter segmenter, short[]... parts) {
+        List<short[]> segments = new ArrayList<>();
+        for (short[] part : parts) {
+            // Odd block size so frames straddle pushes
+            for (int i = 0; i < part.length; i += 333) {
+                int n = Math.min(333, part.length - i);
+                short[] block = new short[n];
+                System.arraycopy(part, i, block, 0, n);
+                segmenter.push(block, n, segments::add);
+            }
+        }
+        segmenter.flush(segments::add);
+        return segments;
+    }
+
+    private static double seconds(short[] segment) {
+        return (double) segment.length / SAMPLE_RATE;
+    }
+
+    @Test
+    public void splitsUtterancesAtPauses() {
+        VoiceActivitySegmenter segmenter = new VoiceActivitySegmenter(SAMPLE_RATE, 0.005);
+        List<short[]> segments = run(segmenter,
+                noise(1000, 30), tone(1000), noise(600, 30), tone(800), noise(1000, 30));
+
+        assertEquals(2, segments.size());
+        // Speech plus up to 200 ms pre-roll and 400 ms hangover
+        assertEquals(1.6, seconds(segments.get(0)), 0.05);
+        assertEquals(1.4, seconds(segments.get(1)), 0.05);
+    }
+
+    @Test
+    public void louderBackgroundIsLearnedAndPausesStillSplit() {
+        VoiceActivitySegmenter segmenter = new VoiceActivitySegmenter(SAMPLE_RATE, 0.005);
+        // Background noise steps up 20 dB, past the absolute floor, then two utterances follow
+        List<short[]> segments = run(segmenter,
+                noise(1000, 30), noise(6000, 300), tone(1000), noise(600, 300), tone(800), noise(1000, 300));
+
+        assertTrue(segments.size() >= 2);
+        assertEquals(1.6, seconds(segments.get(segments.size() - 2)), 0.05);
+        assertEquals(1.4, seconds(segments.get(segments.size() - 1)), 0.05);
+    }
+
+    @Test
+    public void shortPausesStayInOneUtterance() {
+        VoiceActivitySegmenter segmenter = new VoiceActivitySegmenter(SAMPLE_RATE, 0.005);
+        List<short[]> segments = run(segmenter,
+                noise(500, 30), tone(700), noise(200, 30), tone(700), noise(1000, 30));
+
+        assertEquals(1, segments.size());
+    }
+
+    @Test
+    public void clicksAreDropped() {
+        VoiceActivitySegmenter segmenter = new VoiceActivitySegmenter(SAMPLE_RATE, 0.005);
+        List<short[]> segments = run(segmenter, noise(500, 30), tone(60), noise(1000, 30));
+
+        assertTrue(segments.isEmpty());
+    }
+
+    @Test
+    public void longSpeechIsCutAtMaximum() {
+        VoiceActivitySegmenter segmenter = new VoiceActivitySegmenter(SAMPLE_RATE, 0.005);
+        List<short[]> segments = run(segmenter, tone(VoiceActivitySegmenter.MAX_SEGMENT_MS + 3000));
+
+        assertEquals(2, segments.size());
+        assertTrue(seconds(segments.get(0)) <= VoiceActivitySegmenter.MAX_SEGMENT_MS / 1000.0);
+    }
+
+    @Test
+    public void stopMidUtteranceFlushesIt() {
+        VoiceActivitySegmenter segmenter = new VoiceActivitySegmenter(SAMPLE_RATE, 0.005);
+        List<short[]> segments = run(segmenter, noise(500, 30), tone(900));
+
+        assertEquals(1, segments.size());
+        assertEquals(1.1, seconds(segments.get(0)), 0.05);
+    }
+}
@@ -0,0 +1,100 @@
+package edu.skku.cs.visualvroomandroid.trace;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class TraceFileTest {
+
+    private static final long RUN = 0x5c1e00a2L << 32;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static String convert(File file) throws IOException {
+        StringWriter json = new StringWriter();
+        try (InputStream in = new FileInputStream(file)) {
+            TraceConverter.convert(in, json);
+        }
+        return json.toString();
+    }
+
+    @Test
+    public void spansRoundTripToChromeJson() throws IOException {
+        File file = tmp.newFile("trace" + Tracer.FILE_SUFFIX);
+        // Monotonic 5 s lines up with wall clock 1000 s
+        TraceFileWriter writer = new TraceFileWriter(file, 2, 1_000_000, 5_000_000_000L);
+        TraceBuffer buffer = new TraceBuffer(8);
+        buffer.add(RUN | 7, TraceSpan.CAPTURE.getId(), 5_000_000_000L, 5_012_000_000L, 3, 0);
+        buffer.add(RUN | 7, TraceSpan.UPLOAD.getId(), 5_020_000_000L, 5_180_500_000L, 9, 128000);
+        buffer.add(RUN | 8, TraceSpan.HAPTIC.getId(), 6_000_000_000L, 6_000_250_000L, 4, 0);
+        writer.write(buffer);   // Three records through a two-record staging buffer
+        writer.close();
+
+        assertEquals(file.length(), writer.getBytesWritten());
+        String json = convert(file);
+
+        assertTrue(json, json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+        assertTrue(json, json.contains("\"name\":\"capture\",\"cat\":\"window\",\"ph\":\"X\","
+                + "\"ts\":1000000000.000,\"dur\":12000.000,\"pid\":1545470114,\"tid\":7"));
+        assertTrue(json, json.contains("\"name\":\"upload\""));
+        assertTrue(json, json.contains("\"trace\":\"5c1e00a200000007\",\"thread\":9,\"arg\":128000"));
+        assertTrue(json, json.contains("\"dur\":250.000,\"pid\":1545470114,\"tid\":8"));
+        assertTrue(json, json.contains("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1545470114,\"tid\":8,"
+                + "\"args\":{\"name\":\"window 8\"}}"));
+        assertTrue(json, json.trim().endsWith("]}"));
+    }
+
+    @Test
+    public void truncatedFileConvertsUpToTheLastWholeRecord() throws IOException {
+        File file = tmp.newFile("cut" + Tracer.FILE_SUFFIX);
+        TraceFileWriter writer = new TraceFileWriter(file, 16, 0, 0);
+        TraceBuffer buffer = new TraceBuffer(4);
+        buffer.add(RUN | 1, TraceSpan.GATE.getId(), 0, 1000, 1, 0);
+        buffer.add(RUN | 2, TraceSpan.GATE.getId(), 0, 1000, 1, 0);
+        writer.write(buffer);
+        writer.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+        String json = convert(file);
+        assertTrue(json.contains("\"tid\":1,"));
+        assertFalse(json.contains("\"tid\":2,"));
+    }
+
+    @Test
+    public void fullBufferDropsOldestSpans() {
+        TraceBuffer buffer = new TraceBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i, TraceSpan.ENCODE.getId(), i, i + 1, 0, 0);
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(2, buffer.getDropped());
+        assertEquals(2, buffer.traceId(0));
+        assertEquals(4, buffer.traceId(2));
+
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getDropped());
+    }
+
+    @Test
+    public void stageNamesMapToSpans() {
+        assertEquals(TraceSpan.DECIDE, TraceSpan.forStage("smooth"));
+        assertEquals(TraceSpan.PUBLISH, TraceSpan.forStage("alert"));
+        assertNull(TraceSpan.forStage("window"));
+        for (TraceSpan span : TraceSpan.values()) {
+            assertEquals(span, TraceSpan.forId(span.getId()));
+        }
+    }
+}
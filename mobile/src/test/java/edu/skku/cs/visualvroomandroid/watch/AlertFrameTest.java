@@ -0,0 +1,100 @@
+package edu.skku.cs.visualvroomandroid.watch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AlertFrameTest {
+
+    // A siren on the right, pattern RIGHT at intensity 2, sequence 0x01020304, timestamp
+    // 0x18F2A3B4C5D. The wear app's AlertFrameTest decodes these same bytes.
+    private static final byte[] GOLDEN = {
+            'V', 1, 1, 2, 5, 2,
+            0x01, 0x02, 0x03, 0x04,
+            0x00, 0x00, 0x01, (byte) 0x8F, 0x2A, 0x3B, 0x4C, 0x5D
+    };
+
+    private static final byte[] TYPES = {
+            AlertFrame.TYPE_UNKNOWN, AlertFrame.TYPE_SIREN, AlertFrame.TYPE_BIKE, AlertFrame.TYPE_HORN};
+    private static final byte[] DIRECTIONS = {
+            AlertFrame.DIRECTION_UNKNOWN, AlertFrame.DIRECTION_LEFT, AlertFrame.DIRECTION_RIGHT};
+
+    // Timestamp back out of a frame, as the watch reads it
+    private static long timestampOf(byte[] frame) {
+        long ts = 0;
+        for (int i = 10; i < 18; i++) {
+            ts = (ts << 8) | (frame[i] & 0xff);
+        }
+        return ts;
+    }
+
+    @Test
+    public void encodesTheDocumentedLayout() {
+        byte[] frame = AlertFrame.encode(AlertFrame.TYPE_SIREN, AlertFrame.DIRECTION_RIGHT,
+                AlertFrame.PATTERN_RIGHT, 2, 0x01020304, 0x18F2A3B4C5DL);
+        assertArrayEquals(GOLDEN, frame);
+        assertEquals(AlertFrame.LENGTH, frame.length);
+    }
+
+    @Test
+    public void everyTypeAndDirectionRoundTrips() {
+        int sequence = 0;
+        for (byte type : TYPES) {
+            for (byte direction : DIRECTIONS) {
+                byte pattern = AlertFrame.vehiclePattern(type);
+                long timestamp = 1_700_000_000_000L + sequence;
+                byte[] frame = AlertFrame.encode(type, direction, pattern, 3, ++sequence, timestamp);
+
+                assertEquals(AlertFrame.MAGIC, frame[0]);
+                assertEquals(AlertFrame.VERSION, frame[1]);
+                assertEquals(type, frame[2]);
+                assertEquals(direction, frame[3]);
+                assertEquals(pattern, frame[4]);
+                assertEquals(3, frame[5]);
+                assertEquals(sequence, AlertFrame.sequenceOf(frame));
+                assertEquals(timestamp, timestampOf(frame));
+            }
+        }
+    }
+
+    @Test
+    public void restampingKeepsTheAlert() {
+        byte[] frame = GOLDEN.clone();
+        // Sign bits must survive in both fields
+        AlertFrame.stamp(frame, -1, Long.MIN_VALUE + 1);
+
+        assertEquals(-1, AlertFrame.sequenceOf(frame));
+        assertEquals(Long.MIN_VALUE + 1, timestampOf(frame));
+        for (int i = 0; i < 6; i++) {
+            assertEquals(GOLDEN[i], frame[i]);
+        }
+    }
+
+    @Test
+    public void namesMapToIdsWithUnknownFallbacks() {
+        assertEquals(AlertFrame.TYPE_SIREN, AlertFrame.typeId("Siren"));
+        assertEquals(AlertFrame.TYPE_BIKE, AlertFrame.typeId("BIKE"));
+        assertEquals(AlertFrame.TYPE_HORN, AlertFrame.typeId("horn"));
+        assertEquals(AlertFrame.TYPE_UNKNOWN, AlertFrame.typeId("truck"));
+        assertEquals(AlertFrame.TYPE_UNKNOWN, AlertFrame.typeId(""));
+
+        assertEquals(AlertFrame.DIRECTION_LEFT, AlertFrame.directionId("L"));
+        assertEquals(AlertFrame.DIRECTION_LEFT, AlertFrame.directionId("left"));
+        assertEquals(AlertFrame.DIRECTION_RIGHT, AlertFrame.directionId("r"));
+        assertEquals(AlertFrame.DIRECTION_RIGHT, AlertFrame.directionId("Right"));
+        assertEquals(AlertFrame.DIRECTION_UNKNOWN, AlertFrame.directionId("behind"));
+        assertEquals(AlertFrame.DIRECTION_UNKNOWN, AlertFrame.directionId(null));
+
+        assertEquals(AlertFrame.PATTERN_SIREN, AlertFrame.vehiclePattern(AlertFrame.TYPE_SIREN));
+        assertEquals(AlertFrame.PATTERN_BIKE, AlertFrame.vehiclePattern(AlertFrame.TYPE_BIKE));
+        assertEquals(AlertFrame.PATTERN_HORN, AlertFrame.vehiclePattern(AlertFrame.TYPE_HORN));
+        assertEquals(AlertFrame.PATTERN_SINGLE, AlertFrame.vehiclePattern(AlertFrame.TYPE_UNKNOWN));
+        assertEquals(AlertFrame.PATTERN_SINGLE, AlertFrame.vehiclePattern((byte) 42));
+
+        assertEquals(AlertFrame.PATTERN_SINGLE, AlertFrame.customPattern("single"));
+        assertEquals(AlertFrame.PATTERN_DOUBLE, AlertFrame.customPattern("Double"));
+        assertEquals(AlertFrame.PATTERN_TRIPLE, AlertFrame.customPattern("triple"));
+        assertEquals(AlertFrame.PATTERN_SOS, AlertFrame.customPattern("SOS"));
+        assertEquals(AlertFrame.PATTERN_DEFAULT, AlertFrame.customPattern("wiggle"));
+    }
+}
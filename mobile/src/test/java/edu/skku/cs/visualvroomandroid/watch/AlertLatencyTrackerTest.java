@@ -0,0 +1,70 @@
+package edu.skku.cs.visualvroomandroid.watch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AlertLatencyTrackerTest {
+
+    // Watch clock runs this far ahead of the phone
+    private static final long OFFSET = 5_000;
+
+    @Test
+    public void offsetComesFromFastestExchange() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        // Symmetric 10 ms legs: exact offset
+        clock.addSample(1000, 1010 + OFFSET, 1012 + OFFSET, 1022);
+        // Asymmetric slow exchange: 200 ms out, 10 ms back
+        clock.addSample(2000, 2200 + OFFSET, 2201 + OFFSET, 2211);
+
+        assertEquals(OFFSET, clock.getOffsetMillis());
+        assertEquals(20, clock.getRoundTripMillis());
+    }
+
+    @Test
+    public void ackRoundTrip() {
+        AlertLatencyTracker tracker = new AlertLatencyTracker();
+        tracker.onSent(7, 900, 1000);
+        AlertAck ack = AlertAck.decode(new AlertAck(7, 1020 + OFFSET, 1050 + OFFSET, 1051 + OFFSET).encode());
+
+        assertTrue(tracker.onAck("watch", ack, 1071));
+        assertFalse(tracker.onAck("watch", new AlertAck(8, 0, 0, 0), 1100));
+
+        assertEquals(OFFSET, tracker.clockFor("watch").getOffsetMillis());
+        assertEquals(100, tracker.histogram(AlertLatencyTracker.Stage.DETECTION_TO_SEND).getMaxMillis());
+        assertEquals(20, tracker.histogram(AlertLatencyTracker.Stage.SEND_TO_WATCH_RECEIVE).getMaxMillis());
+        assertEquals(30, tracker.histogram(AlertLatencyTracker.Stage.WATCH_RECEIVE_TO_HAPTIC).getMaxMillis());
+        assertEquals(150, tracker.histogram(AlertLatencyTracker.Stage.DETECTION_TO_HAPTIC).getMaxMillis());
+    }
+
+    @Test
+    public void coalescedAckSkipsHapticStages() {
+        AlertLatencyTracker tracker = new AlertLatencyTracker();
+        tracker.onSent(3, 900, 1000);
+
+        assertTrue(tracker.onAck("watch", new AlertAck(3, 1020 + OFFSET, 0, 1021 + OFFSET), 1041));
+        assertEquals(1, tracker.histogram(AlertLatencyTracker.Stage.SEND_TO_WATCH_RECEIVE).getCount());
+        assertEquals(0, tracker.histogram(AlertLatencyTracker.Stage.WATCH_RECEIVE_TO_HAPTIC).getCount());
+        assertEquals(0, tracker.histogram(AlertLatencyTracker.Stage.DETECTION_TO_HAPTIC).getCount());
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 0; i < 90; i++) histogram.record(15);
+        for (int i = 0; i < 10; i++) histogram.record(400);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(20, histogram.percentile(0.5));
+        assertEquals(400, histogram.percentile(0.95));
+        assertEquals(400, histogram.getMaxMillis());
+    }
+
+    @Test
+    public void malformedAckIsRejected() {
+        assertNull(AlertAck.decode(new byte[4]));
+        byte[] data = new AlertAck(1, 2, 3, 4).encode();
+        data[1] = 99;
+        assertNull(AlertAck.decode(data));
+    }
+}
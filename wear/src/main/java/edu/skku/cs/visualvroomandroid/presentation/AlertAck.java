@@ -0,0 +1,40 @@
+package edu.skku.cs.visualvroomandroid.presentation;
+
+/**
+ * Encoder for the ack returned to the phone for every alert frame. The phone uses the three
+ * watch timestamps to estimate the clock offset and the delivery and haptic latencies.
+ *
+ * The layout must match the phone's {@code watch.AlertAck}: magic, version, sequence (int),
+ * receive time, haptic start time and ack send time (longs), all big-endian. A haptic start
+ * of 0 means the frame was merged into an alert already on screen and did not buzz.
+ */
+final class AlertAck {
+    static final String PATH = "/alert_ack";
+
+    private static final int LENGTH = 30;
+    private static final byte MAGIC = 'A';
+    private static final byte VERSION = 1;
+
+    private AlertAck() {
+    }
+
+    static byte[] encode(int sequence, long receivedAtMs, long hapticStartMs) {
+        byte[] data = new byte[LENGTH];
+        data[0] = MAGIC;
+        data[1] = VERSION;
+        for (int i = 0; i < 4; i++) {
+            data[2 + i] = (byte) (sequence >>> (24 - 8 * i));
+        }
+        writeLong(data, 6, receivedAtMs);
+        writeLong(data, 14, hapticStartMs);
+        // Stamped last so the phone can subtract the time spent on the watch
+        writeLong(data, 22, System.currentTimeMillis());
+        return data;
+    }
+
+    private static void writeLong(byte[] data, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            data[offset + i] = (byte) (value >>> (56 - 8 * i));
+        }
+    }
+}
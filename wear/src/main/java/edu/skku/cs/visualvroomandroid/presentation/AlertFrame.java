@@ -0,0 +1,56 @@
+package edu.skku.cs.visualvroomandroid.presentation;
+
+/**
+ * Allocation-free decoder for the phone's binary alert frame. One instance is reused for
+ * every message; {@link #decode(byte[])} only overwrites its primitive fields.
+ *
+ * The layout must match the phone's {@code watch.AlertFrame} encoder:
+ * magic, version, type, direction, pattern, intensity, sequence (int), timestamp (long),
+ * all big-endian.
+ */
+public final class AlertFrame {
+    public static final String PATH = "/alert";
+
+    static final int LENGTH = 18;
+    static final byte MAGIC = 'V';
+    static final byte VERSION = 1;
+
+    public static final int TYPE_UNKNOWN = 0;
+    public static final int TYPE_SIREN = 1;
+    public static final int TYPE_BIKE = 2;
+    public static final int TYPE_HORN = 3;
+
+    public static final int DIRECTION_UNKNOWN = 0;
+    public static final int DIRECTION_LEFT = 1;
+    public static final int DIRECTION_RIGHT = 2;
+
+    public int type;
+    public int direction;
+    public int pattern;
+    public int intensity;
+    public int sequence;
+    public long timestampMs;
+
+    /**
+     * Reads a frame into this instance.
+     *
+     * @return false if the data is not a frame this version understands; fields are then untouched
+     */
+    public boolean decode(byte[] data) {
+        if (data == null || data.length < LENGTH || data[0] != MAGIC || data[1] != VERSION) {
+            return false;
+        }
+        type = data[2];
+        direction = data[3];
+        pattern = data[4];
+        intensity = data[5];
+        sequence = ((data[6] & 0xff) << 24) | ((data[7] & 0xff) << 16)
+                | ((data[8] & 0xff) << 8) | (data[9] & 0xff);
+        long ts = 0;
+        for (int i = 10; i < 18; i++) {
+            ts = (ts << 8) | (data[i] & 0xff);
+        }
+        timestampMs = ts;
+        return true;
+    }
+}
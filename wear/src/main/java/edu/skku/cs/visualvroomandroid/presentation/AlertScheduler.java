@@ -0,0 +1,189 @@
+package edu.skku.cs.visualvroomandroid.presentation;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Vibrator;
+import android.util.Log;
+
+import com.google.android.gms.wearable.MessageClient;
+
+/**
+ * Single timeline for incoming alert frames.
+ *
+ * Frames are decoded and scheduled on a background thread; the UI only receives show/hide calls.
+ * <ul>
+ *   <li>A more urgent alert (siren &gt; horn &gt; bike) preempts the one on screen.</li>
+ *   <li>A repeat of the shown type and direction is merged into it: the display is extended and
+ *       the watch only buzzes again once {@link #COALESCE_WINDOW_MS} has passed since the last buzz.</li>
+ *   <li>A less urgent alert waits in a single slot and is shown when the current one ends,
+ *       unless it has gone stale by then.</li>
+ * </ul>
+ */
+final class AlertScheduler {
+    private static final String TAG = "AlertScheduler";
+
+    // Animation display duration in milliseconds
+    static final long DISPLAY_MS = 4000;
+    // Repeats inside this window after a buzz don't buzz again
+    private static final long COALESCE_WINDOW_MS = 3000;
+    // A held alert older than this is dropped instead of shown
+    private static final long PENDING_STALE_MS = 3000;
+
+    /** Called on the main thread. */
+    interface Display {
+        void show(int type, int direction, long receivedAtMs);
+
+        void hide();
+    }
+
+    private final HandlerThread thread = new HandlerThread("alert-scheduler");
+    private final Handler handler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Vibrator vibrator;
+    private final VibrationPatterns vibrationPatterns;
+    private final MessageClient messageClient;
+    private final Display display;
+    private final Runnable expire = this::onExpire;
+    private final Runnable hide;
+
+    // Scheduler-thread state
+    private final AlertFrame frame = new AlertFrame();
+    private boolean active = false;
+    private int activeType;
+    private int activeDirection;
+    private int activePattern;
+    private int activeIntensity;
+    private long lastHapticAt;
+    private boolean pending = false;
+    private int pendingType;
+    private int pendingDirection;
+    private int pendingPattern;
+    private int pendingIntensity;
+    private long pendingReceivedAt;
+    private long received = 0;
+    private long coalesced = 0;
+
+    AlertScheduler(Vibrator vibrator, VibrationPatterns vibrationPatterns,
+                   MessageClient messageClient, Display display) {
+        this.vibrator = vibrator;
+        this.vibrationPatterns = vibrationPatterns;
+        this.messageClient = messageClient;
+        this.display = display;
+        this.hide = display::hide;
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /** Hands a raw frame to the scheduler thread. Cheap enough for the listener callback. */
+    void submit(String sourceNodeId, byte[] data) {
+        final long receivedAt = System.currentTimeMillis();
+        handler.post(() -> handle(sourceNodeId, data, receivedAt));
+    }
+
+    /** Drops the current and held alerts and hides the display. */
+    void clear() {
+        handler.post(() -> {
+            handler.removeCallbacks(expire);
+            active = false;
+            pending = false;
+            mainHandler.post(hide);
+        });
+    }
+
+    void quit() {
+        handler.removeCallbacksAndMessages(null);
+        thread.quitSafely();
+    }
+
+    private void handle(String sourceNodeId, byte[] data, long receivedAt) {
+        if (!frame.decode(data)) {
+            Log.e(TAG, "Ignoring malformed or unsupported alert frame");
+            return;
+        }
+        received++;
+        long hapticStart = 0; // 0 tells the phone this frame did not buzz
+
+        if (frame.type == AlertFrame.TYPE_UNKNOWN) {
+            // Plain vibration commands never interrupt an alert
+            if (!active) {
+                hapticStart = vibrate(frame.pattern, frame.intensity);
+            }
+        } else if (!active || priority(frame.type) > priority(activeType)
+                || (frame.type == activeType && frame.direction != activeDirection)) {
+            hapticStart = start(frame.type, frame.direction, frame.pattern, frame.intensity, receivedAt);
+        } else if (frame.type == activeType) {
+            // Same alert again: keep it on screen
+            handler.removeCallbacks(expire);
+            handler.postDelayed(expire, DISPLAY_MS);
+            if (receivedAt - lastHapticAt >= COALESCE_WINDOW_MS) {
+                hapticStart = vibrate(activePattern, activeIntensity);
+            } else {
+                coalesced++;
+            }
+        } else if (!pending || priority(frame.type) >= priority(pendingType)) {
+            // Less urgent than what's shown; hold the best one for later
+            pending = true;
+            pendingType = frame.type;
+            pendingDirection = frame.direction;
+            pendingPattern = frame.pattern;
+            pendingIntensity = frame.intensity;
+            pendingReceivedAt = receivedAt;
+        }
+
+        // Let the phone measure delivery and haptic latency
+        messageClient.sendMessage(sourceNodeId, AlertAck.PATH,
+                AlertAck.encode(frame.sequence, receivedAt, hapticStart));
+
+        if (received % 10 == 0) {
+            Log.d(TAG, "Alert frames received: " + received + ", coalesced: " + coalesced);
+        }
+    }
+
+    private long start(int type, int direction, int pattern, int intensity, long receivedAt) {
+        active = true;
+        activeType = type;
+        activeDirection = direction;
+        activePattern = pattern;
+        activeIntensity = intensity;
+        long hapticStart = vibrate(pattern, intensity);
+
+        handler.removeCallbacks(expire);
+        handler.postDelayed(expire, DISPLAY_MS);
+        mainHandler.post(() -> display.show(type, direction, receivedAt));
+        return hapticStart;
+    }
+
+    private void onExpire() {
+        active = false;
+        if (pending && System.currentTimeMillis() - pendingReceivedAt <= PENDING_STALE_MS) {
+            pending = false;
+            start(pendingType, pendingDirection, pendingPattern, pendingIntensity, pendingReceivedAt);
+            return;
+        }
+        pending = false;
+        mainHandler.post(hide);
+    }
+
+    private long vibrate(int pattern, int intensity) {
+        if (vibrator.hasVibrator()) {
+            // Replaces any vibration still running, so patterns never overlap
+            vibrator.vibrate(vibrationPatterns.effect(pattern, intensity));
+        }
+        lastHapticAt = System.currentTimeMillis();
+        return lastHapticAt;
+    }
+
+    private static int priority(int type) {
+        switch (type) {
+            case AlertFrame.TYPE_SIREN:
+                return 3;
+            case AlertFrame.TYPE_HORN:
+                return 2;
+            case AlertFrame.TYPE_BIKE:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package edu.skku.cs.visualvroomandroid.presentation;
+
+import android.content.Context;
+import android.util.Log;
+import android.view.ViewTreeObserver;
+
+import com.airbnb.lottie.LottieAnimationView;
+import com.airbnb.lottie.LottieComposition;
+import com.airbnb.lottie.LottieCompositionFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.skku.cs.visualvroomandroid.R;
+
+/**
+ * Keeps the vehicle Lottie animations parsed and resident, so an alert frame only swaps an
+ * already-built composition into the view. Also measures the time from a frame's arrival to
+ * the first frame drawn for it.
+ */
+final class VehicleAnimationCache {
+    private static final String TAG = "VehicleAnimationCache";
+
+    private static final int[] VEHICLE_ANIMATIONS = {R.raw.siren, R.raw.bike, R.raw.car_horn};
+    // Log the render latency summary after this many alerts
+    private static final int SUMMARY_EVERY_ALERTS = 10;
+
+    private final Context context;
+    // Strong references; Lottie's own cache is an LRU and may evict
+    private final Map<Integer, LottieComposition> compositions = new ConcurrentHashMap<>();
+    private long renders = 0;
+    private long totalRenderMs = 0;
+    private long maxRenderMs = 0;
+
+    VehicleAnimationCache(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /** Starts parsing all vehicle animations on Lottie's background executor. */
+    void preload() {
+        for (int resId : VEHICLE_ANIMATIONS) {
+            final long start = System.nanoTime();
+            LottieCompositionFactory.fromRawRes(context, resId)
+                    .addListener(composition -> {
+                        compositions.put(resId, composition);
+                        Log.d(TAG, String.format("Parsed %s in %.1f ms",
+                                context.getResources().getResourceEntryName(resId),
+                                (System.nanoTime() - start) / 1e6));
+                    })
+                    .addFailureListener(e -> Log.e(TAG, "Failed to parse animation " + resId, e));
+        }
+    }
+
+    /** Uses the resident composition when ready; otherwise falls back to Lottie's async loading. */
+    void apply(LottieAnimationView view, int resId) {
+        LottieComposition composition = compositions.get(resId);
+        if (composition != null) {
+            view.setComposition(composition);
+        } else {
+            Log.w(TAG, "Animation " + resId + " not preloaded yet");
+            view.setAnimation(resId);
+        }
+    }
+
+    /** Records the time from {@code receivedAtMs} (wall clock) until {@code view} next draws. */
+    void measureFirstFrame(LottieAnimationView view, long receivedAtMs) {
+        view.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                view.getViewTreeObserver().removeOnPreDrawListener(this);
+                long elapsed = System.currentTimeMillis() - receivedAtMs;
+                renders++;
+                totalRenderMs += elapsed;
+                maxRenderMs = Math.max(maxRenderMs, elapsed);
+                if (renders % SUMMARY_EVERY_ALERTS == 0) {
+                    Log.d(TAG, String.format("Alert to first frame: n=%d avg=%.1fms max=%dms last=%dms",
+                            renders, (double) totalRenderMs / renders, maxRenderMs, elapsed));
+                }
+                return true;
+            }
+        });
+    }
+}
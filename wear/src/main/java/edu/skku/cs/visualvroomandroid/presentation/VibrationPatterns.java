@@ -0,0 +1,46 @@
+package edu.skku.cs.visualvroomandroid.presentation;
+
+import android.os.VibrationEffect;
+
+/**
+ * Vibration waveforms addressed by the alert frame's pattern id. Effects are built once
+ * per (pattern, intensity) and reused, so an incoming alert goes straight to the vibrator.
+ */
+final class VibrationPatterns {
+    // Index = pattern id; timings at intensity 1 (off, on, off, on, ...)
+    private static final long[][] TIMINGS = {
+            {0, 200},                                    // default buzz
+            {0, 100, 100, 100, 100, 300, 200, 300},      // siren - short pulses, then long
+            {0, 200, 200, 200, 500, 200},                // bike
+            {0, 400, 200, 400},                          // horn
+            {0, 300, 200, 300},                          // left
+            {0, 200, 200, 200},                          // right
+            {0, 300},                                    // single
+            {0, 100, 100, 100},                          // double
+            {0, 100, 50, 100, 50, 100},                  // triple
+            {0, 100, 50, 100, 50, 100, 150, 300, 50, 300, 50, 300, 150, 100, 50, 100, 50, 100} // sos
+    };
+    private static final int MAX_INTENSITY = 3;
+
+    private final VibrationEffect[][] effects = new VibrationEffect[TIMINGS.length][MAX_INTENSITY];
+
+    VibrationPatterns() {
+        for (int p = 0; p < TIMINGS.length; p++) {
+            for (int i = 0; i < MAX_INTENSITY; i++) {
+                long[] scaled = new long[TIMINGS[p].length];
+                for (int k = 0; k < scaled.length; k++) {
+                    scaled[k] = TIMINGS[p][k] * (i + 1);
+                }
+                effects[p][i] = VibrationEffect.createWaveform(scaled, -1);
+            }
+        }
+    }
+
+    /** Intensity 0 means the pattern's own timings; unknown pattern ids fall back to the default buzz. */
+    VibrationEffect effect(int pattern, int intensity) {
+        int p = pattern >= 0 && pattern < TIMINGS.length ? pattern : 0;
+        int i = Math.max(1, Math.min(MAX_INTENSITY, intensity)) - 1;
+        return effects[p][i];
+    }
+
+}
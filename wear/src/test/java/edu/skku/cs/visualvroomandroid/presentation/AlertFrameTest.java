@@ -0,0 +1,84 @@
+package edu.skku.cs.visualvroomandroid.presentation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class AlertFrameTest {
+
+    // What the phone's AlertFrame.encode writes for a siren on the right, pattern 5 at
+    // intensity 2, sequence 0x01020304, timestamp 0x18F2A3B4C5D; its AlertFrameTest
+    // checks the same bytes
+    private static final byte[] GOLDEN = {
+            'V', 1, 1, 2, 5, 2,
+            0x01, 0x02, 0x03, 0x04,
+            0x00, 0x00, 0x01, (byte) 0x8F, 0x2A, 0x3B, 0x4C, 0x5D
+    };
+
+    @Test
+    public void decodesThePhonesFrame() {
+        AlertFrame frame = new AlertFrame();
+        assertTrue(frame.decode(GOLDEN));
+        assertEquals(AlertFrame.TYPE_SIREN, frame.type);
+        assertEquals(AlertFrame.DIRECTION_RIGHT, frame.direction);
+        assertEquals(5, frame.pattern);
+        assertEquals(2, frame.intensity);
+        assertEquals(0x01020304, frame.sequence);
+        assertEquals(0x18F2A3B4C5DL, frame.timestampMs);
+    }
+
+    @Test
+    public void everyTypeAndDirectionId() {
+        int[] types = {AlertFrame.TYPE_UNKNOWN, AlertFrame.TYPE_SIREN, AlertFrame.TYPE_BIKE, AlertFrame.TYPE_HORN};
+        int[] directions = {AlertFrame.DIRECTION_UNKNOWN, AlertFrame.DIRECTION_LEFT, AlertFrame.DIRECTION_RIGHT};
+        AlertFrame frame = new AlertFrame();
+        for (int type : types) {
+            for (int direction : directions) {
+                byte[] data = GOLDEN.clone();
+                data[2] = (byte) type;
+                data[3] = (byte) direction;
+                assertTrue(frame.decode(data));
+                assertEquals(type, frame.type);
+                assertEquals(direction, frame.direction);
+            }
+        }
+    }
+
+    @Test
+    public void signBitsSurvive() {
+        byte[] data = GOLDEN.clone();
+        Arrays.fill(data, 6, 18, (byte) 0xff);
+        AlertFrame frame = new AlertFrame();
+        assertTrue(frame.decode(data));
+        assertEquals(-1, frame.sequence);
+        assertEquals(-1L, frame.timestampMs);
+    }
+
+    @Test
+    public void rejectsTruncatedOrForeignFramesWithoutTouchingFields() {
+        AlertFrame frame = new AlertFrame();
+        assertTrue(frame.decode(GOLDEN));
+
+        byte[] wrongMagic = GOLDEN.clone();
+        wrongMagic[0] = '{';
+        byte[] newerVersion = GOLDEN.clone();
+        newerVersion[1] = 2;
+        byte[] other = GOLDEN.clone();
+        other[2] = (byte) AlertFrame.TYPE_HORN;
+        other[3] = (byte) AlertFrame.DIRECTION_LEFT;
+        byte[] truncated = Arrays.copyOf(other, AlertFrame.LENGTH - 1);
+
+        assertFalse(frame.decode(null));
+        assertFalse(frame.decode(new byte[0]));
+        assertFalse(frame.decode(truncated));
+        assertFalse(frame.decode(wrongMagic));
+        assertFalse(frame.decode(newerVersion));
+
+        assertEquals(AlertFrame.TYPE_SIREN, frame.type);
+        assertEquals(AlertFrame.DIRECTION_RIGHT, frame.direction);
+        assertEquals(0x01020304, frame.sequence);
+        assertEquals(0x18F2A3B4C5DL, frame.timestampMs);
+    }
+}